@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.benchmark;
+
+import javax.jms.ConnectionFactory;
+
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.activemq.broker.BrokerService;
+
+/**
+ * 
+ * Non persistent Apache ActiveMQ broker reached with the "vm://" transport
+ * 
+ * @author Denis Forveille
+ *
+ */
+public class ActiveMQEmbeddedBroker extends EmbeddedBroker {
+
+   private static final String BROKER_NAME = "jtb-benchmark";
+
+   private BrokerService       brokerService;
+
+   @Override
+   public ConnectionFactory start() throws Exception {
+      brokerService = new BrokerService();
+      brokerService.setBrokerName(BROKER_NAME);
+      brokerService.setPersistent(false);
+      brokerService.setUseJmx(false);
+      brokerService.setAdvisorySupport(false);
+      brokerService.setUseShutdownHook(false);
+      brokerService.start();
+      brokerService.waitUntilStarted();
+
+      ActiveMQConnectionFactory cf = new ActiveMQConnectionFactory("vm://" + BROKER_NAME + "?create=false");
+      cf.setTrustAllPackages(true);
+      return cf;
+   }
+
+   @Override
+   public void stop() throws Exception {
+      if (brokerService != null) {
+         brokerService.stop();
+         brokerService.waitUntilStopped();
+         brokerService = null;
+      }
+   }
+
+}
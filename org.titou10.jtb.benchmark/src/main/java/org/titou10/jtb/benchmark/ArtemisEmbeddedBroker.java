@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.benchmark;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.jms.ConnectionFactory;
+
+import org.apache.activemq.artemis.core.config.Configuration;
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
+import org.apache.activemq.artemis.core.remoting.impl.invm.InVMConnector;
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
+import org.apache.activemq.artemis.jms.client.ActiveMQConnectionFactory;
+
+/**
+ * 
+ * Non persistent Apache ActiveMQ Artemis broker reached with the in-vm acceptor
+ * 
+ * @author Denis Forveille
+ *
+ */
+public class ArtemisEmbeddedBroker extends EmbeddedBroker {
+
+   private static final String       IN_VM_URL     = "vm://0";
+
+   // The audit loggers trace every message sent. Strong references, as java.util.logging keeps only weak ones
+   private static final Logger[]     AUDIT_LOGGERS = { Logger.getLogger("org.apache.activemq.audit.base"),
+                                                       Logger.getLogger("org.apache.activemq.audit.message"),
+                                                       Logger.getLogger("org.apache.activemq.audit.resource") };
+
+   private EmbeddedActiveMQ          server;
+   private ActiveMQConnectionFactory cf;
+
+   @Override
+   public ConnectionFactory start() throws Exception {
+      for (Logger logger : AUDIT_LOGGERS) {
+         logger.setLevel(Level.WARNING);
+      }
+
+      Configuration config = new ConfigurationImpl();
+      config.setPersistenceEnabled(false);
+      config.setSecurityEnabled(false);
+      config.setJMXManagementEnabled(false);
+      config.addAcceptorConfiguration("in-vm", IN_VM_URL);
+
+      server = new EmbeddedActiveMQ();
+      server.setConfiguration(config);
+      server.start();
+
+      cf = new ActiveMQConnectionFactory(IN_VM_URL);
+      return cf;
+   }
+
+   @Override
+   public void stop() throws Exception {
+      // The client thread pools are released with the factory
+      if (cf != null) {
+         cf.close();
+         cf = null;
+      }
+      if (server != null) {
+         server.stop();
+         server = null;
+      }
+      // The in-vm connections share a static pool of non daemon threads that would keep the JVM alive
+      InVMConnector.resetThreadPool();
+   }
+
+}
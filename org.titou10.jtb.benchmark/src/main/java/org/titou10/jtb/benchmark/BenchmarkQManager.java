@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.benchmark;
+
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import javax.jms.Connection;
+import javax.jms.ConnectionFactory;
+import javax.jms.JMSException;
+
+import org.titou10.jtb.config.gen.SessionDef;
+import org.titou10.jtb.jms.qm.DestinationData;
+import org.titou10.jtb.jms.qm.QManager;
+import org.titou10.jtb.jms.qm.QueueData;
+import org.titou10.jtb.jms.qm.TopicData;
+
+/**
+ * 
+ * Q Manager connecting to an embedded broker. The queues "discovered" are the ones given to the constructor
+ * 
+ * @author Denis Forveille
+ *
+ */
+public class BenchmarkQManager extends QManager {
+
+   private final ConnectionFactory cf;
+   private final String[]          queueNames;
+
+   public BenchmarkQManager(String name, ConnectionFactory cf, String... queueNames) {
+      this.cf = cf;
+      this.queueNames = queueNames;
+      setName(name);
+   }
+
+   @Override
+   public Connection connect(SessionDef sessionDef, boolean showSystemObjects, String clientID) throws Exception {
+      Connection jmsConnection = cf.createConnection();
+      jmsConnection.setClientID(clientID);
+      jmsConnection.start();
+      return jmsConnection;
+   }
+
+   @Override
+   public DestinationData discoverDestinations(Connection jmsConnection, boolean showSystemObjects) throws Exception {
+      SortedSet<QueueData> listQueueData = new TreeSet<>();
+      for (String queueName : queueNames) {
+         listQueueData.add(new QueueData(queueName));
+      }
+      return new DestinationData(listQueueData, new TreeSet<TopicData>());
+   }
+
+   @Override
+   public void close(Connection jmsConnection) throws JMSException {
+      jmsConnection.close();
+   }
+
+}
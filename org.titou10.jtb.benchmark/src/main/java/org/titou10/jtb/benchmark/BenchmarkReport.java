@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.benchmark;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import javax.json.JsonValue;
+
+/**
+ * 
+ * Builds a markdown report from the JSON results of JMH ("-rf json")
+ * 
+ * With a second result file, typically the one of a previous version, the report shows the change of each score
+ * 
+ * Usage: BenchmarkReport <results.json> [<baseline results.json>]
+ * 
+ * @author Denis Forveille
+ *
+ */
+public final class BenchmarkReport {
+
+   private BenchmarkReport() {
+      // Main class
+   }
+
+   public static void main(String[] args) throws IOException {
+      if ((args.length < 1) || (args.length > 2)) {
+         System.err.println("Usage: BenchmarkReport <results.json> [<baseline results.json>]");
+         System.exit(1);
+      }
+
+      // An empty baseline is accepted, for the maven "run" profile without baseline
+      String baselineName = ((args.length == 2) && (!args[1].isBlank())) ? args[1] : null;
+
+      Map<String, Result> results = readResults(args[0]);
+      Map<String, Result> baseline = baselineName == null ? null : readResults(baselineName);
+
+      System.out.println(buildReport(args[0], results, baselineName, baseline));
+   }
+
+   static String buildReport(String resultsName, Map<String, Result> results, String baselineName, Map<String, Result> baseline) {
+      StringBuilder sb = new StringBuilder(4096);
+      sb.append("# JMSToolBox benchmarks\n\n");
+      sb.append("Results: ").append(resultsName).append("\n");
+      if (baseline != null) {
+         sb.append("Baseline: ").append(baselineName).append("\n");
+      }
+      sb.append("\n");
+
+      if (baseline == null) {
+         sb.append("| Benchmark | Parameters | Score | Error | Units |\n");
+         sb.append("|---|---|---:|---:|---|\n");
+      } else {
+         sb.append("| Benchmark | Parameters | Score | Error | Baseline | Change | Units |\n");
+         sb.append("|---|---|---:|---:|---:|---:|---|\n");
+      }
+
+      for (Entry<String, Result> e : results.entrySet()) {
+         Result r = e.getValue();
+         sb.append("| ").append(r.benchmark);
+         sb.append(" | ").append(r.params);
+         sb.append(" | ").append(String.format("%.3f", r.score));
+         sb.append(" | ").append(String.format("%.3f", r.error));
+         if (baseline != null) {
+            Result b = baseline.get(e.getKey());
+            if (b == null) {
+               sb.append(" | - | new");
+            } else {
+               sb.append(" | ").append(String.format("%.3f", b.score));
+               sb.append(" | ").append(formatChange(r, b));
+            }
+         }
+         sb.append(" | ").append(r.unit);
+         sb.append(" |\n");
+      }
+
+      if (baseline != null) {
+         sb.append("\nA change is flagged when the difference is greater than the sum of the errors of both runs. ");
+         sb.append("For time units lower is better, for throughput units higher is better.\n");
+      }
+
+      return sb.toString();
+   }
+
+   // ------------------------
+   // Helpers
+   // ------------------------
+
+   private static String formatChange(Result r, Result b) {
+      if (b.score == 0) {
+         return "-";
+      }
+      double pct = (r.score - b.score) * 100 / b.score;
+      String change = String.format("%+.1f%%", pct);
+      if (Math.abs(r.score - b.score) <= r.error + b.error) {
+         return change;
+      }
+      boolean better = r.unit.endsWith("/op") ? r.score < b.score : r.score > b.score;
+      return change + (better ? " (faster)" : " (slower)");
+   }
+
+   static Map<String, Result> readResults(String fileName) throws IOException {
+      Map<String, Result> results = new LinkedHashMap<>();
+      try (Reader reader = new FileReader(fileName); JsonReader jr = Json.createReader(reader);) {
+         JsonArray runs = jr.readArray();
+         for (JsonValue v : runs) {
+            JsonObject run = (JsonObject) v;
+
+            Result r = new Result();
+            r.benchmark = simpleName(run.getString("benchmark"));
+            r.params = buildParams(run.getJsonObject("params"));
+
+            JsonObject metric = run.getJsonObject("primaryMetric");
+            r.score = metric.getJsonNumber("score").doubleValue();
+            // JMH writes "NaN" when there is only one iteration
+            JsonValue error = metric.get("scoreError");
+            r.error = error.getValueType() == JsonValue.ValueType.NUMBER ? metric.getJsonNumber("scoreError").doubleValue() : 0;
+            r.unit = metric.getString("scoreUnit");
+
+            results.put(r.benchmark + " " + r.params, r);
+         }
+      }
+      return results;
+   }
+
+   // org.titou10.jtb.benchmark.QueueBenchmark.browseQueue -> QueueBenchmark.browseQueue
+   private static String simpleName(String benchmark) {
+      int n = benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1);
+      return benchmark.substring(n + 1);
+   }
+
+   private static String buildParams(JsonObject params) {
+      if (params == null) {
+         return "";
+      }
+      StringBuilder sb = new StringBuilder(64);
+      for (Entry<String, JsonValue> e : params.entrySet()) {
+         if (sb.length() > 0) {
+            sb.append(", ");
+         }
+         sb.append(e.getKey()).append("=").append(params.getString(e.getKey()));
+      }
+      return sb.toString();
+   }
+
+   // ------------------------
+   // Result of one benchmark
+   // ------------------------
+
+   static final class Result {
+      String benchmark;
+      String params;
+      double score;
+      double error;
+      String unit;
+   }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.benchmark;
+
+import java.util.Arrays;
+
+import javax.jms.ConnectionFactory;
+import javax.jms.JMSException;
+import javax.jms.TextMessage;
+
+import org.titou10.jtb.config.JTBPreferenceStore;
+import org.titou10.jtb.config.gen.SessionDef;
+import org.titou10.jtb.jms.model.JTBBatchSender;
+import org.titou10.jtb.jms.model.JTBConnection;
+import org.titou10.jtb.jms.model.JTBDestination;
+import org.titou10.jtb.jms.model.JTBMessage;
+import org.titou10.jtb.jms.model.JTBMessageType;
+import org.titou10.jtb.jms.model.JTBQueue;
+import org.titou10.jtb.jms.model.JTBSessionClientType;
+import org.titou10.jtb.util.Constants;
+
+/**
+ * 
+ * Builds the objects normally created by the application (preferences, sessions, messages) for the benchmarks
+ * 
+ * @author Denis Forveille
+ *
+ */
+public final class BenchmarkSupport {
+
+   public static final String SESSION_NAME = "benchmark";
+
+   private BenchmarkSupport() {
+      // Utility class
+   }
+
+   // Preference store with the default values, not backed by a file
+   public static JTBPreferenceStore buildPreferenceStore() {
+      JTBPreferenceStore ps = new JTBPreferenceStore();
+      ps.setDefault(Constants.PREF_SHOW_SYSTEM_OBJECTS, Constants.PREF_SHOW_SYSTEM_OBJECTS_DEFAULT);
+      ps.setDefault(Constants.PREF_CONN_CLIENT_ID_PREFIX, Constants.PREF_CONN_CLIENT_ID_PREFIX_DEFAULT);
+      ps.setDefault(Constants.PREF_XML_INDENT, Constants.PREF_XML_INDENT_DEFAULT);
+      return ps;
+   }
+
+   // Connected JTBConnection to the broker, exposing the given queues
+   public static JTBConnection connect(String brokerKind, ConnectionFactory cf, String... queueNames) throws Exception {
+      SessionDef sessionDef = new SessionDef();
+      sessionDef.setName(SESSION_NAME);
+      sessionDef.setQManagerDef(brokerKind);
+
+      BenchmarkQManager qm = new BenchmarkQManager(brokerKind, cf, queueNames);
+
+      JTBConnection jtbConnection = new JTBConnection(buildPreferenceStore(), JTBSessionClientType.GUI, sessionDef, qm, null);
+      jtbConnection.connect();
+      return jtbConnection;
+   }
+
+   public static JTBQueue getQueue(JTBConnection jtbConnection, String queueName) {
+      JTBDestination jtbDestination = jtbConnection.getJTBDestinationByName(queueName);
+      if (jtbDestination == null) {
+         throw new IllegalStateException("Queue '" + queueName + "' not found in session " + SESSION_NAME);
+      }
+      return jtbDestination.getAsJTBQueue();
+   }
+
+   // Text message with a payload of "payloadSize" characters
+   public static JTBMessage buildTextMessage(JTBConnection jtbConnection, JTBDestination jtbDestination, int payloadSize) throws JMSException {
+      TextMessage message = (TextMessage) jtbConnection.createJMSMessage(JTBMessageType.TEXT);
+      message.setText(buildPayload(payloadSize));
+      message.setStringProperty("benchmarkString", "value");
+      message.setIntProperty("benchmarkInt", 42);
+      return new JTBMessage(jtbDestination, message);
+   }
+
+   // Put "count" messages in the queue, committed once
+   public static void fill(JTBConnection jtbConnection, JTBQueue jtbQueue, JTBMessage jtbMessage, int count) throws JMSException {
+      try (JTBBatchSender sender = jtbConnection.createBatchSender()) {
+         for (int i = 0; i < count; i++) {
+            sender.send(jtbMessage, jtbQueue);
+         }
+         sender.commit();
+      }
+   }
+
+   public static String buildPayload(int size) {
+      char[] chars = new char[size];
+      Arrays.fill(chars, 'x');
+      return new String(chars);
+   }
+
+}
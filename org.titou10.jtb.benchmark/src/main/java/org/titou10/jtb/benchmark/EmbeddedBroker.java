@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.benchmark;
+
+import javax.jms.ConnectionFactory;
+
+/**
+ * 
+ * A JMS broker started in the JVM of the benchmark
+ * 
+ * @author Denis Forveille
+ *
+ */
+public abstract class EmbeddedBroker {
+
+   public static final String ACTIVEMQ = "activemq";
+   public static final String ARTEMIS  = "artemis";
+
+   // ------------------------
+   // Factory
+   // ------------------------
+
+   public static EmbeddedBroker create(String kind) {
+      switch (kind) {
+         case ACTIVEMQ:
+            return new ActiveMQEmbeddedBroker();
+         case ARTEMIS:
+            return new ArtemisEmbeddedBroker();
+         default:
+            throw new IllegalArgumentException("Unknown broker kind '" + kind + "'. Valid kinds: " + ACTIVEMQ + ", " + ARTEMIS);
+      }
+   }
+
+   // ------------------------
+   // Contract
+   // ------------------------
+
+   // Start the broker and return a factory for in-vm connections to it
+   public abstract ConnectionFactory start() throws Exception;
+
+   public abstract void stop() throws Exception;
+
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.titou10.jtb.config.JTBPreferenceStore;
+import org.titou10.jtb.util.FormatUtils;
+
+/**
+ * 
+ * XML and JSON pretty formatting of payloads, as done when displaying a message
+ * 
+ * @author Denis Forveille
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FormatBenchmark {
+
+   // Number of records in the documents
+   @Param({ "10", "1000" })
+   public int                 records;
+
+   private JTBPreferenceStore ps;
+   private String             xml;
+   private String             json;
+
+   @Setup
+   public void setup() {
+      ps = BenchmarkSupport.buildPreferenceStore();
+
+      StringBuilder sbXml = new StringBuilder(records * 128);
+      StringBuilder sbJson = new StringBuilder(records * 128);
+      sbXml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?><orders>");
+      sbJson.append("{\"orders\":[");
+      for (int i = 0; i < records; i++) {
+         sbXml.append("<order id=\"").append(i).append("\"><customer>customer").append(i);
+         sbXml.append("</customer><amount>").append(i * 10).append(".25</amount><status>OPEN</status></order>");
+
+         if (i > 0) {
+            sbJson.append(',');
+         }
+         sbJson.append("{\"id\":").append(i).append(",\"customer\":\"customer").append(i);
+         sbJson.append("\",\"amount\":").append(i * 10).append(".25,\"status\":\"OPEN\",\"tags\":[\"a\",\"b\"]}");
+      }
+      sbXml.append("</orders>");
+      sbJson.append("]}");
+
+      xml = sbXml.toString();
+      json = sbJson.toString();
+   }
+
+   @Benchmark
+   public String xmlPrettyFormat() {
+      return FormatUtils.xmlPrettyFormat(ps, xml, false);
+   }
+
+   @Benchmark
+   public String jsonPrettyFormat() {
+      return FormatUtils.jsonPrettyFormat(json, false);
+   }
+
+}
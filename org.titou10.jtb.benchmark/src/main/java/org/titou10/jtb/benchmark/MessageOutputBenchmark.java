@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+
+import org.apache.activemq.command.ActiveMQBytesMessage;
+import org.apache.activemq.command.ActiveMQMapMessage;
+import org.apache.activemq.command.ActiveMQTextMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.titou10.jtb.connector.transport.MessageOutput;
+import org.titou10.jtb.jms.model.JTBMessage;
+
+/**
+ * 
+ * Conversion of a JMS message to the MessageOutput returned by the connectors (REST)
+ * 
+ * The JMS messages are ActiveMQ client messages built without a broker
+ * 
+ * @author Denis Forveille
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MessageOutputBenchmark {
+
+   @Param({ "TEXT", "BYTES", "MAP" })
+   public String      messageType;
+
+   @Param({ "1024" })
+   public int         payloadSize;
+
+   private JTBMessage jtbMessage;
+
+   @Setup
+   public void setup() throws Exception {
+      Message message = buildMessage();
+      message.setJMSMessageID("ID:jtb-benchmark-1");
+      message.setJMSCorrelationID("correlation-id");
+      message.setJMSTimestamp(System.currentTimeMillis());
+      message.setJMSType("benchmark");
+      for (int i = 0; i < 10; i++) {
+         message.setStringProperty("property" + i, "value" + i);
+      }
+      jtbMessage = new JTBMessage(null, message);
+   }
+
+   @Benchmark
+   public MessageOutput messageOutput() throws JMSException {
+      return new MessageOutput(jtbMessage, null);
+   }
+
+   private Message buildMessage() throws JMSException {
+      switch (messageType) {
+         case "TEXT":
+            ActiveMQTextMessage tm = new ActiveMQTextMessage();
+            tm.setText(BenchmarkSupport.buildPayload(payloadSize));
+            return tm;
+
+         case "BYTES":
+            ActiveMQBytesMessage bm = new ActiveMQBytesMessage();
+            bm.writeBytes(new byte[payloadSize]);
+            bm.reset();
+            return bm;
+
+         case "MAP":
+            ActiveMQMapMessage mm = new ActiveMQMapMessage();
+            for (int i = 0; i < payloadSize / 32; i++) {
+               mm.setString("key" + i, "value" + i);
+            }
+            return mm;
+
+         default:
+            throw new IllegalArgumentException("Unknown message type '" + messageType + "'");
+      }
+   }
+
+}
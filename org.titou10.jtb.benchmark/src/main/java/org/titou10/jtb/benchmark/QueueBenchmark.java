@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.jms.ConnectionFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.titou10.jtb.jms.model.JTBConnection;
+import org.titou10.jtb.jms.model.JTBMessage;
+import org.titou10.jtb.jms.model.JTBQueue;
+
+/**
+ * 
+ * JTBConnection operations on queues against an embedded broker
+ * 
+ * removeFirstMessages and emptyQueue drain a queue that is refilled before each invocation, outside of the measured time. Both
+ * include the receive timeout that ends the draining
+ * 
+ * @author Denis Forveille
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueueBenchmark {
+
+   private static final String BROWSE_QUEUE = "JTB.BENCHMARK.BROWSE";
+   private static final String SEND_QUEUE   = "JTB.BENCHMARK.SEND";
+   private static final String DRAIN_QUEUE  = "JTB.BENCHMARK.DRAIN";
+
+   // ------------------------
+   // States
+   // ------------------------
+
+   @State(Scope.Benchmark)
+   public static class Session {
+
+      @Param({ EmbeddedBroker.ACTIVEMQ, EmbeddedBroker.ARTEMIS })
+      public String  broker;
+
+      // Number of messages in the queues browsed or drained
+      @Param({ "500" })
+      public int     messages;
+
+      @Param({ "1024" })
+      public int     payloadSize;
+
+      EmbeddedBroker embeddedBroker;
+      JTBConnection  jtbConnection;
+      JTBQueue       browseQueue;
+      JTBQueue       sendQueue;
+      JTBQueue       drainQueue;
+      JTBMessage     jtbMessage;
+
+      @Setup(Level.Trial)
+      public void setup() throws Exception {
+         embeddedBroker = EmbeddedBroker.create(broker);
+         ConnectionFactory cf = embeddedBroker.start();
+
+         jtbConnection = BenchmarkSupport.connect(broker, cf, BROWSE_QUEUE, SEND_QUEUE, DRAIN_QUEUE);
+         browseQueue = BenchmarkSupport.getQueue(jtbConnection, BROWSE_QUEUE);
+         sendQueue = BenchmarkSupport.getQueue(jtbConnection, SEND_QUEUE);
+         drainQueue = BenchmarkSupport.getQueue(jtbConnection, DRAIN_QUEUE);
+
+         jtbMessage = BenchmarkSupport.buildTextMessage(jtbConnection, sendQueue, payloadSize);
+
+         BenchmarkSupport.fill(jtbConnection, browseQueue, jtbMessage, messages);
+      }
+
+      @TearDown(Level.Trial)
+      public void tearDown() throws Exception {
+         jtbConnection.disconnect();
+         embeddedBroker.stop();
+      }
+   }
+
+   // Keeps the queue receiving the messages sent from growing during the run
+   @State(Scope.Benchmark)
+   public static class SentQueue {
+
+      @TearDown(Level.Iteration)
+      public void purge(Session session) throws Exception {
+         session.jtbConnection.emptyQueue(session.sendQueue);
+      }
+   }
+
+   // Queue filled with "messages" messages before each invocation
+   @State(Scope.Benchmark)
+   public static class FilledQueue {
+
+      @Setup(Level.Invocation)
+      public void fill(Session session) throws Exception {
+         BenchmarkSupport.fill(session.jtbConnection, session.drainQueue, session.jtbMessage, session.messages);
+      }
+   }
+
+   // ------------------------
+   // Benchmarks
+   // ------------------------
+
+   @Benchmark
+   public List<JTBMessage> browseQueue(Session session) throws Exception {
+      return session.jtbConnection.browseQueue(session.browseQueue, session.messages);
+   }
+
+   @Benchmark
+   public JTBMessage sendMessage(Session session, SentQueue sentQueue) throws Exception {
+      session.jtbConnection.sendMessage(session.jtbMessage, session.sendQueue);
+      return session.jtbMessage;
+   }
+
+   @Benchmark
+   public List<JTBMessage> removeFirstMessages(Session session, FilledQueue filledQueue) throws Exception {
+      return session.jtbConnection.removeFirstMessages(session.drainQueue, session.messages);
+   }
+
+   @Benchmark
+   public int emptyQueue(Session session, FilledQueue filledQueue) throws Exception {
+      return session.jtbConnection.emptyQueue(session.drainQueue);
+   }
+
+}
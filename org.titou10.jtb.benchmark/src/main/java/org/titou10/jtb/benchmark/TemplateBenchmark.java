@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.benchmark;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.titou10.jtb.jms.model.JTBMessageTemplate;
+import org.titou10.jtb.jms.model.JTBMessageType;
+import org.titou10.jtb.jms.model.JTBProperty;
+import org.titou10.jtb.jms.qm.JMSPropertyKind;
+import org.titou10.jtb.jms.util.JTBDeliveryMode;
+import org.titou10.jtb.util.Constants;
+import org.titou10.jtb.variable.VariablesManager;
+import org.titou10.jtb.variable.gen.Variable;
+import org.titou10.jtb.variable.gen.VariableDateTimeKind;
+import org.titou10.jtb.variable.gen.VariableStringKind;
+
+/**
+ * 
+ * Templates: cloning, and replacement of the variables in the payload
+ * 
+ * @author Denis Forveille
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TemplateBenchmark {
+
+   // Size of the text around the variables
+   @Param({ "1024", "65536" })
+   public int                 payloadSize;
+
+   private JTBMessageTemplate template;
+   private VariablesManager   variablesManager;
+   private String             textWithVariables;
+
+   @Setup
+   public void setup() throws Exception {
+      String payload = BenchmarkSupport.buildPayload(payloadSize);
+
+      template = new JTBMessageTemplate();
+      template.setJtbMessageType(JTBMessageType.TEXT);
+      template.setPayloadText(payload);
+      template.setJmsType("benchmark");
+      template.setJmsCorrelationID("correlation-id");
+      template.setPriority(4);
+      template.setTimeToLive(60000L);
+      template.setDeliveryMode(JTBDeliveryMode.PERSISTENT);
+      template.setReplyToDestinationName("JTB.BENCHMARK.REPLY");
+      List<JTBProperty> properties = new ArrayList<>();
+      for (int i = 0; i < 10; i++) {
+         properties.add(new JTBProperty("property" + i, "value" + i, JMSPropertyKind.STRING));
+      }
+      template.setJtbProperties(properties);
+
+      // The VariablesManager is normally injected and loads its variables from the config file
+      variablesManager = new VariablesManager();
+      List<Variable> variables = new ArrayList<>();
+      variables.add(variablesManager.buildDateVariable(true,
+                                                       "currentTimestamp",
+                                                       VariableDateTimeKind.STANDARD,
+                                                       Constants.TS_FORMAT,
+                                                       null,
+                                                       null,
+                                                       null,
+                                                       null));
+      variables.add(variablesManager.buildIntVariable(true, "int", 0, 100000));
+      variables.add(variablesManager.buildStringVariable(true, "string", VariableStringKind.ALPHANUMERIC, 16, null));
+      variables.add(variablesManager.buildListVariable(false, "country", Arrays.asList("CA", "FR", "US", "JP")));
+      variables.add(variablesManager.buildStringVariable(false, "unused", VariableStringKind.NUMERIC, 8, null));
+      Field f = VariablesManager.class.getDeclaredField("variables");
+      f.setAccessible(true);
+      f.set(variablesManager, variables);
+
+      int half = payloadSize / 2;
+      textWithVariables = payload.substring(0, half) + "<ts>${currentTimestamp}</ts><id>${int}</id><key>${string}</key><c>${country}</c>"
+                          + payload.substring(half) + "<id2>${int}</id2>";
+   }
+
+   @Benchmark
+   public JTBMessageTemplate deepClone() {
+      return JTBMessageTemplate.deepClone(template);
+   }
+
+   @Benchmark
+   public String replaceTemplateVariables() {
+      return variablesManager.replaceTemplateVariables(textWithVariables);
+   }
+
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.jms.model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * 
+ * Tests of Histogram: buckets, percentiles and summary values
+ * 
+ * @author Denis Forveille
+ *
+ */
+public class HistogramTest {
+
+   @Test
+   public void valuesGoToTheFirstBucketThatHoldsThem() {
+      Histogram h = new Histogram(new long[] { 10L, 100L, 1000L });
+      for (long v : new long[] { 0L, 10L, 11L, 100L, 1000L, 1001L, 5000L }) {
+         h.add(v);
+      }
+
+      // Upper bounds are inclusive, the last bucket holds the values above the last bound
+      assertArrayEquals(new long[] { 2L, 2L, 1L, 2L }, h.getCounts());
+      assertEquals(7, h.getCount());
+      assertEquals(0, h.getMin());
+      assertEquals(5000, h.getMax());
+      assertEquals(0 + 10 + 11 + 100 + 1000 + 1001 + 5000, h.getSum());
+   }
+
+   @Test
+   public void percentilesAreTheUpperBoundOfTheirBucket() {
+      Histogram h = new Histogram(new long[] { 10L, 100L, 1000L });
+      for (int i = 0; i < 50; i++) {
+         h.add(5L);
+      }
+      for (int i = 0; i < 40; i++) {
+         h.add(50L);
+      }
+      for (int i = 0; i < 9; i++) {
+         h.add(500L);
+      }
+      h.add(3000L);
+
+      assertEquals(10L, h.getPercentileBound(0.5));
+      assertEquals(100L, h.getPercentileBound(0.9));
+      assertEquals(1000L, h.getPercentileBound(0.99));
+      // Values above the last bound: the max is the best bound known
+      assertEquals(3000L, h.getPercentileBound(1.0));
+   }
+
+   @Test
+   public void percentilesNeverExceedTheMax() {
+      Histogram h = new Histogram(new long[] { 10L, 100L, 1000L });
+      h.add(20L);
+      h.add(30L);
+
+      assertEquals(30L, h.getPercentileBound(0.5));
+   }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.jms.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * 
+ * Tests of HyperLogLog: error of the estimate on known cardinalities
+ * 
+ * @author Denis Forveille
+ *
+ */
+public class HyperLogLogTest {
+
+   // Standard error with 2^P registers
+   private static final double STD_ERROR = 1.04 / Math.sqrt(1 << HyperLogLog.P);
+
+   @Test
+   public void emptySketch() {
+      assertEquals(0, new HyperLogLog().estimate());
+   }
+
+   @Test
+   public void smallCardinalities() {
+      // Linear counting range
+      assertWithinError(1_000, 3 * STD_ERROR);
+   }
+
+   @Test
+   public void largeCardinalities() {
+      assertWithinError(100_000, 3 * STD_ERROR);
+      assertWithinError(1_000_000, 3 * STD_ERROR);
+   }
+
+   @Test
+   public void duplicatesAreNotCounted() {
+      HyperLogLog hll = new HyperLogLog();
+      for (int i = 0; i < 10_000; i++) {
+         hll.add("ID:" + i);
+      }
+      long estimate = hll.estimate();
+      for (int r = 0; r < 5; r++) {
+         for (int i = 0; i < 10_000; i++) {
+            hll.add("ID:" + i);
+         }
+      }
+      assertEquals(estimate, hll.estimate());
+   }
+
+   // -------
+   // Helpers
+   // -------
+
+   private static void assertWithinError(int n, double maxError) {
+      HyperLogLog hll = new HyperLogLog();
+      for (int i = 0; i < n; i++) {
+         hll.add("ID:414d5120514d31202020202020202020" + i);
+      }
+      long estimate = hll.estimate();
+      double error = Math.abs(estimate - n) / (double) n;
+      assertTrue(String.format("n=%d estimate=%d error=%.4f", n, estimate, error), error <= maxError);
+   }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.jms.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * 
+ * Tests of TopValues: exact counts under the capacity, Space-Saving guarantees on a skewed stream, truncation of the values
+ * 
+ * @author Denis Forveille
+ *
+ */
+public class TopValuesTest {
+
+   private static final int CAPACITY = 100;
+
+   @Test
+   public void countsAreExactUnderTheCapacity() {
+      TopValues tv = new TopValues(CAPACITY, 80);
+      for (int i = 0; i < 50; i++) {
+         for (int j = 0; j <= i; j++) {
+            tv.add("v" + i);
+         }
+      }
+      tv.add(null);
+
+      List<TopValues.Entry> top = tv.getTop(3);
+      assertEquals(3, top.size());
+      assertEquals("v49", top.get(0).value);
+      assertEquals(50, top.get(0).count);
+      assertEquals(0, top.get(0).error);
+      assertEquals("v48", top.get(1).value);
+      assertEquals("v47", top.get(2).value);
+
+      assertEquals(50 * 51 / 2, tv.getNbSet());
+      assertEquals(1, tv.getNbNotSet());
+      assertEquals(50, tv.getDistinctEstimate());
+   }
+
+   @Test
+   public void heavyHittersAreFoundInASkewedStream() {
+      TopValues tv = new TopValues(CAPACITY, 80);
+
+      // 10 frequent values, 1,000 times each, mixed with 5,000 values seen once
+      int nbHeavy = 10;
+      int nbRounds = 1_000;
+      int nbRarePerRound = 5;
+      int rare = 0;
+      for (int r = 0; r < nbRounds; r++) {
+         for (int h = 0; h < nbHeavy; h++) {
+            tv.add("heavy-" + h);
+         }
+         for (int i = 0; i < nbRarePerRound; i++) {
+            tv.add("rare-" + rare++);
+         }
+      }
+      long n = tv.getNbSet();
+
+      // Space-Saving: each value seen more than N/capacity times is kept, and the count is over-estimated by at most N/capacity
+      List<TopValues.Entry> top = tv.getTop(nbHeavy);
+      Set<String> values = new HashSet<>();
+      for (TopValues.Entry e : top) {
+         values.add(e.value);
+         assertTrue(e.value + ": " + e.error, e.error <= n / CAPACITY);
+         assertTrue(e.value + ": " + e.count, (e.count - e.error <= nbRounds) && (nbRounds <= e.count));
+      }
+      for (int h = 0; h < nbHeavy; h++) {
+         assertTrue("heavy-" + h, values.contains("heavy-" + h));
+      }
+   }
+
+   @Test
+   public void longValuesAreTruncated() {
+      TopValues tv = new TopValues(CAPACITY, 5);
+      tv.add("1234567");
+      tv.add("1234589");
+
+      List<TopValues.Entry> top = tv.getTop(10);
+      assertEquals(1, top.size());
+      assertEquals("12345...", top.get(0).value);
+      assertEquals(2, top.get(0).count);
+      // The distinct count is computed on the full values
+      assertEquals(2, tv.getDistinctEstimate());
+   }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.jms.qm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.jms.Connection;
+
+import org.junit.Test;
+
+/**
+ * 
+ * Tests of AdminChannelCache: sharing, reference counting, failed opens and re-validation of the channels
+ * 
+ * @author Denis Forveille
+ *
+ */
+public class AdminChannelCacheTest {
+
+   private final AtomicInteger nbOpened = new AtomicInteger();
+   private final List<String>  closed   = new ArrayList<>();
+   private final Set<String>   invalid  = new HashSet<>();
+
+   private final AdminChannelCache<String> cache = new AdminChannelCache<>("test", closed::add, c -> !invalid.contains(c));
+
+   @Test
+   public void sharesTheChannelOfTheSameKey() throws Exception {
+      Connection c1 = newConnection();
+      Connection c2 = newConnection();
+
+      String ch1 = cache.acquire("k", this::open);
+      cache.bind(c1, "k");
+      String ch2 = cache.acquire("k", this::open);
+      cache.bind(c2, "k");
+
+      assertSame(ch1, ch2);
+      assertEquals(1, nbOpened.get());
+      assertSame(ch1, cache.get(c1));
+      assertSame(ch1, cache.get(c2));
+
+      cache.release(c1);
+      assertEquals(0, closed.size());
+      assertSame(ch1, cache.get(c2));
+
+      cache.release(c2);
+      assertEquals(List.of(ch1), closed);
+      assertNull(cache.get(c2));
+   }
+
+   @Test
+   public void opensOneChannelPerKey() throws Exception {
+      String ch1 = cache.acquire("k1", this::open);
+      String ch2 = cache.acquire("k2", this::open);
+
+      assertNotEquals(ch1, ch2);
+      assertEquals(2, nbOpened.get());
+
+      cache.release("k1");
+      assertEquals(List.of(ch1), closed);
+   }
+
+   @Test
+   public void aFailedOpenIsNotCached() throws Exception {
+      try {
+         cache.acquire("k", this::failToOpen);
+         fail("An exception was expected");
+      } catch (IllegalStateException e) {
+         // Expected
+      }
+
+      String ch = cache.acquire("k", this::open);
+      assertEquals("channel-1", ch);
+   }
+
+   @Test
+   public void replacesAnInvalidChannel() throws Exception {
+      Connection c1 = newConnection();
+      Connection c2 = newConnection();
+
+      String ch1 = cache.acquire("k", this::open);
+      cache.bind(c1, "k");
+      invalid.add(ch1);
+
+      String ch2 = cache.acquire("k", this::open);
+      cache.bind(c2, "k");
+
+      assertNotEquals(ch1, ch2);
+      assertEquals(List.of(ch1), closed);
+      assertSame(ch2, cache.get(c1));
+      assertSame(ch2, cache.get(c2));
+
+      // The entry still counts the two users
+      cache.release(c1);
+      cache.release(c2);
+      assertEquals(List.of(ch1, ch2), closed);
+   }
+
+   @Test
+   public void keepsTheChannelInUseWhenTheReopenFails() throws Exception {
+      Connection c1 = newConnection();
+
+      String ch1 = cache.acquire("k", this::open);
+      cache.bind(c1, "k");
+      invalid.add(ch1);
+
+      try {
+         cache.acquire("k", this::failToOpen);
+         fail("An exception was expected");
+      } catch (IllegalStateException e) {
+         // Expected
+      }
+
+      // The connection already bound still has its channel, and is still the only user
+      assertSame(ch1, cache.get(c1));
+      assertEquals(0, closed.size());
+      cache.release(c1);
+      assertEquals(List.of(ch1), closed);
+
+      // A new channel is opened for the next user
+      assertEquals("channel-2", cache.acquire("k", this::open));
+   }
+
+   // -------
+   // Helpers
+   // -------
+
+   private String open() {
+      return "channel-" + nbOpened.incrementAndGet();
+   }
+
+   private String failToOpen() {
+      throw new IllegalStateException("Broker unreachable");
+   }
+
+   private static Connection newConnection() {
+      return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class }, (p, m, a) -> {
+         switch (m.getName()) {
+            case "hashCode":
+               return System.identityHashCode(p);
+            case "equals":
+               return p == a[0];
+            default:
+               throw new UnsupportedOperationException(m.getName());
+         }
+      });
+   }
+}
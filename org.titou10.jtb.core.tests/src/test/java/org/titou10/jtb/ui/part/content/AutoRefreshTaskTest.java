@@ -0,0 +1,210 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.ui.part.content;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.eclipse.e4.ui.di.UISynchronize;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * 
+ * Tests of AutoRefreshTask: scheduling, hidden tabs, one refresh at a time per connection, delay adapted to the refresh duration
+ * 
+ * @author Denis Forveille
+ *
+ */
+public class AutoRefreshTaskTest {
+
+   private static final long           TIMEOUT_SECS = 5L;
+
+   private final ExecutorService       uiThread     = Executors.newSingleThreadExecutor(r -> new Thread(r, "ui"));
+   private final UISynchronize         sync         = new TestUISynchronize();
+   private final List<AutoRefreshTask> tasks        = new ArrayList<>();
+
+   @After
+   public void stopTasks() {
+      for (AutoRefreshTask task : tasks) {
+         task.stop();
+      }
+      uiThread.shutdownNow();
+   }
+
+   @Test
+   public void refreshesAtStartUntilStopped() throws Exception {
+      Semaphore refreshes = new Semaphore(0);
+      AutoRefreshTask task = newTask(new Object(), () -> {
+         refreshes.release();
+         return false;
+      }, () -> true);
+
+      task.start(1);
+      assertTrue(refreshes.tryAcquire(1, TimeUnit.SECONDS));
+      assertTrue(refreshes.tryAcquire(TIMEOUT_SECS, TimeUnit.SECONDS));
+
+      task.stop();
+      assertFalse(task.isActive());
+      refreshes.drainPermits();
+      assertFalse(refreshes.tryAcquire(1_500, TimeUnit.MILLISECONDS));
+   }
+
+   @Test
+   public void hiddenTabsAreRefreshedWhenVisibleAgain() throws Exception {
+      AtomicBoolean visible = new AtomicBoolean(false);
+      AtomicInteger nbVisibleChecks = new AtomicInteger();
+      Semaphore refreshes = new Semaphore(0);
+      AutoRefreshTask task = newTask(new Object(), () -> {
+         refreshes.release();
+         return false;
+      }, () -> {
+         nbVisibleChecks.incrementAndGet();
+         return visible.get();
+      });
+
+      task.start(60);
+      assertFalse(refreshes.tryAcquire(500, TimeUnit.MILLISECONDS));
+      assertEquals(1, nbVisibleChecks.get());
+
+      visible.set(true);
+      task.resume();
+      assertTrue(refreshes.tryAcquire(TIMEOUT_SECS, TimeUnit.SECONDS));
+   }
+
+   @Test
+   public void oneRefreshAtATimePerConnection() throws Exception {
+      Object connection = new Object();
+      Semaphore refreshes1 = new Semaphore(0);
+      Semaphore refreshes2 = new Semaphore(0);
+
+      // The first refresh continues in the background until "refreshDone" is called
+      AutoRefreshTask task1 = newTask(connection, () -> {
+         refreshes1.release();
+         return true;
+      }, () -> true);
+      AutoRefreshTask task2 = newTask(connection, () -> {
+         refreshes2.release();
+         return false;
+      }, () -> true);
+
+      task1.start(60);
+      assertTrue(refreshes1.tryAcquire(TIMEOUT_SECS, TimeUnit.SECONDS));
+      task2.start(60);
+      assertFalse(refreshes2.tryAcquire(1, TimeUnit.SECONDS));
+
+      task1.refreshDone();
+      assertTrue(refreshes2.tryAcquire(TIMEOUT_SECS, TimeUnit.SECONDS));
+   }
+
+   @Test
+   public void slowRefreshesAreSpacedOut() throws Exception {
+      List<Long> starts = new ArrayList<>();
+      Semaphore refreshes = new Semaphore(0);
+      AutoRefreshTask task = newTask(new Object(), () -> {
+         starts.add(System.nanoTime());
+         sleep(200);
+         refreshes.release();
+         return false;
+      }, () -> true);
+
+      // No minimum delay: the next refresh is scheduled 5 times the duration of the last one later
+      task.start(0);
+      assertTrue(refreshes.tryAcquire(2, TIMEOUT_SECS, TimeUnit.SECONDS));
+
+      long intervalMs = TimeUnit.NANOSECONDS.toMillis(starts.get(1) - starts.get(0));
+      assertTrue("Interval: " + intervalMs, intervalMs >= 200 + 900);
+   }
+
+   @Test
+   public void anExceptionDoesNotStopTheRefreshes() throws Exception {
+      Semaphore refreshes = new Semaphore(0);
+      AutoRefreshTask task = newTask(new Object(), () -> {
+         refreshes.release();
+         throw new IllegalStateException("Refresh failed");
+      }, () -> true);
+
+      task.start(1);
+      assertTrue(refreshes.tryAcquire(2, TIMEOUT_SECS, TimeUnit.SECONDS));
+      assertTrue(task.isActive());
+   }
+
+   // -------
+   // Helpers
+   // -------
+
+   private AutoRefreshTask newTask(Object connection, AutoRefreshTask.Refresh refresh, BooleanSupplier visible) {
+      AutoRefreshTask task = new AutoRefreshTask(sync, "test", connection, refresh, visible);
+      tasks.add(task);
+      return task;
+   }
+
+   private static void sleep(long ms) {
+      try {
+         Thread.sleep(ms);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
+   }
+
+   // Runs the "UI" runnables in a single thread
+   private final class TestUISynchronize extends UISynchronize {
+
+      @Override
+      public void syncExec(Runnable runnable) {
+         try {
+            uiThread.submit(runnable).get();
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+         } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+         }
+      }
+
+      @Override
+      public void asyncExec(Runnable runnable) {
+         uiThread.execute(runnable);
+      }
+
+      @Override
+      protected boolean isUIThread(Thread thread) {
+         return "ui".equals(thread.getName());
+      }
+
+      @Override
+      protected void showBusyWhile(Runnable runnable) {
+         runnable.run();
+      }
+
+      @Override
+      protected boolean dispatchEvents() {
+         return false;
+      }
+   }
+}
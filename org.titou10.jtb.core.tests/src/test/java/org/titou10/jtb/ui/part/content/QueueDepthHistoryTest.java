@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.ui.part.content;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+/**
+ * 
+ * Tests of QueueDepthHistory: ring buffer, rates and time to drain
+ * 
+ * @author Denis Forveille
+ *
+ */
+public class QueueDepthHistoryTest {
+
+   private static final double DELTA = 1e-9;
+
+   @Test
+   public void noRateWithLessThanTwoSamples() {
+      QueueDepthHistory h = new QueueDepthHistory();
+      assertNull(h.getEnqueueRate());
+      assertNull(h.getNetRate());
+      assertNull(h.getTimeToDrainSecs());
+
+      h.add(1_000L, 10);
+      assertNull(h.getEnqueueRate());
+      assertNull(h.getDequeueRate());
+      assertNull(h.getNetRate());
+      assertArrayEquals(new int[] { 10 }, h.getDepths());
+   }
+
+   @Test
+   public void ratesAreComputedFromTheVariations() {
+      QueueDepthHistory h = new QueueDepthHistory();
+      h.add(0L, 100);
+      h.add(1_000L, 130); // +30
+      h.add(2_000L, 110); // -20
+      h.add(4_000L, 80); // -30
+
+      assertEquals(30 / 4d, h.getEnqueueRate(), DELTA);
+      assertEquals(50 / 4d, h.getDequeueRate(), DELTA);
+      assertEquals(-20 / 4d, h.getNetRate(), DELTA);
+      // 80 messages at 5 msgs/s
+      assertEquals(Long.valueOf(16L), h.getTimeToDrainSecs());
+   }
+
+   @Test
+   public void noTimeToDrainWhenTheQueueGrows() {
+      QueueDepthHistory h = new QueueDepthHistory();
+      h.add(0L, 10);
+      h.add(1_000L, 20);
+      assertNull(h.getTimeToDrainSecs());
+
+      h = new QueueDepthHistory();
+      h.add(0L, 10);
+      h.add(1_000L, 0);
+      assertEquals(Long.valueOf(0L), h.getTimeToDrainSecs());
+   }
+
+   @Test
+   public void noRateWhenTheSamplesHaveTheSameTimestamp() {
+      QueueDepthHistory h = new QueueDepthHistory();
+      h.add(1_000L, 10);
+      h.add(1_000L, 20);
+      assertNull(h.getEnqueueRate());
+      assertNull(h.getNetRate());
+   }
+
+   @Test
+   public void keepsOnlyTheLastSamples() {
+      QueueDepthHistory h = new QueueDepthHistory();
+      int nb = QueueDepthHistory.CAPACITY + 15;
+      for (int i = 0; i < nb; i++) {
+         h.add(i * 1_000L, i);
+      }
+
+      int[] depths = h.getDepths();
+      assertEquals(QueueDepthHistory.CAPACITY, depths.length);
+      for (int i = 0; i < depths.length; i++) {
+         assertEquals(15 + i, depths[i]);
+      }
+      // +1 message per second over the window of the last samples only
+      assertEquals(1d, h.getEnqueueRate(), DELTA);
+      assertEquals(0d, h.getDequeueRate(), DELTA);
+      assertEquals(1d, h.getNetRate(), DELTA);
+   }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * 
+ * Tests of DebouncedWriter: coalescing of the requests, serialization thread, flush, errors and atomic writes
+ * 
+ * @author Denis Forveille
+ *
+ */
+public class DebouncedWriterTest {
+
+   private static final long     DELAY_MS      = 50L;
+
+   @Rule
+   public TemporaryFolder        tmp           = new TemporaryFolder();
+
+   private final ExecutorService ownerThread   = Executors.newSingleThreadExecutor(r -> new Thread(r, "owner"));
+
+   private final AtomicInteger   version       = new AtomicInteger();
+   private final AtomicInteger   nbSerialized  = new AtomicInteger();
+   private final List<String>    serializedBy  = new CopyOnWriteArrayList<>();
+   private final List<String>    written       = new CopyOnWriteArrayList<>();
+   private final List<Exception> errors        = new CopyOnWriteArrayList<>();
+   private volatile int          nbWriteErrors;
+   private final CountDownLatch  writeLatch    = new CountDownLatch(1);
+   private final CountDownLatch  errorLatch    = new CountDownLatch(1);
+
+   @After
+   public void stopOwnerThread() {
+      ownerThread.shutdownNow();
+   }
+
+   @Test
+   public void coalescesTheRequestsOfTheDelayWindow() throws Exception {
+      DebouncedWriter w = newWriter(ownerThread);
+
+      for (int i = 1; i <= 1000; i++) {
+         version.set(i);
+         w.markDirty();
+      }
+
+      assertTrue(writeLatch.await(5, TimeUnit.SECONDS));
+      assertEquals(1, nbSerialized.get());
+      assertEquals(List.of("1000"), written);
+      assertEquals(List.of("owner"), serializedBy);
+      assertFalse(w.isDirty());
+   }
+
+   @Test
+   public void flushWritesInTheCallingThread() throws Exception {
+      DebouncedWriter w = newWriter(ownerThread);
+
+      version.set(1);
+      w.markDirty();
+      w.flush();
+
+      assertEquals(List.of("1"), written);
+      assertEquals(List.of(Thread.currentThread().getName()), serializedBy);
+      assertFalse(w.isDirty());
+
+      // The write scheduled before the flush has been cancelled
+      Thread.sleep(DELAY_MS * 4);
+      assertEquals(1, nbSerialized.get());
+
+      // Nothing to write
+      w.flush();
+      assertEquals(1, written.size());
+   }
+
+   @Test
+   public void withoutSerializerExecutorOnlyFlushWrites() throws Exception {
+      DebouncedWriter w = newWriter(null);
+
+      version.set(1);
+      w.markDirty();
+      Thread.sleep(DELAY_MS * 4);
+      assertTrue(w.isDirty());
+      assertEquals(0, written.size());
+
+      w.flush();
+      assertEquals(List.of("1"), written);
+   }
+
+   @Test
+   public void aFailedWriteIsRetriedByTheNextFlush() throws Exception {
+      DebouncedWriter w = newWriter(ownerThread);
+      nbWriteErrors = 1;
+
+      version.set(1);
+      w.markDirty();
+
+      assertTrue(errorLatch.await(5, TimeUnit.SECONDS));
+      assertEquals(0, written.size());
+      assertEquals("Disk full", errors.get(0).getMessage());
+      assertTrue(w.isDirty());
+
+      version.set(2);
+      w.flush();
+      assertEquals(List.of("2"), written);
+      assertFalse(w.isDirty());
+   }
+
+   @Test
+   public void writeAtomicallyReplacesTheFile() throws IOException {
+      Path target = tmp.getRoot().toPath().resolve("config.xml");
+      Files.write(target, "old content".getBytes(StandardCharsets.UTF_8));
+
+      byte[] content = "new content".getBytes(StandardCharsets.UTF_8);
+      DebouncedWriter.writeAtomically(target, content);
+
+      assertArrayEquals(content, Files.readAllBytes(target));
+      // The temporary file has been moved
+      assertEquals(1, tmp.getRoot().list().length);
+   }
+
+   // -------
+   // Helpers
+   // -------
+
+   private DebouncedWriter newWriter(ExecutorService serializerExecutor) {
+      return new DebouncedWriter("test", DELAY_MS, () -> {
+         nbSerialized.incrementAndGet();
+         serializedBy.add(Thread.currentThread().getName());
+         return String.valueOf(version.get()).getBytes(StandardCharsets.UTF_8);
+      }, serializerExecutor, content -> {
+         try {
+            if (nbWriteErrors > 0) {
+               nbWriteErrors--;
+               throw new IOException("Disk full");
+            }
+            written.add(new String(content, StandardCharsets.UTF_8));
+         } finally {
+            writeLatch.countDown();
+         }
+      }, e -> {
+         errors.add(e);
+         errorLatch.countDown();
+      });
+   }
+}
@@ -26,13 +26,22 @@ import java.io.UnsupportedEncodingException;
 import java.security.KeyManagementException;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.SortedSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
@@ -87,7 +96,6 @@ import org.osgi.framework.BundleContext;
 import org.osgi.framework.BundleException;
 import org.osgi.framework.FrameworkUtil;
 import org.osgi.framework.Version;
-import org.osgi.framework.wiring.FrameworkWiring;
 import org.osgi.service.event.Event;
 import org.osgi.service.event.EventHandler;
 import org.slf4j.Logger;
@@ -103,11 +111,15 @@ import org.titou10.jtb.dialog.SplashScreenDialog;
 import org.titou10.jtb.ie.ImportExportType;
 import org.titou10.jtb.jms.model.JTBSession;
 import org.titou10.jtb.jms.qm.QManager;
+import org.titou10.jtb.script.ScriptValidationException;
 import org.titou10.jtb.script.ScriptsManager;
+import org.titou10.jtb.script.gen.Script;
+import org.titou10.jtb.script.gen.Step;
 import org.titou10.jtb.sessiontype.SessionTypeManager;
 import org.titou10.jtb.template.TemplatesManager;
 import org.titou10.jtb.ui.JTBStatusReporter;
 import org.titou10.jtb.util.Constants;
+import org.titou10.jtb.util.DebouncedWriter;
 import org.titou10.jtb.util.JarUtils;
 import org.titou10.jtb.util.SLF4JConfigurator;
 import org.titou10.jtb.util.TrustEverythingSSLTrustManager;
@@ -132,6 +144,9 @@ public class ConfigManager {
    private static final String          ENC                   = "UTF-8";
    private static final String          EMPTY_CONFIG_FILE     = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><config></config>";
 
+   // Changes to the config are coalesced and written in the background after this delay
+   private static final long            WRITE_DELAY_MS        = 500L;
+
    // Eclipse services
 
    @Inject
@@ -181,10 +196,16 @@ public class ConfigManager {
    // Business Data
    private Map<String, MetaQManager>    metaQManagers         = new HashMap<>();
    private List<MetaQManager>           installedPlugins      = new ArrayList<>();
-   private List<QManager>               runningQManagers      = new ArrayList<>();
    private List<JTBSession>             jtbSessions           = new ArrayList<>();
    private List<ExternalConnector>      ecWithPreferencePages = new ArrayList<>();
 
+   // Indexes on the names of the sessions, rebuilt each time the sessions are changed
+   private Map<String, SessionDef>      sessionDefsByName     = Collections.emptyMap();
+   private Map<String, JTBSession>      jtbSessionsByName     = Collections.emptyMap();
+
+   private JTBStatusReporter            jtbStatusReporter;
+   private DebouncedWriter              configWriter;
+
    // -----------------
    // Lifecycle Methods
    // -----------------
@@ -195,11 +216,14 @@ public class ConfigManager {
                           final JTBStatusReporter jtbStatusReporter) {
       System.out.println("Initializing JMSToolBox.");
 
+      this.jtbStatusReporter = jtbStatusReporter;
+
       // ----------------------------------------------------
       // Dynamic Splash Screen
       // ------------------------------------------------------
       SplashScreenDialog scd = new SplashScreenDialog();
       int nbSteps = 15; // Nb of steps for the progress bar
+      StartupTimings timings = new StartupTimings(scd);
 
       // Use it only on Windows. does not work on Ubuntu (?)
       if (Utils.isWindows()) {
@@ -217,7 +241,7 @@ public class ConfigManager {
       // ------------------------------------------------------
       // Open eclipse project
       // ------------------------------------------------------
-      scd.setProgress("Opening JMSToolBox Project...");
+      timings.next("Opening JMSToolBox Project...");
       try {
          jtbProject = createOrOpenProject();
       } catch (CoreException e) {
@@ -234,27 +258,30 @@ public class ConfigManager {
       // --------------------------------------------------------------
       // Initializes preferences (Must be done after jtbProject is set)
       // --------------------------------------------------------------
-      scd.setProgress("Loading Preferences...");
+      timings.next("Loading Preferences...");
       ps = jtbPreferenceStoreProvider.get();
 
       // ---------------------------------------------------------------------------------
       // Configuration files + Variables + Scripts + Visualizers + Templates + Preferences
       // ---------------------------------------------------------------------------------
 
-      scd.setProgress("Loading Config File...");
+      timings.next("Loading Config File...");
 
       // Load and parse Config file
       try {
          jcConfig = JAXBContext.newInstance(Config.class);
          configIFile = loadConfigurationFile();
          config = parseConfigurationFile(configIFile.getContents());
+         // The Config is modified in the UI thread, serialize it there
+         Display display = Display.getDefault();
+         configWriter = newConfigWriter(display::asyncExec);
       } catch (CoreException | JAXBException e) {
          jtbStatusReporter.showError("An exception occurred while parsing Config file", Utils.getCause(e), "");
          return;
       }
 
       // Initialise variables
-      scd.setProgress("Loading Variables...");
+      timings.next("Loading Variables...");
       int nbVariables = 0;
       try {
          variablesManager = variablesManagerProvider.get();
@@ -265,7 +292,7 @@ public class ConfigManager {
       }
 
       // Initialise scripts
-      scd.setProgress("Loading Scripts...");
+      timings.next("Loading Scripts...");
       int nbScripts = 0;
       try {
          scriptsManager = scriptsManagerProvider.get();
@@ -276,7 +303,7 @@ public class ConfigManager {
       }
 
       // Initialise visualizers
-      scd.setProgress("Loading Visualisers...");
+      timings.next("Loading Visualisers...");
       int nbVisualizers = 0;
       try {
          visualizersManager = visualizersManagerProvider.get();
@@ -287,7 +314,7 @@ public class ConfigManager {
       }
 
       // Initialise templates
-      scd.setProgress("Loading Templates...");
+      timings.next("Loading Templates...");
       int nbTemplates = 0;
       try {
          templatesManager = templatesManagerProvider.get();
@@ -298,7 +325,7 @@ public class ConfigManager {
       }
 
       // Initialise ColumnsSets
-      scd.setProgress("Loading Columns Sets...");
+      timings.next("Loading Columns Sets...");
       int nbColumnsSets = 0;
       try {
          csManager = csManagerProvider.get();
@@ -309,7 +336,7 @@ public class ConfigManager {
       }
 
       // Initialise Session Types
-      scd.setProgress("Loading Session Types...");
+      timings.next("Loading Session Types...");
       int nbSessionTypes = 0;
       try {
          sessionTypeManager = sessionTypeManagerProvider.get();
@@ -327,7 +354,7 @@ public class ConfigManager {
       // ----------------------------------------
       // Build working QManagers from Config file
       // ----------------------------------------
-      scd.setProgress("Building working QManager..");
+      timings.next("Building working QManager..");
       metaQManagers = new HashMap<>();
       for (QManagerDef qManagerDef : config.getQManagerDef()) {
          metaQManagers.put(qManagerDef.getId(), new MetaQManager(qManagerDef));
@@ -339,24 +366,24 @@ public class ConfigManager {
 
       try {
          // Discover Extensions/Plugins installed with the application
-         scd.setProgress("Discovering Plugins...");
+         timings.next("Discovering Plugins...");
          discoverQMPlugins();
 
          // For each Extensions/Plugins, create a resource bundle to handle classparth with the associated jars files
-         scd.setProgress("Creating Resource Bundles...");
-         createResourceBundles(jtbStatusReporter);
+         timings.next("Creating Resource Bundles...");
+         createResourceBundles(metaQManagers.keySet(), jtbStatusReporter);
 
          // Instantiate plugins
-         scd.setProgress("Instantiating Q Managers...");
+         timings.next("Instantiating Q Managers...");
          instantiateQManagers();
 
-      } catch (InvalidRegistryObjectException | BundleException | IOException e) {
+      } catch (InvalidRegistryObjectException | BundleException | IOException | InterruptedException e) {
          jtbStatusReporter.showError("An exception occurred while initializing plugins", Utils.getCause(e), "");
          return;
       }
 
       // Instantiate JTBSession corresponding to the sessions
-      scd.setProgress("Initializing JTBSessions...");
+      timings.next("Initializing JTBSessions...");
       for (SessionDef sessionDef : config.getSessionDef()) {
          log.debug("SessionDef found: {}", sessionDef.getName());
 
@@ -370,25 +397,26 @@ public class ConfigManager {
                      sessionDef.getQManagerDef());
          }
       }
+      indexSessions();
 
       // Build QManager Lists
+      int nbRunningQManagers = 0;
       for (MetaQManager mdqm : metaQManagers.values()) {
          if (mdqm.getIce() != null) {
             installedPlugins.add(mdqm);
          }
-         if (mdqm.getQmanager() != null) {
-            runningQManagers.add(mdqm.getQmanager());
+         if (mdqm.isInstantiated()) {
+            nbRunningQManagers++;
          }
       }
       Collections.sort(installedPlugins);
-      Collections.sort(runningQManagers);
 
       // -----------------------------
       // Connectors Plugins Extensions
       // -----------------------------
       // Discover Connectors Plugins installed with the application
       try {
-         scd.setProgress("Discover and initialize Connectors...");
+         timings.next("Discover and initialize Connectors...");
          discoverAndInitializeConnectorsPlugins();
       } catch (Exception e) {
          // This is not a reason to not start..
@@ -398,6 +426,8 @@ public class ConfigManager {
                              "");
       }
 
+      timings.end();
+
       // ---------------------
       // Information Message
       // ---------------------
@@ -408,7 +438,8 @@ public class ConfigManager {
       log.info("{}",
                String.format("* JMSToolBox v%d.%d.%d successfully initialized with:", v.getMajor(), v.getMinor(), v.getMicro()));
       log.info("{}", String.format("* - %3d installed plugins", installedPlugins.size()));
-      log.info("{}", String.format("* - %3d running plugins", runningQManagers.size()));
+      log.info("{}", String.format("* - %3d running plugins", nbRunningQManagers));
+      log.info("{}", String.format("* - %3d plugins loaded on first use", installedPlugins.size() - nbRunningQManagers));
       log.info("{}", String.format("* - %3d external connector plugins", nbExternalConnectors));
       log.info("{}", String.format("* - %3d QManagersDefs", config.getQManagerDef().size()));
       log.info("{}", String.format("* - %3d sessions", jtbSessions.size()));
@@ -428,10 +459,75 @@ public class ConfigManager {
                System.getProperty("java.version"),
                System.getProperty("java.runtime.version"),
                System.getProperty("java.vendor"));
+      log.info("*");
+      log.info("* Startup Timings:");
+      timings.logTimings();
       log.info(STARS);
       log.debug("");
    }
 
+   // Minimal initialization for the headless script runner: no UI, no visualizers, columns sets, session types or external
+   // connectors. Only the resource bundles of the Q Managers used by the script are created, and they are instantiated on first use
+   public void initConfigHeadless(String scriptName) throws Exception {
+      StartupTimings timings = new StartupTimings(null);
+
+      timings.next("Opening JMSToolBox Project...");
+      jtbProject = createOrOpenProject();
+      initSLF4J();
+
+      timings.next("Loading Preferences...");
+      ps = jtbPreferenceStoreProvider.get();
+
+      timings.next("Loading Config File...");
+      jcConfig = JAXBContext.newInstance(Config.class);
+      configIFile = loadConfigurationFile();
+      config = parseConfigurationFile(configIFile.getContents());
+      // No UI thread: the changes are written by "flushConfigFiles" at the end of the run
+      configWriter = newConfigWriter(null);
+      indexSessions();
+
+      timings.next("Loading Variables, Scripts and Templates...");
+      variablesManager = variablesManagerProvider.get();
+      scriptsManager = scriptsManagerProvider.get();
+      templatesManager = templatesManagerProvider.get();
+
+      relaxSSLSecurityIfRequired(null);
+
+      // Q Managers used by the sessions of the script
+      String scriptNameForSearch = scriptName.startsWith("/") ? scriptName : "/" + scriptName;
+      Script script = scriptsManager.getMapScripts().get(scriptNameForSearch);
+      if (script == null) {
+         throw new ScriptValidationException("No script with name '" + scriptName + "' found");
+      }
+      Set<String> usedQManagerDefs = new HashSet<>();
+      for (Step step : script.getStep()) {
+         SessionDef sessionDef = step.getSessionName() == null ? null : getSessionDefByName(step.getSessionName());
+         if (sessionDef != null) {
+            usedQManagerDefs.add(sessionDef.getQManagerDef());
+         }
+      }
+
+      timings.next("Creating Resource Bundles...");
+      metaQManagers = new HashMap<>();
+      for (QManagerDef qManagerDef : config.getQManagerDef()) {
+         metaQManagers.put(qManagerDef.getId(), new MetaQManager(qManagerDef));
+      }
+      discoverQMPlugins();
+      createResourceBundles(usedQManagerDefs, null);
+
+      for (SessionDef sessionDef : config.getSessionDef()) {
+         MetaQManager mdqm = metaQManagers.get(sessionDef.getQManagerDef());
+         if (mdqm != null) {
+            jtbSessions.add(new JTBSession(ps, sessionDef, mdqm));
+         }
+      }
+      indexSessions();
+
+      timings.end();
+      log.info("JMSToolBox initialized in headless mode. Startup Timings:");
+      timings.logTimings();
+   }
+
    // Center Window
    @ProcessAdditions
    void processAdditions(MApplication app, EModelService modelService, Display display) {
@@ -458,6 +554,9 @@ public class ConfigManager {
          jtbSession.disconnectAll();
       }
 
+      // Write the pending changes
+      flushConfigFiles();
+
       SWTResourceManager.dispose();
       log.info("Shutdown completed.");
    }
@@ -493,7 +592,11 @@ public class ConfigManager {
 
             log.warn("Using the TrustEverythingSSLTrustManager TrustManager: No server certificate will be validated");
          } catch (NoSuchAlgorithmException | KeyManagementException e) {
-            jtbStatusReporter.showError("An exception occurred while using the TrustAllCertificatesManager", Utils.getCause(e), "");
+            if (jtbStatusReporter == null) {
+               log.error("An exception occurred while using the TrustAllCertificatesManager", e);
+            } else {
+               jtbStatusReporter.showError("An exception occurred while using the TrustAllCertificatesManager", Utils.getCause(e), "");
+            }
             return;
          }
       }
@@ -572,17 +675,18 @@ public class ConfigManager {
    }
 
    // Create one resource bundle with classpath per plugin found
-   private void createResourceBundles(JTBStatusReporter jtbStatusReporter) throws BundleException, InvalidRegistryObjectException,
+   private void createResourceBundles(Collection<String> pluginIds,
+                                      JTBStatusReporter jtbStatusReporter) throws BundleException, InvalidRegistryObjectException,
                                                                            IOException {
 
       BundleContext ctx = InternalPlatform.getDefault().getBundleContext();
       Bundle thisBundle = FrameworkUtil.getBundle(this.getClass());
       String workDirectry = Platform.getStateLocation(thisBundle).toString();
 
-      for (String pluginId : metaQManagers.keySet()) {
+      for (String pluginId : pluginIds) {
 
          // Check if the plugin referenced in teh config file is installed in JMSToolBox
-         if (metaQManagers.get(pluginId).getIce() == null) {
+         if ((metaQManagers.get(pluginId) == null) || (metaQManagers.get(pluginId).getIce() == null)) {
             log.warn("Session definition exist in config file for plugin '{}', but the plugin is not install. Bypass it", pluginId);
             continue;
          }
@@ -592,17 +696,37 @@ public class ConfigManager {
          if (qManagerDef != null) {
 
             // Dynamically create a bundle with the library in its classpath and start it
+            // The bundle is reused if the jars did not change since it was created
+            List<String> jars = qManagerDef.getJar();
+            boolean upToDate = JarUtils.isBundleUpToDate(workDirectry, pluginId, jars);
             String fileName;
             try {
-               fileName = JarUtils.createBundle(workDirectry, pluginId, qManagerDef.getJar());
+               fileName = upToDate ? JarUtils.getBundleFileName(workDirectry, pluginId)
+                        : JarUtils.createBundle(workDirectry, pluginId, jars);
             } catch (Exception e) {
-               jtbStatusReporter.showError("An exception occurred while initializig the application : " + e.getMessage(), null);
+               if (jtbStatusReporter == null) {
+                  log.error("An exception occurred while creating the resource bundle for '{}'", pluginId, e);
+               } else {
+                  jtbStatusReporter.showError("An exception occurred while initializig the application : " + e.getMessage(), null);
+               }
                // return;
                continue;
             }
             if (fileName != null) {
-               Bundle resourceBundle = ctx.installBundle("file:" + fileName);
-               resourceBundle.start();
+               String location = "file:" + fileName;
+               Bundle resourceBundle = ctx.getBundle(location);
+               if (resourceBundle == null) {
+                  resourceBundle = ctx.installBundle(location);
+               } else {
+                  if (upToDate) {
+                     log.debug("pluginId '{}': Reusing resource bundle {}", pluginId, fileName);
+                  } else {
+                     resourceBundle.update();
+                  }
+               }
+               if (resourceBundle.getState() != Bundle.ACTIVE) {
+                  resourceBundle.start();
+               }
                log.debug("State of resource bundle after start {}", resourceBundle.getState());
             }
          } else {
@@ -612,7 +736,8 @@ public class ConfigManager {
       }
    }
 
-   private void instantiateQManagers() {
+   // Instantiate in parallel the plugins used by at least one session. The others will be instantiated on first use
+   private void instantiateQManagers() throws InterruptedException {
 
       BundleContext ctx = InternalPlatform.getDefault().getBundleContext();
 
@@ -624,44 +749,38 @@ public class ConfigManager {
       // }
       // }
 
+      Set<String> usedQManagerDefs = config.getSessionDef().stream().map(SessionDef::getQManagerDef).collect(Collectors.toSet());
+
+      List<Callable<QManager>> tasks = new ArrayList<>();
       for (MetaQManager wqm : metaQManagers.values()) {
-         IConfigurationElement ice = wqm.getIce();
 
          // Do not try to instantiate plugins that are not active..
-         if (ice == null) {
+         if (wqm.getIce() == null) {
             log.debug("OSGI Bundle not active. id: '{}' classname: '{}'", wqm.getId(), wqm.getPluginClassName());
             continue;
          }
 
-         log.info("About to instantiate QM. id: '{}' classname: '{}'", wqm.getId(), wqm.getPluginClassName());
+         if (usedQManagerDefs.contains(wqm.getId())) {
+            tasks.add(wqm::getQmanager);
+         } else {
+            log.debug("No session defined for QM id: '{}'. It will be instantiated on first use", wqm.getId());
+         }
+      }
 
-         // Instanciate QManager
-         Object o;
+      if (!tasks.isEmpty()) {
+         int nbThreads = Math.min(tasks.size(), Runtime.getRuntime().availableProcessors());
+         ExecutorService executor = Executors.newFixedThreadPool(nbThreads, r -> {
+            Thread t = new Thread(r, "JTB-QManagerInit");
+            t.setDaemon(true);
+            return t;
+         });
          try {
-            o = ice.createExecutableExtension(Constants.JTB_EXTENSION_POINT_QM_CLASS_ATTR);
-            // Yes, we catch Error to capture compilation errors dues to invalid/missing jars..
-         } catch (Error | CoreException e) {
-            log.error("Problem when instatiating '{}'. Skip it", ice.getNamespaceIdentifier(), e);
-            continue;
-         }
-         if (o instanceof QManager) {
-
-            // Update WorkingQManager
-            QManager qm = (QManager) o;
-            wqm.setQmanager(qm);
-            qm.setName(wqm.getDisplayName());
-            log.info("Instantiated Queue Manager '{}'", wqm.getDisplayName());
-
-            if (log.isTraceEnabled()) {
-               FrameworkWiring xx = ctx.getBundle(0).adapt(FrameworkWiring.class);
-               Bundle qqq = FrameworkUtil.getBundle(o.getClass());
-               log.trace("bundle closure  : {}", xx.getDependencyClosure(Collections.singletonList(qqq)));
-               log.trace("bundle headers  : {}", qqq.getHeaders());
-               log.trace("bundle state    : {}", qqq.getState());
-               log.trace("bundle location : {}", qqq.getLocation());
-            }
+            executor.invokeAll(tasks);
+         } finally {
+            executor.shutdown();
          }
       }
+
       if (log.isDebugEnabled()) {
          for (Bundle aa : ctx.getBundles()) {
             if (aa.getLocation().contains("titou")) {
@@ -705,6 +824,42 @@ public class ConfigManager {
       return qmd;
    }
 
+   // Show the startup phases in the splash screen and measure their duration
+   private static final class StartupTimings {
+      private final SplashScreenDialog scd;
+      private final Map<String, Long>  durations = new LinkedHashMap<>();
+      private final long               start     = System.currentTimeMillis();
+      private String                   phase;
+      private long                     phaseStart;
+
+      private StartupTimings(SplashScreenDialog scd) {
+         this.scd = scd;
+      }
+
+      private void next(String nextPhase) {
+         end();
+         if (scd != null) {
+            scd.setProgress(nextPhase);
+         }
+         phase = nextPhase.replace("...", "").replace("..", "");
+         phaseStart = System.currentTimeMillis();
+      }
+
+      private void end() {
+         if (phase != null) {
+            durations.put(phase, System.currentTimeMillis() - phaseStart);
+            phase = null;
+         }
+      }
+
+      private void logTimings() {
+         for (Map.Entry<String, Long> e : durations.entrySet()) {
+            log.info("{}", String.format("* - %6d ms %s", e.getValue(), e.getKey()));
+         }
+         log.info("{}", String.format("* - %6d ms Total", System.currentTimeMillis() - start));
+      }
+   }
+
    private static final class QManagerDefComparator implements Comparator<QManagerDef> {
       @Override
       public int compare(QManagerDef o1, QManagerDef o2) {
@@ -733,6 +888,7 @@ public class ConfigManager {
       JTBSession newJTBSession = new JTBSession(ps, newSessionDef, mdqm);
       jtbSessions.add(newJTBSession);
       Collections.sort(jtbSessions);
+      indexSessions();
    }
 
    public void sessionFilterApply(JTBSession jtbSession, boolean apply) throws JAXBException, CoreException, IOException {
@@ -767,6 +923,9 @@ public class ConfigManager {
 
    public void writeConfig() throws JAXBException, CoreException, IOException {
       log.debug("writeConfig");
+
+      // The name of a session may have changed
+      indexSessions();
       writeConfigurationFile();
    }
 
@@ -794,6 +953,7 @@ public class ConfigManager {
 
       // Remove the session from the current config
       jtbSessions.remove(jtbSession);
+      indexSessions();
 
       // Write the new Config file
       writeConfigurationFile();
@@ -801,7 +961,7 @@ public class ConfigManager {
       // Remove the Preferences for that Session
       ps.removeAllWithPrefix(ps.buildPreferenceKeyForSessionNameCS(sessionDef.getName()));
       ps.removeAllWithPrefix(ps.buildPreferenceKeyForQDepthFilter(sessionDef.getName()));
-      ps.save();
+      ps.saveLater();
    }
 
    public void sessionDuplicate(JTBSession sourceJTBSession, String newName) throws JAXBException, CoreException, IOException {
@@ -834,30 +994,38 @@ public class ConfigManager {
       JTBSession newJTBSession = new JTBSession(ps, newSessionDef, sourceJTBSession.getMqm());
       jtbSessions.add(newJTBSession);
       Collections.sort(jtbSessions);
+      indexSessions();
    }
 
+   // The name of the session is case insensitive
    public SessionDef getSessionDefByName(String sessionDefName) {
-      for (SessionDef sessionDef : config.getSessionDef()) {
-         if (sessionDef.getName().equalsIgnoreCase(sessionDefName)) {
-            return sessionDef;
-         }
+      if (sessionDefName == null) {
+         return null;
       }
-      return null;
+      return sessionDefsByName.get(sessionDefName.toLowerCase(Locale.ROOT));
    }
 
    public JTBSession getJTBSessionByName(String sessionName) {
-      for (JTBSession jtbSession : jtbSessions) {
-         if (jtbSession.getName().equals(sessionName)) {
-            return jtbSession;
-         }
-      }
-      return null;
+      return jtbSessionsByName.get(sessionName);
    }
 
    public List<JTBSession> getJtbSessions() {
       return jtbSessions;
    }
 
+   private void indexSessions() {
+      Map<String, SessionDef> sdByName = new HashMap<>(config.getSessionDef().size() * 2);
+      for (SessionDef sessionDef : config.getSessionDef()) {
+         sdByName.putIfAbsent(sessionDef.getName().toLowerCase(Locale.ROOT), sessionDef);
+      }
+      Map<String, JTBSession> jsByName = new HashMap<>(jtbSessions.size() * 2);
+      for (JTBSession jtbSession : jtbSessions) {
+         jsByName.putIfAbsent(jtbSession.getName(), jtbSession);
+      }
+      sessionDefsByName = sdByName;
+      jtbSessionsByName = jsByName;
+   }
+
    private static final class SessionDefComparator implements Comparator<SessionDef> {
       @Override
       public int compare(SessionDef o1, SessionDef o2) {
@@ -889,6 +1057,7 @@ public class ConfigManager {
       if (config == null) {
          return false;
       }
+      indexSessions();
 
       // Write the config file
       writeConfigurationFile();
@@ -935,34 +1104,66 @@ public class ConfigManager {
       return (Config) u.unmarshal(is);
    }
 
-   // Write Config File
-   private void writeConfigurationFile() throws JAXBException, CoreException, IOException {
-      log.info("configurationWriteFile file '{}'", Constants.JTB_CONFIG_FILE_NAME);
+   // Schedule the write of the Config File. The Config is serialized once for all the changes made during WRITE_DELAY_MS
+   private void writeConfigurationFile() throws JAXBException, UnsupportedEncodingException {
+      log.debug("writeConfigurationFile scheduled for '{}'", Constants.JTB_CONFIG_FILE_NAME);
+      configWriter.markDirty();
+   }
 
+   private byte[] serializeConfig() throws JAXBException, UnsupportedEncodingException {
       Marshaller m = jcConfig.createMarshaller();
       m.setProperty(Marshaller.JAXB_ENCODING, ENC);
       m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
 
       StringWriter sw = new StringWriter(2048);
       m.marshal(config, sw);
+      return sw.toString().getBytes(ENC);
+   }
 
-      // TODO Add the logic to temporarily save the previous file in case of crash while saving
-
-      try (InputStream is = new ByteArrayInputStream(sw.toString().getBytes(ENC));) {
-         configIFile.setContents(is, false, false, null);
-      } catch (UnsupportedEncodingException e) {
-         // Impossible
-         log.error("UnsupportedEncodingException", e);
-         return;
+   // Write the pending changes to the config and preference files
+   public void flushConfigFiles() {
+      if (configWriter != null) {
+         configWriter.flush();
+      }
+      if (ps != null) {
+         ps.flush();
       }
    }
 
+   private DebouncedWriter newConfigWriter(Executor serializerExecutor) {
+      return new DebouncedWriter(Constants.JTB_CONFIG_FILE_NAME,
+                                 WRITE_DELAY_MS,
+                                 this::serializeConfig,
+                                 serializerExecutor,
+                                 this::writeConfigurationFileNow,
+                                 e -> {
+                                    if (jtbStatusReporter != null) {
+                                       jtbStatusReporter.showError("An exception occurred when saving the configuration file",
+                                                                   Utils.getCause(e),
+                                                                   "");
+                                    }
+                                 });
+   }
+
+   // Write the serialized Config to a temporary file that replaces the current one once complete
+   private void writeConfigurationFileNow(byte[] content) throws CoreException, IOException {
+      log.info("configurationWriteFile file '{}'", Constants.JTB_CONFIG_FILE_NAME);
+
+      DebouncedWriter.writeAtomically(configIFile.getLocation().toFile().toPath(), content);
+
+      // Keep the workspace in sync with the file system
+      configIFile.refreshLocal(IResource.DEPTH_ZERO, null);
+   }
+
    // ---------------
    // Export / Import
    // ---------------
    public void exportConfig(EnumSet<ImportExportType> exportTypes, String exportFileName) throws IOException, CoreException {
       log.debug("exportConfig: {} - {}", exportFileName, exportTypes);
 
+      // Export the current state of the files
+      flushConfigFiles();
+
       if (!(exportFileName.endsWith(".zip"))) {
          exportFileName += ".zip";
       }
@@ -1116,7 +1317,16 @@ public class ConfigManager {
       return installedPlugins;
    }
 
+   // Plugins without sessions are instantiated here on first use
    public List<QManager> getRunningQManagers() {
+      List<QManager> runningQManagers = new ArrayList<>(installedPlugins.size());
+      for (MetaQManager mdqm : installedPlugins) {
+         QManager qm = mdqm.getQmanager();
+         if (qm != null) {
+            runningQManagers.add(qm);
+         }
+      }
+      Collections.sort(runningQManagers);
       return runningQManagers;
    }
 
@@ -16,15 +16,16 @@
  */
 package org.titou10.jtb.config;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PrintStream;
 import java.io.PrintWriter;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -49,6 +50,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.titou10.jtb.jms.model.JTBDestination;
 import org.titou10.jtb.util.Constants;
+import org.titou10.jtb.util.DebouncedWriter;
 
 /**
  * 
@@ -70,12 +72,23 @@ public class JTBPreferenceStore extends EventManager implements IPersistentPrefe
    // Extra attributes and methods
    // -----------------------------------------------------------
 
-   private static final Logger log = LoggerFactory.getLogger(JTBPreferenceStore.class);
+   private static final Logger   log                = LoggerFactory.getLogger(JTBPreferenceStore.class);
+
+   // Changes saved with "saveLater" are coalesced and written in the background after this delay
+   private static final long     SAVE_DELAY_MS      = 500L;
 
    @Inject
-   private ConfigManager       cm;
+   private ConfigManager         cm;
+
+   private String                preferenceFileName;
 
-   private String              preferenceFileName;
+   // "properties" is thread safe, the preferences are serialized by the writer thread
+   private final DebouncedWriter prefWriter         = new DebouncedWriter(Constants.PREFERENCE_FILE_NAME,
+                                                                          SAVE_DELAY_MS,
+                                                                          this::serialize,
+                                                                          Runnable::run,
+                                                                          this::writeFile,
+                                                                          null);
 
    @PostConstruct
    private void initialize() throws IOException {
@@ -91,11 +104,18 @@ public class JTBPreferenceStore extends EventManager implements IPersistentPrefe
       setDefault(Constants.PREF_SHOW_SYSTEM_OBJECTS, Constants.PREF_SHOW_SYSTEM_OBJECTS_DEFAULT);
       setDefault(Constants.PREF_AUTO_RESIZE_COLS_BROWSER, Constants.PREF_AUTO_RESIZE_COLS_BROWSER_DEFAULT);
       setDefault(Constants.PREF_EDIT_MESSAGE_DND, Constants.PREF_EDIT_MESSAGE_DND_DEFAULT);
+      setDefault(Constants.PREF_BROWSE_HEADERS_ONLY, Constants.PREF_BROWSE_HEADERS_ONLY_DEFAULT);
+      setDefault(Constants.PREF_MOVE_COPY_BATCH_SIZE, Constants.PREF_MOVE_COPY_BATCH_SIZE_DEFAULT);
       setDefault(Constants.PREF_SHOW_NON_BROWSABLE_Q, Constants.PREF_SHOW_NON_BROWSABLE_Q_DEFAULT);
       setDefault(Constants.PREF_TRUST_ALL_CERTIFICATES, Constants.PREF_TRUST_ALL_CERTIFICATES_DEFAULT);
       setDefault(Constants.PREF_CLEAR_LOGS_EXECUTION, Constants.PREF_CLEAR_LOGS_EXECUTION_DEFAULT);
+      setDefault(Constants.PREF_SCRIPT_LOG_MAX_ENTRIES, Constants.PREF_SCRIPT_LOG_MAX_ENTRIES_DEFAULT);
+      setDefault(Constants.PREF_SCRIPT_LOG_OVERFLOW_FILE, Constants.PREF_SCRIPT_LOG_OVERFLOW_FILE_DEFAULT);
+      setDefault(Constants.PREF_SCRIPT_ASYNC_SEND, Constants.PREF_SCRIPT_ASYNC_SEND_DEFAULT);
+      setDefault(Constants.PREF_ASYNC_SEND_MAX_IN_FLIGHT, Constants.PREF_ASYNC_SEND_MAX_IN_FLIGHT_DEFAULT);
       setDefault(Constants.PREF_MAX_MESSAGES_TOPIC, Constants.PREF_MAX_MESSAGES_TOPIC_DEFAULT);
       setDefault(Constants.PREF_CONN_CLIENT_ID_PREFIX, Constants.PREF_CONN_CLIENT_ID_PREFIX_DEFAULT);
+      setDefault(Constants.PREF_CONN_TIMEOUT, Constants.PREF_CONN_TIMEOUT_DEFAULT);
       setDefault(Constants.PREF_XML_INDENT, Constants.PREF_XML_INDENT_DEFAULT);
       setDefault(Constants.PREF_SYNCHRONIZE_SESSIONS_MESSAGES, Constants.PREF_SYNCHRONIZE_SESSIONS_MESSAGES_DEFAULT);
       setDefault(Constants.PREF_MESSAGE_TAB_DISPLAY, Constants.PREF_MESSAGE_TAB_DISPLAY_DEFAULT);
@@ -106,6 +126,17 @@ public class JTBPreferenceStore extends EventManager implements IPersistentPrefe
       return preferenceFileName;
    }
 
+   // Save the preferences in the background. The preferences are serialized and written once for all the changes made during
+   // SAVE_DELAY_MS
+   public void saveLater() {
+      prefWriter.markDirty();
+   }
+
+   // Save now the changes scheduled by "saveLater", if any
+   public void flush() {
+      prefWriter.flush();
+   }
+
    public void remove(String key) {
       properties.remove(key);
    }
@@ -420,20 +451,28 @@ public class JTBPreferenceStore extends EventManager implements IPersistentPrefe
       removeListenerObject(listener);
    }
 
+   // Write to a temporary file that replaces the preference file once complete
    @Override
-   public void save() throws IOException {
-      if (filename == null) {
-         throw new IOException("File name not specified");//$NON-NLS-1$
-      }
-      FileOutputStream out = null;
+   public synchronized void save() throws IOException {
+      writeFile(serialize());
+   }
+
+   private synchronized byte[] serialize() {
+      ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
       try {
-         out = new FileOutputStream(filename);
          save(out, null);
-      } finally {
-         if (out != null) {
-            out.close();
-         }
+      } catch (IOException e) {
+         // Impossible with a ByteArrayOutputStream
+         log.error("IOException", e);
+      }
+      return out.toByteArray();
+   }
+
+   private void writeFile(byte[] content) throws IOException {
+      if (filename == null) {
+         throw new IOException("File name not specified");//$NON-NLS-1$
       }
+      DebouncedWriter.writeAtomically(Paths.get(filename), content);
    }
 
    public void save(OutputStream out, String header) throws IOException {
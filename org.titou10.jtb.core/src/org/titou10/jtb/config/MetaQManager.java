@@ -16,7 +16,15 @@
  */
 package org.titou10.jtb.config;
 
+import java.util.Collections;
+
+import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IConfigurationElement;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.FrameworkUtil;
+import org.osgi.framework.wiring.FrameworkWiring;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.titou10.jtb.config.gen.QManagerDef;
 import org.titou10.jtb.jms.qm.QManager;
 import org.titou10.jtb.util.Constants;
@@ -29,6 +37,8 @@ import org.titou10.jtb.util.Constants;
  */
 public class MetaQManager implements Comparable<MetaQManager> {
 
+   private static final Logger   log = LoggerFactory.getLogger(MetaQManager.class);
+
    private String                id;              // Plugin id
    private String                displayName;     // "displayName" attribute as defined in the Extension point for the plugin
    private String                pluginClassName; // Class name of the QM in the plugin
@@ -36,6 +46,7 @@ public class MetaQManager implements Comparable<MetaQManager> {
    private IConfigurationElement ice;             // Plugin configuration
    private QManager              qmanager;        // Instance of the QM for a plugin
    private QManagerDef           qManagerDef;     // Definition of a QM in the config file
+   private boolean               instantiated;    // Instantiation of the QM has been attempted
 
    // -------------------------
    // Constructeurs
@@ -85,13 +96,53 @@ public class MetaQManager implements Comparable<MetaQManager> {
    }
 
    // -------------------------
-   // Getters/Setters Standards
+   // QManager instantiation
    // -------------------------
 
-   public QManager getQmanager() {
+   // The QM is instantiated on first use. Only one attempt is made, a plugin that fails to load is skipped
+   public synchronized QManager getQmanager() {
+      if ((!instantiated) && (qmanager == null) && (ice != null)) {
+         instantiated = true;
+         instantiateQManager();
+      }
       return qmanager;
    }
 
+   public synchronized boolean isInstantiated() {
+      return qmanager != null;
+   }
+
+   private void instantiateQManager() {
+      log.info("About to instantiate QM. id: '{}' classname: '{}'", id, pluginClassName);
+
+      Object o;
+      try {
+         o = ice.createExecutableExtension(Constants.JTB_EXTENSION_POINT_QM_CLASS_ATTR);
+         // Yes, we catch Error to capture compilation errors dues to invalid/missing jars..
+      } catch (Error | CoreException e) {
+         log.error("Problem when instatiating '{}'. Skip it", id, e);
+         return;
+      }
+      if (o instanceof QManager) {
+         qmanager = (QManager) o;
+         qmanager.setName(displayName);
+         log.info("Instantiated Queue Manager '{}'", displayName);
+
+         if (log.isTraceEnabled()) {
+            Bundle qqq = FrameworkUtil.getBundle(o.getClass());
+            FrameworkWiring xx = qqq.getBundleContext().getBundle(0).adapt(FrameworkWiring.class);
+            log.trace("bundle closure  : {}", xx.getDependencyClosure(Collections.singletonList(qqq)));
+            log.trace("bundle headers  : {}", qqq.getHeaders());
+            log.trace("bundle state    : {}", qqq.getState());
+            log.trace("bundle location : {}", qqq.getLocation());
+         }
+      }
+   }
+
+   // -------------------------
+   // Getters/Setters Standards
+   // -------------------------
+
    public void setQmanager(QManager qmanager) {
       this.qmanager = qmanager;
    }
@@ -37,10 +37,12 @@ import org.titou10.jtb.connector.ex.UnknownDestinationException;
 import org.titou10.jtb.connector.ex.UnknownQueueException;
 import org.titou10.jtb.connector.ex.UnknownSessionException;
 import org.titou10.jtb.connector.ex.UnknownTemplateException;
+import org.titou10.jtb.connector.transport.BulkPostOutput;
 import org.titou10.jtb.connector.transport.Destination;
 import org.titou10.jtb.connector.transport.Destination.Type;
 import org.titou10.jtb.connector.transport.MessageInput;
 import org.titou10.jtb.connector.transport.MessageOutput;
+import org.titou10.jtb.jms.model.JTBAsyncSender;
 import org.titou10.jtb.jms.model.JTBConnection;
 import org.titou10.jtb.jms.model.JTBDestination;
 import org.titou10.jtb.jms.model.JTBMessage;
@@ -51,6 +53,8 @@ import org.titou10.jtb.jms.model.JTBSessionClientType;
 import org.titou10.jtb.jms.model.JTBTopic;
 import org.titou10.jtb.script.ScriptExecutionEngine;
 import org.titou10.jtb.template.TemplatesManager;
+import org.titou10.jtb.util.Constants;
+import org.titou10.jtb.util.metrics.MetricsRegistry;
 import org.titou10.jtb.variable.VariablesManager;
 
 /**
@@ -86,6 +90,18 @@ public class ExternalConnectorManager {
    public IPreferenceStore getIPreferenceStore() {
       return ps;
    }
+
+   // ----------------------------
+   // Services related to Metrics
+   // ----------------------------
+
+   public String getMetricsAsPrometheusText() {
+      return MetricsRegistry.toPrometheusText();
+   }
+
+   public void recordRESTCall(String operation, String sessionName, String destinationName, long durationNanos, boolean success) {
+      MetricsRegistry.record(MetricsRegistry.OP_REST_PREFIX + operation, sessionName, null, destinationName, durationNanos, success);
+   }
    // ----------------------------
    // Services related to Sessions
    // ----------------------------
@@ -217,6 +233,81 @@ public class ExternalConnectorManager {
 
    }
 
+   // Post the messages asynchronously with at most "maxInFlight" messages waiting for the acknowledgement of the server
+   public BulkPostOutput postMessages(String sessionName,
+                                      String destinationName,
+                                      List<MessageInput> messageInputs,
+                                      int maxInFlight) throws ExecutionException, UnknownSessionException,
+                                                       UnknownDestinationException, EmptyMessageException {
+      log.debug("postMessages. maxInFlight={}", maxInFlight);
+
+      if ((messageInputs == null) || (messageInputs.isEmpty())) {
+         throw new EmptyMessageException();
+      }
+
+      // Get JTBConnection
+      JTBConnection jtbConnection = getJTBConnection(sessionName);
+      try {
+         jtbConnection.connect();
+      } catch (Exception e) {
+         log.error("Exception when posting messages to destination '{}::{}'", sessionName, destinationName, e);
+         throw new ExecutionException(e);
+      }
+
+      // Get JTBDestination
+      JTBDestination jtbDestination = getJTBDestination(jtbConnection, destinationName);
+
+      int max = maxInFlight > 0 ? maxInFlight : ps.getInt(Constants.PREF_ASYNC_SEND_MAX_IN_FLIGHT);
+
+      BulkPostOutput output = new BulkPostOutput();
+      int nbFailed = 0;
+      List<Integer> indexBySequence = new ArrayList<>(messageInputs.size());
+      List<JTBAsyncSender.Failure> failures;
+      int timeout = ps.getInt(Constants.PREF_CONN_TIMEOUT);
+      try (JTBAsyncSender sender = jtbConnection.createAsyncSender(max)) {
+         for (int i = 0; i < messageInputs.size(); i++) {
+            MessageInput messageInput = messageInputs.get(i);
+            if ((messageInput == null) || (messageInput.getType() == null)) {
+               output.getErrors().add(String.format("#%d: empty message", i));
+               nbFailed++;
+               continue;
+            }
+            try {
+               JTBMessage jtbMessage = messageInput.toJTBMessage(jtbConnection, jtbDestination);
+               indexBySequence.add(i);
+               sender.send(jtbMessage, jtbDestination);
+            } catch (JMSException e) {
+               output.getErrors().add(String.format("#%d: %s", i, e.getMessage()));
+               nbFailed++;
+            }
+         }
+         if (!sender.awaitCompletion(timeout * 1000L)) {
+            // Do not hang on a server that stopped acknowledging: report the messages with no outcome as failed
+            int nbInFlight = sender.getNbInFlight();
+            log.warn("{} messages still in flight to '{}::{}' after {} s", nbInFlight, sessionName, destinationName, timeout);
+            output.getErrors().add(String.format("%d messages still waiting for an acknowledgement after %d s", nbInFlight, timeout));
+            nbFailed += nbInFlight;
+         }
+         failures = sender.pollFailures();
+      } catch (JMSException e) {
+         log.error("Exception when posting messages to destination '{}::{}'", sessionName, destinationName, e);
+         throw new ExecutionException(e);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new ExecutionException(e);
+      }
+
+      for (JTBAsyncSender.Failure f : failures) {
+         int i = indexBySequence.get((int) f.getSequence());
+         output.getErrors().add(String.format("#%d: %s", i, f.getException().getMessage()));
+      }
+      nbFailed += failures.size();
+
+      output.setNbFailed(nbFailed);
+      output.setNbSent(messageInputs.size() - nbFailed);
+      return output;
+   }
+
    public MessageOutput postMessageTemplate(String sessionName,
                                             String destinationName,
                                             String templateName) throws EmptyMessageException, UnknownSessionException,
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2015-2017 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.connector.transport;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * Result of a bulk post of messages used by an External Connector
+ * 
+ * @author Denis Forveille
+ *
+ */
+@XmlRootElement
+public class BulkPostOutput {
+
+   private Integer      nbSent;
+   private Integer      nbFailed;
+   private List<String> errors = new ArrayList<>();
+
+   // ------------------------
+   // toString()
+   // ------------------------
+
+   @Override
+   public String toString() {
+      StringBuilder builder = new StringBuilder(128);
+      builder.append("BulkPostOutput [nbSent=");
+      builder.append(nbSent);
+      builder.append(", nbFailed=");
+      builder.append(nbFailed);
+      builder.append("]");
+      return builder.toString();
+   }
+
+   // ------------------------
+   // Standard Getters/Setters
+   // ------------------------
+
+   public Integer getNbSent() {
+      return nbSent;
+   }
+
+   public void setNbSent(Integer nbSent) {
+      this.nbSent = nbSent;
+   }
+
+   public Integer getNbFailed() {
+      return nbFailed;
+   }
+
+   public void setNbFailed(Integer nbFailed) {
+      this.nbFailed = nbFailed;
+   }
+
+   public List<String> getErrors() {
+      return errors;
+   }
+
+   public void setErrors(List<String> errors) {
+      this.errors = errors;
+   }
+
+}
@@ -79,7 +79,7 @@ public class MessageOutput implements Serializable {
    }
 
    public MessageOutput(JTBMessage jtbMessage, byte[] plb) throws JMSException {
-      Message message = jtbMessage.getJmsMessage();
+      Message message = jtbMessage.getFullJmsMessage();
 
       this.jmsMessageID = message.getJMSMessageID();
       this.jmsCorrelationID = message.getJMSCorrelationID();
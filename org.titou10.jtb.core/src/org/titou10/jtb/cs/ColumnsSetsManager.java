@@ -274,7 +274,7 @@ public class ColumnsSetsManager {
       } else {
          ps.setValue(preferenceKey, columnsSet.getName());
       }
-      ps.save();
+      ps.saveLater();
    }
 
    public ColumnSetOrigin getDefaultColumnSet(JTBDestination jtbDestination) {
@@ -293,11 +293,7 @@ public class ColumnsSetsManager {
 
             // Clean PreferenceStore
             ps.remove(preferenceKey);
-            try {
-               ps.save();
-            } catch (IOException e) {
-               log.error("Exception occurred when saving preferences", e);
-            }
+            ps.saveLater();
 
             // Delegate to higher level
             ColumnSetOrigin cso = getDefaultColumnSet(jtbDestination.getJtbConnection().getSessionName());
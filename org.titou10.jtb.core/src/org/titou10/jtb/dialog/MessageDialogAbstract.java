@@ -524,7 +524,14 @@ public abstract class MessageDialogAbstract extends Dialog {
                                                 jtbMessageType,
                                                 txtPayload.getText(),
                                                 payloadBytes,
-                                                payloadMap);
+                                                payloadMap)
+                     .whenComplete((r, t) -> {
+                        if (t != null) {
+                           jtbStatusReporter.showError("A problem occurred when running the visualizer",
+                                                       Utils.getCause(t),
+                                                       selectedVisualizerName);
+                        }
+                     });
          } catch (Exception ex) {
             jtbStatusReporter.showError("A problem occurred when running the visualizer", ex, selectedVisualizerName);
             return;
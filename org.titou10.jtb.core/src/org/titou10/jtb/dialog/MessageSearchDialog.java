@@ -0,0 +1,391 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.dialog;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.e4.core.services.events.IEventBroker;
+import org.eclipse.jface.dialogs.Dialog;
+import org.eclipse.jface.dialogs.IDialogConstants;
+import org.eclipse.jface.viewers.ArrayContentProvider;
+import org.eclipse.jface.viewers.ColumnLabelProvider;
+import org.eclipse.jface.viewers.IStructuredSelection;
+import org.eclipse.jface.viewers.TableViewer;
+import org.eclipse.jface.viewers.TableViewerColumn;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.events.SelectionListener;
+import org.eclipse.swt.graphics.Point;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Spinner;
+import org.eclipse.swt.widgets.Table;
+import org.eclipse.swt.widgets.Text;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.titou10.jtb.jms.model.JTBConnection;
+import org.titou10.jtb.jms.model.JTBMessage;
+import org.titou10.jtb.jms.model.JTBMessageSearch;
+import org.titou10.jtb.jms.model.JTBQueue;
+import org.titou10.jtb.jms.model.JTBSession;
+import org.titou10.jtb.jms.model.JTBSessionClientType;
+import org.titou10.jtb.util.Constants;
+import org.titou10.jtb.util.Utils;
+
+/**
+ *
+ * Search messages in all the browsable queues of one or many connected sessions<br>
+ * The dialog is modeless: the hits are added to the table while the search is running, and a double click on a hit shows the
+ * message in the message part
+ *
+ * @author Denis Forveille
+ *
+ */
+public class MessageSearchDialog extends Dialog {
+
+   private static final Logger          log               = LoggerFactory.getLogger(MessageSearchDialog.class);
+
+   private static final int             SEARCH_ID         = IDialogConstants.CLIENT_ID + 1;
+   private static final int             STOP_ID           = IDialogConstants.CLIENT_ID + 2;
+
+   private static final int             PARALLELISM       = 8;
+   private static final int             DEFAULT_MAX_HITS  = 500;
+
+   private final IEventBroker           eventBroker;
+   private final List<JTBSession>       jtbSessions;
+
+   private final List<JTBMessage>       hits              = new ArrayList<>();
+   private final Queue<JTBMessage>      pendingHits       = new ConcurrentLinkedQueue<>();
+   private final AtomicBoolean          drainScheduled    = new AtomicBoolean(false);
+
+   private volatile JTBMessageSearch    search;
+
+   private Text                         textCorrelationId;
+   private Text                         textMessageId;
+   private Text                         textSelector;
+   private Text                         textPayload;
+   private Spinner                      spinnerMaxHits;
+   private TableViewer                  tableViewer;
+   private Label                        lblStatus;
+
+   public MessageSearchDialog(Shell parentShell, IEventBroker eventBroker, List<JTBSession> jtbSessions) {
+      super(parentShell);
+      setShellStyle(SWT.RESIZE | SWT.TITLE | SWT.CLOSE | SWT.MODELESS);
+      setBlockOnOpen(false);
+
+      this.eventBroker = eventBroker;
+      this.jtbSessions = jtbSessions;
+   }
+
+   @Override
+   protected void configureShell(Shell newShell) {
+      super.configureShell(newShell);
+      if (jtbSessions.size() == 1) {
+         newShell.setText("Search messages in the queues of '" + jtbSessions.get(0).getName() + "'");
+      } else {
+         newShell.setText("Search messages in the queues of " + jtbSessions.size() + " sessions");
+      }
+   }
+
+   @Override
+   protected Point getInitialSize() {
+      return new Point(900, 600);
+   }
+
+   @Override
+   protected void createButtonsForButtonBar(Composite parent) {
+      createButton(parent, SEARCH_ID, "Search", true);
+      createButton(parent, STOP_ID, "Stop", false).setEnabled(false);
+      createButton(parent, IDialogConstants.CLOSE_ID, IDialogConstants.CLOSE_LABEL, false);
+   }
+
+   @Override
+   protected Control createDialogArea(Composite parent) {
+      Composite container = (Composite) super.createDialogArea(parent);
+      container.setLayout(new GridLayout(4, false));
+
+      Label lbl1 = new Label(container, SWT.NONE);
+      lbl1.setText("JMSCorrelationID:");
+      textCorrelationId = new Text(container, SWT.BORDER);
+      textCorrelationId.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false, 1, 1));
+
+      Label lbl2 = new Label(container, SWT.NONE);
+      lbl2.setText("JMSMessageID:");
+      textMessageId = new Text(container, SWT.BORDER);
+      textMessageId.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false, 1, 1));
+
+      Label lbl3 = new Label(container, SWT.NONE);
+      lbl3.setText("Selector:");
+      textSelector = new Text(container, SWT.BORDER);
+      textSelector.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false, 3, 1));
+      textSelector.setToolTipText("JMS selector, evaluated by the server. Combined with the JMSCorrelationID and JMSMessageID");
+
+      Label lbl4 = new Label(container, SWT.NONE);
+      lbl4.setText("Payload contains:");
+      textPayload = new Text(container, SWT.BORDER);
+      textPayload.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false, 1, 1));
+      textPayload.setToolTipText("Evaluated by JMSToolBox: each message matching the selector is read. Use a selector if possible");
+
+      Label lbl5 = new Label(container, SWT.NONE);
+      lbl5.setText("Max hits:");
+      spinnerMaxHits = new Spinner(container, SWT.BORDER);
+      spinnerMaxHits.setLayoutData(new GridData(SWT.LEFT, SWT.CENTER, false, false, 1, 1));
+      spinnerMaxHits.setToolTipText("The search stops when this number of messages has been found. 0 = no limit");
+      spinnerMaxHits.setMinimum(0);
+      spinnerMaxHits.setMaximum(99999);
+      spinnerMaxHits.setIncrement(1);
+      spinnerMaxHits.setPageIncrement(100);
+      spinnerMaxHits.setTextLimit(5);
+      spinnerMaxHits.setSelection(DEFAULT_MAX_HITS);
+
+      tableViewer = new TableViewer(container, SWT.BORDER | SWT.FULL_SELECTION | SWT.SINGLE);
+      Table table = tableViewer.getTable();
+      table.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true, 4, 1));
+      table.setHeaderVisible(true);
+      table.setLinesVisible(true);
+
+      createColumn("Session", 120, m -> m.getJtbDestination().getJtbConnection().getSessionName());
+      createColumn("Queue", 180, m -> m.getJtbDestination().getName());
+      createColumn("JMSMessageID", 200, m -> readHeader(m, true));
+      createColumn("JMSCorrelationID", 150, m -> readHeader(m, false));
+      createColumn("JMS Timestamp", 150, m -> {
+         try {
+            long ts = m.getJmsMessage().getJMSTimestamp();
+            return ts == 0 ? "" : Utils.formatTimestamp(ts, false);
+         } catch (JMSException e) {
+            return "";
+         }
+      });
+      createColumn("Type", 80, m -> m.getJtbMessageType().getDescription());
+
+      tableViewer.setContentProvider(ArrayContentProvider.getInstance());
+      tableViewer.setInput(hits);
+      tableViewer.addDoubleClickListener(event -> {
+         IStructuredSelection sel = (IStructuredSelection) event.getSelection();
+         JTBMessage jtbMessage = (JTBMessage) sel.getFirstElement();
+         if (jtbMessage != null) {
+            eventBroker.post(Constants.EVENT_JTBMESSAGE_PART_REFRESH, jtbMessage);
+         }
+      });
+
+      lblStatus = new Label(container, SWT.NONE);
+      lblStatus.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false, 4, 1));
+
+      return container;
+   }
+
+   @Override
+   protected void buttonPressed(int buttonId) {
+      switch (buttonId) {
+         case SEARCH_ID:
+            startSearch();
+            break;
+         case STOP_ID:
+            JTBMessageSearch s = search;
+            if (s != null) {
+               s.stop();
+            }
+            break;
+         case IDialogConstants.CLOSE_ID:
+            close();
+            break;
+         default:
+            super.buttonPressed(buttonId);
+            break;
+      }
+   }
+
+   @Override
+   public boolean close() {
+      JTBMessageSearch s = search;
+      if (s != null) {
+         s.stop();
+      }
+      return super.close();
+   }
+
+   // -------
+   // Helpers
+   // -------
+
+   private void startSearch() {
+      List<JTBQueue> jtbQueues = new ArrayList<>();
+      for (JTBSession jtbSession : jtbSessions) {
+         JTBConnection jtbConnection = jtbSession.getJTBConnection(JTBSessionClientType.GUI);
+         if (!jtbConnection.isConnected()) {
+            continue;
+         }
+         for (JTBQueue jtbQueue : jtbConnection.getJtbQueuesToDisplay()) {
+            if (jtbQueue.isBrowsable()) {
+               jtbQueues.add(jtbQueue);
+            }
+         }
+      }
+      if (jtbQueues.isEmpty()) {
+         lblStatus.setText("No browsable queue in the connected sessions");
+         return;
+      }
+
+      String selector = buildSelector();
+      String payloadSearchText = textPayload.getText().trim();
+      int maxHits = spinnerMaxHits.getSelection();
+
+      hits.clear();
+      pendingHits.clear();
+      tableViewer.refresh();
+      lblStatus.setText("Searching " + jtbQueues.size() + " queues...");
+      getButton(SEARCH_ID).setEnabled(false);
+      getButton(STOP_ID).setEnabled(true);
+
+      Display display = getShell().getDisplay();
+      JTBMessageSearch s = new JTBMessageSearch(jtbQueues, selector, payloadSearchText, maxHits, PARALLELISM, jtbMessage -> {
+         pendingHits.add(jtbMessage);
+         if (drainScheduled.compareAndSet(false, true)) {
+            display.asyncExec(this::drainHits);
+         }
+      });
+      search = s;
+
+      Job job = new Job("Search messages") {
+         @Override
+         protected IStatus run(IProgressMonitor monitor) {
+            try {
+               s.run();
+            } catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+            }
+            display.asyncExec(() -> searchDone(s));
+            return Status.OK_STATUS;
+         }
+
+         @Override
+         protected void canceling() {
+            s.stop();
+         }
+      };
+      job.setSystem(false);
+      job.setUser(false);
+      job.schedule();
+   }
+
+   // Add the hits found since the last call to the table, in one batch
+   private void drainHits() {
+      drainScheduled.set(false);
+      if (tableViewer.getTable().isDisposed()) {
+         pendingHits.clear();
+         return;
+      }
+      List<JTBMessage> batch = new ArrayList<>();
+      JTBMessage jtbMessage;
+      while ((jtbMessage = pendingHits.poll()) != null) {
+         batch.add(jtbMessage);
+      }
+      if (batch.isEmpty()) {
+         return;
+      }
+      hits.addAll(batch);
+      tableViewer.add(batch.toArray());
+      lblStatus.setText(hits.size() + " messages found...");
+   }
+
+   private void searchDone(JTBMessageSearch s) {
+      if (getShell() == null || getShell().isDisposed()) {
+         return;
+      }
+      drainHits();
+      if (search == s) {
+         search = null;
+      }
+      getButton(SEARCH_ID).setEnabled(true);
+      getButton(STOP_ID).setEnabled(false);
+
+      StringBuilder sb = new StringBuilder(128);
+      sb.append(s.getNbHits()).append(" messages found in ").append(s.getNbQueuesDone()).append("/").append(s.getNbQueues());
+      sb.append(" queues. ").append(s.getNbMessages()).append(" messages browsed");
+      if (s.isLimitReached()) {
+         sb.append(". Max hits reached");
+      } else if (s.isStopped()) {
+         sb.append(". Stopped");
+      }
+      List<JTBMessageSearch.Failure> failures = s.getFailures();
+      if (!failures.isEmpty()) {
+         sb.append(". ").append(failures.size()).append(" queues in error (first: '");
+         sb.append(failures.get(0).getJtbQueue().getName()).append("': ");
+         sb.append(Utils.getCause(failures.get(0).getException()).getMessage()).append(")");
+      }
+      log.debug("Search done: {}", sb);
+      lblStatus.setText(sb.toString());
+   }
+
+   // JMSCorrelationID and JMSMessageID are combined with the selector, to let the server filter the messages
+   private String buildSelector() {
+      List<String> parts = new ArrayList<>(3);
+      String correlationId = textCorrelationId.getText().trim();
+      if (!correlationId.isEmpty()) {
+         parts.add("JMSCorrelationID = '" + correlationId.replace("'", "''") + "'");
+      }
+      String messageId = textMessageId.getText().trim();
+      if (!messageId.isEmpty()) {
+         parts.add("JMSMessageID = '" + messageId.replace("'", "''") + "'");
+      }
+      String selector = textSelector.getText().trim();
+      if (!selector.isEmpty()) {
+         parts.add(parts.isEmpty() ? selector : "(" + selector + ")");
+      }
+      return String.join(" AND ", parts);
+   }
+
+   private void createColumn(String title, int width, Function<JTBMessage, String> text) {
+      TableViewerColumn tvc = new TableViewerColumn(tableViewer, SWT.NONE);
+      tvc.getColumn().setText(title);
+      tvc.getColumn().setWidth(width);
+      tvc.getColumn().setResizable(true);
+      tvc.setLabelProvider(new ColumnLabelProvider() {
+         @Override
+         public String getText(Object element) {
+            return text.apply((JTBMessage) element);
+         }
+      });
+   }
+
+   private String readHeader(JTBMessage jtbMessage, boolean messageId) {
+      try {
+         Message m = jtbMessage.getJmsMessage();
+         String s = messageId ? m.getJMSMessageID() : m.getJMSCorrelationID();
+         return s == null ? "" : s;
+      } catch (JMSException e) {
+         return "";
+      }
+   }
+}
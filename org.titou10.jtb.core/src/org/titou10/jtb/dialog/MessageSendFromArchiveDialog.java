@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.dialog;
+
+import java.io.File;
+
+import org.eclipse.jface.dialogs.Dialog;
+import org.eclipse.jface.dialogs.IDialogConstants;
+import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.events.SelectionAdapter;
+import org.eclipse.swt.events.SelectionEvent;
+import org.eclipse.swt.graphics.Point;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.FileDialog;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Spinner;
+import org.eclipse.swt.widgets.Text;
+import org.titou10.jtb.jms.model.JTBDestination;
+import org.titou10.jtb.util.Constants;
+import org.titou10.jtb.util.Utils;
+
+/**
+ *
+ * Ask for the archive file, the commit batch size and the maximum rate to send the messages of an archive to a destination
+ *
+ * @author Denis Forveille
+ *
+ */
+public class MessageSendFromArchiveDialog extends Dialog {
+
+   private JTBDestination jtbDestination;
+   private int            initialBatchSize;
+
+   private File           archiveFile;
+   private int            batchSize;
+   private int            maxRate;
+
+   private Text           textFileName;
+   private Spinner        spinnerBatchSize;
+   private Spinner        spinnerMaxRate;
+
+   public MessageSendFromArchiveDialog(Shell parentShell, JTBDestination jtbDestination, int initialBatchSize) {
+      super(parentShell);
+      setShellStyle(SWT.RESIZE | SWT.TITLE | SWT.PRIMARY_MODAL);
+
+      this.jtbDestination = jtbDestination;
+      this.initialBatchSize = initialBatchSize;
+   }
+
+   @Override
+   protected void configureShell(Shell newShell) {
+      super.configureShell(newShell);
+      newShell.setText("Send messages from an archive to '" + jtbDestination.getName() + "'");
+   }
+
+   @Override
+   protected Point getInitialSize() {
+      Point p = super.getInitialSize();
+      return new Point(600, p.y);
+   }
+
+   @Override
+   protected void createButtonsForButtonBar(Composite parent) {
+      createButton(parent, IDialogConstants.OK_ID, "Send", true);
+      createButton(parent, IDialogConstants.CANCEL_ID, "Cancel", false);
+   }
+
+   @Override
+   protected Control createDialogArea(Composite parent) {
+      Composite container = (Composite) super.createDialogArea(parent);
+      container.setLayout(new GridLayout(3, false));
+
+      Label lbl1 = new Label(container, SWT.NONE);
+      lbl1.setText("From file:");
+
+      textFileName = new Text(container, SWT.BORDER);
+      textFileName.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false, 1, 1));
+
+      Button btnBrowse = new Button(container, SWT.NONE);
+      btnBrowse.setText("Browse...");
+
+      Label lbl2 = new Label(container, SWT.NONE);
+      lbl2.setText("Commit every:");
+
+      spinnerBatchSize = new Spinner(container, SWT.BORDER);
+      spinnerBatchSize.setLayoutData(new GridData(SWT.LEFT, SWT.CENTER, false, false, 2, 1));
+      spinnerBatchSize.setMinimum(1);
+      spinnerBatchSize.setMaximum(99999);
+      spinnerBatchSize.setIncrement(1);
+      spinnerBatchSize.setPageIncrement(100);
+      spinnerBatchSize.setTextLimit(5);
+      spinnerBatchSize.setSelection(initialBatchSize);
+
+      Label lbl3 = new Label(container, SWT.NONE);
+      lbl3.setText("Max msg/s:");
+
+      spinnerMaxRate = new Spinner(container, SWT.BORDER);
+      spinnerMaxRate.setLayoutData(new GridData(SWT.LEFT, SWT.CENTER, false, false, 2, 1));
+      spinnerMaxRate.setToolTipText("Maximum number of messages sent per second. 0 = no limit");
+      spinnerMaxRate.setMinimum(0);
+      spinnerMaxRate.setMaximum(999999);
+      spinnerMaxRate.setIncrement(1);
+      spinnerMaxRate.setPageIncrement(100);
+      spinnerMaxRate.setTextLimit(6);
+      spinnerMaxRate.setSelection(0);
+
+      Label lbl4 = new Label(container, SWT.WRAP);
+      lbl4.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false, 3, 1));
+      lbl4.setText("The archive is a zip file of templates, as created by the 'Dump Messages' command");
+
+      // Behavior
+
+      btnBrowse.addSelectionListener(new SelectionAdapter() {
+         @Override
+         public void widgetSelected(SelectionEvent e) {
+            FileDialog fileDialog = new FileDialog(getShell(), SWT.OPEN);
+            fileDialog.setText("Select the archive file");
+            fileDialog.setFilterExtensions(new String[] { Constants.JTB_TEMPLATE_ARCHIVE_FILE_EXTENSION });
+
+            String archiveFileName = fileDialog.open();
+            if (archiveFileName == null) {
+               return;
+            }
+            textFileName.setText(archiveFileName.trim());
+         }
+      });
+
+      return container;
+   }
+
+   @Override
+   protected void okPressed() {
+      String fileName = textFileName.getText().trim();
+      if (Utils.isEmpty(fileName)) {
+         MessageDialog.openError(getShell(), "Invalid File Name", "The file name is mandatory");
+         return;
+      }
+
+      archiveFile = new File(fileName);
+      if (!archiveFile.isFile()) {
+         MessageDialog.openError(getShell(), "Invalid File Name", "File '" + fileName + "' does not exist");
+         return;
+      }
+
+      batchSize = spinnerBatchSize.getSelection();
+      maxRate = spinnerMaxRate.getSelection();
+
+      super.okPressed();
+   }
+
+   // ----------------
+   // Standard Getters
+   // ----------------
+   public File getArchiveFile() {
+      return archiveFile;
+   }
+
+   public int getBatchSize() {
+      return batchSize;
+   }
+
+   public int getMaxRate() {
+      return maxRate;
+   }
+
+}
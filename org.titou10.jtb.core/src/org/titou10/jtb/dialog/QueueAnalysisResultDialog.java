@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.dialog;
+
+import org.eclipse.jface.dialogs.Dialog;
+import org.eclipse.jface.dialogs.IDialogConstants;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.Point;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Text;
+import org.eclipse.wb.swt.SWTResourceManager;
+
+/**
+ *
+ * Display the result of the analysis of the messages of a queue
+ *
+ * @author Denis Forveille
+ *
+ */
+public class QueueAnalysisResultDialog extends Dialog {
+
+   private String queueName;
+   private String summary;
+
+   public QueueAnalysisResultDialog(Shell parentShell, String queueName, String summary) {
+      super(parentShell);
+      setShellStyle(SWT.RESIZE | SWT.TITLE | SWT.CLOSE | SWT.MODELESS);
+      setBlockOnOpen(false);
+
+      this.queueName = queueName;
+      this.summary = summary;
+   }
+
+   @Override
+   protected void configureShell(Shell newShell) {
+      super.configureShell(newShell);
+      newShell.setText("Analysis of queue '" + queueName + "'");
+   }
+
+   @Override
+   protected Point getInitialSize() {
+      return new Point(700, 700);
+   }
+
+   @Override
+   protected void createButtonsForButtonBar(Composite parent) {
+      createButton(parent, IDialogConstants.CLOSE_ID, IDialogConstants.CLOSE_LABEL, true);
+   }
+
+   @Override
+   protected void buttonPressed(int buttonId) {
+      if (buttonId == IDialogConstants.CLOSE_ID) {
+         close();
+         return;
+      }
+      super.buttonPressed(buttonId);
+   }
+
+   @Override
+   protected Control createDialogArea(Composite parent) {
+      Composite container = (Composite) super.createDialogArea(parent);
+
+      Text txt = new Text(container, SWT.BORDER | SWT.MULTI | SWT.READ_ONLY | SWT.V_SCROLL | SWT.H_SCROLL);
+      txt.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true, 1, 1));
+      txt.setFont(SWTResourceManager.getFont("Courier New", 9, SWT.NORMAL));
+      txt.setText(summary);
+
+      return container;
+   }
+}
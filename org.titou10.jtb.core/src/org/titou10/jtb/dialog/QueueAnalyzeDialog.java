@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.dialog;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jface.dialogs.Dialog;
+import org.eclipse.jface.dialogs.IDialogConstants;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.Point;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Text;
+import org.titou10.jtb.jms.model.JTBQueue;
+
+/**
+ *
+ * Ask for the selector and the user properties to analyze the messages of a queue
+ *
+ * @author Denis Forveille
+ *
+ */
+public class QueueAnalyzeDialog extends Dialog {
+
+   private JTBQueue     jtbQueue;
+
+   private String       selector;
+   private List<String> propertyNames;
+
+   private Text         textSelector;
+   private Text         textPropertyNames;
+
+   public QueueAnalyzeDialog(Shell parentShell, JTBQueue jtbQueue) {
+      super(parentShell);
+      setShellStyle(SWT.RESIZE | SWT.TITLE | SWT.PRIMARY_MODAL);
+
+      this.jtbQueue = jtbQueue;
+   }
+
+   @Override
+   protected void configureShell(Shell newShell) {
+      super.configureShell(newShell);
+      newShell.setText("Analyze messages from queue '" + jtbQueue.getName() + "'");
+   }
+
+   @Override
+   protected Point getInitialSize() {
+      Point p = super.getInitialSize();
+      return new Point(600, p.y);
+   }
+
+   @Override
+   protected void createButtonsForButtonBar(Composite parent) {
+      createButton(parent, IDialogConstants.OK_ID, "Analyze", true);
+      createButton(parent, IDialogConstants.CANCEL_ID, "Cancel", false);
+   }
+
+   @Override
+   protected Control createDialogArea(Composite parent) {
+      Composite container = (Composite) super.createDialogArea(parent);
+      container.setLayout(new GridLayout(2, false));
+
+      Label lbl1 = new Label(container, SWT.NONE);
+      lbl1.setText("Selector:");
+
+      textSelector = new Text(container, SWT.BORDER);
+      textSelector.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false, 1, 1));
+      textSelector.setToolTipText("JMS selector applied to the messages of the queue. Leave empty for all messages");
+
+      Label lbl2 = new Label(container, SWT.NONE);
+      lbl2.setText("Properties:");
+
+      textPropertyNames = new Text(container, SWT.BORDER);
+      textPropertyNames.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false, 1, 1));
+      textPropertyNames.setToolTipText("Names of the user properties to analyze, separated by commas");
+
+      Label lbl3 = new Label(container, SWT.WRAP);
+      lbl3.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false, 2, 1));
+      lbl3.setText("Messages are browsed, not removed, and are not kept in memory: only counters are");
+
+      return container;
+   }
+
+   @Override
+   protected void okPressed() {
+      selector = textSelector.getText().trim();
+
+      propertyNames = new ArrayList<>();
+      for (String s : textPropertyNames.getText().split(",")) {
+         String name = s.trim();
+         if ((!name.isEmpty()) && (!propertyNames.contains(name))) {
+            propertyNames.add(name);
+         }
+      }
+
+      super.okPressed();
+   }
+
+   // ----------------
+   // Standard Getters
+   // ----------------
+   public String getSelector() {
+      return selector;
+   }
+
+   public List<String> getPropertyNames() {
+      return propertyNames;
+   }
+
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.dialog;
+
+import java.io.File;
+
+import org.eclipse.jface.dialogs.Dialog;
+import org.eclipse.jface.dialogs.IDialogConstants;
+import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.events.SelectionAdapter;
+import org.eclipse.swt.events.SelectionEvent;
+import org.eclipse.swt.graphics.Point;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.FileDialog;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Text;
+import org.titou10.jtb.jms.model.JTBQueue;
+import org.titou10.jtb.util.Constants;
+import org.titou10.jtb.util.Utils;
+
+/**
+ *
+ * Ask for the archive file, the selector and the compression to dump the messages of a queue
+ *
+ * @author Denis Forveille
+ *
+ */
+public class QueueDumpDialog extends Dialog {
+
+   private JTBQueue jtbQueue;
+
+   private File     archiveFile;
+   private String   selector;
+   private boolean  compress;
+
+   private Text     textFileName;
+   private Text     textSelector;
+   private Button   btnCompress;
+
+   public QueueDumpDialog(Shell parentShell, JTBQueue jtbQueue) {
+      super(parentShell);
+      setShellStyle(SWT.RESIZE | SWT.TITLE | SWT.PRIMARY_MODAL);
+
+      this.jtbQueue = jtbQueue;
+   }
+
+   @Override
+   protected void configureShell(Shell newShell) {
+      super.configureShell(newShell);
+      newShell.setText("Dump messages from queue '" + jtbQueue.getName() + "'");
+   }
+
+   @Override
+   protected Point getInitialSize() {
+      Point p = super.getInitialSize();
+      return new Point(600, p.y);
+   }
+
+   @Override
+   protected void createButtonsForButtonBar(Composite parent) {
+      createButton(parent, IDialogConstants.OK_ID, "Dump", true);
+      createButton(parent, IDialogConstants.CANCEL_ID, "Cancel", false);
+   }
+
+   @Override
+   protected Control createDialogArea(Composite parent) {
+      Composite container = (Composite) super.createDialogArea(parent);
+      container.setLayout(new GridLayout(3, false));
+
+      Label lbl1 = new Label(container, SWT.NONE);
+      lbl1.setText("To file:");
+
+      textFileName = new Text(container, SWT.BORDER);
+      textFileName.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false, 1, 1));
+
+      Button btnBrowse = new Button(container, SWT.NONE);
+      btnBrowse.setText("Browse...");
+
+      Label lbl2 = new Label(container, SWT.NONE);
+      lbl2.setText("Selector:");
+
+      textSelector = new Text(container, SWT.BORDER);
+      textSelector.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false, 2, 1));
+      textSelector.setToolTipText("JMS selector applied to the messages of the queue. Leave empty for all messages");
+
+      Label lbl3 = new Label(container, SWT.NONE);
+      lbl3.setText("Compress:");
+
+      btnCompress = new Button(container, SWT.CHECK);
+      btnCompress.setLayoutData(new GridData(SWT.LEFT, SWT.CENTER, false, false, 2, 1));
+      btnCompress.setSelection(true);
+
+      Label lbl4 = new Label(container, SWT.WRAP);
+      lbl4.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false, 3, 1));
+      lbl4.setText("Messages are browsed, not removed. Each message is saved as a template in the zip file");
+
+      // Behavior
+
+      btnBrowse.addSelectionListener(new SelectionAdapter() {
+         @Override
+         public void widgetSelected(SelectionEvent e) {
+            FileDialog fileDialog = new FileDialog(getShell(), SWT.SAVE);
+            fileDialog.setText("Specify a name for the archive file");
+            fileDialog.setFilterExtensions(new String[] { Constants.JTB_TEMPLATE_ARCHIVE_FILE_EXTENSION });
+            fileDialog.setFileName(jtbQueue.getName() + ".zip");
+            fileDialog.setOverwrite(true);
+
+            String archiveFileName = fileDialog.open();
+            if (archiveFileName == null) {
+               return;
+            }
+            textFileName.setText(archiveFileName.trim());
+         }
+      });
+
+      return container;
+   }
+
+   @Override
+   protected void okPressed() {
+      String fileName = textFileName.getText().trim();
+      if (Utils.isEmpty(fileName)) {
+         MessageDialog.openError(getShell(), "Invalid File Name", "The file name is mandatory");
+         return;
+      }
+
+      archiveFile = new File(fileName);
+      if (archiveFile.isDirectory()) {
+         MessageDialog.openError(getShell(), "Invalid File Name", "'" + fileName + "' is a directory");
+         return;
+      }
+
+      selector = textSelector.getText().trim();
+      compress = btnCompress.getSelection();
+
+      super.okPressed();
+   }
+
+   // ----------------
+   // Standard Getters
+   // ----------------
+   public File getArchiveFile() {
+      return archiveFile;
+   }
+
+   public String getSelector() {
+      return selector;
+   }
+
+   public boolean isCompress() {
+      return compress;
+   }
+
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.dialog;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jface.dialogs.Dialog;
+import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.jface.viewers.ArrayContentProvider;
+import org.eclipse.jface.viewers.ComboViewer;
+import org.eclipse.jface.viewers.LabelProvider;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Spinner;
+import org.eclipse.swt.widgets.Text;
+import org.titou10.jtb.jms.model.JTBConnection;
+import org.titou10.jtb.jms.model.JTBDestination;
+import org.titou10.jtb.jms.model.JTBQueue;
+
+/**
+ *
+ * Ask for the target destination, the selector and the mode (move or copy) to move/copy messages from a queue
+ *
+ * @author Denis Forveille
+ *
+ */
+public class QueueMoveCopyDialog extends Dialog {
+
+   private JTBQueue       sourceJTBQueue;
+   private int            initialBatchSize;
+
+   private JTBDestination targetJTBDestination;
+   private String         selector;
+   private boolean        move;
+   private int            batchSize;
+
+   private ComboViewer    comboTarget;
+   private Text           textSelector;
+   private Button         btnMove;
+   private Spinner        spinnerBatchSize;
+
+   public QueueMoveCopyDialog(Shell parentShell, JTBQueue sourceJTBQueue, String initialSelector, int initialBatchSize) {
+      super(parentShell);
+      setShellStyle(SWT.RESIZE | SWT.TITLE | SWT.PRIMARY_MODAL);
+
+      this.sourceJTBQueue = sourceJTBQueue;
+      this.selector = initialSelector;
+      this.initialBatchSize = initialBatchSize;
+   }
+
+   @Override
+   protected void configureShell(Shell newShell) {
+      super.configureShell(newShell);
+      newShell.setText("Move/Copy messages from queue '" + sourceJTBQueue.getName() + "'");
+   }
+
+   @Override
+   protected Control createDialogArea(Composite parent) {
+      Composite container = (Composite) super.createDialogArea(parent);
+      container.setLayout(new GridLayout(2, false));
+
+      JTBConnection jtbConnection = sourceJTBQueue.getJtbConnection();
+      List<JTBDestination> destinations = new ArrayList<>();
+      for (JTBQueue jtbQueue : jtbConnection.getJtbQueues()) {
+         if (!(jtbQueue.getName().equals(sourceJTBQueue.getName()))) {
+            destinations.add(jtbQueue);
+         }
+      }
+      destinations.addAll(jtbConnection.getJtbTopics());
+
+      Label lbl1 = new Label(container, SWT.NONE);
+      lbl1.setText("Target Destination:");
+
+      comboTarget = new ComboViewer(container, SWT.READ_ONLY);
+      comboTarget.getCombo().setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false, 1, 1));
+      comboTarget.setContentProvider(ArrayContentProvider.getInstance());
+      comboTarget.setLabelProvider(LabelProvider.createTextProvider(element -> {
+         JTBDestination d = (JTBDestination) element;
+         return (d.isJTBQueue() ? "Q: " : "T: ") + d.getName();
+      }));
+      comboTarget.setInput(destinations);
+
+      Label lbl2 = new Label(container, SWT.NONE);
+      lbl2.setText("Selector:");
+
+      textSelector = new Text(container, SWT.BORDER);
+      textSelector.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false, 1, 1));
+      textSelector.setToolTipText("JMS selector applied to the messages of the source queue. Leave empty for all messages");
+      if (selector != null) {
+         textSelector.setText(selector);
+      }
+
+      Label lbl3 = new Label(container, SWT.NONE);
+      lbl3.setText("Action:");
+
+      Composite cAction = new Composite(container, SWT.NONE);
+      cAction.setLayout(new GridLayout(2, false));
+
+      btnMove = new Button(cAction, SWT.RADIO);
+      btnMove.setText("Move");
+      btnMove.setSelection(true);
+
+      Button btnCopy = new Button(cAction, SWT.RADIO);
+      btnCopy.setText("Copy");
+
+      Label lbl4 = new Label(container, SWT.NONE);
+      lbl4.setText("Commit every:");
+
+      spinnerBatchSize = new Spinner(container, SWT.BORDER);
+      spinnerBatchSize.setLayoutData(new GridData(SWT.LEFT, SWT.CENTER, false, false, 1, 1));
+      spinnerBatchSize.setMinimum(1);
+      spinnerBatchSize.setMaximum(99999);
+      spinnerBatchSize.setIncrement(1);
+      spinnerBatchSize.setPageIncrement(100);
+      spinnerBatchSize.setTextLimit(5);
+      spinnerBatchSize.setSelection(initialBatchSize);
+
+      Label lbl5 = new Label(container, SWT.WRAP);
+      lbl5.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false, 2, 1));
+      lbl5.setText("If the Q Manager supports it, messages are moved/copied by the Q Manager itself");
+
+      return container;
+   }
+
+   @Override
+   protected void okPressed() {
+      targetJTBDestination = (JTBDestination) comboTarget.getStructuredSelection().getFirstElement();
+      if (targetJTBDestination == null) {
+         MessageDialog.openError(getShell(), "Invalid values", "Please select a target destination");
+         return;
+      }
+
+      selector = textSelector.getText().trim();
+      move = btnMove.getSelection();
+      batchSize = spinnerBatchSize.getSelection();
+
+      super.okPressed();
+   }
+
+   // ----------------
+   // Standard Getters
+   // ----------------
+   public JTBDestination getTargetJTBDestination() {
+      return targetJTBDestination;
+   }
+
+   public String getSelector() {
+      return selector;
+   }
+
+   public boolean isMove() {
+      return move;
+   }
+
+   public int getBatchSize() {
+      return batchSize;
+   }
+
+}
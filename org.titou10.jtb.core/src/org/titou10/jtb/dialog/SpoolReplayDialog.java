@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.dialog;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jface.dialogs.Dialog;
+import org.eclipse.jface.dialogs.IDialogConstants;
+import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.Point;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Combo;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Spinner;
+import org.titou10.jtb.jms.model.JTBConnection;
+import org.titou10.jtb.jms.model.JTBDestination;
+import org.titou10.jtb.jms.model.JTBQueue;
+import org.titou10.jtb.jms.model.JTBTopic;
+
+/**
+ *
+ * Ask for the target destination, the commit batch size and the maximum rate to send the messages of a spool
+ *
+ * @author Denis Forveille
+ *
+ */
+public class SpoolReplayDialog extends Dialog {
+
+   private JTBConnection        jtbConnection;
+   private String               sourceName;
+   private long                 nbMessages;
+   private int                  initialBatchSize;
+
+   private JTBDestination       jtbDestination;
+   private int                  batchSize;
+   private int                  maxRate;
+
+   private List<JTBDestination> destinations = new ArrayList<>();
+
+   private Combo                comboDestination;
+   private Spinner              spinnerBatchSize;
+   private Spinner              spinnerMaxRate;
+
+   public SpoolReplayDialog(Shell parentShell,
+                            JTBConnection jtbConnection,
+                            String sourceName,
+                            long nbMessages,
+                            int initialBatchSize) {
+      super(parentShell);
+      setShellStyle(SWT.RESIZE | SWT.TITLE | SWT.PRIMARY_MODAL);
+
+      this.jtbConnection = jtbConnection;
+      this.sourceName = sourceName;
+      this.nbMessages = nbMessages;
+      this.initialBatchSize = initialBatchSize;
+   }
+
+   @Override
+   protected void configureShell(Shell newShell) {
+      super.configureShell(newShell);
+      newShell.setText("Send the " + nbMessages + " messages spooled from '" + sourceName + "'");
+   }
+
+   @Override
+   protected Point getInitialSize() {
+      Point p = super.getInitialSize();
+      return new Point(600, p.y);
+   }
+
+   @Override
+   protected void createButtonsForButtonBar(Composite parent) {
+      createButton(parent, IDialogConstants.OK_ID, "Send", true);
+      createButton(parent, IDialogConstants.CANCEL_ID, "Cancel", false);
+   }
+
+   @Override
+   protected Control createDialogArea(Composite parent) {
+      Composite container = (Composite) super.createDialogArea(parent);
+      container.setLayout(new GridLayout(2, false));
+
+      Label lbl1 = new Label(container, SWT.NONE);
+      lbl1.setText("To destination:");
+
+      comboDestination = new Combo(container, SWT.READ_ONLY);
+      comboDestination.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false, 1, 1));
+      comboDestination.setVisibleItemCount(20);
+      for (JTBQueue jtbQueue : jtbConnection.getJtbQueues()) {
+         destinations.add(jtbQueue);
+         comboDestination.add("Queue: " + jtbQueue.getName());
+      }
+      for (JTBTopic jtbTopic : jtbConnection.getJtbTopics()) {
+         destinations.add(jtbTopic);
+         comboDestination.add("Topic: " + jtbTopic.getName());
+      }
+
+      Label lbl2 = new Label(container, SWT.NONE);
+      lbl2.setText("Commit every:");
+
+      spinnerBatchSize = new Spinner(container, SWT.BORDER);
+      spinnerBatchSize.setLayoutData(new GridData(SWT.LEFT, SWT.CENTER, false, false, 1, 1));
+      spinnerBatchSize.setMinimum(1);
+      spinnerBatchSize.setMaximum(99999);
+      spinnerBatchSize.setIncrement(1);
+      spinnerBatchSize.setPageIncrement(100);
+      spinnerBatchSize.setTextLimit(5);
+      spinnerBatchSize.setSelection(initialBatchSize);
+
+      Label lbl3 = new Label(container, SWT.NONE);
+      lbl3.setText("Max msg/s:");
+
+      spinnerMaxRate = new Spinner(container, SWT.BORDER);
+      spinnerMaxRate.setLayoutData(new GridData(SWT.LEFT, SWT.CENTER, false, false, 1, 1));
+      spinnerMaxRate.setToolTipText("Maximum number of messages sent per second. 0 = no limit");
+      spinnerMaxRate.setMinimum(0);
+      spinnerMaxRate.setMaximum(999999);
+      spinnerMaxRate.setIncrement(1);
+      spinnerMaxRate.setPageIncrement(100);
+      spinnerMaxRate.setTextLimit(6);
+      spinnerMaxRate.setSelection(0);
+
+      return container;
+   }
+
+   @Override
+   protected void okPressed() {
+      int index = comboDestination.getSelectionIndex();
+      if (index < 0) {
+         MessageDialog.openError(getShell(), "Invalid Destination", "The destination is mandatory");
+         return;
+      }
+
+      jtbDestination = destinations.get(index);
+      batchSize = spinnerBatchSize.getSelection();
+      maxRate = spinnerMaxRate.getSelection();
+
+      super.okPressed();
+   }
+
+   // ----------------
+   // Standard Getters
+   // ----------------
+   public JTBDestination getJtbDestination() {
+      return jtbDestination;
+   }
+
+   public int getBatchSize() {
+      return batchSize;
+   }
+
+   public int getMaxRate() {
+      return maxRate;
+   }
+
+}
@@ -19,7 +19,6 @@ package org.titou10.jtb.handler;
 import java.util.Map;
 
 import javax.inject.Named;
-import javax.jms.Connection;
 
 import org.eclipse.e4.core.di.annotations.CanExecute;
 import org.eclipse.e4.core.di.annotations.Execute;
@@ -31,7 +30,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.titou10.jtb.dialog.DestinationInformationDialog;
 import org.titou10.jtb.jms.model.JTBDestination;
-import org.titou10.jtb.jms.qm.QManager;
 import org.titou10.jtb.ui.navigator.NodeAbstract;
 import org.titou10.jtb.ui.navigator.NodeJTBQueue;
 import org.titou10.jtb.ui.navigator.NodeJTBTopic;
@@ -52,16 +50,8 @@ public class DestinationInformationHandler {
       log.debug("execute. Selection : {}", nodeAbstract);
 
       JTBDestination jtbDestination = (JTBDestination) nodeAbstract.getBusinessObject();
-      QManager qm = jtbDestination.getJtbConnection().getQm();
-      Connection jmsConnection = jtbDestination.getJtbConnection().getJmsConnection();
-      String destinationName = jtbDestination.getName();
 
-      Map<String, Object> destinationInformation;
-      if (jtbDestination.isJTBQueue()) {
-         destinationInformation = qm.getQueueInformation(jmsConnection, destinationName);
-      } else {
-         destinationInformation = qm.getTopicInformation(jmsConnection, destinationName);
-      }
+      Map<String, Object> destinationInformation = jtbDestination.getJtbConnection().getDestinationInformation(jtbDestination);
 
       DestinationInformationDialog dialog = new DestinationInformationDialog(shell, jtbDestination, destinationInformation);
       dialog.open();
@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.handler;
+
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.eclipse.e4.core.di.annotations.CanExecute;
+import org.eclipse.e4.core.di.annotations.Execute;
+import org.eclipse.e4.core.di.annotations.Optional;
+import org.eclipse.e4.core.services.events.IEventBroker;
+import org.eclipse.e4.ui.model.application.ui.menu.MMenuItem;
+import org.eclipse.e4.ui.services.IServiceConstants;
+import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.jface.dialogs.ProgressMonitorDialog;
+import org.eclipse.jface.window.Window;
+import org.eclipse.swt.widgets.Shell;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.titou10.jtb.config.JTBPreferenceStore;
+import org.titou10.jtb.dialog.MessageSendFromArchiveDialog;
+import org.titou10.jtb.jms.model.JTBDestination;
+import org.titou10.jtb.jms.model.JTBObject;
+import org.titou10.jtb.jms.model.JTBQueue;
+import org.titou10.jtb.jms.model.JTBTopic;
+import org.titou10.jtb.template.ArchiveStatistics;
+import org.titou10.jtb.template.TemplatesManager;
+import org.titou10.jtb.ui.JTBStatusReporter;
+import org.titou10.jtb.ui.navigator.NodeJTBQueue;
+import org.titou10.jtb.ui.navigator.NodeJTBTopic;
+import org.titou10.jtb.util.Constants;
+import org.titou10.jtb.util.Utils;
+
+/**
+ * Manage the "Send Messages from Archive" command: send all the templates of an archive to a destination
+ *
+ * @author Denis Forveille
+ *
+ */
+public class MessageSendFromArchiveHandler {
+
+   private static final Logger log = LoggerFactory.getLogger(MessageSendFromArchiveHandler.class);
+
+   @Inject
+   private IEventBroker        eventBroker;
+
+   @Inject
+   private JTBStatusReporter   jtbStatusReporter;
+
+   @Inject
+   private JTBPreferenceStore  ps;
+
+   @Inject
+   private TemplatesManager    templatesManager;
+
+   // This can be called in two contexts depending on parameter "queueOrMessage":
+   // - right click on a session = QUEUE : -> use selection
+   // - right click on message browser = MESSAGE : -> use tabJTBQueue
+
+   @Execute
+   public void execute(Shell shell,
+                       @Named(Constants.COMMAND_CONTEXT_PARAM) String context,
+                       @Named(IServiceConstants.ACTIVE_SELECTION) @Optional JTBObject selection,
+                       @Named(Constants.CURRENT_TAB_JTBDESTINATION) @Optional JTBDestination jtbDestination) {
+      log.debug("execute");
+
+      switch (context) {
+         case Constants.COMMAND_CONTEXT_PARAM_QUEUE:
+            if (selection instanceof NodeJTBQueue) {
+               NodeJTBQueue nodeJTBQueue = (NodeJTBQueue) selection;
+               jtbDestination = (JTBQueue) nodeJTBQueue.getBusinessObject();
+            } else {
+               NodeJTBTopic nodeJTBTopic = (NodeJTBTopic) selection;
+               jtbDestination = (JTBTopic) nodeJTBTopic.getBusinessObject();
+            }
+            break;
+
+         case Constants.COMMAND_CONTEXT_PARAM_MESSAGE:
+            break;
+
+         default:
+            log.error("Invalid value : {}", context);
+            return;
+      }
+
+      MessageSendFromArchiveDialog dialog = new MessageSendFromArchiveDialog(shell,
+                                                                             jtbDestination,
+                                                                             ps.getInt(Constants.PREF_MOVE_COPY_BATCH_SIZE));
+      if (dialog.open() != Window.OK) {
+         return;
+      }
+
+      JTBDestination targetJTBDestination = jtbDestination;
+      File archiveFile = dialog.getArchiveFile();
+      int batchSize = dialog.getBatchSize();
+      int maxRate = dialog.getMaxRate();
+
+      // Read and send the messages in a background thread, with a cancellable progress bar
+      AtomicReference<ArchiveStatistics> stats = new AtomicReference<>();
+      ProgressMonitorDialog progressDialog = new ProgressMonitorDialog(shell);
+      try {
+         progressDialog.run(true, true, monitor -> {
+            try {
+               stats.set(templatesManager
+                        .replayArchiveToDestination(monitor, archiveFile, targetJTBDestination, batchSize, maxRate));
+            } catch (Exception e) {
+               throw new InvocationTargetException(e);
+            }
+         });
+      } catch (InvocationTargetException e) {
+         jtbStatusReporter.showError("Problem occurred while sending the messages", Utils.getCause(e), jtbDestination.getName());
+         return;
+      } catch (InterruptedException e) {
+         // Not thrown by the runnable
+         return;
+      }
+
+      // Refresh List if the destination is browsable
+      if ((jtbDestination.isJTBQueue()) && (jtbDestination.getAsJTBQueue().isBrowsable())) {
+         eventBroker.send(Constants.EVENT_REFRESH_QUEUE_MESSAGES, jtbDestination);
+      }
+
+      ArchiveStatistics s = stats.get();
+      if (s.isCancelled()) {
+         MessageDialog.openWarning(shell, "Cancelled", "Process cancelled. Messages sent so far:\n" + s);
+      } else {
+         MessageDialog.openInformation(shell, "Success", "Messages sent to '" + jtbDestination.getName() + "':\n" + s);
+      }
+   }
+
+   @CanExecute
+   public boolean canExecute(@Named(Constants.COMMAND_CONTEXT_PARAM) String context,
+                             @Named(IServiceConstants.ACTIVE_SELECTION) @Optional JTBObject selection,
+                             @Named(Constants.CURRENT_TAB_JTBDESTINATION) @Optional JTBDestination jtbDestination,
+                             @Optional MMenuItem menuItem) {
+
+      switch (context) {
+         case Constants.COMMAND_CONTEXT_PARAM_QUEUE:
+            // Show menu on Queues and Topics only
+            if ((selection instanceof NodeJTBQueue) || (selection instanceof NodeJTBTopic)) {
+               return Utils.enableMenu(menuItem);
+            }
+            return Utils.disableMenu(menuItem);
+
+         case Constants.COMMAND_CONTEXT_PARAM_MESSAGE:
+            if (jtbDestination != null) {
+               return Utils.enableMenu(menuItem);
+            }
+            return Utils.disableMenu(menuItem);
+
+         default:
+            log.error("Invalid value : {}", context);
+            return Utils.disableMenu(menuItem);
+      }
+   }
+}
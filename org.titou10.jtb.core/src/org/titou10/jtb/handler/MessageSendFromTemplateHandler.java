@@ -40,6 +40,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.titou10.jtb.config.JTBPreferenceStore;
 import org.titou10.jtb.dialog.MessageSendFromTemplateDialog;
+import org.titou10.jtb.jms.model.JTBBatchSender;
 import org.titou10.jtb.jms.model.JTBConnection;
 import org.titou10.jtb.jms.model.JTBDestination;
 import org.titou10.jtb.jms.model.JTBMessage;
@@ -123,15 +124,25 @@ public class MessageSendFromTemplateHandler {
                   if (!(MessageDialog.openConfirm(shell, "Confirmation", msg2))) {
                      return;
                   }
-                  try {
-                     // Post Messages
-                     JTBConnection jtbConnection2 = jtbDestination.getJtbConnection();
-                     for (IFileStore ifs : templates) {
-                        JTBMessageTemplate t = templatesManager.readTemplate(ifs);
-                        t.setPayloadText(variablesManager.replaceTemplateVariables(t.getPayloadText()));
-                        Message m = jtbConnection2.createJMSMessage(t.getJtbMessageType());
-                        JTBMessage jtbMessage = t.toJTBMessage(jtbDestination, m);
-                        jtbDestination.getJtbConnection().sendMessage(jtbMessage);
+                  try (JTBBatchSender sender = jtbDestination.getJtbConnection().createBatchSender()) {
+                     try {
+                        // Post Messages, in batches
+                        int batchSize = ps.getInt(Constants.PREF_MOVE_COPY_BATCH_SIZE);
+                        int n = 0;
+                        for (IFileStore ifs : templates) {
+                           JTBMessageTemplate t = templatesManager.readTemplate(ifs);
+                           t.setPayloadText(variablesManager.replaceTemplateVariables(t.getPayloadText()));
+                           Message m = sender.createJMSMessage(t.getJtbMessageType());
+                           JTBMessage jtbMessage = t.toJTBMessage(jtbDestination, m);
+                           sender.send(jtbMessage, jtbDestination);
+                           if ((++n % batchSize) == 0) {
+                              sender.commit();
+                           }
+                        }
+                        sender.commit();
+                     } catch (Exception e) {
+                        sender.rollback();
+                        throw e;
                      }
                      // Refresh List if the destination is browsable
                      if ((jtbDestination.isJTBQueue()) && (!jtbDestination.getAsJTBQueue().isBrowsable())) {
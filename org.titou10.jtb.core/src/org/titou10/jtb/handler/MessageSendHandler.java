@@ -148,15 +148,9 @@ public class MessageSendHandler {
                         }
 
                      } else {
-                        // else, blindly duplicate and post the messages
-                        JTBMessage newMessage;
-                        for (JTBMessage jtbMessage : jtbMessages) {
-                           // Create new Message to destination from old Message
-                           JTBConnection jtbConnection = jtbDestination.getJtbConnection();
-                           Message newJMSMessage = jtbConnection.cloneJMSMessage(jtbMessage.getJmsMessage());
-                           newMessage = new JTBMessage(jtbDestination, newJMSMessage);
-                           jtbDestination.getJtbConnection().sendMessage(newMessage, jtbDestination);
-                        }
+                        // else, blindly duplicate and post the messages, in batches
+                        JTBConnection jtbConnection = jtbDestination.getJtbConnection();
+                        jtbConnection.copyMessages(jtbMessages, jtbDestination, ps.getInt(Constants.PREF_MOVE_COPY_BATCH_SIZE));
                      }
 
                      // Refresh List if the destination is browsable
@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.handler;
+
+import java.lang.reflect.InvocationTargetException;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.jms.JMSException;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.e4.core.di.annotations.CanExecute;
+import org.eclipse.e4.core.di.annotations.Execute;
+import org.eclipse.e4.core.di.annotations.Optional;
+import org.eclipse.e4.ui.model.application.ui.menu.MMenuItem;
+import org.eclipse.e4.ui.services.IServiceConstants;
+import org.eclipse.jface.dialogs.ProgressMonitorDialog;
+import org.eclipse.jface.window.Window;
+import org.eclipse.swt.widgets.Shell;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.titou10.jtb.dialog.QueueAnalysisResultDialog;
+import org.titou10.jtb.dialog.QueueAnalyzeDialog;
+import org.titou10.jtb.jms.model.JTBConnection;
+import org.titou10.jtb.jms.model.JTBDestination;
+import org.titou10.jtb.jms.model.JTBObject;
+import org.titou10.jtb.jms.model.JTBQueue;
+import org.titou10.jtb.jms.model.JTBQueueAnalysis;
+import org.titou10.jtb.ui.JTBStatusReporter;
+import org.titou10.jtb.ui.navigator.NodeJTBQueue;
+import org.titou10.jtb.util.Constants;
+import org.titou10.jtb.util.Utils;
+
+/**
+ * Manage the "Analyze Queue" command: profile the messages of a queue (sizes, ages, priorities, JMSType, user properties)
+ * without keeping them in memory
+ *
+ * @author Denis Forveille
+ *
+ */
+public class QueueAnalyzeHandler {
+
+   private static final Logger log            = LoggerFactory.getLogger(QueueAnalyzeHandler.class);
+
+   private static final int    PROGRESS_EVERY = 1000;
+
+   @Inject
+   private JTBStatusReporter   jtbStatusReporter;
+
+   // This can be called in two contexts depending on parameter "queueOrMessage":
+   // - right click on a session = QUEUE : -> use selection
+   // - right click on message browser = MESSAGE : -> use tabJTBQueue
+
+   @Execute
+   public void execute(Shell shell,
+                       @Named(Constants.COMMAND_CONTEXT_PARAM) String context,
+                       @Named(IServiceConstants.ACTIVE_SELECTION) @Optional JTBObject selection,
+                       @Named(Constants.CURRENT_TAB_JTBDESTINATION) @Optional JTBDestination jtbDestination) {
+      log.debug("execute");
+
+      JTBQueue jtbQueue;
+      switch (context) {
+         case Constants.COMMAND_CONTEXT_PARAM_QUEUE:
+            NodeJTBQueue nodeJTBQueue = (NodeJTBQueue) selection;
+            jtbQueue = (JTBQueue) nodeJTBQueue.getBusinessObject();
+            break;
+         case Constants.COMMAND_CONTEXT_PARAM_MESSAGE:
+            jtbQueue = jtbDestination.getAsJTBQueue();
+            break;
+         default:
+            log.error("Invalid value : {}", context);
+            return;
+      }
+
+      QueueAnalyzeDialog dialog = new QueueAnalyzeDialog(shell, jtbQueue);
+      if (dialog.open() != Window.OK) {
+         return;
+      }
+
+      String selector = dialog.getSelector();
+      JTBQueueAnalysis analysis = new JTBQueueAnalysis(dialog.getPropertyNames());
+
+      // Browse the messages in a background thread, with a cancellable progress bar
+      ProgressMonitorDialog progressDialog = new ProgressMonitorDialog(shell);
+      try {
+         progressDialog.run(true, true, monitor -> {
+            try {
+               analyzeQueue(monitor, jtbQueue, selector, analysis);
+            } catch (JMSException e) {
+               throw new InvocationTargetException(e);
+            }
+         });
+      } catch (InvocationTargetException e) {
+         jtbStatusReporter.showError("Problem occurred while analyzing the messages", Utils.getCause(e), jtbQueue.getName());
+         return;
+      } catch (InterruptedException e) {
+         // Not thrown by the runnable
+         return;
+      }
+
+      new QueueAnalysisResultDialog(shell, jtbQueue.getName(), analysis.getSummary()).open();
+   }
+
+   @CanExecute
+   public boolean canExecute(@Named(Constants.COMMAND_CONTEXT_PARAM) String context,
+                             @Named(IServiceConstants.ACTIVE_SELECTION) @Optional JTBObject selection,
+                             @Named(Constants.CURRENT_TAB_JTBDESTINATION) @Optional JTBDestination jtbDestination,
+                             @Optional MMenuItem menuItem) {
+
+      switch (context) {
+         case Constants.COMMAND_CONTEXT_PARAM_QUEUE:
+            // Show menu on Queues that can be browsed only
+            if (selection instanceof NodeJTBQueue) {
+               NodeJTBQueue nodeJTBQueue = (NodeJTBQueue) selection;
+               JTBQueue jtbQueue = (JTBQueue) nodeJTBQueue.getBusinessObject();
+               if (jtbQueue.isBrowsable()) {
+                  return Utils.enableMenu(menuItem);
+               }
+            }
+            return Utils.disableMenu(menuItem);
+
+         case Constants.COMMAND_CONTEXT_PARAM_MESSAGE:
+            // Show menu on Queues that can be browsed only
+            if ((jtbDestination != null) && (jtbDestination.isJTBQueue())) {
+               if (jtbDestination.getAsJTBQueue().isBrowsable()) {
+                  return Utils.enableMenu(menuItem);
+               }
+            }
+            return Utils.disableMenu(menuItem);
+
+         default:
+            log.error("Invalid value : {}", context);
+            return Utils.disableMenu(menuItem);
+      }
+   }
+
+   // -------
+   // Helpers
+   // -------
+
+   // Stream through the messages of the queue. Only the counters of the analysis are kept
+   private void analyzeQueue(IProgressMonitor monitor,
+                             JTBQueue jtbQueue,
+                             String selector,
+                             JTBQueueAnalysis analysis) throws JMSException {
+      JTBConnection jtbConnection = jtbQueue.getJtbConnection();
+      Integer depth = jtbConnection.getQueueDepth(jtbQueue);
+      if ((depth == null) || (selector != null && !selector.isEmpty())) {
+         monitor.beginTask("Analyzing messages from '" + jtbQueue.getName() + "'...", IProgressMonitor.UNKNOWN);
+      } else {
+         monitor.beginTask("Analyzing messages from '" + jtbQueue.getName() + "'...", depth);
+      }
+
+      long start = System.currentTimeMillis();
+      JMSException[] failure = new JMSException[1];
+      jtbConnection.browseQueue(jtbQueue, selector, jtbMessage -> {
+         if (monitor.isCanceled()) {
+            return false;
+         }
+         try {
+            analysis.add(jtbMessage.getJmsMessage());
+         } catch (JMSException e) {
+            failure[0] = e;
+            return false;
+         }
+
+         monitor.worked(1);
+         if ((analysis.getNbMessages() % PROGRESS_EVERY) == 0) {
+            monitor.subTask(analysis.getNbMessages() + " messages analyzed");
+         }
+         return true;
+      });
+
+      if (failure[0] != null) {
+         log.error("Exception occurred while analyzing queue '{}'", jtbQueue.getName(), failure[0]);
+         throw failure[0];
+      }
+
+      analysis.end(System.currentTimeMillis() - start, monitor.isCanceled());
+      monitor.done();
+
+      log.info("Analysis of queue '{}' done: {} messages", jtbQueue.getName(), analysis.getNbMessages());
+   }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.handler;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.jms.JMSException;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.e4.core.di.annotations.CanExecute;
+import org.eclipse.e4.core.di.annotations.Execute;
+import org.eclipse.e4.core.di.annotations.Optional;
+import org.eclipse.e4.core.services.events.IEventBroker;
+import org.eclipse.e4.ui.model.application.ui.menu.MMenuItem;
+import org.eclipse.e4.ui.services.IServiceConstants;
+import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.jface.dialogs.ProgressMonitorDialog;
+import org.eclipse.jface.window.Window;
+import org.eclipse.swt.widgets.Shell;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.titou10.jtb.config.JTBPreferenceStore;
+import org.titou10.jtb.dialog.QueueMoveCopyDialog;
+import org.titou10.jtb.jms.model.JTBConnection;
+import org.titou10.jtb.jms.model.JTBDestination;
+import org.titou10.jtb.jms.model.JTBObject;
+import org.titou10.jtb.jms.model.JTBQueue;
+import org.titou10.jtb.ui.JTBStatusReporter;
+import org.titou10.jtb.ui.navigator.NodeJTBQueue;
+import org.titou10.jtb.util.Constants;
+import org.titou10.jtb.util.Utils;
+
+/**
+ * Manage the "Move/Copy Messages" dialog and command
+ *
+ * @author Denis Forveille
+ *
+ */
+public class QueueMoveCopyHandler {
+
+   private static final Logger log = LoggerFactory.getLogger(QueueMoveCopyHandler.class);
+
+   @Inject
+   private IEventBroker        eventBroker;
+
+   @Inject
+   private JTBStatusReporter   jtbStatusReporter;
+
+   @Inject
+   private JTBPreferenceStore  ps;
+
+   // This can be called in two contexts depending on parameter "queueOrMessage":
+   // - right click on a session = QUEUE : -> use selection
+   // - right click on message browser = MESSAGE : -> use tabJTBQueue
+
+   @Execute
+   public void execute(Shell shell,
+                       @Named(Constants.COMMAND_CONTEXT_PARAM) String context,
+                       @Named(IServiceConstants.ACTIVE_SELECTION) @Optional JTBObject selection,
+                       @Named(Constants.CURRENT_TAB_JTBDESTINATION) @Optional JTBDestination jtbDestination) {
+      log.debug("execute");
+
+      JTBQueue jtbQueue;
+      switch (context) {
+         case Constants.COMMAND_CONTEXT_PARAM_QUEUE:
+            NodeJTBQueue nodeJTBQueue = (NodeJTBQueue) selection;
+            jtbQueue = (JTBQueue) nodeJTBQueue.getBusinessObject();
+            break;
+         case Constants.COMMAND_CONTEXT_PARAM_MESSAGE:
+            jtbQueue = jtbDestination.getAsJTBQueue();
+            break;
+         default:
+            log.error("Invalid value : {}", context);
+            return;
+      }
+
+      QueueMoveCopyDialog dialog = new QueueMoveCopyDialog(shell, jtbQueue, null, ps.getInt(Constants.PREF_MOVE_COPY_BATCH_SIZE));
+      if (dialog.open() != Window.OK) {
+         return;
+      }
+
+      JTBDestination targetJTBDestination = dialog.getTargetJTBDestination();
+      String selector = dialog.getSelector();
+      boolean move = dialog.isMove();
+      int batchSize = dialog.getBatchSize();
+
+      JTBConnection jtbConnection = jtbQueue.getJtbConnection();
+      String verb = move ? "moved" : "copied";
+
+      // Messages moved/copied so far, updated after each batch
+      AtomicInteger nb = new AtomicInteger(0);
+      AtomicBoolean cancelled = new AtomicBoolean(false);
+      // Number of messages in the source queue before the operation, if known and if there is no selector
+      AtomicReference<Integer> expected = new AtomicReference<>();
+
+      boolean failed = false;
+      ProgressMonitorDialog progressDialog = new ProgressMonitorDialog(shell);
+      try {
+         progressDialog.run(true, true, monitor -> {
+            if (Utils.isEmpty(selector)) {
+               expected.set(jtbConnection.getQueueDepth(jtbQueue));
+            }
+            monitor.beginTask((move ? "Moving" : "Copying") + " messages from '" + jtbQueue.getName() + "' to '"
+                              + targetJTBDestination.getName() + "'...",
+                              expected.get() == null ? IProgressMonitor.UNKNOWN : expected.get());
+            try {
+               int n = jtbConnection.moveOrCopyMessages(jtbQueue, targetJTBDestination, selector, move, batchSize, count -> {
+                  monitor.worked(count - nb.getAndSet(count));
+                  monitor.subTask(count + " message(s) " + verb);
+                  if (monitor.isCanceled()) {
+                     cancelled.set(true);
+                     return false;
+                  }
+                  return true;
+               });
+               nb.set(n);
+            } catch (JMSException e) {
+               throw new InvocationTargetException(e);
+            } finally {
+               monitor.done();
+            }
+         });
+      } catch (InvocationTargetException e) {
+         failed = true;
+         jtbStatusReporter.showError("Problem occurred while moving/copying the messages. "
+                                     + "The batches of messages committed before the problem have been " + verb,
+                                     Utils.getCause(e),
+                                     jtbQueue.getName());
+      } catch (InterruptedException e) {
+         // Not thrown by the runnable
+      }
+
+      // Refresh the source and the target browsers
+      eventBroker.send(Constants.EVENT_REFRESH_QUEUE_MESSAGES, jtbQueue);
+      if (targetJTBDestination.isJTBQueue() && targetJTBDestination.getAsJTBQueue().isBrowsable()) {
+         eventBroker.send(Constants.EVENT_REFRESH_QUEUE_MESSAGES, targetJTBDestination);
+      }
+
+      if (failed) {
+         return;
+      }
+
+      String msg = nb.get() + " message(s) " + verb + " from '" + jtbQueue.getName() + "' to '" + targetJTBDestination.getName()
+                   + "'";
+      if (cancelled.get()) {
+         MessageDialog.openWarning(shell, "Cancelled", msg + " before the operation was cancelled.");
+         return;
+      }
+      if ((expected.get() != null) && (nb.get() < expected.get())) {
+         log.warn("{} messages {} from {} while the queue held {} messages", nb.get(), verb, jtbQueue.getName(), expected.get());
+         StringBuilder sb = new StringBuilder(512);
+         sb.append(msg);
+         sb.append(", but the queue held ").append(expected.get()).append(" message(s) when the operation started.\n\n");
+         sb.append("The other messages were not received from the queue: they may be held by another consumer, have expired, ");
+         sb.append("or the Q Manager may limit the number of messages that can be browsed.");
+         MessageDialog.openWarning(shell, "Some messages not " + verb, sb.toString());
+         return;
+      }
+      MessageDialog.openInformation(shell, "Success", msg);
+   }
+
+   @CanExecute
+   public boolean canExecute(@Named(Constants.COMMAND_CONTEXT_PARAM) String context,
+                             @Named(IServiceConstants.ACTIVE_SELECTION) @Optional JTBObject selection,
+                             @Named(Constants.CURRENT_TAB_JTBDESTINATION) @Optional JTBDestination jtbDestination,
+                             @Optional MMenuItem menuItem) {
+
+      switch (context) {
+         case Constants.COMMAND_CONTEXT_PARAM_QUEUE:
+            // Show menu on Queues that can be browsed only
+            if (selection instanceof NodeJTBQueue) {
+               NodeJTBQueue nodeJTBQueue = (NodeJTBQueue) selection;
+               JTBQueue jtbQueue = (JTBQueue) nodeJTBQueue.getBusinessObject();
+               if (jtbQueue.isBrowsable()) {
+                  return Utils.enableMenu(menuItem);
+               }
+            }
+            return Utils.disableMenu(menuItem);
+
+         case Constants.COMMAND_CONTEXT_PARAM_MESSAGE:
+            // Show menu on Queues that can be browsed only
+            if ((jtbDestination != null) && (jtbDestination.isJTBQueue())) {
+               if (jtbDestination.getAsJTBQueue().isBrowsable()) {
+                  return Utils.enableMenu(menuItem);
+               }
+            }
+            return Utils.disableMenu(menuItem);
+
+         default:
+            log.error("Invalid value : {}", context);
+            return Utils.disableMenu(menuItem);
+      }
+   }
+}
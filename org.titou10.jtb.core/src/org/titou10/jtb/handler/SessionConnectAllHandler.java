@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.handler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.eclipse.e4.core.di.annotations.CanExecute;
+import org.eclipse.e4.core.di.annotations.Execute;
+import org.eclipse.e4.core.di.annotations.Optional;
+import org.eclipse.e4.core.services.events.IEventBroker;
+import org.eclipse.e4.ui.model.application.ui.menu.MMenuItem;
+import org.eclipse.e4.ui.services.IServiceConstants;
+import org.eclipse.swt.widgets.Shell;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.titou10.jtb.config.ConfigManager;
+import org.titou10.jtb.config.JTBPreferenceStore;
+import org.titou10.jtb.jms.model.JTBConnection;
+import org.titou10.jtb.jms.model.JTBSession;
+import org.titou10.jtb.jms.model.JTBSessionClientType;
+import org.titou10.jtb.ui.JTBStatusReporter;
+import org.titou10.jtb.ui.navigator.NodeAbstract;
+import org.titou10.jtb.ui.navigator.NodeFolder;
+import org.titou10.jtb.ui.navigator.NodeJTBSession;
+import org.titou10.jtb.ui.navigator.SessionConnectJob;
+import org.titou10.jtb.util.Constants;
+import org.titou10.jtb.util.Utils;
+
+/**
+ * Manage the "Connect All Sessions" command: connect in parallel to all the sessions, or to all the sessions of a folder
+ *
+ * @author Denis Forveille
+ *
+ */
+public class SessionConnectAllHandler {
+
+   private static final Logger log = LoggerFactory.getLogger(SessionConnectAllHandler.class);
+
+   @Inject
+   private IEventBroker        eventBroker;
+
+   @Inject
+   private JTBStatusReporter   jtbStatusReporter;
+
+   @Inject
+   private ConfigManager       cm;
+
+   @Inject
+   private JTBPreferenceStore  ps;
+
+   @Execute
+   public void execute(Shell shell,
+                       @Named(Constants.COMMAND_SESSION_CONNECT_ALL_PARAM) String mode,
+                       @Named(IServiceConstants.ACTIVE_SELECTION) @Optional Object selection) {
+      log.debug("execute. mode={} Selection : {}", mode, selection);
+
+      List<JTBSession> jtbSessions = new ArrayList<>();
+      if (mode.equals(Constants.COMMAND_SESSION_CONNECT_ALL_FOLDER)) {
+         if (!isSessionFolder(selection)) {
+            return;
+         }
+         for (NodeAbstract node : ((NodeFolder<?>) selection).getChildren()) {
+            jtbSessions.add((JTBSession) node.getBusinessObject());
+         }
+      } else {
+         jtbSessions.addAll(cm.getJtbSessions());
+      }
+
+      int timeout = ps.getInt(Constants.PREF_CONN_TIMEOUT);
+      for (JTBSession jtbSession : jtbSessions) {
+         JTBConnection jtbConnection = jtbSession.getJTBConnection(JTBSessionClientType.GUI);
+         if ((!jtbSession.isConnectable()) || (jtbConnection.isConnected()) || (SessionConnectJob.isRunning(jtbConnection))) {
+            continue;
+         }
+
+         // Credentials are asked one session at a time, before the connect is started
+         if (!SessionConnectHandler.promptForCredentials(shell, cm, jtbStatusReporter, jtbSession)) {
+            continue;
+         }
+
+         SessionConnectJob.start(eventBroker, jtbStatusReporter, jtbSession, false, timeout);
+      }
+   }
+
+   @CanExecute
+   public boolean canExecute(@Named(Constants.COMMAND_SESSION_CONNECT_ALL_PARAM) String mode,
+                             @Named(IServiceConstants.ACTIVE_SELECTION) @Optional Object selection,
+                             @Optional MMenuItem menuItem) {
+
+      // Show menu on folders of sessions only
+      if (mode.equals(Constants.COMMAND_SESSION_CONNECT_ALL_FOLDER)) {
+         if (isSessionFolder(selection)) {
+            return Utils.enableMenu(menuItem);
+         } else {
+            return Utils.disableMenu(menuItem);
+         }
+      }
+
+      return Utils.enableMenu(menuItem);
+   }
+
+   // -------
+   // Helpers
+   // -------
+
+   // Folders of sessions are the only folders at the root of the tree
+   private boolean isSessionFolder(Object selection) {
+      if (selection instanceof NodeFolder) {
+         NodeFolder<?> folder = (NodeFolder<?>) selection;
+         return (folder.getParentNode() == null) && (folder.getChildren().stream().allMatch(n -> n instanceof NodeJTBSession));
+      }
+      return false;
+   }
+}
@@ -30,18 +30,19 @@ import org.eclipse.e4.core.services.events.IEventBroker;
 import org.eclipse.e4.ui.model.application.ui.menu.MMenuItem;
 import org.eclipse.e4.ui.services.IServiceConstants;
 import org.eclipse.jface.window.Window;
-import org.eclipse.swt.custom.BusyIndicator;
-import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Shell;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.titou10.jtb.config.ConfigManager;
+import org.titou10.jtb.config.JTBPreferenceStore;
 import org.titou10.jtb.config.gen.SessionDef;
 import org.titou10.jtb.dialog.SessionConnectDialog;
+import org.titou10.jtb.jms.model.JTBConnection;
 import org.titou10.jtb.jms.model.JTBSession;
 import org.titou10.jtb.jms.model.JTBSessionClientType;
 import org.titou10.jtb.ui.JTBStatusReporter;
 import org.titou10.jtb.ui.navigator.NodeJTBSession;
+import org.titou10.jtb.ui.navigator.SessionConnectJob;
 import org.titou10.jtb.util.Constants;
 import org.titou10.jtb.util.Utils;
 
@@ -65,22 +66,63 @@ public class SessionConnectHandler {
    @Inject
    private ConfigManager       cm;
 
+   @Inject
+   private JTBPreferenceStore  ps;
+
    @Execute
    public void execute(Shell shell, final @Named(IServiceConstants.ACTIVE_SELECTION) @Optional NodeJTBSession nodeJTBSession) {
       log.debug("execute. Selection : {}", nodeJTBSession);
 
       final JTBSession jtbSession = (JTBSession) nodeJTBSession.getBusinessObject();
 
+      if (!promptForCredentials(shell, cm, jtbStatusReporter, jtbSession)) {
+         return;
+      }
+
+      // Connect in the background, the Session Browser is refreshed when the connection is established
+      SessionConnectJob.start(eventBroker, jtbStatusReporter, jtbSession, false, ps.getInt(Constants.PREF_CONN_TIMEOUT));
+   }
+
+   @CanExecute
+   public boolean canExecute(@Named(IServiceConstants.ACTIVE_SELECTION) @Optional Object selection, @Optional MMenuItem menuItem) {
+
+      // Show menu on Sessions only
+      if (selection instanceof NodeJTBSession) {
+
+         NodeJTBSession nodeJTBSession = (NodeJTBSession) selection;
+         JTBSession jtbSession = (JTBSession) nodeJTBSession.getBusinessObject();
+
+         // Show menu only in the QM has been instantiated
+         if (jtbSession.isConnectable()) {
+            // Show menu on Disconnected Sessions only, with no connect in progress
+            JTBConnection jtbConnection = jtbSession.getJTBConnection(JTBSessionClientType.GUI);
+            if ((jtbConnection.isConnected()) || (SessionConnectJob.isRunning(jtbConnection))) {
+               return Utils.disableMenu(menuItem);
+            } else {
+               return Utils.enableMenu(menuItem);
+            }
+         }
+      }
+
+      return Utils.disableMenu(menuItem);
+   }
+
+   // -------
+   // Helpers
+   // -------
+
+   // Prompt user for credentials if set in session. Returns false if the user cancelled the connection
+   static boolean promptForCredentials(Shell shell, ConfigManager cm, JTBStatusReporter jtbStatusReporter, JTBSession jtbSession) {
+
       SessionDef sessionDef = jtbSession.getSessionDef();
 
-      // Prompt user for credentials if set in session
       if (Utils.isTrue(sessionDef.isPromptForCredentials())) {
          SessionConnectDialog dialog = new SessionConnectDialog(shell,
                                                                 jtbSession.getName(),
                                                                 sessionDef.getUserid(),
                                                                 sessionDef.getPassword());
          if (dialog.open() != Window.OK) {
-            return;
+            return false;
          }
 
          // Save userid/password that will be used for the connection
@@ -99,49 +141,9 @@ public class SessionConnectHandler {
             }
          } catch (JAXBException | CoreException | IOException e) {
             jtbStatusReporter.showError("Exception when writing configuration file", Utils.getCause(e), jtbSession.getName());
-            return;
+            return false;
          }
       }
-
-      BusyIndicator.showWhile(Display.getCurrent(), new Runnable() {
-
-         @Override
-         public void run() {
-            try {
-               jtbSession.getJTBConnection(JTBSessionClientType.GUI).connect();
-
-               // Refresh Session Browser
-               eventBroker.send(Constants.EVENT_REFRESH_SESSION_BROWSER, nodeJTBSession);
-
-            } catch (Throwable e) {
-               jtbStatusReporter.showError("Connect unsuccessful", Utils.getCause(e), jtbSession.getName());
-               return;
-            }
-         }
-      });
-
-   }
-
-   @CanExecute
-   public boolean canExecute(@Named(IServiceConstants.ACTIVE_SELECTION) @Optional Object selection, @Optional MMenuItem menuItem) {
-
-      // Show menu on Sessions only
-      if (selection instanceof NodeJTBSession) {
-
-         NodeJTBSession nodeJTBSession = (NodeJTBSession) selection;
-         JTBSession jtbSession = (JTBSession) nodeJTBSession.getBusinessObject();
-
-         // Show menu only in the QM has been instantiated
-         if (jtbSession.isConnectable()) {
-            // Show menu on Disconnected Sessions only
-            if (jtbSession.getJTBConnection(JTBSessionClientType.GUI).isConnected()) {
-               return Utils.disableMenu(menuItem);
-            } else {
-               return Utils.enableMenu(menuItem);
-            }
-         }
-      }
-
-      return Utils.disableMenu(menuItem);
+      return true;
    }
 }
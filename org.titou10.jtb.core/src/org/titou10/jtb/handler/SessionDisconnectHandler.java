@@ -31,10 +31,12 @@ import org.eclipse.e4.ui.workbench.modeling.EModelService;
 import org.eclipse.e4.ui.workbench.modeling.EPartService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.titou10.jtb.jms.model.JTBConnection;
 import org.titou10.jtb.jms.model.JTBSession;
 import org.titou10.jtb.jms.model.JTBSessionClientType;
 import org.titou10.jtb.ui.JTBStatusReporter;
 import org.titou10.jtb.ui.navigator.NodeJTBSession;
+import org.titou10.jtb.ui.navigator.SessionConnectJob;
 import org.titou10.jtb.util.Constants;
 import org.titou10.jtb.util.Utils;
 
@@ -65,8 +67,18 @@ public class SessionDisconnectHandler {
       log.debug("execute. Selection : {}", nodeJTBSession);
 
       JTBSession jtbSession = (JTBSession) nodeJTBSession.getBusinessObject();
+      JTBConnection jtbConnection = jtbSession.getJTBConnection(JTBSessionClientType.GUI);
+
+      // Connect or rescan in progress: cancel it. Nothing more to do if the session is not connected yet
+      if (SessionConnectJob.isRunning(jtbConnection)) {
+         SessionConnectJob.cancel(jtbConnection);
+         if (!jtbConnection.isConnected()) {
+            return;
+         }
+      }
+
       try {
-         jtbSession.getJTBConnection(JTBSessionClientType.GUI).disconnect();
+         jtbConnection.disconnect();
 
          // Close the corresponding tab with messages in the right TabFolder
          String partName = Constants.PART_SESSION_CONTENT_PREFIX + jtbSession.getName();
@@ -90,8 +102,9 @@ public class SessionDisconnectHandler {
          NodeJTBSession nodeJTBSession = (NodeJTBSession) selection;
          JTBSession jtbSession = (JTBSession) nodeJTBSession.getBusinessObject();
 
-         // Show menu on connected Sessions only
-         if (jtbSession.getJTBConnection(JTBSessionClientType.GUI).isConnected()) {
+         // Show menu on connected Sessions or Sessions with a connect in progress only
+         JTBConnection jtbConnection = jtbSession.getJTBConnection(JTBSessionClientType.GUI);
+         if ((jtbConnection.isConnected()) || (SessionConnectJob.isRunning(jtbConnection))) {
             return Utils.enableMenu(menuItem);
          } else {
             return Utils.disableMenu(menuItem);
@@ -25,14 +25,15 @@ import org.eclipse.e4.core.di.annotations.Optional;
 import org.eclipse.e4.core.services.events.IEventBroker;
 import org.eclipse.e4.ui.model.application.ui.menu.MMenuItem;
 import org.eclipse.e4.ui.services.IServiceConstants;
-import org.eclipse.swt.custom.BusyIndicator;
-import org.eclipse.swt.widgets.Display;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.titou10.jtb.config.JTBPreferenceStore;
+import org.titou10.jtb.jms.model.JTBConnection;
 import org.titou10.jtb.jms.model.JTBSession;
 import org.titou10.jtb.jms.model.JTBSessionClientType;
 import org.titou10.jtb.ui.JTBStatusReporter;
 import org.titou10.jtb.ui.navigator.NodeJTBSession;
+import org.titou10.jtb.ui.navigator.SessionConnectJob;
 import org.titou10.jtb.util.Constants;
 import org.titou10.jtb.util.Utils;
 
@@ -52,30 +53,17 @@ public class SessionRescanHandler {
    @Inject
    private JTBStatusReporter   jtbStatusReporter;
 
+   @Inject
+   private JTBPreferenceStore  ps;
+
    @Execute
    public void execute(@Named(IServiceConstants.ACTIVE_SELECTION) @Optional NodeJTBSession nodeJTBSession) {
       log.debug("execute. Selection : {}", nodeJTBSession);
 
       JTBSession jtbSession = (JTBSession) nodeJTBSession.getBusinessObject();
 
-      BusyIndicator.showWhile(Display.getCurrent(), new Runnable() {
-
-         @Override
-         public void run() {
-            try {
-               jtbSession.getJTBConnection(JTBSessionClientType.GUI).rescanDestinations();
-
-               // Refresh Session Browser
-               eventBroker.send(Constants.EVENT_REFRESH_SESSION_BROWSER, true);
-
-            } catch (Throwable e) {
-               jtbStatusReporter
-                        .showError("An exception occurred when scanning destinations", Utils.getCause(e), jtbSession.getName());
-               return;
-            }
-         }
-      });
-
+      // Rescan in the background, the Session Browser is refreshed when the scan is done
+      SessionConnectJob.start(eventBroker, jtbStatusReporter, jtbSession, true, ps.getInt(Constants.PREF_CONN_TIMEOUT));
    }
 
    @CanExecute
@@ -87,8 +75,9 @@ public class SessionRescanHandler {
          NodeJTBSession nodeJTBSession = (NodeJTBSession) selection;
          JTBSession jtbSession = (JTBSession) nodeJTBSession.getBusinessObject();
 
-         // Show menu on connected Sessions only
-         if (jtbSession.getJTBConnection(JTBSessionClientType.GUI).isConnected()) {
+         // Show menu on connected Sessions only, with no rescan in progress
+         JTBConnection jtbConnection = jtbSession.getJTBConnection(JTBSessionClientType.GUI);
+         if ((jtbConnection.isConnected()) && (!SessionConnectJob.isRunning(jtbConnection))) {
             return Utils.enableMenu(menuItem);
          } else {
             return Utils.disableMenu(menuItem);
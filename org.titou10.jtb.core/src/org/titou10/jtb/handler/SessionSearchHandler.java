@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.handler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.eclipse.e4.core.di.annotations.CanExecute;
+import org.eclipse.e4.core.di.annotations.Execute;
+import org.eclipse.e4.core.di.annotations.Optional;
+import org.eclipse.e4.core.services.events.IEventBroker;
+import org.eclipse.e4.ui.model.application.ui.menu.MMenuItem;
+import org.eclipse.e4.ui.services.IServiceConstants;
+import org.eclipse.swt.widgets.Shell;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.titou10.jtb.config.ConfigManager;
+import org.titou10.jtb.dialog.MessageSearchDialog;
+import org.titou10.jtb.jms.model.JTBSession;
+import org.titou10.jtb.jms.model.JTBSessionClientType;
+import org.titou10.jtb.ui.navigator.NodeJTBSession;
+import org.titou10.jtb.util.Constants;
+import org.titou10.jtb.util.Utils;
+
+/**
+ * Manage the "Search Messages" command: search messages in all the queues of a session, or of all the connected sessions
+ *
+ * @author Denis Forveille
+ *
+ */
+public class SessionSearchHandler {
+
+   private static final Logger log = LoggerFactory.getLogger(SessionSearchHandler.class);
+
+   @Inject
+   private IEventBroker        eventBroker;
+
+   @Inject
+   private ConfigManager       cm;
+
+   @Execute
+   public void execute(Shell shell,
+                       @Named(Constants.COMMAND_SESSION_SEARCH_PARAM) String mode,
+                       @Named(IServiceConstants.ACTIVE_SELECTION) @Optional Object selection) {
+      log.debug("execute. mode={} Selection : {}", mode, selection);
+
+      List<JTBSession> jtbSessions = new ArrayList<>();
+      if (mode.equals(Constants.COMMAND_SESSION_SEARCH_SESSION)) {
+         if (!(selection instanceof NodeJTBSession)) {
+            return;
+         }
+         jtbSessions.add((JTBSession) ((NodeJTBSession) selection).getBusinessObject());
+      } else {
+         for (JTBSession jtbSession : cm.getJtbSessions()) {
+            if (jtbSession.getJTBConnection(JTBSessionClientType.GUI).isConnected()) {
+               jtbSessions.add(jtbSession);
+            }
+         }
+      }
+
+      MessageSearchDialog dialog = new MessageSearchDialog(shell, eventBroker, jtbSessions);
+      dialog.open();
+   }
+
+   @CanExecute
+   public boolean canExecute(@Named(Constants.COMMAND_SESSION_SEARCH_PARAM) String mode,
+                             @Named(IServiceConstants.ACTIVE_SELECTION) @Optional Object selection,
+                             @Optional MMenuItem menuItem) {
+
+      // Show menu on connected Sessions only
+      if (mode.equals(Constants.COMMAND_SESSION_SEARCH_SESSION)) {
+         if (selection instanceof NodeJTBSession) {
+            JTBSession jtbSession = (JTBSession) ((NodeJTBSession) selection).getBusinessObject();
+            if (jtbSession.getJTBConnection(JTBSessionClientType.GUI).isConnected()) {
+               return Utils.enableMenu(menuItem);
+            }
+         }
+         return Utils.disableMenu(menuItem);
+      }
+
+      // At least one session must be connected
+      for (JTBSession jtbSession : cm.getJtbSessions()) {
+         if (jtbSession.getJTBConnection(JTBSessionClientType.GUI).isConnected()) {
+            return Utils.enableMenu(menuItem);
+         }
+      }
+      return Utils.disableMenu(menuItem);
+   }
+}
@@ -0,0 +1,361 @@
+/*
+ * Copyright (C) 2015-2016 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.jms.model;
+
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.jms.Destination;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageFormatException;
+
+/**
+ * Copy of the headers and properties of a JMS Message, without its body<br>
+ * Used by the "headers only" browse mode to display the messages in the browser without keeping their payload in memory. The
+ * body is read again from the queue when needed (see JTBMessage.getFullJmsMessage())
+ *
+ * @author Denis Forveille
+ *
+ */
+public final class HeaderOnlyMessage implements Message {
+
+   private final JTBMessageType      jtbMessageType;
+   private final Map<String, Object> properties;
+
+   private String                    jmsMessageID;
+   private long                      jmsTimestamp;
+   private String                    jmsCorrelationID;
+   private Destination               jmsReplyTo;
+   private Destination               jmsDestination;
+   private int                       jmsDeliveryMode;
+   private boolean                   jmsRedelivered;
+   private String                    jmsType;
+   private long                      jmsExpiration;
+   private long                      jmsDeliveryTime;
+   private int                       jmsPriority;
+
+   HeaderOnlyMessage(Message message, JTBMessageType jtbMessageType) throws JMSException {
+      this.jtbMessageType = jtbMessageType;
+
+      this.jmsMessageID = message.getJMSMessageID();
+      this.jmsTimestamp = message.getJMSTimestamp();
+      this.jmsCorrelationID = message.getJMSCorrelationID();
+      this.jmsReplyTo = message.getJMSReplyTo();
+      this.jmsDestination = message.getJMSDestination();
+      this.jmsDeliveryMode = message.getJMSDeliveryMode();
+      this.jmsRedelivered = message.getJMSRedelivered();
+      this.jmsType = message.getJMSType();
+      this.jmsExpiration = message.getJMSExpiration();
+      this.jmsPriority = message.getJMSPriority();
+      try {
+         this.jmsDeliveryTime = message.getJMSDeliveryTime();
+      } catch (Throwable t) {
+         // JMS 1.1 providers
+      }
+
+      this.properties = new LinkedHashMap<>();
+      Enumeration<?> e = message.getPropertyNames();
+      while (e.hasMoreElements()) {
+         String name = (String) e.nextElement();
+         properties.put(name, message.getObjectProperty(name));
+      }
+   }
+
+   public JTBMessageType getJtbMessageType() {
+      return jtbMessageType;
+   }
+
+   // -------
+   // Headers
+   // -------
+
+   @Override
+   public String getJMSMessageID() throws JMSException {
+      return jmsMessageID;
+   }
+
+   @Override
+   public void setJMSMessageID(String id) throws JMSException {
+      this.jmsMessageID = id;
+   }
+
+   @Override
+   public long getJMSTimestamp() throws JMSException {
+      return jmsTimestamp;
+   }
+
+   @Override
+   public void setJMSTimestamp(long timestamp) throws JMSException {
+      this.jmsTimestamp = timestamp;
+   }
+
+   @Override
+   public byte[] getJMSCorrelationIDAsBytes() throws JMSException {
+      return jmsCorrelationID == null ? null : jmsCorrelationID.getBytes();
+   }
+
+   @Override
+   public void setJMSCorrelationIDAsBytes(byte[] correlationID) throws JMSException {
+      this.jmsCorrelationID = correlationID == null ? null : new String(correlationID);
+   }
+
+   @Override
+   public void setJMSCorrelationID(String correlationID) throws JMSException {
+      this.jmsCorrelationID = correlationID;
+   }
+
+   @Override
+   public String getJMSCorrelationID() throws JMSException {
+      return jmsCorrelationID;
+   }
+
+   @Override
+   public Destination getJMSReplyTo() throws JMSException {
+      return jmsReplyTo;
+   }
+
+   @Override
+   public void setJMSReplyTo(Destination replyTo) throws JMSException {
+      this.jmsReplyTo = replyTo;
+   }
+
+   @Override
+   public Destination getJMSDestination() throws JMSException {
+      return jmsDestination;
+   }
+
+   @Override
+   public void setJMSDestination(Destination destination) throws JMSException {
+      this.jmsDestination = destination;
+   }
+
+   @Override
+   public int getJMSDeliveryMode() throws JMSException {
+      return jmsDeliveryMode;
+   }
+
+   @Override
+   public void setJMSDeliveryMode(int deliveryMode) throws JMSException {
+      this.jmsDeliveryMode = deliveryMode;
+   }
+
+   @Override
+   public boolean getJMSRedelivered() throws JMSException {
+      return jmsRedelivered;
+   }
+
+   @Override
+   public void setJMSRedelivered(boolean redelivered) throws JMSException {
+      this.jmsRedelivered = redelivered;
+   }
+
+   @Override
+   public String getJMSType() throws JMSException {
+      return jmsType;
+   }
+
+   @Override
+   public void setJMSType(String type) throws JMSException {
+      this.jmsType = type;
+   }
+
+   @Override
+   public long getJMSExpiration() throws JMSException {
+      return jmsExpiration;
+   }
+
+   @Override
+   public void setJMSExpiration(long expiration) throws JMSException {
+      this.jmsExpiration = expiration;
+   }
+
+   @Override
+   public long getJMSDeliveryTime() throws JMSException {
+      return jmsDeliveryTime;
+   }
+
+   @Override
+   public void setJMSDeliveryTime(long deliveryTime) throws JMSException {
+      this.jmsDeliveryTime = deliveryTime;
+   }
+
+   @Override
+   public int getJMSPriority() throws JMSException {
+      return jmsPriority;
+   }
+
+   @Override
+   public void setJMSPriority(int priority) throws JMSException {
+      this.jmsPriority = priority;
+   }
+
+   // ----------
+   // Properties
+   // ----------
+
+   @Override
+   public void clearProperties() throws JMSException {
+      properties.clear();
+   }
+
+   @Override
+   public boolean propertyExists(String name) throws JMSException {
+      return properties.containsKey(name);
+   }
+
+   @Override
+   public boolean getBooleanProperty(String name) throws JMSException {
+      Object o = properties.get(name);
+      return o instanceof Boolean ? (Boolean) o : Boolean.parseBoolean(o == null ? null : o.toString());
+   }
+
+   @Override
+   public byte getByteProperty(String name) throws JMSException {
+      Object o = properties.get(name);
+      return o instanceof Number ? ((Number) o).byteValue() : Byte.parseByte(asString(o));
+   }
+
+   @Override
+   public short getShortProperty(String name) throws JMSException {
+      Object o = properties.get(name);
+      return o instanceof Number ? ((Number) o).shortValue() : Short.parseShort(asString(o));
+   }
+
+   @Override
+   public int getIntProperty(String name) throws JMSException {
+      Object o = properties.get(name);
+      return o instanceof Number ? ((Number) o).intValue() : Integer.parseInt(asString(o));
+   }
+
+   @Override
+   public long getLongProperty(String name) throws JMSException {
+      Object o = properties.get(name);
+      return o instanceof Number ? ((Number) o).longValue() : Long.parseLong(asString(o));
+   }
+
+   @Override
+   public float getFloatProperty(String name) throws JMSException {
+      Object o = properties.get(name);
+      return o instanceof Number ? ((Number) o).floatValue() : Float.parseFloat(asString(o));
+   }
+
+   @Override
+   public double getDoubleProperty(String name) throws JMSException {
+      Object o = properties.get(name);
+      return o instanceof Number ? ((Number) o).doubleValue() : Double.parseDouble(asString(o));
+   }
+
+   @Override
+   public String getStringProperty(String name) throws JMSException {
+      Object o = properties.get(name);
+      return o == null ? null : o.toString();
+   }
+
+   @Override
+   public Object getObjectProperty(String name) throws JMSException {
+      return properties.get(name);
+   }
+
+   @Override
+   public Enumeration<?> getPropertyNames() throws JMSException {
+      return Collections.enumeration(properties.keySet());
+   }
+
+   @Override
+   public void setBooleanProperty(String name, boolean value) throws JMSException {
+      properties.put(name, value);
+   }
+
+   @Override
+   public void setByteProperty(String name, byte value) throws JMSException {
+      properties.put(name, value);
+   }
+
+   @Override
+   public void setShortProperty(String name, short value) throws JMSException {
+      properties.put(name, value);
+   }
+
+   @Override
+   public void setIntProperty(String name, int value) throws JMSException {
+      properties.put(name, value);
+   }
+
+   @Override
+   public void setLongProperty(String name, long value) throws JMSException {
+      properties.put(name, value);
+   }
+
+   @Override
+   public void setFloatProperty(String name, float value) throws JMSException {
+      properties.put(name, value);
+   }
+
+   @Override
+   public void setDoubleProperty(String name, double value) throws JMSException {
+      properties.put(name, value);
+   }
+
+   @Override
+   public void setStringProperty(String name, String value) throws JMSException {
+      properties.put(name, value);
+   }
+
+   @Override
+   public void setObjectProperty(String name, Object value) throws JMSException {
+      properties.put(name, value);
+   }
+
+   // ----
+   // Body
+   // ----
+
+   @Override
+   public void acknowledge() throws JMSException {
+      // NOP
+   }
+
+   @Override
+   public void clearBody() throws JMSException {
+      // NOP
+   }
+
+   @Override
+   public <T> T getBody(Class<T> c) throws JMSException {
+      throw new MessageFormatException("The body of the message has not been kept");
+   }
+
+   @Override
+   @SuppressWarnings("rawtypes")
+   public boolean isBodyAssignableTo(Class c) throws JMSException {
+      return false;
+   }
+
+   // -------
+   // Helpers
+   // -------
+
+   private String asString(Object o) throws JMSException {
+      if (o == null) {
+         throw new MessageFormatException("Property does not exist");
+      }
+      return o.toString();
+   }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.jms.model;
+
+/**
+ * Counts of values per bucket, with fixed upper bounds. The last bucket is "+Inf". Percentiles are given as the upper bound of
+ * the bucket that contains them
+ *
+ * @author Denis Forveille
+ *
+ */
+final class Histogram {
+
+   private final long[] bounds;
+   private final long[] counts;
+   private long         count;
+   private long         sum;
+   private long         min = Long.MAX_VALUE;
+   private long         max = Long.MIN_VALUE;
+
+   Histogram(long[] bounds) {
+      this.bounds = bounds;
+      this.counts = new long[bounds.length + 1];
+   }
+
+   void add(long value) {
+      int i = 0;
+      while ((i < bounds.length) && (value > bounds[i])) {
+         i++;
+      }
+      counts[i]++;
+      count++;
+      sum += value;
+      min = Math.min(min, value);
+      max = Math.max(max, value);
+   }
+
+   long getPercentileBound(double p) {
+      long rank = (long) Math.ceil(p * count);
+      long cumul = 0;
+      for (int i = 0; i < bounds.length; i++) {
+         cumul += counts[i];
+         if (cumul >= rank) {
+            return Math.min(bounds[i], max);
+         }
+      }
+      return max;
+   }
+
+   // ------------------------
+   // Standard Getters
+   // ------------------------
+
+   long[] getBounds() {
+      return bounds;
+   }
+
+   long[] getCounts() {
+      return counts;
+   }
+
+   long getCount() {
+      return count;
+   }
+
+   long getSum() {
+      return sum;
+   }
+
+   long getMin() {
+      return min;
+   }
+
+   long getMax() {
+      return max;
+   }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.jms.model;
+
+/**
+ * HyperLogLog distinct count estimator with 2^11 registers (about 2.3% standard error)
+ *
+ * @author Denis Forveille
+ *
+ */
+final class HyperLogLog {
+
+   static final int            P         = 11;
+   private static final int    M         = 1 << P;
+   private static final double ALPHA     = 0.7213 / (1 + (1.079 / M));
+
+   private final byte[]        registers = new byte[M];
+
+   void add(String value) {
+      long h = hash(value);
+      int index = (int) (h >>> (64 - P));
+      int rank = Long.numberOfLeadingZeros((h << P) | (1L << (P - 1))) + 1;
+      if (rank > registers[index]) {
+         registers[index] = (byte) rank;
+      }
+   }
+
+   long estimate() {
+      double sum = 0;
+      int zeros = 0;
+      for (byte r : registers) {
+         sum += 1d / (1L << r);
+         if (r == 0) {
+            zeros++;
+         }
+      }
+      double e = (ALPHA * M * M) / sum;
+      if ((e <= 2.5 * M) && (zeros > 0)) {
+         // Small range correction: linear counting
+         e = M * Math.log((double) M / zeros);
+      }
+      return Math.round(e);
+   }
+
+   // -------
+   // Helpers
+   // -------
+
+   // 64 bits FNV-1a of the chars, followed by the MurmurHash3 finalizer to spread the bits
+   private static long hash(String s) {
+      long h = 0xcbf29ce484222325L;
+      for (int i = 0; i < s.length(); i++) {
+         h ^= s.charAt(i);
+         h *= 0x100000001b3L;
+      }
+      h ^= h >>> 33;
+      h *= 0xff51afd7ed558ccdL;
+      h ^= h >>> 33;
+      h *= 0xc4ceb9fe1a85ec53L;
+      h ^= h >>> 33;
+      return h;
+   }
+}
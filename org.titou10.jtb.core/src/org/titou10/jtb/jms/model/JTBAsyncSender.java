@@ -0,0 +1,268 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.jms.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.jms.CompletionListener;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.titou10.jtb.util.metrics.MetricsRegistry;
+import org.titou10.jtb.util.metrics.OperationTimer;
+
+/**
+ * Send messages asynchronously with a JMS 2.0 CompletionListener, on a dedicated non transacted session<br>
+ * At most "maxInFlight" messages wait for the acknowledgement of the server: "send" blocks until a slot is free. Messages that
+ * fail after having been handed to the provider are kept and returned by "pollFailures".<br>
+ * Providers that do not implement the JMS 2.0 asynchronous send are detected on the first message, and the messages are then
+ * sent synchronously.<br>
+ * Like a JMS Session, an instance must be used by one thread at a time
+ *
+ * @author Denis Forveille
+ *
+ */
+public final class JTBAsyncSender implements AutoCloseable {
+
+   private static final Logger                 log            = LoggerFactory.getLogger(JTBAsyncSender.class);
+
+   private static final long                   CLOSE_WAIT_MS  = 60 * 1000L;
+
+   private final JTBConnection                 jtbConnection;
+   private final Session                       jmsSession;
+   private final int                           maxInFlight;
+   private final Semaphore                     inFlight;
+
+   private final Map<String, MessageProducer>  producers      = new HashMap<>();
+   private final Queue<Failure>                failures       = new ConcurrentLinkedQueue<>();
+   private final LongAdder                     nbCompleted    = new LongAdder();
+   private final LongAdder                     nbFailed       = new LongAdder();
+
+   private long                                nbSubmitted;
+   private boolean                             asyncSupported = true;
+
+   JTBAsyncSender(JTBConnection jtbConnection, Session jmsSession, int maxInFlight) {
+      this.jtbConnection = jtbConnection;
+      this.jmsSession = jmsSession;
+      this.maxInFlight = Math.max(1, maxInFlight);
+      this.inFlight = new Semaphore(this.maxInFlight);
+   }
+
+   // -------------------------
+   // Business Interface
+   // -------------------------
+
+   /**
+    * Send the message. Returns its sequence number for this sender, starting at 0<br>
+    * Blocks while "maxInFlight" messages are waiting for the acknowledgement of the server. Exceptions raised before the
+    * message is handed to the provider are thrown, the ones received later are returned by "pollFailures"
+    */
+   public long send(JTBMessage jtbMessage, JTBDestination jtbDestination) throws JMSException, InterruptedException {
+      long sequence = nbSubmitted++;
+
+      inFlight.acquire();
+      OperationTimer timer = MetricsRegistry.start(MetricsRegistry.OP_SEND,
+                                                   jtbConnection.getSessionName(),
+                                                   jtbConnection.getMetricsProvider(),
+                                                   jtbDestination.getName());
+      boolean pending = false;
+      String key = JTBConnection.buildProducerKey(jtbMessage, jtbDestination);
+      try {
+         MessageProducer p = producers.get(key);
+         if (p == null) {
+            p = jmsSession.createProducer(jtbDestination.getJmsDestination());
+            producers.put(key, p);
+         }
+         JTBConnection.prepareSharedProducer(jmsSession, p, jtbMessage);
+
+         Message m = jtbMessage.getFullJmsMessage();
+         if (asyncSupported) {
+            try {
+               p.send(m, new Listener(sequence, jtbMessage, jtbDestination, timer));
+               pending = true;
+               return sequence;
+            } catch (AbstractMethodError | UnsupportedOperationException e) {
+               log.warn("'{}' does not support JMS 2.0 asynchronous sends. Messages will be sent synchronously",
+                        jtbConnection.getSessionName());
+               asyncSupported = false;
+            }
+         }
+
+         p.send(m);
+         nbCompleted.increment();
+         timer.success(1);
+         return sequence;
+
+      } catch (JMSException | RuntimeException e) {
+         // The producer may be broken, do not reuse it
+         producers.remove(key);
+         nbFailed.increment();
+         throw e;
+      } finally {
+         if (!pending) {
+            timer.stop();
+            inFlight.release();
+         }
+      }
+   }
+
+   // Returns and forget the failures received since the last call
+   public List<Failure> pollFailures() {
+      List<Failure> res = new ArrayList<>();
+      Failure f;
+      while ((f = failures.poll()) != null) {
+         res.add(f);
+      }
+      return res;
+   }
+
+   // Wait for all the messages sent to be acknowledged by the server. Returns false on timeout
+   public boolean awaitCompletion(long timeoutMs) throws InterruptedException {
+      if (inFlight.tryAcquire(maxInFlight, timeoutMs, TimeUnit.MILLISECONDS)) {
+         inFlight.release(maxInFlight);
+         return true;
+      }
+      return false;
+   }
+
+   // Wait for the messages in flight, then close the session
+   @Override
+   public void close() {
+      log.debug("close. submitted={} completed={} failed={}", nbSubmitted, nbCompleted.sum(), nbFailed.sum());
+      try {
+         if (!awaitCompletion(CLOSE_WAIT_MS)) {
+            log.warn("{} messages still waiting for an acknowledgement from '{}' after {} ms",
+                     getNbInFlight(),
+                     jtbConnection.getSessionName(),
+                     CLOSE_WAIT_MS);
+         }
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
+      try {
+         jmsSession.close();
+      } catch (JMSException e) {
+         log.warn("Exception occurred when closing session. Ignoring: {}", e.getMessage());
+      }
+      producers.clear();
+   }
+
+   // ------------------------
+   // Standard Getters
+   // ------------------------
+
+   public long getNbSubmitted() {
+      return nbSubmitted;
+   }
+
+   public long getNbCompleted() {
+      return nbCompleted.sum();
+   }
+
+   public long getNbFailed() {
+      return nbFailed.sum();
+   }
+
+   public int getNbInFlight() {
+      return maxInFlight - inFlight.availablePermits();
+   }
+
+   public boolean isAsyncSupported() {
+      return asyncSupported;
+   }
+
+   // -------
+   // Helpers
+   // -------
+
+   // Called by the provider threads
+   private final class Listener implements CompletionListener {
+      private final long           sequence;
+      private final JTBMessage     jtbMessage;
+      private final JTBDestination jtbDestination;
+      private final OperationTimer timer;
+
+      private Listener(long sequence, JTBMessage jtbMessage, JTBDestination jtbDestination, OperationTimer timer) {
+         this.sequence = sequence;
+         this.jtbMessage = jtbMessage;
+         this.jtbDestination = jtbDestination;
+         this.timer = timer;
+      }
+
+      @Override
+      public void onCompletion(Message message) {
+         nbCompleted.increment();
+         timer.success(1);
+         timer.stop();
+         inFlight.release();
+      }
+
+      @Override
+      public void onException(Message message, Exception exception) {
+         log.debug("Asynchronous send #{} to '{}' failed: {}", sequence, jtbDestination.getName(), exception.getMessage());
+         nbFailed.increment();
+         failures.add(new Failure(sequence, jtbMessage, jtbDestination, exception));
+         timer.stop();
+         inFlight.release();
+      }
+   }
+
+   /**
+    * A message that failed after having been handed to the provider
+    */
+   public static final class Failure {
+      private final long           sequence;
+      private final JTBMessage     jtbMessage;
+      private final JTBDestination jtbDestination;
+      private final Exception      exception;
+
+      private Failure(long sequence, JTBMessage jtbMessage, JTBDestination jtbDestination, Exception exception) {
+         this.sequence = sequence;
+         this.jtbMessage = jtbMessage;
+         this.jtbDestination = jtbDestination;
+         this.exception = exception;
+      }
+
+      public long getSequence() {
+         return sequence;
+      }
+
+      public JTBMessage getJtbMessage() {
+         return jtbMessage;
+      }
+
+      public JTBDestination getJtbDestination() {
+         return jtbDestination;
+      }
+
+      public Exception getException() {
+         return exception;
+      }
+   }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.jms.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.titou10.jtb.util.metrics.MetricsRegistry;
+import org.titou10.jtb.util.metrics.OperationTimer;
+
+/**
+ * Send messages in batches, on a dedicated transacted session<br>
+ * The messages sent are committed or rolled back only by "commit" and "rollback": the operations performed meanwhile by other
+ * threads on the connection do not commit or rollback the pending messages. The producers are kept open per destination.<br>
+ * Like a JMS Session, an instance must be used by one thread at a time
+ *
+ * @author Denis Forveille
+ *
+ */
+public final class JTBBatchSender implements AutoCloseable {
+
+   private static final Logger                log       = LoggerFactory.getLogger(JTBBatchSender.class);
+
+   private final JTBConnection                jtbConnection;
+   private final Session                      jmsSession;
+
+   private final Map<String, MessageProducer> producers = new HashMap<>();
+
+   private long                               nbSent;
+   private long                               nbCommitted;
+
+   JTBBatchSender(JTBConnection jtbConnection, Session jmsSession) {
+      this.jtbConnection = jtbConnection;
+      this.jmsSession = jmsSession;
+   }
+
+   // -------------------------
+   // Business Interface
+   // -------------------------
+
+   public Message createJMSMessage(JTBMessageType jtbMessageType) throws JMSException {
+      return JTBConnection.createJMSMessage(jmsSession, jtbMessageType);
+   }
+
+   // Send the message in the current transaction
+   public void send(JTBMessage jtbMessage, JTBDestination jtbDestination) throws JMSException {
+      OperationTimer timer = MetricsRegistry.start(MetricsRegistry.OP_SEND,
+                                                   jtbConnection.getSessionName(),
+                                                   jtbConnection.getMetricsProvider(),
+                                                   jtbDestination.getName());
+      String key = JTBConnection.buildProducerKey(jtbMessage, jtbDestination);
+      try {
+         MessageProducer p = producers.get(key);
+         if (p == null) {
+            p = jmsSession.createProducer(jtbDestination.getJmsDestination());
+            producers.put(key, p);
+         }
+         JTBConnection.prepareSharedProducer(jmsSession, p, jtbMessage);
+
+         try {
+            p.send(jtbMessage.getFullJmsMessage());
+         } catch (JMSException e) {
+            // The producer may be broken, do not reuse it
+            producers.remove(key);
+            throw e;
+         }
+
+         nbSent++;
+         timer.success(1);
+      } finally {
+         timer.stop();
+      }
+   }
+
+   public void commit() throws JMSException {
+      jmsSession.commit();
+      nbCommitted = nbSent;
+   }
+
+   // Rollback the messages sent since the last commit
+   public void rollback() {
+      try {
+         jmsSession.rollback();
+      } catch (JMSException e) {
+         log.warn("Exception occurred while rolling back the session. Ignore it. Msg={}", e.getMessage());
+      }
+      nbSent = nbCommitted;
+   }
+
+   // Close the session. The messages not committed are rolled back
+   @Override
+   public void close() {
+      log.debug("close. sent={} committed={}", nbSent, nbCommitted);
+      try {
+         jmsSession.close();
+      } catch (JMSException e) {
+         log.warn("Exception occurred when closing session. Ignoring: {}", e.getMessage());
+      }
+      producers.clear();
+   }
+
+   // ------------------------
+   // Standard Getters
+   // ------------------------
+
+   public long getNbSent() {
+      return nbSent;
+   }
+
+   public long getNbCommitted() {
+      return nbCommitted;
+   }
+}
@@ -18,19 +18,26 @@ package org.titou10.jtb.jms.model;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.Enumeration;
-import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
 
 import javax.jms.BytesMessage;
 import javax.jms.Connection;
 import javax.jms.ConnectionMetaData;
-import javax.jms.Destination;
 import javax.jms.JMSException;
 import javax.jms.MapMessage;
 import javax.jms.Message;
@@ -57,6 +64,8 @@ import org.titou10.jtb.jms.qm.TopicData;
 import org.titou10.jtb.ui.part.content.TopicListener;
 import org.titou10.jtb.util.Constants;
 import org.titou10.jtb.util.Utils;
+import org.titou10.jtb.util.metrics.MetricsRegistry;
+import org.titou10.jtb.util.metrics.OperationTimer;
 
 /**
  * 
@@ -69,26 +78,45 @@ public class JTBConnection {
 
    private static final Logger  log                           = LoggerFactory.getLogger(JTBConnection.class);
 
-   private static final Long    RECEIVE_MAX_WAIT_REMOVE       = 1 * 100L;                                    // 1 secs
+   private static final Long    RECEIVE_MAX_WAIT_REMOVE       = 1 * 100L;                                    // 100 ms
+   private static final Long    RECEIVE_MAX_WAIT_MOVE         = 1 * 1000L;                                   // 1 sec
+   private static final int     RECEIVE_MAX_EMPTY_MOVE        = 3;                                           // 3 x 1 sec
    private static final Long    RECEIVE_MAX_WAIT_REMOVE_ID    = 30 * 1000L;                                  // 30 seconds
 
    private static final String  UNKNOWN                       = "Unknown";
    private static final String  JMSMESSAGEID_STD_PREFIX       = "ID:";
    private static final int     JMSMESSAGEID_STD_PREFIX_START = JMSMESSAGEID_STD_PREFIX.length();
 
+   private static final int     BODY_CACHE_SIZE               = 16;
+
    // Global unique ID for the session
-   private static long          CONN_CLIENT_ID                = System.currentTimeMillis();
+   private static final AtomicLong CONN_CLIENT_ID             = new AtomicLong(System.currentTimeMillis());
 
    private JTBSessionClientType jtbSessionClientType;
    private SessionDef           sessionDef;
    private QManager             qm;
    private JTBPreferenceStore   ps;
+   private String               metricsProvider;
 
    // JMS Provider Information
-   private boolean              connected;
+   private volatile boolean     connected;
    private Connection           jmsConnection;
+   // The connection is used by the UI thread and by background threads (scripts, replays, dumps..). A JMS session must not be
+   // used by several threads at the same time: the methods using "jmsSession" are synchronized on the connection and commit
+   // their work before returning. Long running operations and batches of sends use their own session
    private Session              jmsSession;
-   private Map<String, Session> jmsAsynchronousSessions       = new HashMap<>();
+   private Map<String, Session> jmsAsynchronousSessions       = new ConcurrentHashMap<>();
+   private Map<String, MessageProducer> jmsProducers          = new ConcurrentHashMap<>();
+
+   // Last messages read again by "getFullMessage", in access order
+   private final Map<String, Message>   bodyCache             = Collections.synchronizedMap(new LinkedHashMap<>(32, 0.75f, true) {
+                                                                  private static final long serialVersionUID = 1L;
+
+                                                                  @Override
+                                                                  protected boolean removeEldestEntry(Map.Entry<String, Message> eldest) {
+                                                                     return size() > BODY_CACHE_SIZE;
+                                                                  }
+                                                               });
 
    // Connection Metadata
    private String               metaJMSVersion                = UNKNOWN;
@@ -96,12 +124,15 @@ public class JTBConnection {
    private List<String>         metaJMSPropertyNames          = new ArrayList<>(16);
    private String               metaProviderVersion           = UNKNOWN;
 
-   // Children
-   private SortedSet<JTBQueue>  jtbQueues;
-   private SortedSet<JTBTopic>  jtbTopics;
+   // Children. Unmodifiable snapshots, replaced as a whole when the destinations change so that readers never lock
+   private volatile SortedSet<JTBQueue> jtbQueues;
+   private volatile SortedSet<JTBTopic> jtbTopics;
+
+   private volatile SortedSet<JTBQueue> jtbQueuesFiltered;
+   private volatile SortedSet<JTBTopic> jtbTopicsFiltered;
 
-   private SortedSet<JTBQueue>  jtbQueuesFiltered;
-   private SortedSet<JTBTopic>  jtbTopicsFiltered;
+   // Incremented each time the destinations to display change, so that views can skip rebuilding their nodes
+   private volatile long        destinationsVersion;
 
    // Destination filter
    private String               filterPattern;
@@ -121,11 +152,13 @@ public class JTBConnection {
       this.jtbSessionClientType = jtbSessionClientType;
       this.sessionDef = sessionDef;
       this.qm = qm;
+      this.metricsProvider = sessionDef.getQManagerDef();
+      MetricsRegistry.registerSession(sessionDef.getName());
 
-      this.jtbQueues = new TreeSet<>();
-      this.jtbTopics = new TreeSet<>();
-      this.jtbQueuesFiltered = new TreeSet<>();
-      this.jtbTopicsFiltered = new TreeSet<>();
+      this.jtbQueues = Collections.emptySortedSet();
+      this.jtbTopics = Collections.emptySortedSet();
+      this.jtbQueuesFiltered = Collections.emptySortedSet();
+      this.jtbTopicsFiltered = Collections.emptySortedSet();
 
       this.connected = false;
 
@@ -168,7 +201,7 @@ public class JTBConnection {
       updateFilterData(this.filterPattern, apply);
    }
 
-   public void updateFilterData(String filterPattern, boolean apply) {
+   public synchronized void updateFilterData(String filterPattern, boolean apply) {
       this.filterPattern = filterPattern;
 
       if (filterPattern == null) {
@@ -180,30 +213,36 @@ public class JTBConnection {
          filterRegexPattern = filterRegexPattern.replaceAll("\\.", "\\\\.").replaceAll("\\?", ".").replaceAll("\\*", ".*");
       }
 
-      buildFilteredSortedSet();
+      publishDestinations(new TreeSet<>(jtbQueues), new TreeSet<>(jtbTopics));
    }
 
-   private void buildFilteredSortedSet() {
+   // Publish new sets of destinations and the corresponding filtered sets. Must be called while holding the lock on "this"
+   private void publishDestinations(SortedSet<JTBQueue> queues, SortedSet<JTBTopic> topics) {
 
-      jtbQueuesFiltered.clear();
-      jtbTopicsFiltered.clear();
+      SortedSet<JTBQueue> queuesFiltered = new TreeSet<>();
+      SortedSet<JTBTopic> topicsFiltered = new TreeSet<>();
 
       if (filterRegexPattern == null) {
-         jtbQueuesFiltered.addAll(jtbQueues);
-         jtbTopicsFiltered.addAll(jtbTopics);
-         return;
-      }
-      for (JTBQueue jtbQueue : jtbQueues) {
-         if (jtbQueue.getName().matches(filterRegexPattern)) {
-            jtbQueuesFiltered.add(jtbQueue);
+         queuesFiltered.addAll(queues);
+         topicsFiltered.addAll(topics);
+      } else {
+         for (JTBQueue jtbQueue : queues) {
+            if (jtbQueue.getName().matches(filterRegexPattern)) {
+               queuesFiltered.add(jtbQueue);
+            }
          }
-      }
-
-      for (JTBTopic jtbTopic : jtbTopics) {
-         if (jtbTopic.getName().matches(filterRegexPattern)) {
-            jtbTopicsFiltered.add(jtbTopic);
+         for (JTBTopic jtbTopic : topics) {
+            if (jtbTopic.getName().matches(filterRegexPattern)) {
+               topicsFiltered.add(jtbTopic);
+            }
          }
       }
+
+      jtbQueues = Collections.unmodifiableSortedSet(queues);
+      jtbTopics = Collections.unmodifiableSortedSet(topics);
+      jtbQueuesFiltered = Collections.unmodifiableSortedSet(queuesFiltered);
+      jtbTopicsFiltered = Collections.unmodifiableSortedSet(topicsFiltered);
+      destinationsVersion++;
    }
 
    public SortedSet<JTBQueue> getJtbQueuesToDisplay() {
@@ -224,6 +263,10 @@ public class JTBConnection {
       return jtbTopics;
    }
 
+   public long getDestinationsVersion() {
+      return destinationsVersion;
+   }
+
    public String getFilterPattern() {
       return filterPattern;
    }
@@ -261,10 +304,16 @@ public class JTBConnection {
       String clientIdPrefix = ps.getString(Constants.PREF_CONN_CLIENT_ID_PREFIX);
 
       // Must be a unique Name as JMS API restricts duplicate usage
-      String clientId = clientIdPrefix + "-" + CONN_CLIENT_ID++;
+      String clientId = clientIdPrefix + "-" + CONN_CLIENT_ID.getAndIncrement();
 
       // Create JMS connection
-      jmsConnection = qm.connect(sessionDef, showSystemObjects, clientId);
+      OperationTimer timer = MetricsRegistry.start(MetricsRegistry.OP_CONNECT, getSessionName(), metricsProvider, null);
+      try {
+         jmsConnection = qm.connect(sessionDef, showSystemObjects, clientId);
+         timer.success();
+      } finally {
+         timer.stop();
+      }
       jmsSession = jmsConnection.createSession(true, Session.SESSION_TRANSACTED);
       ConnectionMetaData meta = jmsConnection.getMetaData();
       metaJMSProviderName = meta.getJMSProviderName();
@@ -274,20 +323,24 @@ public class JTBConnection {
       Collections.sort(metaJMSPropertyNames);
 
       // Build lists of destinations
-      DestinationData dd = qm.discoverDestinations(jmsConnection, showSystemObjects);
+      DestinationData dd = discoverDestinations(showSystemObjects);
+      SortedSet<JTBQueue> queues = new TreeSet<>();
       for (QueueData qData : dd.getListQueueData()) {
          log.debug("jmsSession.createQueue '{}'", qData.getName());
          Queue jmsQ = jmsSession.createQueue(qData.getName());
-         jtbQueues.add(new JTBQueue(this, qData.getName(), jmsQ, qData.isBrowsable()));
+         queues.add(new JTBQueue(this, qData.getName(), jmsQ, qData.isBrowsable()));
       }
 
+      SortedSet<JTBTopic> topics = new TreeSet<>();
       for (TopicData tData : dd.getListTopicData()) {
          log.debug("jmsSession.createTopic '{}'", tData.getName());
          Topic jmsTopic = jmsSession.createTopic(tData.getName());
-         jtbTopics.add(new JTBTopic(this, tData.getName(), jmsTopic));
+         topics.add(new JTBTopic(this, tData.getName(), jmsTopic));
       }
 
-      buildFilteredSortedSet();
+      synchronized (this) {
+         publishDestinations(queues, topics);
+      }
 
       connected = true;
    }
@@ -300,32 +353,37 @@ public class JTBConnection {
       }
 
       boolean showSystemObjects = ps.getBoolean(Constants.PREF_SHOW_SYSTEM_OBJECTS);
-      DestinationData dd = qm.discoverDestinations(jmsConnection, showSystemObjects);
-
-      // Only process additions
-      for (QueueData qData : dd.getListQueueData()) {
-         JTBDestination dest = getJTBDestinationByName(qData.getName());
-         if (dest == null) {
-            log.debug("new Queue: jmsSession.createQueue '{}'", qData.getName());
-            Queue jmsQ = jmsSession.createQueue(qData.getName());
-            jtbQueues.add(new JTBQueue(this, qData.getName(), jmsQ, qData.isBrowsable()));
+      DestinationData dd = discoverDestinations(showSystemObjects);
+
+      // Only process additions. The Q Manager call above is not done while holding the session
+      // The new sets are built aside and published at once, readers keep using the previous ones until then
+      synchronized (this) {
+         SortedSet<JTBQueue> queues = new TreeSet<>(jtbQueues);
+         for (QueueData qData : dd.getListQueueData()) {
+            JTBDestination dest = getJTBDestinationByName(qData.getName());
+            if (dest == null) {
+               log.debug("new Queue: jmsSession.createQueue '{}'", qData.getName());
+               Queue jmsQ = jmsSession.createQueue(qData.getName());
+               queues.add(new JTBQueue(this, qData.getName(), jmsQ, qData.isBrowsable()));
+            }
          }
-      }
 
-      for (TopicData tData : dd.getListTopicData()) {
-         JTBDestination dest = getJTBDestinationByName(tData.getName());
-         if (dest == null) {
-            log.debug("New Topic: jmsSession.createTopic '{}'", tData.getName());
-            Topic jmsTopic = jmsSession.createTopic(tData.getName());
-            jtbTopics.add(new JTBTopic(this, tData.getName(), jmsTopic));
+         SortedSet<JTBTopic> topics = new TreeSet<>(jtbTopics);
+         for (TopicData tData : dd.getListTopicData()) {
+            JTBDestination dest = getJTBDestinationByName(tData.getName());
+            if (dest == null) {
+               log.debug("New Topic: jmsSession.createTopic '{}'", tData.getName());
+               Topic jmsTopic = jmsSession.createTopic(tData.getName());
+               topics.add(new JTBTopic(this, tData.getName(), jmsTopic));
+            }
          }
-      }
 
-      buildFilteredSortedSet();
+         publishDestinations(queues, topics);
+      }
 
    }
 
-   public void disconnect() throws JMSException {
+   public synchronized void disconnect() throws JMSException {
       log.debug("disconnect : '{}'", this);
       if (!(this.isConnected())) {
          return;
@@ -343,11 +401,10 @@ public class JTBConnection {
       // jmsSessionAsynchronous = null;
       jmsSession = null;
       jmsAsynchronousSessions.clear();
+      jmsProducers.clear();
+      bodyCache.clear();
 
-      jtbQueues.clear();
-      jtbQueuesFiltered.clear();
-      jtbTopics.clear();
-      jtbTopicsFiltered.clear();
+      publishDestinations(new TreeSet<>(), new TreeSet<>());
 
       metaJMSVersion = UNKNOWN;
       metaJMSProviderName = UNKNOWN;
@@ -359,37 +416,45 @@ public class JTBConnection {
    // Create/Remove Messages
    // ----------------------
 
-   public Message createJMSMessage(JTBMessageType jtbMessageType) throws JMSException {
+   public synchronized Message createJMSMessage(JTBMessageType jtbMessageType) throws JMSException {
+      return createJMSMessage(jmsSession, jtbMessageType);
+   }
+
+   static Message createJMSMessage(Session session, JTBMessageType jtbMessageType) throws JMSException {
       log.debug("createJMSMessage {}", jtbMessageType);
       switch (jtbMessageType) {
          case TEXT:
-            return jmsSession.createTextMessage();
+            return session.createTextMessage();
 
          case BYTES:
-            return jmsSession.createBytesMessage();
+            return session.createBytesMessage();
 
          case MESSAGE:
-            return jmsSession.createMessage();
+            return session.createMessage();
 
          case MAP:
-            return jmsSession.createMapMessage();
+            return session.createMapMessage();
 
          case OBJECT:
-            return jmsSession.createObjectMessage();
+            return session.createObjectMessage();
 
          case STREAM:
-            return jmsSession.createStreamMessage();
+            return session.createStreamMessage();
       }
       return null; // Impossible
    }
 
-   public Message cloneJMSMessage(Message message) throws JMSException {
+   public synchronized Message cloneJMSMessage(Message message) throws JMSException {
+      return cloneJMSMessage(jmsSession, message);
+   }
+
+   private Message cloneJMSMessage(Session session, Message message) throws JMSException {
       log.debug("cloneJMSMessage {}", message.getJMSMessageID());
 
       Message res = null;
 
       if (message instanceof TextMessage) {
-         TextMessage newTextMessage = jmsSession.createTextMessage();
+         TextMessage newTextMessage = session.createTextMessage();
          String payloadText = ((TextMessage) message).getText();
          if (Utils.isNotEmpty(payloadText)) {
             newTextMessage.setText(payloadText);
@@ -398,7 +463,7 @@ public class JTBConnection {
       }
 
       if (message instanceof BytesMessage) {
-         BytesMessage newBytesMessage = jmsSession.createBytesMessage();
+         BytesMessage newBytesMessage = session.createBytesMessage();
 
          BytesMessage bm = (BytesMessage) message;
          byte[] payloadBytes = new byte[(int) bm.getBodyLength()];
@@ -411,7 +476,7 @@ public class JTBConnection {
       }
 
       if (message instanceof MapMessage) {
-         MapMessage newMapMessage = jmsSession.createMapMessage();
+         MapMessage newMapMessage = session.createMapMessage();
 
          MapMessage mm = (MapMessage) message;
          @SuppressWarnings("rawtypes")
@@ -424,7 +489,7 @@ public class JTBConnection {
       }
 
       if (message instanceof ObjectMessage) {
-         ObjectMessage newObjectMessage = jmsSession.createObjectMessage();
+         ObjectMessage newObjectMessage = session.createObjectMessage();
 
          ObjectMessage om = (ObjectMessage) message;
          Serializable payloadObject = om.getObject();
@@ -435,7 +500,7 @@ public class JTBConnection {
       }
 
       if (message instanceof StreamMessage) {
-         StreamMessage newStreamMessage = jmsSession.createStreamMessage();
+         StreamMessage newStreamMessage = session.createStreamMessage();
 
          StreamMessage sm = (StreamMessage) message;
          try {
@@ -451,7 +516,7 @@ public class JTBConnection {
 
       if (res == null) {
          if (message instanceof Message) {
-            res = jmsSession.createMessage();
+            res = session.createMessage();
          } else {
             // Impossible
             throw new JMSException("Unknown/Unsupported message class : " + message.getClass().getCanonicalName());
@@ -505,120 +570,376 @@ public class JTBConnection {
       return res;
    }
 
-   public void removeMessage(JTBMessage jtbMessage) throws JMSException {
+   public synchronized void removeMessage(JTBMessage jtbMessage) throws JMSException {
       log.debug("Remove Message {}", jtbMessage);
+      OperationTimer timer = MetricsRegistry.start(MetricsRegistry.OP_REMOVE, getSessionName(), metricsProvider, jtbMessage.getJtbDestination().getName());
+      try {
+         Message message = jtbMessage.getJmsMessage();
+         JTBDestination jtbDestination = jtbMessage.getJtbDestination();
+
+         String selector = buildMessageIDSelector(message.getJMSMessageID());
+         try (MessageConsumer consumer = jmsSession.createConsumer(jtbDestination.getJmsDestination(), selector);) {
+            message = consumer.receive(RECEIVE_MAX_WAIT_REMOVE_ID);
+            if (message == null) {
+               throw new JMSException("JMSToolBox was not able to receive the message within " + RECEIVE_MAX_WAIT_REMOVE_ID + "ms");
+            }
+         }
+
+         jmsSession.commit();
+         timer.success(1);
+      } finally {
+         timer.stop();
+      }
+   }
 
-      Message message = jtbMessage.getJmsMessage();
+   // Read again a message browsed in "headers only" mode. The last messages read are kept in a small cache
+   public synchronized Message getFullMessage(JTBMessage jtbMessage) throws JMSException {
       JTBDestination jtbDestination = jtbMessage.getJtbDestination();
+      String jmsMessageID = jtbMessage.getJmsMessage().getJMSMessageID();
+      String key = jtbDestination.getName() + "\u0000" + jmsMessageID;
 
-      StringBuilder sb = new StringBuilder(128);
-      sb.append("JMSMessageID='");
-      if (qm.mustRemoveIDFromJMSMessageID()) {
-         sb.append(message.getJMSMessageID().substring(JMSMESSAGEID_STD_PREFIX_START));
-      } else {
-         sb.append(message.getJMSMessageID());
+      Message message = bodyCache.get(key);
+      if (message != null) {
+         return message;
       }
-      sb.append("'");
 
-      try (MessageConsumer consumer = jmsSession.createConsumer(jtbDestination.getJmsDestination(), sb.toString());) {
-         message = consumer.receive(RECEIVE_MAX_WAIT_REMOVE_ID);
+      log.debug("getFullMessage {}", jmsMessageID);
+      OperationTimer timer = MetricsRegistry.start(MetricsRegistry.OP_BROWSE, getSessionName(), metricsProvider, jtbDestination.getName());
+      try {
+         try (QueueBrowser browser = jmsSession.createBrowser(jtbDestination.getAsJTBQueue().getJmsQueue(),
+                                                              buildMessageIDSelector(jmsMessageID));) {
+            Enumeration<?> msgs = browser.getEnumeration();
+            if (msgs.hasMoreElements()) {
+               message = (Message) msgs.nextElement();
+            }
+         }
+
+         jmsSession.commit();
+
          if (message == null) {
-            throw new JMSException("JMSToolBox was not able to receive the message within " + RECEIVE_MAX_WAIT_REMOVE_ID + "ms");
+            throw new JMSException("The message with id '" + jmsMessageID + "' is not in '" + jtbDestination.getName() + "' anymore");
          }
+         bodyCache.put(key, message);
+         timer.success(1);
+         return message;
+      } finally {
+         timer.stop();
       }
-
-      jmsSession.commit();
    }
 
-   public List<JTBMessage> removeFirstMessages(JTBDestination jtbDestination, int limit) throws JMSException {
+   public synchronized List<JTBMessage> removeFirstMessages(JTBDestination jtbDestination, int limit) throws JMSException {
       log.debug("Remove First {} Message from {}", limit, jtbDestination);
+      OperationTimer timer = MetricsRegistry.start(MetricsRegistry.OP_REMOVE, getSessionName(), metricsProvider, jtbDestination.getName());
+      try {
+         List<JTBMessage> jtbMessages = new ArrayList<>(limit);
 
-      List<JTBMessage> jtbMessages = new ArrayList<>(limit);
-
-      Message message;
-      int n = 0;
-      try (MessageConsumer consumer = jmsSession.createConsumer(jtbDestination.getJmsDestination());) {
-         while (n++ < limit) {
-            message = consumer.receive(RECEIVE_MAX_WAIT_REMOVE); // Seems necessary for ActiveMQ instead of receiveNoWait()
-            if (message != null) {
-               if (qm.manulAcknoledge()) {
-                  message.acknowledge();
+         Message message;
+         int n = 0;
+         try (MessageConsumer consumer = jmsSession.createConsumer(jtbDestination.getJmsDestination());) {
+            while (n++ < limit) {
+               message = consumer.receive(RECEIVE_MAX_WAIT_REMOVE); // Seems necessary for ActiveMQ instead of receiveNoWait()
+               if (message != null) {
+                  if (qm.manulAcknoledge()) {
+                     message.acknowledge();
+                  }
+                  jtbMessages.add(new JTBMessage(jtbDestination, message));
+               } else {
+                  break;
                }
-               jtbMessages.add(new JTBMessage(jtbDestination, message));
-            } else {
-               break;
             }
          }
-      }
-
-      jmsSession.commit();
 
-      return jtbMessages;
+         jmsSession.commit();
 
+         timer.success(jtbMessages.size());
+         return jtbMessages;
+      } finally {
+         timer.stop();
+      }
    }
 
-   public int emptyQueue(JTBQueue jtbQueue) throws JMSException {
-      Message message = null;
-      Integer nb = 0;
-      try (MessageConsumer consumer = jmsSession.createConsumer(jtbQueue.getJmsDestination());) {
-         do {
-            message = consumer.receive(RECEIVE_MAX_WAIT_REMOVE); // Seems necessary for ActiveMQ instead of receiveNoWait()
-            if (message != null) {
-               if (qm.manulAcknoledge()) {
-                  message.acknowledge();
+   public synchronized int emptyQueue(JTBQueue jtbQueue) throws JMSException {
+      OperationTimer timer = MetricsRegistry.start(MetricsRegistry.OP_EMPTY, getSessionName(), metricsProvider, jtbQueue.getName());
+      try {
+         Message message = null;
+         Integer nb = 0;
+         try (MessageConsumer consumer = jmsSession.createConsumer(jtbQueue.getJmsDestination());) {
+            do {
+               message = consumer.receive(RECEIVE_MAX_WAIT_REMOVE); // Seems necessary for ActiveMQ instead of receiveNoWait()
+               if (message != null) {
+                  if (qm.manulAcknoledge()) {
+                     message.acknowledge();
+                  }
+                  nb++;
                }
-               nb++;
-            }
-         } while (message != null);
-      }
-      jmsSession.commit();
+            } while (message != null);
+         }
+         jmsSession.commit();
 
-      return nb;
+         timer.success(nb);
+         return nb;
+      } finally {
+         timer.stop();
+      }
    }
 
-   public void sendMessage(JTBMessage jtbMessage, JTBDestination jtbDestination) throws JMSException {
+   // The producer is kept open for the destination and reused by the next sends
+   public synchronized void sendMessage(JTBMessage jtbMessage, JTBDestination jtbDestination) throws JMSException {
       log.debug("sendMessage {} to {}", jtbMessage, jtbDestination);
-      Message m = jtbMessage.getJmsMessage();
-      Destination d = jtbDestination.getJmsDestination();
+      OperationTimer timer = MetricsRegistry.start(MetricsRegistry.OP_SEND, getSessionName(), metricsProvider, jtbDestination.getName());
+      try {
+         Message m = jtbMessage.getFullJmsMessage();
 
-      try (MessageProducer p = jmsSession.createProducer(d);) {
-         if (jtbMessage.getDeliveryMode() != null) {
-            p.setDeliveryMode(jtbMessage.getDeliveryMode().intValue());
+         String key = buildProducerKey(jtbMessage, jtbDestination);
+         MessageProducer p = jmsProducers.get(key);
+         if (p == null) {
+            p = jmsSession.createProducer(jtbDestination.getJmsDestination());
+            jmsProducers.put(key, p);
          }
-         if (jtbMessage.getPriority() != null) {
-            p.setPriority(jtbMessage.getPriority());
+
+         prepareSharedProducer(jmsSession, p, jtbMessage);
+
+         try {
+            p.send(m);
+         } catch (JMSException e) {
+            // The producer may be broken, do not reuse it
+            jmsProducers.remove(key);
+            rollbackQuietly(jmsSession);
+            throw e;
          }
-         if (jtbMessage.getTimeToLive() != null) {
-            p.setTimeToLive(jtbMessage.getTimeToLive());
+
+         jmsSession.commit();
+         timer.success(1);
+         log.debug("Message sent");
+      } finally {
+         timer.stop();
+      }
+   }
+
+   public void sendMessage(JTBMessage jtbMessage) throws JMSException {
+      sendMessage(jtbMessage, jtbMessage.getJtbDestination());
+   }
+
+   /**
+    * Create a sender that sends messages in batches on a dedicated transacted session, for bulk sends. The caller commits or
+    * rollbacks the batches, and must close the sender
+    */
+   public JTBBatchSender createBatchSender() throws JMSException {
+      log.debug("createBatchSender for '{}'", this);
+      return new JTBBatchSender(this, jmsConnection.createSession(true, Session.SESSION_TRANSACTED));
+   }
+
+   /**
+    * Create a sender that sends messages asynchronously (JMS 2.0 CompletionListener) on a dedicated non transacted session, with at
+    * most "maxInFlight" messages waiting for the acknowledgement of the server
+    */
+   public JTBAsyncSender createAsyncSender(int maxInFlight) throws JMSException {
+      log.debug("createAsyncSender for '{}'. maxInFlight={}", this, maxInFlight);
+      return new JTBAsyncSender(this, jmsConnection.createSession(false, Session.AUTO_ACKNOWLEDGE), maxInFlight);
+   }
+
+   // The producer is shared between messages: always reset its settings
+   static void prepareSharedProducer(Session session, MessageProducer p, JTBMessage jtbMessage) throws JMSException {
+      p.setDeliveryMode(jtbMessage.getDeliveryMode() == null ? Message.DEFAULT_DELIVERY_MODE
+               : jtbMessage.getDeliveryMode().intValue());
+      p.setPriority(jtbMessage.getPriority() == null ? Message.DEFAULT_PRIORITY : jtbMessage.getPriority());
+      p.setTimeToLive(jtbMessage.getTimeToLive() == null ? Message.DEFAULT_TIME_TO_LIVE : jtbMessage.getTimeToLive());
+      if (jtbMessage.getReplyToDestinationName() != null) {
+         jtbMessage.getFullJmsMessage().setJMSReplyTo(session.createQueue(jtbMessage.getReplyToDestinationName()));
+      }
+      if (jtbMessage.getDeliveryDelay() != null) {
+         try {
+            p.setDeliveryDelay(jtbMessage.getDeliveryDelay());
+         } catch (Throwable t) {
+            log.warn("JMS 2.0 feature 'setDeliveryDelay' failed. ignoring. Msg: {}", t.getMessage());
          }
-         if (jtbMessage.getReplyToDestinationName() != null) {
-            // Destination replyToDest = jmsSession.createTemporaryQueue();
-            Destination replyToDest = jmsSession.createQueue(jtbMessage.getReplyToDestinationName());
-            m.setJMSReplyTo(replyToDest);
+      }
+   }
+
+   // Key of a producer kept open for a destination. Messages with a delivery delay use their own producer, so that the delay is
+   // never inherited by other messages
+   static String buildProducerKey(JTBMessage jtbMessage, JTBDestination jtbDestination) {
+      String key = (jtbDestination.isJTBQueue() ? "Q:" : "T:") + jtbDestination.getName();
+      if (jtbMessage.getDeliveryDelay() != null) {
+         key += ":D";
+      }
+      return key;
+   }
+
+   // ------------------------
+   // Move/Copy Messages
+   // ------------------------
+
+   public synchronized int copyMessages(List<JTBMessage> jtbMessages, JTBDestination targetDestination, int batchSize) throws JMSException {
+      log.debug("copyMessages {} messages to {} batchSize={}", jtbMessages.size(), targetDestination, batchSize);
+
+      // Tagged by the target destination: the messages may come from several destinations
+      OperationTimer timer = MetricsRegistry.start(MetricsRegistry.OP_MOVE_COPY,
+                                                   getSessionName(),
+                                                   metricsProvider,
+                                                   targetDestination.getName());
+      try {
+         int n = 0;
+         try (MessageProducer p = jmsSession.createProducer(targetDestination.getJmsDestination());) {
+            for (JTBMessage jtbMessage : jtbMessages) {
+               sendClone(jmsSession, p, jtbMessage.getFullJmsMessage());
+               if (++n % batchSize == 0) {
+                  jmsSession.commit();
+               }
+            }
+            jmsSession.commit();
+         } catch (JMSException e) {
+            rollbackQuietly(jmsSession);
+            throw e;
          }
-         if (jtbMessage.getDeliveryDelay() != null) {
+
+         log.debug("{} messages copied to {}", n, targetDestination);
+         timer.success(n);
+         return n;
+      } finally {
+         timer.stop();
+      }
+   }
+
+   /**
+    * Move or copy the messages of a queue matching the selector to another destination<br>
+    * "afterCommit" is called after each batch is committed with the number of messages moved/copied so far. If it returns false, the
+    * operation stops, the batches already committed are kept. It is not called when the Q Manager moves/copies the messages natively<br>
+    * The messages are moved/copied on a dedicated session, so that the connection can still be used by other threads meanwhile
+    */
+   public int moveOrCopyMessages(JTBQueue sourceQueue,
+                                 JTBDestination targetDestination,
+                                 String selector,
+                                 boolean move,
+                                 int batchSize,
+                                 IntPredicate afterCommit) throws JMSException {
+      log.debug("moveOrCopyMessages from {} to {} selector='{}' move? {} batchSize={}",
+                sourceQueue,
+                targetDestination,
+                selector,
+                move,
+                batchSize);
+
+      if (sourceQueue.getName().equals(targetDestination.getName()) && (targetDestination.isJTBQueue())) {
+         throw new JMSException("Source and target queues must be different");
+      }
+
+      String sel = Utils.isEmpty(selector) ? null : selector.trim();
+
+      OperationTimer timer = MetricsRegistry.start(MetricsRegistry.OP_MOVE_COPY,
+                                                   getSessionName(),
+                                                   metricsProvider,
+                                                   sourceQueue.getName());
+      try {
+
+         // Use the Q Manager native operation if available
+         if (targetDestination.isJTBQueue()) {
+            Integer nb;
             try {
-               p.setDeliveryDelay(jtbMessage.getDeliveryDelay());
-            } catch (Throwable t) {
-               log.warn("JMS 2.0 feature 'setDeliveryDelay' failed. ignoring. Msg: {}", t.getMessage());
+               nb = qm.moveOrCopyMessages(jmsConnection, sourceQueue.getName(), targetDestination.getName(), sel, move);
+            } catch (Exception e) {
+               log.error("Exception occurred during native move/copy", e);
+               JMSException jmsException = new JMSException("Q Manager failed to move/copy the messages: " + e.getMessage());
+               jmsException.initCause(e);
+               throw jmsException;
+            }
+            if (nb != null) {
+               log.debug("{} messages moved/copied by the Q Manager", nb);
+               timer.success(nb);
+               return nb;
             }
          }
 
-         p.send(m);
+         // Not supported natively: consume (or browse) from source and produce to target, one transaction per batch
+         int n = 0;
+         Session session = jmsConnection.createSession(true, Session.SESSION_TRANSACTED);
+         try (MessageProducer p = session.createProducer(targetDestination.getJmsDestination());) {
+            if (move) {
+               try (MessageConsumer consumer = session.createConsumer(sourceQueue.getJmsDestination(), sel);) {
+                  // A receive may time out while messages are still in the queue (slow broker, messages being delivered..)
+                  // Consider the queue empty only after a few receives in a row got nothing
+                  int nbEmpty = 0;
+                  while (nbEmpty < RECEIVE_MAX_EMPTY_MOVE) {
+                     Message message = consumer.receive(RECEIVE_MAX_WAIT_MOVE);
+                     if (message == null) {
+                        nbEmpty++;
+                        continue;
+                     }
+                     nbEmpty = 0;
+                     sendClone(session, p, message);
+                     if (qm.manulAcknoledge()) {
+                        message.acknowledge();
+                     }
+                     if (++n % batchSize == 0) {
+                        session.commit();
+                        if (!afterCommit.test(n)) {
+                           break;
+                        }
+                     }
+                  }
+               }
+            } else {
+               try (QueueBrowser browser = session.createBrowser(sourceQueue.getJmsQueue(), sel);) {
+                  Enumeration<?> msgs = browser.getEnumeration();
+                  while (msgs.hasMoreElements()) {
+                     sendClone(session, p, (Message) msgs.nextElement());
+                     if (++n % batchSize == 0) {
+                        session.commit();
+                        if (!afterCommit.test(n)) {
+                           break;
+                        }
+                     }
+                  }
+               }
+            }
+            session.commit();
+         } catch (JMSException e) {
+            rollbackQuietly(session);
+            throw e;
+         } finally {
+            closeQuietly(session);
+         }
+
+         log.debug("{} messages moved/copied from {} to {}", n, sourceQueue, targetDestination);
+         timer.success(n);
+         return n;
+      } finally {
+         timer.stop();
       }
+   }
 
-      jmsSession.commit();
-      log.debug("Message sent");
+   private void sendClone(Session session, MessageProducer p, Message message) throws JMSException {
+      Message newMessage = cloneJMSMessage(session, message);
+
+      // Keep the original remaining time to live
+      long ttl = 0;
+      long expiration = message.getJMSExpiration();
+      if (expiration > 0) {
+         ttl = Math.max(1, expiration - System.currentTimeMillis());
+      }
+      p.send(newMessage, message.getJMSDeliveryMode(), message.getJMSPriority(), ttl);
    }
 
-   public void sendMessage(JTBMessage jtbMessage) throws JMSException {
-      sendMessage(jtbMessage, jtbMessage.getJtbDestination());
+   private void rollbackQuietly(Session session) {
+      try {
+         session.rollback();
+      } catch (JMSException e) {
+         log.warn("Exception occurred while rolling back the session. Ignore it. Msg={}", e.getMessage());
+      }
+   }
+
+   private void closeQuietly(Session session) {
+      try {
+         session.close();
+      } catch (JMSException e) {
+         log.warn("Exception occurred when closing session. Ignoring: {}", e.getMessage());
+      }
    }
 
    // ----------------
    // Topic Consumer
    // ----------------
-   public MessageConsumer createTopicConsumer(JTBTopic jtbTopic,
+   public synchronized MessageConsumer createTopicConsumer(JTBTopic jtbTopic,
                                               TopicListener messageListener,
                                               String selector) throws JMSException {
       // JMS does not allow to perform synchronous and asynchronous calls simultaneously
@@ -635,7 +956,7 @@ public class JTBConnection {
       return messageConsumer;
    }
 
-   public void closeTopicConsumer(JTBTopic jtbTopic, MessageConsumer messageConsumer) throws JMSException {
+   public synchronized void closeTopicConsumer(JTBTopic jtbTopic, MessageConsumer messageConsumer) throws JMSException {
       log.debug("stopTopicConsumer for {}", jtbTopic);
 
       if (messageConsumer != null) {
@@ -652,7 +973,7 @@ public class JTBConnection {
    // ------------------------
    // Browse/Search Messages
    // ------------------------
-   public Date getFirstMessageTimestamp(JTBQueue jtbQueue) throws JMSException {
+   public synchronized Date getFirstMessageTimestamp(JTBQueue jtbQueue) throws JMSException {
       try (QueueBrowser browser = jmsSession.createBrowser(jtbQueue.getJmsQueue());) {
          Enumeration<?> msgs = browser.getEnumeration();
          while (msgs.hasMoreElements()) {
@@ -674,77 +995,277 @@ public class JTBConnection {
                                        int maxMessages,
                                        String payloadSearchText,
                                        String selectorsSearchText) throws JMSException {
-      log.debug("browseQueue {} maxMessages={}, payloadSearchText='{}' selectorsSearchText='{}'",
+      return browseQueue(jtbQueue, maxMessages, payloadSearchText, selectorsSearchText, false);
+   }
+
+   /**
+    * Browse a queue<br>
+    * With "headersOnly", only the headers and properties of the messages are kept, the body is read again from the queue when
+    * needed (JTBMessage.getFullJmsMessage())
+    */
+   public synchronized List<JTBMessage> browseQueue(JTBQueue jtbQueue,
+                                                    int maxMessages,
+                                                    String payloadSearchText,
+                                                    String selectorsSearchText,
+                                                    boolean headersOnly) throws JMSException {
+      log.debug("browseQueue {} maxMessages={}, payloadSearchText='{}' selectorsSearchText='{}' headersOnly={}",
                 jtbQueue,
                 maxMessages,
                 payloadSearchText,
-                selectorsSearchText);
+                selectorsSearchText,
+                headersOnly);
+      OperationTimer timer = MetricsRegistry.start(MetricsRegistry.OP_BROWSE, getSessionName(), metricsProvider, jtbQueue.getName());
+      try {
+         int limit = maxMessages == 0 ? Integer.MAX_VALUE : maxMessages;
 
-      int limit = maxMessages == 0 ? Integer.MAX_VALUE : maxMessages;
+         List<JTBMessage> jtbMessages = new ArrayList<>(Math.min(256, maxMessages));
+
+         // JMS Browser with selector
+         try (QueueBrowser browser = jmsSession.createBrowser(jtbQueue.getJmsQueue(), selectorsSearchText);) {
+            Enumeration<?> msgs = browser.getEnumeration();
+            while (msgs.hasMoreElements()) {
+               Message message = (Message) msgs.nextElement();
+               if (!matchesPayload(message, payloadSearchText)) {
+                  continue;
+               }
+               jtbMessages.add(headersOnly ? JTBMessage.headerOnly(jtbQueue, message) : new JTBMessage(jtbQueue, message));
+               if (jtbMessages.size() >= limit) {
+                  break;
+               }
+            }
+         }
 
-      List<JTBMessage> jtbMessages = new ArrayList<>(Math.min(256, maxMessages));
+         jmsSession.commit();
 
-      // JMS Browser with selector
-      try (QueueBrowser browser = jmsSession.createBrowser(jtbQueue.getJmsQueue(), selectorsSearchText);) {
-         int n = 0;
+         timer.success(jtbMessages.size());
+         return jtbMessages;
+      } finally {
+         timer.stop();
+      }
+   }
 
-         Enumeration<?> msgs = browser.getEnumeration();
-         loopOnMessages: while (msgs.hasMoreElements()) {
-            Message message = (Message) msgs.nextElement();
+   /**
+    * Browse a queue with the same criteria as a previous browse that returned the messages with ids "knownIds"<br>
+    * Only the messages not seen by the previous browse are built and returned. The messages of the previous browse that are not
+    * present anymore are returned by id
+    */
+   public synchronized JTBQueueDelta browseQueueDelta(JTBQueue jtbQueue,
+                                                      int maxMessages,
+                                                      String payloadSearchText,
+                                                      String selectorsSearchText,
+                                                      boolean headersOnly,
+                                                      Set<String> knownIds) throws JMSException {
+      log.debug("browseQueueDelta {} maxMessages={}, payloadSearchText='{}' selectorsSearchText='{}' headersOnly={} known={}",
+                jtbQueue,
+                maxMessages,
+                payloadSearchText,
+                selectorsSearchText,
+                headersOnly,
+                knownIds.size());
+      OperationTimer timer = MetricsRegistry.start(MetricsRegistry.OP_BROWSE, getSessionName(), metricsProvider, jtbQueue.getName());
+      try {
+         int limit = maxMessages == 0 ? Integer.MAX_VALUE : maxMessages;
 
-            // No filter on payload, keep all messages
-            if (payloadSearchText.isEmpty()) {
-               jtbMessages.add(new JTBMessage(jtbQueue, message));
-               if (++n >= limit) {
-                  break loopOnMessages;
+         List<JTBMessage> addedMessages = new ArrayList<>();
+         Set<String> removedIds = new HashSet<>(knownIds);
+         int n = 0;
+         boolean reloadRequired = false;
+
+         try (QueueBrowser browser = jmsSession.createBrowser(jtbQueue.getJmsQueue(), selectorsSearchText);) {
+            Enumeration<?> msgs = browser.getEnumeration();
+            while (msgs.hasMoreElements()) {
+               Message message = (Message) msgs.nextElement();
+               String id = message.getJMSMessageID();
+               if (id == null) {
+                  reloadRequired = true;
+                  break;
                }
-               continue loopOnMessages;
-            }
 
-            // Search on text payload of Text Messages
-            if (message instanceof TextMessage) {
-               String text = ((TextMessage) message).getText();
-               if (text != null) {
-                  if (text.contains(payloadSearchText)) {
-                     jtbMessages.add(new JTBMessage(jtbQueue, message));
-                     if (++n >= limit) {
-                        break loopOnMessages;
-                     }
+               // Already known, the message still matches the criteria
+               if (removedIds.remove(id)) {
+                  if (++n >= limit) {
+                     break;
                   }
+                  continue;
+               }
+               if (knownIds.contains(id) || !matchesPayload(message, payloadSearchText)) {
+                  continue;
+               }
+               addedMessages.add(headersOnly ? JTBMessage.headerOnly(jtbQueue, message) : new JTBMessage(jtbQueue, message));
+               if (++n >= limit) {
+                  break;
                }
-               continue loopOnMessages;
             }
+         }
 
-            // Search on "values" of Map Message content
-            if (message instanceof MapMessage) {
-               MapMessage mm = (MapMessage) message;
-               Enumeration<?> mapNames = mm.getMapNames();
-               while (mapNames.hasMoreElements()) {
-                  Object value = mm.getObject((String) mapNames.nextElement());
-                  if (value != null) {
-                     if (value.toString().contains(payloadSearchText)) {
-                        jtbMessages.add(new JTBMessage(jtbQueue, message));
-                        if (++n >= limit) {
-                           break loopOnMessages;
-                        }
-                     }
-                  }
+         jmsSession.commit();
+
+         timer.success(addedMessages.size());
+         return new JTBQueueDelta(addedMessages, removedIds, n, reloadRequired);
+      } finally {
+         timer.stop();
+      }
+   }
+
+   /**
+    * Browse a queue and pass each message to the visitor as soon as it is read, without keeping it in memory<br>
+    * Stops when there are no more messages or when the visitor returns false. The queue is browsed on a dedicated session, so
+    * that the connection can still be used by other threads meanwhile
+    *
+    * @return the number of messages passed to the visitor
+    */
+   public int browseQueue(JTBQueue jtbQueue, String selector, Predicate<JTBMessage> visitor) throws JMSException {
+      log.debug("browseQueue {} selector='{}' (streaming)", jtbQueue, selector);
+      OperationTimer timer = MetricsRegistry.start(MetricsRegistry.OP_BROWSE, getSessionName(), metricsProvider, jtbQueue.getName());
+      Session session = jmsConnection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+      try {
+         int n = 0;
+         try (QueueBrowser browser = session.createBrowser(jtbQueue.getJmsQueue(), selector);) {
+            Enumeration<?> msgs = browser.getEnumeration();
+            while (msgs.hasMoreElements()) {
+               Message message = (Message) msgs.nextElement();
+               n++;
+               if (!visitor.test(new JTBMessage(jtbQueue, message))) {
+                  break;
                }
+            }
+         }
+
+         timer.success(n);
+         return n;
+      } finally {
+         timer.stop();
+         closeQuietly(session);
+      }
+   }
 
-               continue loopOnMessages;
+   /**
+    * Browse a queue on a dedicated session, so that several queues can be searched at the same time by different threads<br>
+    * Only the messages matching the payload search text are passed to the visitor. Stops when there are no more messages, when
+    * the visitor returns false or when "cancelled" returns true
+    *
+    * @return the number of messages browsed
+    */
+   public int searchQueue(JTBQueue jtbQueue,
+                          String selector,
+                          String payloadSearchText,
+                          BooleanSupplier cancelled,
+                          Predicate<JTBMessage> visitor) throws JMSException {
+      log.debug("searchQueue {} selector='{}' payloadSearchText='{}'", jtbQueue, selector, payloadSearchText);
+      OperationTimer timer = MetricsRegistry.start(MetricsRegistry.OP_BROWSE, getSessionName(), metricsProvider, jtbQueue.getName());
+      Session session = jmsConnection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+      try {
+         int n = 0;
+         try (QueueBrowser browser = session.createBrowser(jtbQueue.getJmsQueue(), selector);) {
+            Enumeration<?> msgs = browser.getEnumeration();
+            while ((msgs.hasMoreElements()) && (!cancelled.getAsBoolean())) {
+               Message message = (Message) msgs.nextElement();
+               n++;
+               if (!matchesPayload(message, payloadSearchText)) {
+                  continue;
+               }
+               if (!visitor.test(new JTBMessage(jtbQueue, message))) {
+                  break;
+               }
             }
          }
+
+         timer.success(n);
+         return n;
+      } finally {
+         timer.stop();
+         closeQuietly(session);
       }
+   }
 
-      jmsSession.commit();
+   // ------------------------
+   // Q Manager calls
+   // ------------------------
+
+   public Integer getQueueDepth(JTBQueue jtbQueue) {
+      OperationTimer timer = MetricsRegistry.start(MetricsRegistry.OP_DEPTH, getSessionName(), metricsProvider, jtbQueue.getName());
+      try {
+         Integer depth = qm.getQueueDepth(jmsConnection, jtbQueue.getName());
+         timer.success();
+         return depth;
+      } finally {
+         timer.stop();
+      }
+   }
+
+   // Keyed by queue name. Queues with an unknown depth are absent from the result
+   public Map<String, Integer> getQueueDepths(Collection<JTBQueue> jtbQueues) {
+      OperationTimer timer = MetricsRegistry.start(MetricsRegistry.OP_DEPTH, getSessionName(), metricsProvider, null);
+      try {
+         List<String> queueNames = new ArrayList<>(jtbQueues.size());
+         for (JTBQueue jtbQueue : jtbQueues) {
+            queueNames.add(jtbQueue.getName());
+         }
+         Map<String, Integer> depths = qm.getQueueDepths(jmsConnection, queueNames);
+         timer.success();
+         return depths;
+      } finally {
+         timer.stop();
+      }
+   }
 
-      return jtbMessages;
+   public Map<String, Object> getDestinationInformation(JTBDestination jtbDestination) {
+      OperationTimer timer = MetricsRegistry
+               .start(MetricsRegistry.OP_INFORMATION, getSessionName(), metricsProvider, jtbDestination.getName());
+      try {
+         Map<String, Object> information;
+         if (jtbDestination.isJTBQueue()) {
+            information = qm.getQueueInformation(jmsConnection, jtbDestination.getName());
+         } else {
+            information = qm.getTopicInformation(jmsConnection, jtbDestination.getName());
+         }
+         timer.success();
+         return information;
+      } finally {
+         timer.stop();
+      }
+   }
+
+   private DestinationData discoverDestinations(boolean showSystemObjects) throws Exception {
+      OperationTimer timer = MetricsRegistry.start(MetricsRegistry.OP_DISCOVERY, getSessionName(), metricsProvider, null);
+      try {
+         DestinationData dd = qm.discoverDestinations(jmsConnection, showSystemObjects);
+         timer.success(dd.getListQueueData().size() + dd.getListTopicData().size());
+         return dd;
+      } finally {
+         timer.stop();
+      }
    }
 
    // ------------------------
    // Helpers
    // ------------------------
 
+   // Search on the text payload of Text Messages or on the "values" of Map Messages
+   private boolean matchesPayload(Message message, String payloadSearchText) throws JMSException {
+      if (payloadSearchText.isEmpty()) {
+         return true;
+      }
+
+      if (message instanceof TextMessage) {
+         String text = ((TextMessage) message).getText();
+         return (text != null) && (text.contains(payloadSearchText));
+      }
+
+      if (message instanceof MapMessage) {
+         MapMessage mm = (MapMessage) message;
+         Enumeration<?> mapNames = mm.getMapNames();
+         while (mapNames.hasMoreElements()) {
+            Object value = mm.getObject((String) mapNames.nextElement());
+            if ((value != null) && (value.toString().contains(payloadSearchText))) {
+               return true;
+            }
+         }
+      }
+
+      return false;
+   }
+
    public JTBDestination getJTBDestinationByName(String destinationName) {
       for (JTBQueue jtbQueue : jtbQueues) {
          if (jtbQueue.getName().equals(destinationName)) {
@@ -761,6 +1282,18 @@ public class JTBConnection {
       return null;
    }
 
+   private String buildMessageIDSelector(String jmsMessageID) {
+      StringBuilder sb = new StringBuilder(128);
+      sb.append("JMSMessageID='");
+      if (qm.mustRemoveIDFromJMSMessageID()) {
+         sb.append(jmsMessageID.substring(JMSMESSAGEID_STD_PREFIX_START));
+      } else {
+         sb.append(jmsMessageID);
+      }
+      sb.append("'");
+      return sb.toString();
+   }
+
    // ------------------------
    // Standard Getters/Setters
    // ------------------------
@@ -813,4 +1346,8 @@ public class JTBConnection {
       return sessionDef;
    }
 
+   String getMetricsProvider() {
+      return metricsProvider;
+   }
+
 }
@@ -46,6 +46,9 @@ public class JTBMessage {
    private Long            timeToLive;
    private Long            deliveryDelay;         // JMS 2.0
 
+   // Only the headers and properties have been kept ("headers only" browse mode)
+   private boolean         headerOnly;
+
    // ------------------------
    // Constructor
    // ------------------------
@@ -58,6 +61,22 @@ public class JTBMessage {
       this.replyToDestinationName = Utils.getDestinationName(jmsMessage.getJMSReplyTo());
    }
 
+   // Keep only the headers and properties of the message. The body is read again from the queue when needed
+   public static JTBMessage headerOnly(JTBDestination jtbDestination, Message jmsMessage) throws JMSException {
+      JTBMessage jtbMessage = new JTBMessage(jtbDestination, jmsMessage);
+      jtbMessage.jmsMessage = new HeaderOnlyMessage(jmsMessage, jtbMessage.jtbMessageType);
+      jtbMessage.headerOnly = true;
+      return jtbMessage;
+   }
+
+   // The message with its body, read again from the queue if only the headers have been kept
+   public Message getFullJmsMessage() throws JMSException {
+      if (!headerOnly) {
+         return jmsMessage;
+      }
+      return jtbDestination.getJtbConnection().getFullMessage(this);
+   }
+
    // ------------------------
    // Helpers
    // ------------------------
@@ -106,6 +125,11 @@ public class JTBMessage {
 
    public void setJmsMessage(Message jmsMessage) {
       this.jmsMessage = jmsMessage;
+      this.headerOnly = jmsMessage instanceof HeaderOnlyMessage;
+   }
+
+   public boolean isHeaderOnly() {
+      return headerOnly;
    }
 
    public JTBDestination getJtbDestination() {
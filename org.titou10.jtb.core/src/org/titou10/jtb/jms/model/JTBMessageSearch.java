@@ -0,0 +1,214 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.jms.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import javax.jms.JMSException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Search messages in many queues, possibly from different sessions, with at most "parallelism" queues browsed at the same time<br>
+ * The JMS selector is evaluated by the server, the payload search text by JMSToolBox. Hits are passed to "hitListener" as soon as
+ * they are found, from the threads of the search. The search stops when "maxHits" messages have been found or when "stop" is
+ * called
+ *
+ * @author Denis Forveille
+ *
+ */
+public final class JTBMessageSearch {
+
+   private static final Logger          log           = LoggerFactory.getLogger(JTBMessageSearch.class);
+
+   private static final AtomicInteger   THREAD_NB     = new AtomicInteger(0);
+
+   private final List<JTBQueue>         jtbQueues;
+   private final String                 selector;
+   private final String                 payloadSearchText;
+   private final int                    maxHits;
+   private final int                    parallelism;
+   private final Consumer<JTBMessage>   hitListener;
+
+   private final AtomicInteger          nbHits        = new AtomicInteger();
+   private final AtomicInteger          nbQueuesDone  = new AtomicInteger();
+   private final LongAdder              nbMessages    = new LongAdder();
+   private final Queue<Failure>         failures      = new ConcurrentLinkedQueue<>();
+
+   private volatile boolean             stopped;
+   private volatile boolean             limitReached;
+
+   public JTBMessageSearch(List<JTBQueue> jtbQueues,
+                           String selector,
+                           String payloadSearchText,
+                           int maxHits,
+                           int parallelism,
+                           Consumer<JTBMessage> hitListener) {
+      this.jtbQueues = jtbQueues;
+      this.selector = selector == null ? "" : selector;
+      this.payloadSearchText = payloadSearchText == null ? "" : payloadSearchText;
+      this.maxHits = maxHits <= 0 ? Integer.MAX_VALUE : maxHits;
+      this.parallelism = Math.max(1, parallelism);
+      this.hitListener = hitListener;
+   }
+
+   // -------------------------
+   // Business Interface
+   // -------------------------
+
+   // Search the queues. Returns when all the queues have been searched, the hit limit is reached or "stop" has been called
+   public void run() throws InterruptedException {
+      log.debug("run. {} queues selector='{}' payloadSearchText='{}' maxHits={} parallelism={}",
+                jtbQueues.size(),
+                selector,
+                payloadSearchText,
+                maxHits,
+                parallelism);
+      if (jtbQueues.isEmpty()) {
+         return;
+      }
+
+      ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, jtbQueues.size()), r -> {
+         Thread t = new Thread(r, "JMSToolBox-search-" + THREAD_NB.incrementAndGet());
+         t.setDaemon(true);
+         return t;
+      });
+      try {
+         List<Future<?>> futures = new ArrayList<>(jtbQueues.size());
+         for (JTBQueue jtbQueue : jtbQueues) {
+            futures.add(executor.submit(() -> searchQueue(jtbQueue)));
+         }
+         for (Future<?> f : futures) {
+            try {
+               f.get();
+            } catch (ExecutionException e) {
+               // Exceptions are caught by searchQueue
+               log.error("Unexpected exception during search", e.getCause());
+            }
+         }
+      } catch (InterruptedException e) {
+         stopped = true;
+         throw e;
+      } finally {
+         executor.shutdownNow();
+      }
+   }
+
+   // The browses in progress end after the current message
+   public void stop() {
+      stopped = true;
+   }
+
+   // ------------------------
+   // Standard Getters
+   // ------------------------
+
+   public boolean isStopped() {
+      return stopped;
+   }
+
+   public boolean isLimitReached() {
+      return limitReached;
+   }
+
+   public int getNbHits() {
+      return Math.min(nbHits.get(), maxHits);
+   }
+
+   public int getNbQueues() {
+      return jtbQueues.size();
+   }
+
+   public int getNbQueuesDone() {
+      return nbQueuesDone.get();
+   }
+
+   public long getNbMessages() {
+      return nbMessages.sum();
+   }
+
+   public List<Failure> getFailures() {
+      return new ArrayList<>(failures);
+   }
+
+   // -------
+   // Helpers
+   // -------
+
+   private void searchQueue(JTBQueue jtbQueue) {
+      if (stopped) {
+         return;
+      }
+      try {
+         int n = jtbQueue.getJtbConnection().searchQueue(jtbQueue, selector, payloadSearchText, this::isStopped, jtbMessage -> {
+            if (stopped) {
+               return false;
+            }
+            int hit = nbHits.incrementAndGet();
+            if (hit > maxHits) {
+               return false;
+            }
+            hitListener.accept(jtbMessage);
+            if (hit == maxHits) {
+               log.debug("Limit of {} hits reached. Stopping the search", maxHits);
+               limitReached = true;
+               stopped = true;
+               return false;
+            }
+            return true;
+         });
+         nbMessages.add(n);
+      } catch (JMSException | RuntimeException e) {
+         log.warn("Exception occurred when searching '{}': {}", jtbQueue.getName(), e.getMessage());
+         failures.add(new Failure(jtbQueue, e));
+      } finally {
+         nbQueuesDone.incrementAndGet();
+      }
+   }
+
+   /**
+    * A queue that could not be searched
+    */
+   public static final class Failure {
+      private final JTBQueue  jtbQueue;
+      private final Exception exception;
+
+      private Failure(JTBQueue jtbQueue, Exception exception) {
+         this.jtbQueue = jtbQueue;
+         this.exception = exception;
+      }
+
+      public JTBQueue getJtbQueue() {
+         return jtbQueue;
+      }
+
+      public Exception getException() {
+         return exception;
+      }
+   }
+}
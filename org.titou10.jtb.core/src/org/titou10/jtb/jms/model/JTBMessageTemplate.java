@@ -115,7 +115,7 @@ public class JTBMessageTemplate implements Serializable {
    }
 
    public JTBMessageTemplate(JTBMessage jtbMessage) throws JMSException {
-      Message message = jtbMessage.getJmsMessage();
+      Message message = jtbMessage.getFullJmsMessage();
 
       this.jtbMessageType = jtbMessage.getJtbMessageType();
       this.replyToDestinationName = jtbMessage.getReplyToDestinationName();
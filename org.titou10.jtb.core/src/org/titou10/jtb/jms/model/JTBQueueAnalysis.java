@@ -0,0 +1,278 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.jms.model;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.jms.BytesMessage;
+import javax.jms.DeliveryMode;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.TextMessage;
+
+import org.titou10.jtb.util.Utils;
+
+/**
+ * Profile of the messages of a queue, computed while streaming through a QueueBrowser<br>
+ * Nothing is kept from the messages: body sizes and ages go to histograms with fixed buckets, JMSType and the user properties
+ * to "top values" counters with a fixed number of slots and a distinct count estimator. The memory used does not depend on the
+ * number of messages.<br>
+ * Not thread safe: the messages must be added by one thread
+ *
+ * @author Denis Forveille
+ *
+ */
+public final class JTBQueueAnalysis {
+
+   // Upper bounds of the histogram buckets. The last bucket is "+Inf"
+   private static final long[]             SIZE_BOUNDS       = { 0L, 64L, 256L, 1024L, 4 * 1024L, 16 * 1024L, 64 * 1024L,
+                                                                 256 * 1024L, 1024 * 1024L, 4 * 1024 * 1024L };
+   private static final long[]             AGE_BOUNDS        = { 60_000L, 5 * 60_000L, 15 * 60_000L, 3_600_000L, 6 * 3_600_000L,
+                                                                 24 * 3_600_000L, 7 * 24 * 3_600_000L, 30 * 24 * 3_600_000L };
+
+   private static final int                TOP_SIZE          = 10;
+   private static final int                TOP_CAPACITY      = 100;
+   private static final int                MAX_VALUE_LENGTH  = 80;
+
+   private final long                      now               = System.currentTimeMillis();
+
+   private final List<String>              propertyNames;
+
+   private final Histogram                 sizes             = new Histogram(SIZE_BOUNDS);
+   private final Histogram                 ages              = new Histogram(AGE_BOUNDS);
+   private final TopValues                 jmsTypes          = new TopValues(TOP_CAPACITY, MAX_VALUE_LENGTH);
+   private final Map<String, TopValues>    properties        = new LinkedHashMap<>();
+   private final long[]                    priorities        = new long[10];
+
+   private long                            nbMessages;
+   private long                            nbNoSize;
+   private long                            nbNoTimestamp;
+   private long                            nbPersistent;
+   private long                            nbNonPersistent;
+   private long                            oldestTimestamp   = Long.MAX_VALUE;
+   private long                            newestTimestamp   = Long.MIN_VALUE;
+   private long                            elapsed;
+   private boolean                         cancelled;
+
+   public JTBQueueAnalysis(List<String> propertyNames) {
+      this.propertyNames = propertyNames;
+      for (String propertyName : propertyNames) {
+         properties.put(propertyName, new TopValues(TOP_CAPACITY, MAX_VALUE_LENGTH));
+      }
+   }
+
+   // -------------------------
+   // Business Interface
+   // -------------------------
+
+   public void add(Message m) throws JMSException {
+      nbMessages++;
+
+      long size = getBodySize(m);
+      if (size < 0) {
+         nbNoSize++;
+      } else {
+         sizes.add(size);
+      }
+
+      long ts = m.getJMSTimestamp();
+      if (ts <= 0) {
+         nbNoTimestamp++;
+      } else {
+         ages.add(Math.max(0, now - ts));
+         oldestTimestamp = Math.min(oldestTimestamp, ts);
+         newestTimestamp = Math.max(newestTimestamp, ts);
+      }
+
+      jmsTypes.add(m.getJMSType());
+
+      int priority = m.getJMSPriority();
+      priorities[Math.max(0, Math.min(9, priority))]++;
+
+      if (m.getJMSDeliveryMode() == DeliveryMode.PERSISTENT) {
+         nbPersistent++;
+      } else {
+         nbNonPersistent++;
+      }
+
+      for (String propertyName : propertyNames) {
+         Object value = m.getObjectProperty(propertyName);
+         properties.get(propertyName).add(value == null ? null : value.toString());
+      }
+   }
+
+   public void end(long elapsed, boolean cancelled) {
+      this.elapsed = elapsed;
+      this.cancelled = cancelled;
+   }
+
+   // Multi-line report of the analysis
+   public String getSummary() {
+      StringBuilder sb = new StringBuilder(4096);
+      sb.append(String.format("Messages analyzed: %,d in %,d ms%s%n", nbMessages, elapsed, cancelled ? " (cancelled)" : ""));
+      if (nbMessages == 0) {
+         return sb.toString();
+      }
+
+      sb.append(String.format("%nBody size (bytes): %,d with a size, %,d without (Map, Object or Stream messages)%n",
+                              sizes.getCount(),
+                              nbNoSize));
+      if (sizes.getCount() > 0) {
+         sb.append(String.format("  min %,d  avg %,d  max %,d  total %,d%n",
+                                 sizes.getMin(),
+                                 sizes.getSum() / sizes.getCount(),
+                                 sizes.getMax(),
+                                 sizes.getSum()));
+         sb.append(String.format("  p50 <= %s  p90 <= %s  p99 <= %s%n",
+                                 formatSize(sizes.getPercentileBound(0.5)),
+                                 formatSize(sizes.getPercentileBound(0.9)),
+                                 formatSize(sizes.getPercentileBound(0.99))));
+         appendHistogram(sb, sizes, true);
+      }
+
+      sb.append(String.format("%nAge (from JMSTimestamp): %,d with a timestamp, %,d without%n", ages.getCount(), nbNoTimestamp));
+      if (ages.getCount() > 0) {
+         sb.append(String.format("  oldest %s  newest %s%n",
+                                 Utils.formatTimestamp(oldestTimestamp, false),
+                                 Utils.formatTimestamp(newestTimestamp, false)));
+         sb.append(String.format("  p50 <= %s  p90 <= %s  p99 <= %s%n",
+                                 formatAge(ages.getPercentileBound(0.5)),
+                                 formatAge(ages.getPercentileBound(0.9)),
+                                 formatAge(ages.getPercentileBound(0.99))));
+         appendHistogram(sb, ages, false);
+      }
+
+      sb.append(String.format("%nDelivery mode: %,d persistent, %,d non persistent%n", nbPersistent, nbNonPersistent));
+
+      sb.append(String.format("%nPriority:%n"));
+      for (int i = 0; i < priorities.length; i++) {
+         if (priorities[i] > 0) {
+            sb.append(String.format("  %d: %,d (%s)%n", i, priorities[i], percent(priorities[i])));
+         }
+      }
+
+      appendTopValues(sb, "JMSType", jmsTypes);
+      for (Map.Entry<String, TopValues> e : properties.entrySet()) {
+         appendTopValues(sb, "Property '" + e.getKey() + "'", e.getValue());
+      }
+
+      return sb.toString();
+   }
+
+   // ------------------------
+   // Standard Getters
+   // ------------------------
+
+   public long getNbMessages() {
+      return nbMessages;
+   }
+
+   public boolean isCancelled() {
+      return cancelled;
+   }
+
+   // -------
+   // Helpers
+   // -------
+
+   // Size of the body in bytes, or -1 if it can not be computed without reading the whole body
+   private static long getBodySize(Message m) throws JMSException {
+      if (m instanceof TextMessage) {
+         String text = ((TextMessage) m).getText();
+         return text == null ? 0 : utf8Length(text);
+      }
+      if (m instanceof BytesMessage) {
+         return ((BytesMessage) m).getBodyLength();
+      }
+      return -1;
+   }
+
+   // Length of the string encoded in UTF-8, without encoding it
+   private static long utf8Length(String s) {
+      long n = 0;
+      for (int i = 0; i < s.length(); i++) {
+         char c = s.charAt(i);
+         if (c < 0x80) {
+            n++;
+         } else if (c < 0x800) {
+            n += 2;
+         } else if (Character.isHighSurrogate(c) && (i + 1 < s.length()) && Character.isLowSurrogate(s.charAt(i + 1))) {
+            n += 4;
+            i++;
+         } else {
+            n += 3;
+         }
+      }
+      return n;
+   }
+
+   private void appendHistogram(StringBuilder sb, Histogram h, boolean isSize) {
+      long[] counts = h.getCounts();
+      long[] bounds = h.getBounds();
+      for (int i = 0; i < counts.length; i++) {
+         if (counts[i] == 0) {
+            continue;
+         }
+         String label;
+         if (i < bounds.length) {
+            label = "<= " + (isSize ? formatSize(bounds[i]) : formatAge(bounds[i]));
+         } else {
+            label = "> " + (isSize ? formatSize(bounds[bounds.length - 1]) : formatAge(bounds[bounds.length - 1]));
+         }
+         sb.append(String.format("  %-10s %,12d (%s)%n", label, counts[i], percent(counts[i])));
+      }
+   }
+
+   private void appendTopValues(StringBuilder sb, String title, TopValues tv) {
+      sb.append(String.format("%n%s: %,d set, %,d not set, ~%,d distinct values%n",
+                              title,
+                              tv.getNbSet(),
+                              tv.getNbNotSet(),
+                              tv.getDistinctEstimate()));
+      // Counts are exact when there are less than TOP_CAPACITY distinct values, otherwise the real count is in a range
+      for (TopValues.Entry e : tv.getTop(TOP_SIZE)) {
+         String count = e.error == 0 ? String.format("%,d", e.count) : String.format("%,d-%,d", e.count - e.error, e.count);
+         sb.append(String.format("  %21s (%s) %s%n", count, percent(e.count - e.error), e.value));
+      }
+   }
+
+   private String percent(long n) {
+      return String.format("%.1f%%", (n * 100d) / nbMessages);
+   }
+
+   private static String formatSize(long bytes) {
+      if (bytes < 1024) {
+         return bytes + " B";
+      }
+      if (bytes < 1024 * 1024) {
+         return String.format("%.1f KB", bytes / 1024d);
+      }
+      return String.format("%.1f MB", bytes / (1024d * 1024d));
+   }
+
+   private static String formatAge(long ms) {
+      if (ms < 3_600_000L) {
+         return String.format("%.1f min", ms / 60_000d);
+      }
+      if (ms < 24 * 3_600_000L) {
+         return String.format("%.1f h", ms / 3_600_000d);
+      }
+      return String.format("%.1f d", ms / (24 * 3_600_000d));
+   }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.jms.model;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Result of an incremental browse of a queue: the messages not seen by the previous browse, and the ids of the messages seen by
+ * the previous browse that are not present anymore
+ *
+ * @author Denis Forveille
+ *
+ */
+public final class JTBQueueDelta {
+
+   private final List<JTBMessage> addedMessages;
+   private final Set<String>      removedIds;
+   private final int              nbMessages;
+   private final boolean          reloadRequired;
+
+   JTBQueueDelta(List<JTBMessage> addedMessages, Set<String> removedIds, int nbMessages, boolean reloadRequired) {
+      this.addedMessages = addedMessages;
+      this.removedIds = removedIds;
+      this.nbMessages = nbMessages;
+      this.reloadRequired = reloadRequired;
+   }
+
+   // ------------------------
+   // Standard Getters
+   // ------------------------
+
+   public List<JTBMessage> getAddedMessages() {
+      return addedMessages;
+   }
+
+   public Set<String> getRemovedIds() {
+      return removedIds;
+   }
+
+   // Number of messages now in the list: the ones still present plus the ones added
+   public int getNbMessages() {
+      return nbMessages;
+   }
+
+   // Messages without a JMSMessageID can not be tracked. The caller must perform a full browse
+   public boolean isReloadRequired() {
+      return reloadRequired;
+   }
+}
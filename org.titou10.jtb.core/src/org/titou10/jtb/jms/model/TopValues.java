@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.jms.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Most frequent values, with the "Space-Saving" algorithm: at most "capacity" values are counted. When a new value arrives and
+ * all the slots are used, it replaces the value with the lowest count and inherits this count as its maximum error.<br>
+ * The number of distinct values is estimated with a HyperLogLog sketch
+ *
+ * @author Denis Forveille
+ *
+ */
+final class TopValues {
+
+   private final int                capacity;
+   private final int                maxValueLength;
+
+   private final Map<String, Entry> entries = new HashMap<>();
+   private final HyperLogLog        hll     = new HyperLogLog();
+   private long                     nbSet;
+   private long                     nbNotSet;
+
+   // Values longer than "maxValueLength" are truncated
+   TopValues(int capacity, int maxValueLength) {
+      this.capacity = capacity;
+      this.maxValueLength = maxValueLength;
+   }
+
+   void add(String value) {
+      if (value == null) {
+         nbNotSet++;
+         return;
+      }
+      nbSet++;
+      hll.add(value);
+
+      String v = truncate(value);
+      Entry e = entries.get(v);
+      if (e != null) {
+         e.count++;
+         return;
+      }
+      if (entries.size() < capacity) {
+         entries.put(v, new Entry(v, 1, 0));
+         return;
+      }
+      Entry smallest = null;
+      for (Entry x : entries.values()) {
+         if ((smallest == null) || (x.count < smallest.count)) {
+            smallest = x;
+         }
+      }
+      entries.remove(smallest.value);
+      entries.put(v, new Entry(v, smallest.count + 1, smallest.count));
+   }
+
+   // Sorted on the guaranteed count
+   List<Entry> getTop(int n) {
+      List<Entry> l = new ArrayList<>(entries.values());
+      l.sort((e1, e2) -> Long.compare(e2.count - e2.error, e1.count - e1.error));
+      return l.subList(0, Math.min(n, l.size()));
+   }
+
+   long getNbSet() {
+      return nbSet;
+   }
+
+   long getNbNotSet() {
+      return nbNotSet;
+   }
+
+   long getDistinctEstimate() {
+      return Math.min(hll.estimate(), nbSet);
+   }
+
+   // -------
+   // Helpers
+   // -------
+
+   private String truncate(String s) {
+      return s.length() <= maxValueLength ? s : s.substring(0, maxValueLength) + "...";
+   }
+
+   /**
+    * A value with its count. The real count is between "count - error" and "count"
+    */
+   static final class Entry {
+      final String value;
+      long         count;
+      final long   error;
+
+      private Entry(String value, long count, long error) {
+         this.value = value;
+         this.count = count;
+         this.error = error;
+      }
+   }
+}
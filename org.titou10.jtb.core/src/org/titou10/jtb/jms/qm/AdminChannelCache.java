@@ -0,0 +1,216 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.jms.qm;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.jms.Connection;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.titou10.jtb.config.gen.SessionDef;
+
+/**
+ * Reference counted cache of the administration channels (JMX connectors, management requestors etc.) opened by a Q Manager<br>
+ * Channels are keyed by the broker endpoint, so that the connections opened for the different client types of a session (GUI,
+ * REST, scripts) share the same channel. A channel is closed when the last connection using it is released
+ *
+ * @author Denis Forveille
+ *
+ * @param <C>
+ *           type of the administration channel
+ */
+public final class AdminChannelCache<C> {
+
+   private static final Logger             log                   = LoggerFactory.getLogger(AdminChannelCache.class);
+
+   private final String                    name;
+   private final Closer<C>                 closer;
+   private final Validator<C>              validator;
+
+   private final Map<String, Entry<C>>     channels              = new ConcurrentHashMap<>();
+   private final Map<Integer, Entry<C>>    channelsPerConnection = new ConcurrentHashMap<>();
+
+   // ------------------------
+   // Constructor
+   // ------------------------
+
+   public AdminChannelCache(String name, Closer<C> closer) {
+      this(name, closer, null);
+   }
+
+   // The validator is called when an existing channel is about to be shared. Invalid channels are closed and opened again
+   public AdminChannelCache(String name, Closer<C> closer, Validator<C> validator) {
+      this.name = name;
+      this.closer = closer;
+      this.validator = validator;
+   }
+
+   // ------------------------
+   // Business Interface
+   // ------------------------
+
+   // Key built from the endpoint, credentials and properties of the session definition
+   public static String buildKey(SessionDef sessionDef, Map<String, String> mapProperties) {
+      StringBuilder sb = new StringBuilder(256);
+      sb.append(sessionDef.getHost()).append(':').append(sessionDef.getPort());
+      if (sessionDef.getHost2() != null) {
+         sb.append(',').append(sessionDef.getHost2()).append(':').append(sessionDef.getPort2());
+      }
+      if (sessionDef.getHost3() != null) {
+         sb.append(',').append(sessionDef.getHost3()).append(':').append(sessionDef.getPort3());
+      }
+      sb.append('|').append(sessionDef.getActiveUserid());
+      sb.append('|').append(Integer.toHexString(Objects.hashCode(sessionDef.getActivePassword())));
+      if (mapProperties != null) {
+         sb.append('|').append(new TreeMap<>(mapProperties));
+      }
+      return sb.toString();
+   }
+
+   // Returns the channel open for the key, opening it if needed, and counts one more user
+   // Each call must be followed by a call to "bind" or "release"
+   public C acquire(String key, Opener<C> opener) throws Exception {
+      while (true) {
+         Entry<C> e = channels.computeIfAbsent(key, k -> new Entry<>(k));
+         synchronized (e) {
+            if (e.closed) {
+               // Released and closed concurrently, retry with a new entry
+               continue;
+            }
+
+            if ((e.channel != null) && (validator != null) && (!validator.isValid(e.channel))) {
+               log.info("{} admin channel is not valid anymore. Opening a new one", name);
+               // Open the new channel before closing the current one: if the open fails, the entry is left unchanged and the
+               // connections already using it keep a channel
+               C newChannel = opener.open();
+               closeChannel(e.channel);
+               e.channel = newChannel;
+            } else if (e.channel == null) {
+               try {
+                  e.channel = opener.open();
+               } catch (Exception ex) {
+                  if (e.refCount == 0) {
+                     e.closed = true;
+                     channels.remove(key, e);
+                  }
+                  throw ex;
+               }
+            } else {
+               log.debug("Sharing {} admin channel. Users: {}", name, e.refCount + 1);
+            }
+            e.refCount++;
+            return e.channel;
+         }
+      }
+   }
+
+   // Associate the connection with the channel acquired with the key
+   public void bind(Connection jmsConnection, String key) {
+      Entry<C> e = channels.get(key);
+      if (e == null) {
+         throw new IllegalStateException("No " + name + " admin channel acquired for this key");
+      }
+      channelsPerConnection.put(jmsConnection.hashCode(), e);
+   }
+
+   public C get(Connection jmsConnection) {
+      Entry<C> e = channelsPerConnection.get(jmsConnection.hashCode());
+      return e == null ? null : e.channel;
+   }
+
+   // Release a channel acquired but not bound to a connection (ie the connection failed)
+   public void release(String key) {
+      Entry<C> e = channels.get(key);
+      if (e != null) {
+         release(e);
+      }
+   }
+
+   // Release the channel used by the connection. It is closed if no other connection use it
+   public void release(Connection jmsConnection) {
+      Entry<C> e = channelsPerConnection.remove(jmsConnection.hashCode());
+      if (e != null) {
+         release(e);
+      }
+   }
+
+   // -------
+   // Helpers
+   // -------
+
+   private void release(Entry<C> e) {
+      C channelToClose = null;
+      synchronized (e) {
+         if (e.closed) {
+            return;
+         }
+         e.refCount--;
+         if (e.refCount <= 0) {
+            e.closed = true;
+            channels.remove(e.key, e);
+            channelToClose = e.channel;
+            e.channel = null;
+         }
+      }
+      if (channelToClose != null) {
+         log.debug("Closing {} admin channel, no more users", name);
+         closeChannel(channelToClose);
+      }
+   }
+
+   private void closeChannel(C channel) {
+      try {
+         closer.close(channel);
+      } catch (Exception ex) {
+         log.warn("Exception occurred while closing {} admin channel. Ignore it. Msg={}", name, ex.getMessage());
+      }
+   }
+
+   private static final class Entry<C> {
+      private final String key;
+      private C            channel;
+      private int          refCount;
+      private boolean      closed;
+
+      private Entry(String key) {
+         this.key = key;
+      }
+   }
+
+   // ------------------------
+   // Callbacks
+   // ------------------------
+
+   @FunctionalInterface
+   public interface Opener<C> {
+      C open() throws Exception;
+   }
+
+   @FunctionalInterface
+   public interface Closer<C> {
+      void close(C channel) throws Exception;
+   }
+
+   @FunctionalInterface
+   public interface Validator<C> {
+      boolean isValid(C channel);
+   }
+}
@@ -10,6 +10,7 @@
  * <http://www.gnu.org/licenses/>. */
 package org.titou10.jtb.jms.qm;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -77,6 +78,19 @@ public abstract class QManager implements JTBObject, Comparable<QManager> {
       return null;
    }
 
+   // Depth of several queues at once. Q Managers with an admin API able to return them in one request should override it
+   // Queues with an unknown depth are absent from the result
+   public Map<String, Integer> getQueueDepths(Connection jmsConnection, Collection<String> queueNames) {
+      Map<String, Integer> depths = new HashMap<>(queueNames.size() * 2);
+      for (String queueName : queueNames) {
+         Integer depth = getQueueDepth(jmsConnection, queueName);
+         if (depth != null) {
+            depths.put(queueName, depth);
+         }
+      }
+      return depths;
+   }
+
    public Map<String, Object> getQueueInformation(Connection jmsConnection, String queueName) {
       return Collections.emptyMap();
    }
@@ -85,6 +99,16 @@ public abstract class QManager implements JTBObject, Comparable<QManager> {
       return Collections.emptyMap();
    }
 
+   // Move or copy the messages matching the selector from one queue to another, using a Q Manager native operation
+   // Returns the number of messages moved/copied, or null if the Q Manager does not support it natively
+   public Integer moveOrCopyMessages(Connection jmsConnection,
+                                     String sourceQueueName,
+                                     String targetQueueName,
+                                     String selector,
+                                     boolean move) throws Exception {
+      return null;
+   }
+
    // Q provider related
 
    public List<QManagerProperty> getQManagerProperties() {
@@ -0,0 +1,300 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.jms.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.titou10.jtb.jms.model.JTBDestination;
+import org.titou10.jtb.jms.model.JTBMessage;
+import org.titou10.jtb.jms.model.JTBMessageTemplate;
+
+/**
+ * Append-only spool of captured messages, stored in memory-mapped segment files in a temporary directory<br>
+ * Each record is a JTBMessageTemplate in java serialization, prefixed by its length. Records are never modified once written, so
+ * they are read without blocking the writer. Only a few counters per segment are kept in memory, whatever the number of messages
+ * spooled.<br>
+ * The files are deleted when the spool is closed
+ *
+ * @author Denis Forveille
+ *
+ */
+public final class MessageSpool implements AutoCloseable {
+
+   private static final Logger log            = LoggerFactory.getLogger(MessageSpool.class);
+
+   private static final int    SEGMENT_SIZE   = 64 * 1024 * 1024;
+   private static final String DIR_PREFIX     = "jtb-spool-";
+   private static final String SEGMENT_FORMAT = "segment-%06d.spool";
+
+   private final Path          directory;
+   private final List<Segment> segments       = new ArrayList<>();
+
+   private Segment             current;
+   private long                nbMessages;
+   private long                nbBytes;
+   private boolean             closed;
+
+   /**
+    * Called for each message read from the spool. Returns false to stop reading
+    */
+   @FunctionalInterface
+   public interface Visitor {
+      boolean visit(long sequence, JTBMessageTemplate template);
+   }
+
+   private MessageSpool(Path directory) {
+      this.directory = directory;
+   }
+
+   // -------------------------
+   // Business Interface
+   // -------------------------
+
+   public static MessageSpool create(String name) throws IOException {
+      Path directory = Files.createTempDirectory(DIR_PREFIX + name.replaceAll("[^A-Za-z0-9_.-]", "_") + "-");
+      log.info("Spooling messages of '{}' to '{}'", name, directory);
+      return new MessageSpool(directory);
+   }
+
+   // Append a message. Returns its sequence number, starting at 0
+   public long append(JTBMessageTemplate template) throws IOException {
+      byte[] data = serialize(template);
+      int recordSize = Integer.BYTES + data.length;
+
+      synchronized (this) {
+         if (closed) {
+            throw new IOException("The spool has been closed");
+         }
+         if ((current == null) || (current.buffer.remaining() < recordSize)) {
+            roll(recordSize);
+         }
+         current.buffer.putInt(data.length);
+         current.buffer.put(data);
+         current.count++;
+         nbBytes += recordSize;
+         return nbMessages++;
+      }
+   }
+
+   // Read at most "count" messages, starting at sequence "from"
+   public List<JTBMessageTemplate> read(long from, int count) throws IOException {
+      List<JTBMessageTemplate> res = new ArrayList<>(Math.min(count, 1024));
+      if (count <= 0) {
+         return res;
+      }
+      scan(from, (sequence, template) -> {
+         res.add(template);
+         return res.size() < count;
+      });
+      return res;
+   }
+
+   // Call the visitor for each message starting at sequence "from", until it returns false. Returns the number of messages read
+   public long scan(long from, Visitor visitor) throws IOException {
+
+      // Take a consistent view of the segments. The records of the view are complete and will not change
+      List<Slice> slices;
+      synchronized (this) {
+         if (closed) {
+            throw new IOException("The spool has been closed");
+         }
+         slices = new ArrayList<>(segments.size());
+         for (Segment s : segments) {
+            if (from < s.firstSequence + s.count) {
+               ByteBuffer b = s.buffer.duplicate();
+               b.flip();
+               slices.add(new Slice(s.firstSequence, s.count, b));
+            }
+         }
+      }
+
+      long nbRead = 0;
+      for (Slice slice : slices) {
+         long sequence = slice.firstSequence;
+         long end = slice.firstSequence + slice.count;
+         for (; sequence < end; sequence++) {
+            int length = slice.buffer.getInt();
+            if (sequence < from) {
+               slice.buffer.position(slice.buffer.position() + length);
+               continue;
+            }
+            byte[] data = new byte[length];
+            slice.buffer.get(data);
+            nbRead++;
+            if (!visitor.visit(sequence, deserialize(data))) {
+               return nbRead;
+            }
+         }
+      }
+      return nbRead;
+   }
+
+   // Rebuild a message from the spool for display, with the read-only JMS headers of the message captured
+   public static JTBMessage toJTBMessage(JTBDestination jtbDestination, JTBMessageTemplate template) throws JMSException {
+      Message m = jtbDestination.getJtbConnection().createJMSMessage(template.getJtbMessageType());
+      JTBMessage jtbMessage = template.toJTBMessage(jtbDestination, m);
+
+      m.setJMSDestination(jtbDestination.getJmsDestination());
+      m.setJMSMessageID(template.getJmsMessageID());
+      if (template.getJmsTimestamp() != null) {
+         m.setJMSTimestamp(template.getJmsTimestamp());
+      }
+      if (template.getJmsExpiration() != null) {
+         m.setJMSExpiration(template.getJmsExpiration());
+      }
+      if (template.getPriority() != null) {
+         m.setJMSPriority(template.getPriority());
+      }
+      if (template.getDeliveryMode() != null) {
+         m.setJMSDeliveryMode(template.getDeliveryMode().intValue());
+      }
+      if (template.getJmsDeliveryTime() != null) {
+         try {
+            m.setJMSDeliveryTime(template.getJmsDeliveryTime());
+         } catch (Throwable t) {
+            // JMS 2.0+ only..
+         }
+      }
+      return jtbMessage;
+   }
+
+   @Override
+   public void close() {
+      synchronized (this) {
+         if (closed) {
+            return;
+         }
+         closed = true;
+         current = null;
+      }
+      log.debug("close '{}'. {} messages, {} bytes", directory, nbMessages, nbBytes);
+
+      // Mapped files can not be deleted on some OSes until the mapping is garbage collected. In this case they are deleted on
+      // exit, in the reverse order of registration: files first, then the directory
+      directory.toFile().deleteOnExit();
+      for (Segment s : segments) {
+         delete(s.file);
+      }
+      segments.clear();
+      delete(directory);
+   }
+
+   // ------------------------
+   // Standard Getters
+   // ------------------------
+
+   public synchronized long getNbMessages() {
+      return nbMessages;
+   }
+
+   public synchronized long getNbBytes() {
+      return nbBytes;
+   }
+
+   public Path getDirectory() {
+      return directory;
+   }
+
+   // -------
+   // Helpers
+   // -------
+
+   private void roll(int recordSize) throws IOException {
+      Path file = directory.resolve(String.format(SEGMENT_FORMAT, segments.size()));
+      int size = Math.max(SEGMENT_SIZE, recordSize);
+      log.debug("Creating segment '{}' size={}", file, size);
+
+      // The mapping stays valid after the channel is closed
+      MappedByteBuffer buffer;
+      try (FileChannel fc = FileChannel.open(file,
+                                             StandardOpenOption.CREATE_NEW,
+                                             StandardOpenOption.READ,
+                                             StandardOpenOption.WRITE)) {
+         buffer = fc.map(MapMode.READ_WRITE, 0, size);
+      }
+      current = new Segment(file, buffer, nbMessages);
+      segments.add(current);
+   }
+
+   private byte[] serialize(JTBMessageTemplate template) throws IOException {
+      ByteArrayOutputStream baos = new ByteArrayOutputStream(1024);
+      try (ObjectOutputStream oos = new ObjectOutputStream(baos)) {
+         oos.writeObject(template);
+      }
+      return baos.toByteArray();
+   }
+
+   private JTBMessageTemplate deserialize(byte[] data) throws IOException {
+      try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(data))) {
+         return (JTBMessageTemplate) ois.readObject();
+      } catch (ClassNotFoundException e) {
+         throw new IOException("Unable to read a message from the spool", e);
+      }
+   }
+
+   private void delete(Path path) {
+      try {
+         Files.deleteIfExists(path);
+      } catch (IOException e) {
+         log.debug("Unable to delete '{}' now: {}", path, e.getMessage());
+         path.toFile().deleteOnExit();
+      }
+   }
+
+   private static final class Segment {
+      private final Path             file;
+      private final MappedByteBuffer buffer;
+      private final long             firstSequence;
+      private int                    count;
+
+      private Segment(Path file, MappedByteBuffer buffer, long firstSequence) {
+         this.file = file;
+         this.buffer = buffer;
+         this.firstSequence = firstSequence;
+      }
+   }
+
+   private static final class Slice {
+      private final long       firstSequence;
+      private final int        count;
+      private final ByteBuffer buffer;
+
+      private Slice(long firstSequence, int count, ByteBuffer buffer) {
+         this.firstSequence = firstSequence;
+         this.count = count;
+         this.buffer = buffer;
+      }
+   }
+}
@@ -65,11 +65,18 @@ final class PageGeneral extends PreferencePage {
    private Button              showSystemObject;
    private Button              autoResizeColumnsWidth;
    private Button              editMessageOnDragAndDrop;
+   private Button              browseHeadersOnly;
    private Button              showNonBrowsableQueue;
    private Button              trustAllCertificates;
    private Button              clearScriptLogsOnExecution;
+   private Spinner             spinnerScriptLogMaxEntries;
+   private Button              scriptLogOverflowFile;
+   private Button              scriptAsyncSend;
+   private Spinner             spinnerAsyncSendMaxInFlight;
    private Spinner             spinnerMaxMessagesTopic;
+   private Spinner             spinnerMoveCopyBatchSize;
    private Text                textConnectionClientId;
+   private Spinner             spinnerConnectionTimeout;
    private Spinner             spinnerXMLindent;
    private Button              synchronizeSessionBrowser;
    private Combo               comboMessageTabDisplay;
@@ -113,6 +120,10 @@ final class PageGeneral extends PreferencePage {
                .setText("Show message editing dialog before posting when dropping a single message on message browser");
       editMessageOnDragAndDrop.setLayoutData(new GridData(SWT.LEFT, SWT.CENTER, true, false, 3, 1));
 
+      browseHeadersOnly = new Button(gBrowser, SWT.CHECK);
+      browseHeadersOnly.setText("Keep only headers and properties when browsing queues (The payload is read again when needed)");
+      browseHeadersOnly.setLayoutData(new GridData(SWT.LEFT, SWT.CENTER, true, false, 3, 1));
+
       Label lbl1 = new Label(gBrowser, SWT.LEFT);
       lbl1.setText("Limit messages displayed to");
       lbl1.setLayoutData(new GridData(SWT.RIGHT, SWT.CENTER, false, false, 1, 1));
@@ -152,6 +163,19 @@ final class PageGeneral extends PreferencePage {
       Label lbl10 = new Label(gBrowser, SWT.LEFT);
       lbl10.setText("messages (0 = no limit)");
 
+      Label lbl25 = new Label(gBrowser, SWT.LEFT);
+      lbl25.setText("Commit messages moved/copied between destinations every");
+      lbl25.setLayoutData(new GridData(SWT.RIGHT, SWT.CENTER, false, false, 1, 1));
+      spinnerMoveCopyBatchSize = new Spinner(gBrowser, SWT.BORDER);
+      spinnerMoveCopyBatchSize.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, false, false, 1, 1));
+      spinnerMoveCopyBatchSize.setMinimum(1);
+      spinnerMoveCopyBatchSize.setMaximum(99999);
+      spinnerMoveCopyBatchSize.setIncrement(1);
+      spinnerMoveCopyBatchSize.setPageIncrement(100);
+      spinnerMoveCopyBatchSize.setTextLimit(5);
+      Label lbl26 = new Label(gBrowser, SWT.LEFT);
+      lbl26.setText("messages");
+
       Label lbl24 = new Label(gBrowser, SWT.LEFT);
       lbl24.setLayoutData(new GridData(SWT.RIGHT, SWT.CENTER, false, false, 1, 1));
       lbl24.setText("Default Columns Set:");
@@ -219,10 +243,37 @@ final class PageGeneral extends PreferencePage {
       Group gScripts = new Group(composite, SWT.SHADOW_ETCHED_IN);
       gScripts.setLayoutData(new GridData(SWT.LEFT, SWT.LEFT, true, false, 1, 1));
       gScripts.setText("Scripts");
-      gScripts.setLayout(new GridLayout(1, false));
+      gScripts.setLayout(new GridLayout(3, false));
 
       clearScriptLogsOnExecution = new Button(gScripts, SWT.CHECK);
       clearScriptLogsOnExecution.setText("Clear scripts logs before execution/simulation");
+      clearScriptLogsOnExecution.setLayoutData(new GridData(SWT.LEFT, SWT.CENTER, false, false, 3, 1));
+
+      Label lbl27 = new Label(gScripts, SWT.LEFT);
+      lbl27.setText("Keep at most");
+      spinnerScriptLogMaxEntries = new Spinner(gScripts, SWT.BORDER);
+      spinnerScriptLogMaxEntries.setMinimum(100);
+      spinnerScriptLogMaxEntries.setMaximum(999999);
+      spinnerScriptLogMaxEntries.setIncrement(100);
+      spinnerScriptLogMaxEntries.setPageIncrement(1000);
+      spinnerScriptLogMaxEntries.setTextLimit(6);
+      Label lbl28 = new Label(gScripts, SWT.LEFT);
+      lbl28.setText("entries in the scripts execution log");
+
+      scriptLogOverflowFile = new Button(gScripts, SWT.CHECK);
+      scriptLogOverflowFile.setText("Write the entries removed from the scripts execution log to file 'script_execution.log'");
+      scriptLogOverflowFile.setLayoutData(new GridData(SWT.LEFT, SWT.CENTER, false, false, 3, 1));
+
+      scriptAsyncSend = new Button(gScripts, SWT.CHECK);
+      scriptAsyncSend.setText("Send messages asynchronously (JMS 2.0) with at most");
+      spinnerAsyncSendMaxInFlight = new Spinner(gScripts, SWT.BORDER);
+      spinnerAsyncSendMaxInFlight.setMinimum(1);
+      spinnerAsyncSendMaxInFlight.setMaximum(99999);
+      spinnerAsyncSendMaxInFlight.setIncrement(100);
+      spinnerAsyncSendMaxInFlight.setPageIncrement(1000);
+      spinnerAsyncSendMaxInFlight.setTextLimit(5);
+      Label lbl30 = new Label(gScripts, SWT.LEFT);
+      lbl30.setText("messages waiting for the server acknowledgement");
 
       // Connection
 
@@ -236,6 +287,15 @@ final class PageGeneral extends PreferencePage {
       textConnectionClientId = new Text(gConnection, SWT.BORDER);
       textConnectionClientId.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false, 1, 1));
 
+      Label lbl29 = new Label(gConnection, SWT.LEFT);
+      lbl29.setText("Connect/rescan timeout in seconds (0 = no timeout): ");
+      spinnerConnectionTimeout = new Spinner(gConnection, SWT.BORDER);
+      spinnerConnectionTimeout.setMinimum(0);
+      spinnerConnectionTimeout.setMaximum(3600);
+      spinnerConnectionTimeout.setIncrement(1);
+      spinnerConnectionTimeout.setPageIncrement(10);
+      spinnerConnectionTimeout.setTextLimit(4);
+
       trustAllCertificates = new Button(gConnection, SWT.CHECK);
       trustAllCertificates.setText("Trust all server certificates. Do not check/validate servers certificate authenticity !!!");
       trustAllCertificates.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false, 2, 1));
@@ -246,11 +306,18 @@ final class PageGeneral extends PreferencePage {
       showSystemObject.setSelection(ps.getBoolean(Constants.PREF_SHOW_SYSTEM_OBJECTS));
       autoResizeColumnsWidth.setSelection(ps.getBoolean(Constants.PREF_AUTO_RESIZE_COLS_BROWSER));
       editMessageOnDragAndDrop.setSelection(ps.getBoolean(Constants.PREF_EDIT_MESSAGE_DND));
+      browseHeadersOnly.setSelection(ps.getBoolean(Constants.PREF_BROWSE_HEADERS_ONLY));
       showNonBrowsableQueue.setSelection(ps.getBoolean(Constants.PREF_SHOW_NON_BROWSABLE_Q));
       trustAllCertificates.setSelection(ps.getBoolean(Constants.PREF_TRUST_ALL_CERTIFICATES));
       clearScriptLogsOnExecution.setSelection(ps.getBoolean(Constants.PREF_CLEAR_LOGS_EXECUTION));
+      spinnerScriptLogMaxEntries.setSelection(ps.getInt(Constants.PREF_SCRIPT_LOG_MAX_ENTRIES));
+      scriptLogOverflowFile.setSelection(ps.getBoolean(Constants.PREF_SCRIPT_LOG_OVERFLOW_FILE));
+      scriptAsyncSend.setSelection(ps.getBoolean(Constants.PREF_SCRIPT_ASYNC_SEND));
+      spinnerAsyncSendMaxInFlight.setSelection(ps.getInt(Constants.PREF_ASYNC_SEND_MAX_IN_FLIGHT));
       spinnerMaxMessagesTopic.setSelection(ps.getInt(Constants.PREF_MAX_MESSAGES_TOPIC));
+      spinnerMoveCopyBatchSize.setSelection(ps.getInt(Constants.PREF_MOVE_COPY_BATCH_SIZE));
       textConnectionClientId.setText(ps.getString(Constants.PREF_CONN_CLIENT_ID_PREFIX));
+      spinnerConnectionTimeout.setSelection(ps.getInt(Constants.PREF_CONN_TIMEOUT));
       spinnerXMLindent.setSelection(ps.getInt(Constants.PREF_XML_INDENT));
       synchronizeSessionBrowser.setSelection(ps.getBoolean(Constants.PREF_SYNCHRONIZE_SESSIONS_MESSAGES));
 
@@ -300,11 +367,18 @@ final class PageGeneral extends PreferencePage {
       showSystemObject.setSelection(ps.getDefaultBoolean(Constants.PREF_SHOW_SYSTEM_OBJECTS));
       autoResizeColumnsWidth.setSelection(ps.getDefaultBoolean(Constants.PREF_AUTO_RESIZE_COLS_BROWSER));
       editMessageOnDragAndDrop.setSelection(ps.getDefaultBoolean(Constants.PREF_EDIT_MESSAGE_DND));
+      browseHeadersOnly.setSelection(ps.getDefaultBoolean(Constants.PREF_BROWSE_HEADERS_ONLY));
       showNonBrowsableQueue.setSelection(ps.getDefaultBoolean(Constants.PREF_SHOW_NON_BROWSABLE_Q));
       trustAllCertificates.setSelection(ps.getDefaultBoolean(Constants.PREF_TRUST_ALL_CERTIFICATES));
       clearScriptLogsOnExecution.setSelection(ps.getDefaultBoolean(Constants.PREF_CLEAR_LOGS_EXECUTION));
+      spinnerScriptLogMaxEntries.setSelection(ps.getDefaultInt(Constants.PREF_SCRIPT_LOG_MAX_ENTRIES));
+      scriptLogOverflowFile.setSelection(ps.getDefaultBoolean(Constants.PREF_SCRIPT_LOG_OVERFLOW_FILE));
+      scriptAsyncSend.setSelection(ps.getDefaultBoolean(Constants.PREF_SCRIPT_ASYNC_SEND));
+      spinnerAsyncSendMaxInFlight.setSelection(ps.getDefaultInt(Constants.PREF_ASYNC_SEND_MAX_IN_FLIGHT));
       spinnerMaxMessagesTopic.setSelection(ps.getDefaultInt(Constants.PREF_MAX_MESSAGES_TOPIC));
+      spinnerMoveCopyBatchSize.setSelection(ps.getDefaultInt(Constants.PREF_MOVE_COPY_BATCH_SIZE));
       textConnectionClientId.setText(ps.getDefaultString(Constants.PREF_CONN_CLIENT_ID_PREFIX));
+      spinnerConnectionTimeout.setSelection(ps.getDefaultInt(Constants.PREF_CONN_TIMEOUT));
       spinnerXMLindent.setSelection(ps.getDefaultInt(Constants.PREF_XML_INDENT));
       synchronizeSessionBrowser.setSelection(ps.getDefaultBoolean(Constants.PREF_SYNCHRONIZE_SESSIONS_MESSAGES));
 
@@ -330,11 +404,18 @@ final class PageGeneral extends PreferencePage {
       ps.setValue(Constants.PREF_SHOW_SYSTEM_OBJECTS, showSystemObject.getSelection());
       ps.setValue(Constants.PREF_AUTO_RESIZE_COLS_BROWSER, autoResizeColumnsWidth.getSelection());
       ps.setValue(Constants.PREF_EDIT_MESSAGE_DND, editMessageOnDragAndDrop.getSelection());
+      ps.setValue(Constants.PREF_BROWSE_HEADERS_ONLY, browseHeadersOnly.getSelection());
       ps.setValue(Constants.PREF_SHOW_NON_BROWSABLE_Q, showNonBrowsableQueue.getSelection());
       ps.setValue(Constants.PREF_TRUST_ALL_CERTIFICATES, trustAllCertificates.getSelection());
       ps.setValue(Constants.PREF_CLEAR_LOGS_EXECUTION, clearScriptLogsOnExecution.getSelection());
+      ps.setValue(Constants.PREF_SCRIPT_LOG_MAX_ENTRIES, spinnerScriptLogMaxEntries.getSelection());
+      ps.setValue(Constants.PREF_SCRIPT_LOG_OVERFLOW_FILE, scriptLogOverflowFile.getSelection());
+      ps.setValue(Constants.PREF_SCRIPT_ASYNC_SEND, scriptAsyncSend.getSelection());
+      ps.setValue(Constants.PREF_ASYNC_SEND_MAX_IN_FLIGHT, spinnerAsyncSendMaxInFlight.getSelection());
       ps.setValue(Constants.PREF_MAX_MESSAGES_TOPIC, spinnerMaxMessagesTopic.getSelection());
+      ps.setValue(Constants.PREF_MOVE_COPY_BATCH_SIZE, spinnerMoveCopyBatchSize.getSelection());
       ps.setValue(Constants.PREF_CONN_CLIENT_ID_PREFIX, textConnectionClientId.getText());
+      ps.setValue(Constants.PREF_CONN_TIMEOUT, spinnerConnectionTimeout.getSelection());
       ps.setValue(Constants.PREF_XML_INDENT, spinnerXMLindent.getSelection());
       ps.setValue(Constants.PREF_SYNCHRONIZE_SESSIONS_MESSAGES, synchronizeSessionBrowser.getSelection());
 
@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.script;
+
+import org.eclipse.e4.core.contexts.ContextInjectionFactory;
+import org.eclipse.e4.core.contexts.EclipseContextFactory;
+import org.eclipse.e4.core.contexts.IEclipseContext;
+import org.eclipse.e4.core.services.events.IEventBroker;
+import org.eclipse.equinox.app.IApplication;
+import org.eclipse.equinox.app.IApplicationContext;
+import org.osgi.framework.FrameworkUtil;
+import org.osgi.service.event.EventHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.titou10.jtb.config.ConfigManager;
+import org.titou10.jtb.jms.model.JTBSession;
+import org.titou10.jtb.util.metrics.MetricsRegistry;
+import org.titou10.jtb.util.metrics.OperationStats;
+
+/**
+ * Run a script from the command line, without the workbench, SWT or the splash screen.<br>
+ * Only the configuration, the variables, the scripts, the templates and the Q Managers used by the script are loaded.<br>
+ * <br>
+ * Usage: jmstoolbox -nosplash -application org.titou10.jtb.core.headless -script &lt;name&gt; [-simulation] [-max &lt;n&gt;]
+ *
+ * @author Denis Forveille
+ *
+ */
+public class HeadlessScriptRunner implements IApplication {
+
+   private static final Logger  log        = LoggerFactory.getLogger(HeadlessScriptRunner.class);
+
+   private static final Integer EXIT_ERROR = Integer.valueOf(1);
+
+   private static final String  USAGE      = "Usage: -application org.titou10.jtb.core.headless -script <name> [-simulation] [-max <n>]";
+
+   @Override
+   public Object start(IApplicationContext context) throws Exception {
+      long start = System.nanoTime();
+
+      // Parse arguments
+      String[] args = (String[]) context.getArguments().get(IApplicationContext.APPLICATION_ARGS);
+      String scriptName = null;
+      boolean simulation = false;
+      int nbMessagesMax = 0;
+      for (int i = 0; i < args.length; i++) {
+         switch (args[i]) {
+            case "-script":
+               scriptName = ++i < args.length ? args[i] : null;
+               break;
+            case "-simulation":
+               simulation = true;
+               break;
+            case "-max":
+               try {
+                  nbMessagesMax = ++i < args.length ? Integer.parseInt(args[i]) : 0;
+               } catch (NumberFormatException e) {
+                  System.err.println("Invalid value for -max: " + args[i]);
+                  System.err.println(USAGE);
+                  return EXIT_ERROR;
+               }
+               break;
+            default:
+               // Other arguments are for the platform
+               break;
+         }
+      }
+      if (scriptName == null) {
+         System.err.println(USAGE);
+         return EXIT_ERROR;
+      }
+
+      // Build a DI context from the OSGi services, without the workbench
+      IEclipseContext ctx = EclipseContextFactory.getServiceContext(FrameworkUtil.getBundle(getClass()).getBundleContext())
+               .createChild("JMSToolBox headless");
+      ctx.set(IEventBroker.class, new NoOpEventBroker());
+
+      ConfigManager cm = null;
+      try {
+         cm = ContextInjectionFactory.make(ConfigManager.class, ctx);
+         ctx.set(ConfigManager.class, cm);
+         cm.initConfigHeadless(scriptName);
+         long startupNanos = System.nanoTime() - start;
+
+         ScriptExecutionEngine engine = ContextInjectionFactory.make(ScriptExecutionEngine.class, ctx);
+         long execStart = System.nanoTime();
+         int nbMessages = engine.executeScriptNoUI(scriptName, simulation, nbMessagesMax);
+         long execNanos = System.nanoTime() - execStart;
+
+         printStatistics(scriptName, simulation, startupNanos, execNanos, nbMessages);
+         return IApplication.EXIT_OK;
+
+      } catch (Exception e) {
+         System.err.println("Script '" + scriptName + "' failed: " + e.getMessage());
+         log.error("Script '{}' failed", scriptName, e);
+         return EXIT_ERROR;
+      } finally {
+         if (cm != null) {
+            for (JTBSession jtbSession : cm.getJtbSessions()) {
+               jtbSession.disconnectAll();
+            }
+            cm.flushConfigFiles();
+         }
+         ctx.dispose();
+      }
+   }
+
+   @Override
+   public void stop() {
+      // NOP
+   }
+
+   // -------
+   // Helpers
+   // -------
+
+   private void printStatistics(String scriptName, boolean simulation, long startupNanos, long execNanos, int nbMessages) {
+      double execSecs = execNanos / 1_000_000_000d;
+
+      System.out.println(String.format("Script '%s'%s executed", scriptName, simulation ? " (simulation)" : ""));
+      System.out.println(String.format("  Startup     : %,d ms", startupNanos / 1_000_000));
+      System.out.println(String.format("  Execution   : %,d ms", execNanos / 1_000_000));
+      System.out.println(String.format("  Messages    : %,d", nbMessages));
+      System.out.println(String.format("  Throughput  : %,.1f msg/s", execSecs == 0 ? 0 : nbMessages / execSecs));
+
+      for (OperationStats os : MetricsRegistry.getAllStats()) {
+         if (!os.getOperation().equals(MetricsRegistry.OP_SEND)) {
+            continue;
+         }
+         System.out.println(String.format("  Send to %s/%s: %,d messages, %,d errors, avg %.2f ms, max %.2f ms",
+                                          os.getSession(),
+                                          os.getDestination(),
+                                          os.getCount(),
+                                          os.getErrors(),
+                                          os.getAverageMs(),
+                                          os.getMaxNanos() / 1_000_000d));
+      }
+   }
+
+   // There is no UI to notify
+   private static final class NoOpEventBroker implements IEventBroker {
+
+      @Override
+      public boolean send(String topic, Object data) {
+         return true;
+      }
+
+      @Override
+      public boolean post(String topic, Object data) {
+         return true;
+      }
+
+      @Override
+      public boolean subscribe(String topic, EventHandler eventHandler) {
+         return true;
+      }
+
+      @Override
+      public boolean subscribe(String topic, String filter, EventHandler eventHandler, boolean headers) {
+         return true;
+      }
+
+      @Override
+      public boolean unsubscribe(EventHandler eventHandler) {
+         return true;
+      }
+   }
+}
@@ -54,6 +54,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.titou10.jtb.config.ConfigManager;
 import org.titou10.jtb.config.JTBPreferenceStore;
+import org.titou10.jtb.jms.model.JTBAsyncSender;
 import org.titou10.jtb.jms.model.JTBConnection;
 import org.titou10.jtb.jms.model.JTBDestination;
 import org.titou10.jtb.jms.model.JTBMessage;
@@ -70,6 +71,8 @@ import org.titou10.jtb.template.TemplatesManager;
 import org.titou10.jtb.template.TemplatesManager.TemplateNameStructure;
 import org.titou10.jtb.util.Constants;
 import org.titou10.jtb.util.Utils;
+import org.titou10.jtb.util.metrics.MetricsRegistry;
+import org.titou10.jtb.util.metrics.OperationTimer;
 import org.titou10.jtb.variable.VariablesManager;
 import org.titou10.jtb.variable.gen.Variable;
 
@@ -108,10 +111,14 @@ public class ScriptExecutionEngine {
    @Inject
    private ScriptsManager      scriptsManager;
 
+   @Inject
+   private ScriptExecutionLog  executionLog;
+
    public void executeScript(Script script, final boolean simulation, boolean doShowPostLogs, int nbMessagesMax) {
       log.debug("executeScript '{}'. simulation? {}", script.getName(), simulation);
 
       boolean clearLogsBeforeExecution = ps.getBoolean(Constants.PREF_CLEAR_LOGS_EXECUTION);
+      executionLog.configure(ps.getInt(Constants.PREF_SCRIPT_LOG_MAX_ENTRIES), ps.getBoolean(Constants.PREF_SCRIPT_LOG_OVERFLOW_FILE));
       int msgMax = nbMessagesMax == 0 ? Integer.MAX_VALUE : nbMessagesMax;
 
       MyIRunnableWithProgress mirp = new MyIRunnableWithProgress(clearLogsBeforeExecution,
@@ -152,6 +159,7 @@ public class ScriptExecutionEngine {
       log.info("executeScriptNoUI scriptName '{}' simulation? {} nbMessagesMax {}", scriptName, simulation, nbMessagesMax);
 
       int msgMax = nbMessagesMax == 0 ? Integer.MAX_VALUE : nbMessagesMax;
+      executionLog.configure(ps.getInt(Constants.PREF_SCRIPT_LOG_MAX_ENTRIES), ps.getBoolean(Constants.PREF_SCRIPT_LOG_OVERFLOW_FILE));
 
       // Get the script with that name
       String scriptNameForSearch = scriptName.startsWith("/") ? scriptName : "/" + scriptName;
@@ -178,38 +186,74 @@ public class ScriptExecutionEngine {
                                           Script script) throws InterruptedException, InvocationTargetException,
                                                          ScriptValidationException {
       log.debug("executeScriptInBackground '{}'. simulation? {}", script.getName(), simulation);
+      OperationTimer timer = MetricsRegistry.start(MetricsRegistry.OP_SCRIPT, null, null, script.getName());
+      try {
+         // NB_TICKS_PER_STEP ticks per step + NB_TICKS_VALIDATION for validation
+         int nbTicksExecution = script.getStep().size() * NB_TICKS_PER_STEP;
+         int nbTicksTotal = nbTicksExecution + NB_TICKS_VALIDATION;
+         SubMonitor subMonitor = SubMonitor.convert(monitor, nbTicksTotal);
+
+         // Build and validate runtime steps
 
-      // NB_TICKS_PER_STEP ticks per step + NB_TICKS_VALIDATION for validation
-      int nbTicksExecution = script.getStep().size() * NB_TICKS_PER_STEP;
-      int nbTicksTotal = nbTicksExecution + NB_TICKS_VALIDATION;
-      SubMonitor subMonitor = SubMonitor.convert(monitor, nbTicksTotal);
+         SubMonitor subMonitorValidation = subMonitor.split(NB_TICKS_VALIDATION);
+         subMonitorValidation.setWorkRemaining(NB_TICKS_VALIDATION);
+         if (simulation) {
+            subMonitorValidation.setTaskName("Validating Script (Simulation)");
+         } else {
+            subMonitorValidation.setTaskName("Validating Script...");
+         }
 
-      // Build and validate runtime steps
+         Map<String, String> globalVariablesValues = new HashMap<>(script.getGlobalVariable().size());
+         List<RuntimeStep> runtimeSteps = validateAndBuildRuntimeSteps(subMonitorValidation,
+                                                                       script,
+                                                                       simulation,
+                                                                       doShowPostLogs,
+                                                                       globalVariablesValues);
 
-      SubMonitor subMonitorValidation = subMonitor.split(NB_TICKS_VALIDATION);
-      subMonitorValidation.setWorkRemaining(NB_TICKS_VALIDATION);
-      if (simulation) {
-         subMonitorValidation.setTaskName("Validating Script (Simulation)");
-      } else {
-         subMonitorValidation.setTaskName("Validating Script...");
-      }
+         // Execute steps
 
-      Map<String, String> globalVariablesValues = new HashMap<>(script.getGlobalVariable().size());
-      List<RuntimeStep> runtimeSteps = validateAndBuildRuntimeSteps(subMonitorValidation,
-                                                                    script,
-                                                                    simulation,
-                                                                    doShowPostLogs,
-                                                                    globalVariablesValues);
+         SubMonitor subMonitorExecution = subMonitor.split(nbTicksExecution);
+         if (simulation) {
+            subMonitorExecution.setTaskName("Executing Script (Simulation)");
+         } else {
+            subMonitorExecution.setTaskName("Executing Script...");
+         }
 
-      // Execute steps
+         // Asynchronous senders, one per connection, created on first use
+         Map<JTBConnection, JTBAsyncSender> asyncSenders = null;
+         if ((!simulation) && (ps.getBoolean(Constants.PREF_SCRIPT_ASYNC_SEND))) {
+            asyncSenders = new HashMap<>();
+         }
 
-      SubMonitor subMonitorExecution = subMonitor.split(nbTicksExecution);
-      if (simulation) {
-         subMonitorExecution.setTaskName("Executing Script (Simulation)");
-      } else {
-         subMonitorExecution.setTaskName("Executing Script...");
+         try {
+            executeSteps(subMonitorExecution,
+                         nbTicksExecution,
+                         simulation,
+                         doShowPostLogs,
+                         nbMessagesMax,
+                         nbMessagePost,
+                         runtimeSteps,
+                         globalVariablesValues,
+                         asyncSenders);
+         } finally {
+            closeAsyncSenders(asyncSenders);
+         }
+         timer.success(nbMessagePost.get());
+      } finally {
+         timer.stop();
       }
+   }
 
+   private void executeSteps(SubMonitor subMonitorExecution,
+                             int nbTicksExecution,
+                             boolean simulation,
+                             boolean doShowPostLogs,
+                             int nbMessagesMax,
+                             AtomicInteger nbMessagePost,
+                             List<RuntimeStep> runtimeSteps,
+                             Map<String, String> globalVariablesValues,
+                             Map<JTBConnection, JTBAsyncSender> asyncSenders) throws InterruptedException,
+                                                                              InvocationTargetException {
       for (RuntimeStep runtimeStep : runtimeSteps) {
 
          subMonitorExecution.setWorkRemaining(nbTicksExecution);
@@ -244,7 +288,13 @@ public class ScriptExecutionEngine {
 
                try {
 
-                  executeRegular(subMonitorExecution, simulation, doShowPostLogs, nbMessagesMax, nbMessagePost, runtimeStep);
+                  executeRegular(subMonitorExecution,
+                                 simulation,
+                                 doShowPostLogs,
+                                 nbMessagesMax,
+                                 nbMessagePost,
+                                 runtimeStep,
+                                 asyncSenders);
 
                   updateLog(doShowPostLogs, ScriptStepResult.createStepSuccess());
 
@@ -259,6 +309,20 @@ public class ScriptExecutionEngine {
                break;
          }
       }
+
+      // Wait for the acknowledgement of the messages sent asynchronously
+      if (asyncSenders != null) {
+         for (JTBAsyncSender sender : asyncSenders.values()) {
+            sender.awaitCompletion(Long.MAX_VALUE);
+            List<JTBAsyncSender.Failure> failures = sender.pollFailures();
+            if (!failures.isEmpty()) {
+               JMSException e = buildAsyncSendException(failures);
+               log.error("Exception occurred during asynchronous send ", e);
+               updateLog(doShowPostLogs, ScriptStepResult.createStepFail(failures.get(0).getJtbDestination().getName(), e));
+               throw new InvocationTargetException(e);
+            }
+         }
+      }
    }
 
    private void executeRegular(SubMonitor subMonitor,
@@ -266,7 +330,9 @@ public class ScriptExecutionEngine {
                                boolean doShowPostLogs,
                                int nbMessagesMax,
                                AtomicInteger nbMessagePost,
-                               RuntimeStep runtimeStep) throws JMSException, InterruptedException, IOException {
+                               RuntimeStep runtimeStep,
+                               Map<JTBConnection, JTBAsyncSender> asyncSenders) throws JMSException, InterruptedException,
+                                                                                IOException {
       log.debug("executeRegular. Simulation? {}", simulation);
 
       Map<String, String> dataFileVariables = new HashMap<>();
@@ -288,7 +354,8 @@ public class ScriptExecutionEngine {
                             runtimeStep,
                             jtbMessageTemplate,
                             templateName,
-                            dataFileVariables);
+                            dataFileVariables,
+                            asyncSenders);
             return;
          }
 
@@ -317,7 +384,8 @@ public class ScriptExecutionEngine {
                             runtimeStep,
                             jtbMessageTemplate,
                             templateName,
-                            dataFileVariables);
+                            dataFileVariables,
+                            asyncSenders);
          }
          return;
       }
@@ -371,7 +439,8 @@ public class ScriptExecutionEngine {
                             runtimeStep,
                             jtbMessageTemplate,
                             templateName,
-                            dataFileVariables);
+                            dataFileVariables,
+                            asyncSenders);
          }
       }
    }
@@ -385,7 +454,8 @@ public class ScriptExecutionEngine {
                                 RuntimeStep runtimeStep,
                                 JTBMessageTemplate t,
                                 String templateName,
-                                Map<String, String> dataFileVariables) throws JMSException, InterruptedException {
+                                Map<String, String> dataFileVariables,
+                                Map<JTBConnection, JTBAsyncSender> asyncSenders) throws JMSException, InterruptedException {
 
       Step step = runtimeStep.getStep();
       JTBConnection jtbConnection = runtimeStep.getJtbConnection();
@@ -412,7 +482,22 @@ public class ScriptExecutionEngine {
          if (!simulation) {
             Message m = jtbConnection.createJMSMessage(jtbMessageTemplate.getJtbMessageType());
             JTBMessage jtbMessage = jtbMessageTemplate.toJTBMessage(jtbDestination, m);
-            jtbDestination.getJtbConnection().sendMessage(jtbMessage);
+            if (asyncSenders == null) {
+               jtbConnection.sendMessage(jtbMessage, jtbDestination);
+            } else {
+               JTBAsyncSender sender = asyncSenders.get(jtbConnection);
+               if (sender == null) {
+                  sender = jtbConnection.createAsyncSender(ps.getInt(Constants.PREF_ASYNC_SEND_MAX_IN_FLIGHT));
+                  asyncSenders.put(jtbConnection, sender);
+               }
+               sender.send(jtbMessage, jtbDestination);
+
+               // Report the failures received since the previous message on the current step
+               List<JTBAsyncSender.Failure> failures = sender.pollFailures();
+               if (!failures.isEmpty()) {
+                  throw buildAsyncSendException(failures);
+               }
+            }
          }
 
          updateLog(doShowPostLogs, ScriptStepResult.createPostSuccess());
@@ -469,13 +554,37 @@ public class ScriptExecutionEngine {
       subMonitor.worked(NB_TICKS_PER_STEP);
    }
 
-   private void updateLog(boolean doShowPostLogs, ScriptStepResult ssr) {
-      if (ssr.getData() != null) {
-         log.debug(ssr.getData().toString());
+   // Builds an exception from the first asynchronous failure. The other ones are logged
+   private JMSException buildAsyncSendException(List<JTBAsyncSender.Failure> failures) {
+      for (JTBAsyncSender.Failure f : failures.subList(1, failures.size())) {
+         log.error("Asynchronous send #{} to '{}' failed: {}", f.getSequence(), f.getJtbDestination().getName(), f.getException());
       }
+      JTBAsyncSender.Failure first = failures.get(0);
+      JMSException e = new JMSException(String.format("Asynchronous send #%d to '%s' failed (%d failure(s)): %s",
+                                                      first.getSequence(),
+                                                      first.getJtbDestination().getName(),
+                                                      failures.size(),
+                                                      first.getException().getMessage()));
+      e.initCause(first.getException());
+      return e;
+   }
+
+   // Wait for the messages in flight and close the asynchronous senders
+   private void closeAsyncSenders(Map<JTBConnection, JTBAsyncSender> asyncSenders) {
+      if (asyncSenders == null) {
+         return;
+      }
+      for (JTBAsyncSender sender : asyncSenders.values()) {
+         sender.close();
+      }
+      asyncSenders.clear();
+   }
+
+   // Never waits for the UI: the log is a bounded buffer, and the view refreshes itself asynchronously
+   private void updateLog(boolean doShowPostLogs, ScriptStepResult ssr) {
+      log.debug("{}", ssr.getData());
       if (ssr.isAlwaysShow() || doShowPostLogs) {
-         // eventBroker.post(Constants.EVENT_REFRESH_EXECUTION_LOG, ssr);
-         eventBroker.send(Constants.EVENT_REFRESH_EXECUTION_LOG, ssr);
+         executionLog.add(ssr);
       }
    }
 
@@ -799,7 +908,8 @@ public class ScriptExecutionEngine {
 
          // Clear logs is the option is set in preferences
          if (clearLogsBeforeExecution) {
-            eventBroker.send(Constants.EVENT_CLEAR_EXECUTION_LOG, "noUse");
+            executionLog.clear();
+            eventBroker.post(Constants.EVENT_CLEAR_EXECUTION_LOG, "noUse");
          }
 
          try {
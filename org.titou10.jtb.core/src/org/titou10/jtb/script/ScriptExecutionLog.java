@@ -0,0 +1,223 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.script;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.eclipse.e4.core.di.annotations.Creatable;
+import org.eclipse.e4.core.services.events.IEventBroker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.titou10.jtb.config.ConfigManager;
+import org.titou10.jtb.jms.model.JTBMessageTemplate;
+import org.titou10.jtb.script.ScriptStepResult.ExectionActionCode;
+import org.titou10.jtb.script.ScriptStepResult.ExectionReturnCode;
+import org.titou10.jtb.util.Constants;
+
+/**
+ * Hold the execution log of the scripts in a ring buffer of fixed capacity.<br>
+ * Adding an entry never waits for the UI: the view is notified asynchronously and at most once until it has refreshed itself.
+ * When the buffer is full, the oldest entries are dropped and optionally appended to a rolling file
+ *
+ * @author Denis Forveille
+ *
+ */
+@Creatable
+@Singleton
+public class ScriptExecutionLog {
+
+   private static final Logger                   log                  = LoggerFactory.getLogger(ScriptExecutionLog.class);
+
+   private static final String                   OVERFLOW_FILE_NAME   = "script_execution.log";
+   private static final long                     OVERFLOW_FILE_MAX    = 10 * 1024 * 1024;
+   private static final String                   SDF_PATTERN          = "yyyy-MM-dd HH:mm:ss.SSS";
+
+   @Inject
+   private IEventBroker                          eventBroker;
+
+   @Inject
+   private ConfigManager                         cm;
+
+   private final ArrayDeque<ScriptStepResult>    entries              = new ArrayDeque<>();
+   private final Map<ExectionActionCode, long[]> counters             = new EnumMap<>(ExectionActionCode.class);
+   private final AtomicBoolean                   refreshPending       = new AtomicBoolean(false);
+
+   private int                                   capacity             = Constants.PREF_SCRIPT_LOG_MAX_ENTRIES_DEFAULT;
+   private boolean                               overflowToFile       = Constants.PREF_SCRIPT_LOG_OVERFLOW_FILE_DEFAULT;
+   private long                                  nbOverflowed;
+
+   // Single thread writing the overflowed entries, created on first use
+   private ExecutorService                       overflowWriter;
+   private final Queue<ScriptStepResult>         pendingOverflow      = new ConcurrentLinkedQueue<>();
+   private final AtomicBoolean                   overflowDrainPending = new AtomicBoolean(false);
+
+   // ------------------------
+   // Business Interface
+   // ------------------------
+
+   public synchronized void configure(int capacity, boolean overflowToFile) {
+      this.capacity = Math.max(1, capacity);
+      this.overflowToFile = overflowToFile;
+      evict();
+   }
+
+   public void add(ScriptStepResult ssr) {
+      synchronized (this) {
+         entries.addLast(ssr);
+         long[] c = counters.computeIfAbsent(ssr.getAction(), k -> new long[ExectionReturnCode.values().length]);
+         c[ssr.getReturnCode().ordinal()]++;
+         evict();
+      }
+
+      // Coalesce notifications: only one is pending until the view calls "getEntries"
+      if (refreshPending.compareAndSet(false, true)) {
+         eventBroker.post(Constants.EVENT_REFRESH_EXECUTION_LOG, "noUse");
+      }
+   }
+
+   public synchronized void clear() {
+      entries.clear();
+      counters.clear();
+      nbOverflowed = 0;
+   }
+
+   // Returns a copy of the current entries and re-arms the notification
+   public List<ScriptStepResult> getEntries() {
+      refreshPending.set(false);
+      synchronized (this) {
+         return new ArrayList<>(entries);
+      }
+   }
+
+   public synchronized long getNbOverflowed() {
+      return nbOverflowed;
+   }
+
+   // Returns something like "Entries: 5,000/5,000. Overflowed: 12,345. POST: 17,345 start, 17,345 success. STEP: ..."
+   public synchronized String getSummary() {
+      StringBuilder sb = new StringBuilder(128);
+      sb.append(String.format("Entries: %,d/%,d. Overflowed: %,d.", entries.size(), capacity, nbOverflowed));
+      for (Map.Entry<ExectionActionCode, long[]> e : counters.entrySet()) {
+         sb.append(" ").append(e.getKey().name()).append(":");
+         String sep = " ";
+         for (ExectionReturnCode rc : ExectionReturnCode.values()) {
+            long n = e.getValue()[rc.ordinal()];
+            if (n > 0) {
+               sb.append(sep).append(String.format("%,d %s", n, rc.name().toLowerCase()));
+               sep = ", ";
+            }
+         }
+         sb.append(".");
+      }
+      return sb.toString();
+   }
+
+   @PreDestroy
+   public void shutdown() {
+      if (overflowWriter != null) {
+         overflowWriter.shutdown();
+      }
+   }
+
+   // -------
+   // Helpers
+   // -------
+
+   // Must be called with the lock held
+   private void evict() {
+      while (entries.size() > capacity) {
+         ScriptStepResult ssr = entries.removeFirst();
+         nbOverflowed++;
+         if (overflowToFile) {
+            writeOverflow(ssr);
+         }
+      }
+   }
+
+   // Must be called with the lock held
+   private void writeOverflow(ScriptStepResult ssr) {
+      pendingOverflow.add(ssr);
+      if (overflowWriter == null) {
+         overflowWriter = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "JTB-ScriptLogOverflow");
+            t.setDaemon(true);
+            return t;
+         });
+      }
+      if (overflowDrainPending.compareAndSet(false, true)) {
+         overflowWriter.execute(this::drainOverflow);
+      }
+   }
+
+   // Append all the pending overflowed entries to the file in one go
+   private void drainOverflow() {
+      overflowDrainPending.set(false);
+      Path file = Paths.get(cm.getJtbProject().getLocation().append(OVERFLOW_FILE_NAME).toOSString());
+      try {
+         // Roll the file when it's too big
+         if (Files.exists(file) && (Files.size(file) > OVERFLOW_FILE_MAX)) {
+            Files.move(file, Paths.get(file.toString() + ".1"), StandardCopyOption.REPLACE_EXISTING);
+         }
+         try (BufferedWriter bw = Files
+                  .newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            ScriptStepResult ssr;
+            while ((ssr = pendingOverflow.poll()) != null) {
+               bw.write(format(ssr));
+               bw.newLine();
+            }
+         }
+      } catch (IOException e) {
+         log.warn("Problem writing overflowed script log entries to '{}'", file, e);
+      }
+   }
+
+   private String format(ScriptStepResult ssr) {
+      StringBuilder sb = new StringBuilder(128);
+      sb.append(new SimpleDateFormat(SDF_PATTERN).format(ssr.getTs().getTime()));
+      sb.append(" ").append(ssr.getAction().name());
+      sb.append(" ").append(ssr.getReturnCode().name());
+      sb.append(" ");
+      if (ssr.getData() instanceof JTBMessageTemplate) {
+         sb.append("Message generated from template '").append(ssr.getTemplateName()).append("'");
+      } else if (ssr.getData() != null) {
+         sb.append(ssr.getData());
+      }
+      return sb.toString();
+   }
+}
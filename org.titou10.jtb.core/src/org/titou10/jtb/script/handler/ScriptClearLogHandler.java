@@ -20,6 +20,7 @@ import javax.inject.Inject;
 
 import org.eclipse.e4.core.di.annotations.Execute;
 import org.eclipse.e4.core.services.events.IEventBroker;
+import org.titou10.jtb.script.ScriptExecutionLog;
 import org.titou10.jtb.util.Constants;
 
 /**
@@ -31,11 +32,16 @@ import org.titou10.jtb.util.Constants;
 public class ScriptClearLogHandler {
 
    @Inject
-   private IEventBroker eventBroker;
+   private IEventBroker       eventBroker;
+
+   @Inject
+   private ScriptExecutionLog executionLog;
 
    @Execute
    public void execute() {
 
+      executionLog.clear();
+
       // Refresh Session Browser asynchronously
       eventBroker.post(Constants.EVENT_CLEAR_EXECUTION_LOG, "X");
    }
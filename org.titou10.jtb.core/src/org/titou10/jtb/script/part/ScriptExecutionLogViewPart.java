@@ -36,33 +36,31 @@ import org.eclipse.jface.viewers.ArrayContentProvider;
 import org.eclipse.jface.viewers.ColumnLabelProvider;
 import org.eclipse.jface.viewers.ColumnPixelData;
 import org.eclipse.jface.viewers.ColumnWeightData;
+import org.eclipse.jface.viewers.IStructuredSelection;
 import org.eclipse.jface.viewers.TableViewer;
 import org.eclipse.jface.viewers.TableViewerColumn;
 import org.eclipse.jface.viewers.ViewerCell;
 import org.eclipse.swt.SWT;
-import org.eclipse.swt.custom.TableEditor;
-import org.eclipse.swt.events.SelectionListener;
-import org.eclipse.swt.graphics.Color;
 import org.eclipse.swt.layout.GridData;
-import org.eclipse.swt.layout.RowData;
-import org.eclipse.swt.layout.RowLayout;
-import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.layout.GridLayout;
 import org.eclipse.swt.widgets.Composite;
-import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Label;
 import org.eclipse.swt.widgets.Table;
 import org.eclipse.swt.widgets.TableColumn;
-import org.eclipse.swt.widgets.TableItem;
 import org.eclipse.wb.swt.SWTResourceManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.titou10.jtb.jms.model.JTBMessageTemplate;
+import org.titou10.jtb.script.ScriptExecutionLog;
 import org.titou10.jtb.script.ScriptStepResult;
 import org.titou10.jtb.ui.dnd.DNDData;
 import org.titou10.jtb.util.Constants;
 
 /**
- * Display the execution log of a Script
+ * Display the execution log of a Script<br>
+ * The table is virtual and only the rows added or removed since the last refresh are updated. A message generated from a
+ * template is shown by double-clicking on its row
  * 
  * @author Denis Forveille
  * 
@@ -73,8 +71,7 @@ public class ScriptExecutionLogViewPart {
    private static final Logger           log           = LoggerFactory.getLogger(ScriptExecutionLogViewPart.class);
 
    private static final SimpleDateFormat SDF           = new SimpleDateFormat("HH:mm:ss.SSS");
-   private static final int              BUTTON_HEIGHT = 20;                                                       // Hard Coded!!
-   private static final int              ROW_HEIGHT    = BUTTON_HEIGHT + 4;                                        // Hard Coded!!
+   private static final int              REFRESH_DELAY = 250;                                                      // ms
 
    @Inject
    private ECommandService               commandService;
@@ -85,25 +82,24 @@ public class ScriptExecutionLogViewPart {
    @Inject
    private EMenuService                  menuService;
 
+   @Inject
+   private ScriptExecutionLog            executionLog;
+
    // JFaces components
    private Composite                     compositeLog;
    private TableViewer                   tableViewer;
    private Table                         logTable;
+   private Label                         lblSummary;
 
-   // Business Data
-   private List<ScriptStepResult>        logExecution;
-
-   private Map<Object, Button>           buttons       = new HashMap<>();
+   // Entries currently displayed, in the same order as the log. Input of the table
+   private final List<ScriptStepResult>  displayed     = new ArrayList<>();
+   private long                          lastNbOverflowed;
 
+   // Notifications are coalesced by ScriptExecutionLog: refresh the table at most every REFRESH_DELAY ms
    @Inject
    @Optional
-   public void getNotified(@UIEventTopic(Constants.EVENT_REFRESH_EXECUTION_LOG) ScriptStepResult ssr) {
-      log.debug("ScriptExecutionLogViewPart refresh");
-
-      logExecution.add(ssr);
-      tableViewer.refresh();
-      tableViewer.reveal(ssr);
-      // compositeLog.layout();
+   public void getNotified(@UIEventTopic(Constants.EVENT_REFRESH_EXECUTION_LOG) String noUse) {
+      Display.getCurrent().timerExec(REFRESH_DELAY, this::refreshLog);
    }
 
    @Inject
@@ -111,33 +107,104 @@ public class ScriptExecutionLogViewPart {
    public void clearLogs(@UIEventTopic(Constants.EVENT_CLEAR_EXECUTION_LOG) String noUse) {
       log.debug("clearLogs");
 
-      logExecution.clear();
+      displayed.clear();
+      lastNbOverflowed = 0;
+      tableViewer.refresh();
+      refreshLog();
+      compositeLog.layout();
+   }
 
-      // Dispose buttons
-      if ((logTable != null) && (logTable.getChildren() != null)) {
-         for (Control item : logTable.getChildren()) {
-            if ((item != null) && (!item.isDisposed())) {
-               item.dispose();
-            }
+   private void refreshLog() {
+      if ((logTable == null) || (logTable.isDisposed())) {
+         return;
+      }
+      log.debug("ScriptExecutionLogViewPart refresh");
+
+      List<ScriptStepResult> entries = executionLog.getEntries();
+
+      // Entries are removed from the head of the log and added at its tail
+      long nbOverflowed = executionLog.getNbOverflowed();
+      long nbRemoved = nbOverflowed - lastNbOverflowed;
+      lastNbOverflowed = nbOverflowed;
+
+      if (isTailOf(entries, nbRemoved)) {
+         if (nbRemoved > 0) {
+            List<ScriptStepResult> head = displayed.subList(0, (int) nbRemoved);
+            Object[] removed = head.toArray();
+            head.clear();
+            tableViewer.remove(removed);
          }
+         int nbKept = displayed.size();
+         if (entries.size() > nbKept) {
+            List<ScriptStepResult> added = entries.subList(nbKept, entries.size());
+            displayed.addAll(added);
+            tableViewer.add(added.toArray());
+         }
+      } else {
+         // The log has been cleared or reconfigured in the meantime
+         displayed.clear();
+         displayed.addAll(entries);
+         tableViewer.refresh();
       }
-      buttons = new HashMap<Object, Button>();
 
-      tableViewer.refresh();
-      compositeLog.layout();
+      int nbItems = logTable.getItemCount();
+      if (nbItems > 0) {
+         logTable.showItem(logTable.getItem(nbItems - 1));
+      }
+      lblSummary.setText(executionLog.getSummary());
+   }
+
+   // True if the displayed entries, less the "nbRemoved" first ones, are the first entries of the log
+   private boolean isTailOf(List<ScriptStepResult> entries, long nbRemoved) {
+      if ((nbRemoved < 0) || (nbRemoved > displayed.size())) {
+         return false;
+      }
+      int nbKept = displayed.size() - (int) nbRemoved;
+      if (nbKept == 0) {
+         return true;
+      }
+      if (nbKept > entries.size()) {
+         return false;
+      }
+      return (displayed.get((int) nbRemoved) == entries.get(0)) && (displayed.get(displayed.size() - 1) == entries.get(nbKept - 1));
+   }
+
+   // Open the message generated from a template
+   private void viewMessage(ScriptStepResult r) {
+      if ((r == null) || (!(r.getData() instanceof JTBMessageTemplate))) {
+         return;
+      }
+
+      // Set "Active" selection
+      DNDData.setSelectedJTBMessageTemplate((JTBMessageTemplate) r.getData());
 
+      // Call Template "Add or Edit" Command
+      Map<String, Object> parameters = new HashMap<>();
+      parameters.put(Constants.COMMAND_TEMPLATE_ADDEDIT_PARAM, Constants.COMMAND_TEMPLATE_ADDEDIT_EDIT_SCRIPT);
+      ParameterizedCommand myCommand = commandService.createCommand(Constants.COMMAND_TEMPLATE_ADDEDIT, parameters);
+      handlerService.executeHandler(myCommand);
    }
 
    @PostConstruct
    public void postConstruct(final Composite parent) {
 
+      Composite container = new Composite(parent, SWT.NONE);
+      GridLayout gl = new GridLayout(1, false);
+      gl.marginHeight = 0;
+      gl.marginWidth = 0;
+      container.setLayout(gl);
+
+      // Counters
+      lblSummary = new Label(container, SWT.NONE);
+      lblSummary.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false, 1, 1));
+
       // Log
-      compositeLog = new Composite(parent, SWT.NONE);
-      compositeLog.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false, 1, 1));
+      compositeLog = new Composite(container, SWT.NONE);
+      compositeLog.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true, 1, 1));
       TableColumnLayout tcl = new TableColumnLayout();
       compositeLog.setLayout(tcl);
 
-      tableViewer = new TableViewer(compositeLog, SWT.BORDER | SWT.FULL_SELECTION | SWT.MULTI);
+      tableViewer = new TableViewer(compositeLog, SWT.BORDER | SWT.FULL_SELECTION | SWT.MULTI | SWT.VIRTUAL);
       logTable = tableViewer.getTable();
       logTable.setHeaderVisible(true);
       logTable.setLinesVisible(true);
@@ -210,18 +277,20 @@ public class ScriptExecutionLogViewPart {
       // Attach Popup Menu
       menuService.registerContextMenu(logTable, Constants.EXECUTION_LOG_POPUP_MENU);
 
-      // Set Row Height
-      logTable.addListener(SWT.MeasureItem, (event) -> event.height = ROW_HEIGHT);
+      tableViewer.addDoubleClickListener(event -> {
+         IStructuredSelection sel = (IStructuredSelection) event.getSelection();
+         viewMessage((ScriptStepResult) sel.getFirstElement());
+      });
 
-      logExecution = new ArrayList<>();
       tableViewer.setContentProvider(ArrayContentProvider.getInstance());
-      tableViewer.setInput(logExecution);
+      tableViewer.setInput(displayed);
+      refreshLog();
    }
 
    // ------
    // Helper
    // ------
-   private class LogDataColumnProvider extends ColumnLabelProvider {
+   private static class LogDataColumnProvider extends ColumnLabelProvider {
 
       @Override
       public String getText(Object element) {
@@ -229,7 +298,15 @@ public class ScriptExecutionLogViewPart {
 
          if (r.getData() != null) {
             if (r.getData() instanceof JTBMessageTemplate) {
-               return "";
+               StringBuilder sb = new StringBuilder(64);
+               sb.append("Message generated");
+               if (r.getTemplateName() != null) {
+                  sb.append(" from template '");
+                  sb.append(r.getTemplateName());
+                  sb.append("'");
+               }
+               sb.append(". Double-click to view it");
+               return sb.toString();
             } else {
                return r.getData().toString();
             }
@@ -237,79 +314,5 @@ public class ScriptExecutionLogViewPart {
 
          return "";
       }
-
-      @Override
-      public void update(ViewerCell cell) {
-
-         ScriptStepResult r = (ScriptStepResult) cell.getElement();
-         if ((r.getData() == null) || (!(r.getData() instanceof JTBMessageTemplate))) {
-            super.update(cell);
-            return;
-         }
-
-         // This a JTBMessageTemplate ..
-
-         // If the button has already been created, exit
-         Object key = cell.getElement();
-         if (buttons.containsKey(key)) {
-            return;
-         }
-
-         // Create the view button
-         final JTBMessageTemplate jtbMessageTemplate = (JTBMessageTemplate) r.getData();
-
-         Composite parentComposite = (Composite) cell.getViewerRow().getControl();
-         Color parentColor = parentComposite.getBackground();
-
-         RowLayout rl = new RowLayout(SWT.HORIZONTAL);
-         rl.wrap = false;
-         rl.marginTop = 1;
-         rl.marginBottom = 1;
-         rl.marginLeft = 1;
-         rl.spacing = 4;
-         rl.center = true;
-
-         Composite c = new Composite(parentComposite, SWT.NONE);
-         c.setLayout(rl);
-         c.setBackground(parentColor);
-
-         Button btnViewMessage = new Button(c, SWT.NONE);
-         btnViewMessage.setText("View Message");
-         btnViewMessage.setLayoutData(new RowData(SWT.DEFAULT, BUTTON_HEIGHT)); // Hard Coded...
-         btnViewMessage.pack();
-         btnViewMessage.addSelectionListener(SelectionListener.widgetSelectedAdapter(e -> {
-
-            // Set "Active" selection
-            DNDData.setSelectedJTBMessageTemplate(jtbMessageTemplate);
-
-            // Call Template "Add or Edit" Command
-            Map<String, Object> parameters = new HashMap<>();
-            parameters.put(Constants.COMMAND_TEMPLATE_ADDEDIT_PARAM, Constants.COMMAND_TEMPLATE_ADDEDIT_EDIT_SCRIPT);
-            ParameterizedCommand myCommand = commandService.createCommand(Constants.COMMAND_TEMPLATE_ADDEDIT, parameters);
-            handlerService.executeHandler(myCommand);
-         }));
-
-         buttons.put(cell.getElement(), btnViewMessage);
-
-         Label l = new Label(c, SWT.NONE);
-         l.setBackground(parentColor);
-         if (r.getTemplateName() != null) {
-            StringBuilder sb = new StringBuilder(64);
-            sb.append(" Generated from template '");
-            sb.append(r.getTemplateName());
-            sb.append("'");
-            l.setText(sb.toString());
-         }
-
-         c.pack();
-
-         TableItem item = (TableItem) cell.getItem();
-         TableEditor editor = new TableEditor(item.getParent());
-         editor.horizontalAlignment = SWT.LEFT;
-         editor.grabHorizontal = true;
-
-         editor.setEditor(c, item, cell.getColumnIndex());
-
-      }
    }
 }
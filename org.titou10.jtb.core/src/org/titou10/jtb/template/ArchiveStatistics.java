@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.template;
+
+/**
+ * Statistics about the processing of a templates archive (dump or replay)
+ *
+ * @author Denis Forveille
+ *
+ */
+public class ArchiveStatistics {
+
+   private final long start = System.currentTimeMillis();
+
+   private int        nbMessages;
+   private long       nbBytes;
+   private long       elapsed;
+   private boolean    cancelled;
+
+   // Package Constructor
+   ArchiveStatistics() {
+   }
+
+   void messageProcessed() {
+      nbMessages++;
+   }
+
+   void end(long nbBytes, boolean cancelled) {
+      this.nbBytes = nbBytes;
+      this.cancelled = cancelled;
+      this.elapsed = System.currentTimeMillis() - start;
+   }
+
+   public long getMessagesPerSecond() {
+      if (elapsed == 0) {
+         return nbMessages;
+      }
+      return (nbMessages * 1000L) / elapsed;
+   }
+
+   @Override
+   public String toString() {
+      StringBuilder builder = new StringBuilder(128);
+      builder.append(nbMessages);
+      builder.append(" message(s) in ");
+      builder.append(elapsed);
+      builder.append(" ms (");
+      builder.append(getMessagesPerSecond());
+      builder.append(" msg/s), archive size: ");
+      builder.append(nbBytes / 1024);
+      builder.append(" KB");
+      return builder.toString();
+   }
+
+   // ----------------
+   // Standard Getters
+   // ----------------
+
+   public int getNbMessages() {
+      return nbMessages;
+   }
+
+   public long getNbBytes() {
+      return nbBytes;
+   }
+
+   public long getElapsed() {
+      return elapsed;
+   }
+
+   public boolean isCancelled() {
+      return cancelled;
+   }
+
+}
@@ -23,6 +23,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -40,15 +41,21 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
 
 import javax.annotation.PostConstruct;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import javax.jms.JMSException;
+import javax.jms.Message;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
@@ -61,6 +68,7 @@ import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IFolder;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.e4.core.di.annotations.Creatable;
 import org.eclipse.jface.dialogs.MessageDialog;
@@ -71,7 +79,12 @@ import org.eclipse.swt.widgets.Shell;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.titou10.jtb.config.ConfigManager;
+import org.titou10.jtb.jms.model.JTBBatchSender;
+import org.titou10.jtb.jms.model.JTBConnection;
+import org.titou10.jtb.jms.model.JTBDestination;
 import org.titou10.jtb.jms.model.JTBMessageTemplate;
+import org.titou10.jtb.jms.model.JTBQueue;
+import org.titou10.jtb.jms.util.MessageSpool;
 import org.titou10.jtb.template.dialog.TemplateSaveDialog;
 import org.titou10.jtb.template.gen.TemplateDirectory;
 import org.titou10.jtb.template.gen.Templates;
@@ -101,6 +114,7 @@ public class TemplatesManager {
 
    private static final TemplateDirectoryComparator ROOT_TEMP_DIR_COMPARATOR = new TemplateDirectoryComparator();
    private static final String                      TEMP_DIR                 = System.getProperty("java.io.tmpdir");
+   private static final int                         ARCHIVE_PROGRESS_EVERY   = 500;
 
    @Inject
    private ConfigManager                            cm;
@@ -525,6 +539,303 @@ public class TemplatesManager {
       return readTemplate(templateFileStore);
    }
 
+   // -----------------
+   // Templates Archive
+   // -----------------
+
+   // Dump the messages of a queue into a zip file, one template per entry. Messages are written as they are browsed
+   public ArchiveStatistics dumpQueueToArchive(IProgressMonitor monitor,
+                                               JTBQueue jtbQueue,
+                                               String selector,
+                                               File archiveFile,
+                                               boolean compress) throws JMSException, JAXBException, IOException {
+      log.debug("dumpQueueToArchive: '{}' selector='{}' file='{}' compress? {}", jtbQueue, selector, archiveFile, compress);
+
+      JTBConnection jtbConnection = jtbQueue.getJtbConnection();
+      Integer depth = jtbConnection.getQueueDepth(jtbQueue);
+      if ((depth == null) || (selector != null && !selector.isEmpty())) {
+         monitor.beginTask("Dumping messages from '" + jtbQueue.getName() + "'...", IProgressMonitor.UNKNOWN);
+      } else {
+         monitor.beginTask("Dumping messages from '" + jtbQueue.getName() + "'...", depth);
+      }
+
+      ArchiveStatistics stats = new ArchiveStatistics();
+
+      Marshaller m = jcJTBMessageTemplate.createMarshaller();
+      m.setProperty(Marshaller.JAXB_ENCODING, ENC);
+
+      Exception[] failure = new Exception[1];
+      try (ZipOutputStream zos = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(archiveFile), BUFFER_SIZE))) {
+         zos.setLevel(compress ? Deflater.DEFAULT_COMPRESSION : Deflater.NO_COMPRESSION);
+
+         jtbConnection.browseQueue(jtbQueue, selector, jtbMessage -> {
+            if (monitor.isCanceled()) {
+               return false;
+            }
+            try {
+               JTBMessageTemplate template = new JTBMessageTemplate(jtbMessage);
+               zos.putNextEntry(new ZipEntry(buildArchiveEntryName(stats.getNbMessages() + 1, template.getJmsMessageID())));
+               m.marshal(template, zos);
+               zos.closeEntry();
+            } catch (JMSException | JAXBException | IOException e) {
+               failure[0] = e;
+               return false;
+            }
+
+            stats.messageProcessed();
+            monitor.worked(1);
+            if ((stats.getNbMessages() % ARCHIVE_PROGRESS_EVERY) == 0) {
+               monitor.subTask(stats.getNbMessages() + " messages dumped");
+            }
+            return true;
+         });
+      }
+
+      if (failure[0] != null) {
+         log.error("Exception occurred while dumping queue '{}'", jtbQueue.getName(), failure[0]);
+         archiveFile.delete();
+         if (failure[0] instanceof JMSException) {
+            throw (JMSException) failure[0];
+         }
+         if (failure[0] instanceof JAXBException) {
+            throw (JAXBException) failure[0];
+         }
+         throw (IOException) failure[0];
+      }
+
+      stats.end(archiveFile.length(), monitor.isCanceled());
+      monitor.done();
+
+      log.info("Dump of queue '{}' to '{}' done: {}", jtbQueue.getName(), archiveFile, stats);
+      return stats;
+   }
+
+   // Send the templates stored in a zip file to a destination, committing every "batchSize" messages
+   // The messages are sent on a dedicated session. If maxRate > 0, the number of messages sent per second is limited to that value
+   public ArchiveStatistics replayArchiveToDestination(IProgressMonitor monitor,
+                                                       File archiveFile,
+                                                       JTBDestination jtbDestination,
+                                                       int batchSize,
+                                                       int maxRate) throws JMSException, JAXBException, IOException {
+      log.debug("replayArchiveToDestination: '{}' to '{}' batchSize={} maxRate={}", archiveFile, jtbDestination, batchSize, maxRate);
+
+      ArchiveStatistics stats = new ArchiveStatistics();
+      JTBConnection jtbConnection = jtbDestination.getJtbConnection();
+
+      Unmarshaller u = jcJTBMessageTemplate.createUnmarshaller();
+
+      boolean cancelled = false;
+      JTBBatchSender sender = jtbConnection.createBatchSender();
+      try (ZipFile zipFile = new ZipFile(archiveFile)) {
+         monitor.beginTask("Sending messages from '" + archiveFile.getName() + "' to '" + jtbDestination.getName() + "'...",
+                           zipFile.size());
+
+         long start = System.currentTimeMillis();
+         Enumeration<? extends ZipEntry> entries = zipFile.entries();
+         while (entries.hasMoreElements()) {
+            if (monitor.isCanceled()) {
+               cancelled = true;
+               break;
+            }
+
+            ZipEntry entry = entries.nextElement();
+            monitor.worked(1);
+            if ((entry.isDirectory()) || (!entry.getName().endsWith(Constants.JTB_TEMPLATE_FILE_EXTENSION))) {
+               continue;
+            }
+
+            JTBMessageTemplate template;
+            try (InputStream is = new BufferedInputStream(zipFile.getInputStream(entry), BUFFER_SIZE)) {
+               template = (JTBMessageTemplate) u.unmarshal(is);
+            }
+
+            if (!replayTemplate(monitor, sender, jtbDestination, template, stats, batchSize, maxRate, start)) {
+               cancelled = true;
+               break;
+            }
+         }
+
+         // Messages sent so far are kept, even if the process has been cancelled
+         sender.commit();
+
+      } catch (JMSException | JAXBException | IOException e) {
+         sender.rollback();
+         throw e;
+      } finally {
+         sender.close();
+      }
+
+      stats.end(archiveFile.length(), cancelled);
+      monitor.done();
+
+      log.info("Replay of '{}' to '{}' done: {}", archiveFile, jtbDestination.getName(), stats);
+      return stats;
+   }
+
+   // Write the messages of a spool into a zip file, in the same format as "dumpQueueToArchive"
+   public ArchiveStatistics dumpSpoolToArchive(IProgressMonitor monitor,
+                                               MessageSpool spool,
+                                               File archiveFile,
+                                               boolean compress) throws JAXBException, IOException {
+      log.debug("dumpSpoolToArchive: '{}' file='{}' compress? {}", spool.getDirectory(), archiveFile, compress);
+
+      monitor.beginTask("Exporting spooled messages...", (int) Math.min(spool.getNbMessages(), Integer.MAX_VALUE));
+
+      ArchiveStatistics stats = new ArchiveStatistics();
+
+      Marshaller m = jcJTBMessageTemplate.createMarshaller();
+      m.setProperty(Marshaller.JAXB_ENCODING, ENC);
+
+      Exception[] failure = new Exception[1];
+      try (ZipOutputStream zos = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(archiveFile), BUFFER_SIZE))) {
+         zos.setLevel(compress ? Deflater.DEFAULT_COMPRESSION : Deflater.NO_COMPRESSION);
+
+         spool.scan(0, (sequence, template) -> {
+            if (monitor.isCanceled()) {
+               return false;
+            }
+            try {
+               zos.putNextEntry(new ZipEntry(buildArchiveEntryName(stats.getNbMessages() + 1, template.getJmsMessageID())));
+               m.marshal(template, zos);
+               zos.closeEntry();
+            } catch (JAXBException | IOException e) {
+               failure[0] = e;
+               return false;
+            }
+
+            stats.messageProcessed();
+            monitor.worked(1);
+            if ((stats.getNbMessages() % ARCHIVE_PROGRESS_EVERY) == 0) {
+               monitor.subTask(stats.getNbMessages() + " messages exported");
+            }
+            return true;
+         });
+      }
+
+      if (failure[0] != null) {
+         log.error("Exception occurred while exporting spool '{}'", spool.getDirectory(), failure[0]);
+         archiveFile.delete();
+         if (failure[0] instanceof JAXBException) {
+            throw (JAXBException) failure[0];
+         }
+         throw (IOException) failure[0];
+      }
+
+      stats.end(archiveFile.length(), monitor.isCanceled());
+      monitor.done();
+
+      log.info("Export of spool '{}' to '{}' done: {}", spool.getDirectory(), archiveFile, stats);
+      return stats;
+   }
+
+   // Send the messages of a spool to a destination, committing every "batchSize" messages
+   // The messages are sent on a dedicated session. If maxRate > 0, the number of messages sent per second is limited to that value
+   public ArchiveStatistics replaySpoolToDestination(IProgressMonitor monitor,
+                                                     MessageSpool spool,
+                                                     JTBDestination jtbDestination,
+                                                     int batchSize,
+                                                     int maxRate) throws JMSException, IOException {
+      log.debug("replaySpoolToDestination: '{}' to '{}' batchSize={} maxRate={}",
+                spool.getDirectory(),
+                jtbDestination,
+                batchSize,
+                maxRate);
+
+      ArchiveStatistics stats = new ArchiveStatistics();
+      JTBConnection jtbConnection = jtbDestination.getJtbConnection();
+
+      monitor.beginTask("Sending spooled messages to '" + jtbDestination.getName() + "'...",
+                        (int) Math.min(spool.getNbMessages(), Integer.MAX_VALUE));
+
+      boolean[] cancelled = new boolean[1];
+      JMSException[] failure = new JMSException[1];
+      long start = System.currentTimeMillis();
+      JTBBatchSender sender = jtbConnection.createBatchSender();
+      try {
+         spool.scan(0, (sequence, template) -> {
+            if (monitor.isCanceled()) {
+               cancelled[0] = true;
+               return false;
+            }
+            monitor.worked(1);
+            try {
+               if (!replayTemplate(monitor, sender, jtbDestination, template, stats, batchSize, maxRate, start)) {
+                  cancelled[0] = true;
+                  return false;
+               }
+            } catch (JMSException e) {
+               failure[0] = e;
+               return false;
+            }
+            return true;
+         });
+         if (failure[0] != null) {
+            throw failure[0];
+         }
+
+         // Messages sent so far are kept, even if the process has been cancelled
+         sender.commit();
+
+      } catch (JMSException | IOException e) {
+         sender.rollback();
+         throw e;
+      } finally {
+         sender.close();
+      }
+
+      stats.end(spool.getNbBytes(), cancelled[0]);
+      monitor.done();
+
+      log.info("Replay of spool '{}' to '{}' done: {}", spool.getDirectory(), jtbDestination.getName(), stats);
+      return stats;
+   }
+
+   // Send one template, commit every "batchSize" messages and wait to respect "maxRate". Returns false if interrupted
+   private boolean replayTemplate(IProgressMonitor monitor,
+                                  JTBBatchSender sender,
+                                  JTBDestination jtbDestination,
+                                  JTBMessageTemplate template,
+                                  ArchiveStatistics stats,
+                                  int batchSize,
+                                  int maxRate,
+                                  long start) throws JMSException {
+      Message m = sender.createJMSMessage(template.getJtbMessageType());
+      sender.send(template.toJTBMessage(jtbDestination, m), jtbDestination);
+
+      stats.messageProcessed();
+      if ((stats.getNbMessages() % batchSize) == 0) {
+         sender.commit();
+      }
+      if ((stats.getNbMessages() % ARCHIVE_PROGRESS_EVERY) == 0) {
+         monitor.subTask(stats.getNbMessages() + " messages sent");
+      }
+
+      // Throttle: wait until the expected time of the next message
+      if (maxRate > 0) {
+         long wait = start + ((stats.getNbMessages() * 1000L) / maxRate) - System.currentTimeMillis();
+         if (wait > 0) {
+            try {
+               Thread.sleep(wait);
+            } catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+               return false;
+            }
+         }
+      }
+      return true;
+   }
+
+   private String buildArchiveEntryName(int seq, String jmsMessageID) {
+      StringBuilder sb = new StringBuilder(64);
+      sb.append(String.format("%08d", seq));
+      if (jmsMessageID != null) {
+         sb.append("_");
+         sb.append(jmsMessageID.replaceAll("[^A-Za-z0-9_.-]", "_"));
+      }
+      sb.append(Constants.JTB_TEMPLATE_FILE_EXTENSION);
+      return sb.toString();
+   }
+
    // -----------------
    // TemplateDirectory
    // -----------------
@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.ui;
+
+import javax.annotation.PostConstruct;
+
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Label;
+import org.titou10.jtb.util.metrics.MetricsRegistry;
+
+/**
+ * Bottom status bar summary of the metrics of the operations performed by JMSToolBox. The tooltip shows the most expensive ones
+ * 
+ * @author Denis Forveille
+ *
+ */
+public class MetricsStatusControl {
+
+   private static final int REFRESH_MS   = 2000;
+   private static final int TOOLTIP_SIZE = 15;
+
+   private Label            lblMetrics;
+
+   @PostConstruct
+   public void createControls(Composite parent) {
+      GridLayout gl_parent = new GridLayout(1, false);
+      gl_parent.marginWidth = 2;
+      gl_parent.marginHeight = 2;
+      parent.setLayout(gl_parent);
+
+      lblMetrics = new Label(parent, SWT.NONE);
+      GridData gd_lblMetrics = new GridData(SWT.LEFT, SWT.CENTER, false, false, 1, 1);
+      gd_lblMetrics.widthHint = 350;
+      lblMetrics.setLayoutData(gd_lblMetrics);
+      lblMetrics.setText("");
+
+      refresh();
+   }
+
+   private void refresh() {
+      if (lblMetrics.isDisposed()) {
+         return;
+      }
+      lblMetrics.setText(MetricsRegistry.getSummary());
+      lblMetrics.setToolTipText(MetricsRegistry.getTopSummary(TOOLTIP_SIZE));
+      lblMetrics.getDisplay().timerExec(REFRESH_MS, this::refresh);
+   }
+}
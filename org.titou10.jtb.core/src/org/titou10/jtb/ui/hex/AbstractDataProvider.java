@@ -36,20 +36,45 @@ public class AbstractDataProvider implements IDataProvider {
       int pos = rowNumber * bytesPerRow;
       int i = 0;
       for (i = 0; i < bytesPerRow; i++) {
-         if (pos >= data.length) {
+         if (pos >= size) {
             break;
          }
-         arr[i] = Byte.valueOf(data[pos]);
+         arr[i] = Byte.valueOf(getByte(pos));
          pos++;
       }
       int res = i;
       for (; i < bytesPerRow; i++) {
          arr[i] = null;
       }
-      if (rowNumber == 5) {
-         arr[7] = null;
-      }
       return res;
    }
 
+   public byte getByte(int offset) {
+      return data[offset];
+   }
+
+   public int indexOf(byte[] pattern, int fromOffset) {
+      if ((pattern == null) || (pattern.length == 0)) {
+         return -1;
+      }
+      int last = size - pattern.length;
+      byte first = pattern[0];
+      loop: for (int pos = Math.max(0, fromOffset); pos <= last; pos++) {
+         if (getByte(pos) != first) {
+            continue;
+         }
+         for (int j = 1; j < pattern.length; j++) {
+            if (getByte(pos + j) != pattern[j]) {
+               continue loop;
+            }
+         }
+         return pos;
+      }
+      return -1;
+   }
+
+   public void dispose() {
+      // Nothing to release
+   }
+
 }
@@ -183,6 +183,37 @@ public class HexViewer extends Composite {
       }));
    }
 
+   /// select the bytes in [start,end[ and make sure the start is shown
+   public void select(int start, int end) {
+      int size = getDataSize();
+      selectStartByte = fix(start, size);
+      selectEndByte = fix(end, size);
+      showCaret(selectStartByte);
+      showSelection();
+   }
+
+   /// move the caret to an offset
+   public void goToOffset(int offset) {
+      select(offset, offset);
+   }
+
+   /// search a byte pattern after the current position, wrapping at the end of the data
+   /// select the bytes found and return their offset, or -1 if not found
+   public int findNext(byte[] pattern) {
+      if (idp == null) {
+         return -1;
+      }
+      int from = (selectStartByte == selectEndByte) ? selectStartByte : Math.min(selectStartByte, selectEndByte) + 1;
+      int pos = idp.indexOf(pattern, from);
+      if ((pos < 0) && (from > 0)) {
+         pos = idp.indexOf(pattern, 0);
+      }
+      if (pos >= 0) {
+         select(pos, pos + pattern.length);
+      }
+      return pos;
+   }
+
    public void setSelectEnd(int ca) {
       selectEndByte = ca;
    }
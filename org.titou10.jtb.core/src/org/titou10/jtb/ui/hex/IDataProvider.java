@@ -12,4 +12,12 @@ public interface IDataProvider {
 
    int getData(Byte[] arr, int rowNumber);
 
+   byte getByte(int offset);
+
+   // Returns the offset of the first occurrence of the pattern at or after fromOffset, or -1
+   int indexOf(byte[] pattern, int fromOffset);
+
+   // Release the resources held by the provider
+   void dispose();
+
 }
@@ -0,0 +1,66 @@
+package org.titou10.jtb.ui.hex;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Data provider backed by a memory-mapped temporary file, so that large payloads are not loaded in the heap
+ */
+public class MappedFileDataProvider extends AbstractDataProvider {
+
+   private static final int BUFFER_SIZE = 64 * 1024;
+
+   private Path             file;
+   private MappedByteBuffer buffer;
+
+   // Copy the stream into a temporary file and map it. The file is deleted on dispose
+   public MappedFileDataProvider(InputStream is) throws IOException {
+      file = Files.createTempFile("jmstoolbox_", ".bin");
+      file.toFile().deleteOnExit();
+
+      try {
+         try (OutputStream os = Files.newOutputStream(file)) {
+            byte[] b = new byte[BUFFER_SIZE];
+            int n;
+            while ((n = is.read(b)) > 0) {
+               os.write(b, 0, n);
+            }
+         }
+
+         try (FileChannel fc = FileChannel.open(file, StandardOpenOption.READ)) {
+            // Row/offset arithmetic in the viewer is based on int
+            size = (int) Math.min(fc.size(), Integer.MAX_VALUE);
+            buffer = fc.map(FileChannel.MapMode.READ_ONLY, 0, size);
+         }
+      } catch (IOException | RuntimeException e) {
+         // No dispose() will be called on a provider that failed to build
+         try {
+            Files.deleteIfExists(file);
+         } catch (IOException e2) {
+            e.addSuppressed(e2);
+         }
+         throw e;
+      }
+   }
+
+   @Override
+   public byte getByte(int offset) {
+      return buffer.get(offset);
+   }
+
+   @Override
+   public void dispose() {
+      buffer = null;
+      try {
+         Files.deleteIfExists(file);
+      } catch (IOException e) {
+         // On some OS, a mapped file can not be deleted. It will be deleted on exit
+      }
+   }
+}
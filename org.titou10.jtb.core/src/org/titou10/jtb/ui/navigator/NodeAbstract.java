@@ -28,6 +28,8 @@ import org.titou10.jtb.jms.model.JTBObject;
  */
 public abstract class NodeAbstract implements JTBObject, Comparable<NodeAbstract> {
 
+   protected static final Object[] NO_CHILDREN = new Object[0];
+
    private JTBObject    businessObject;
    private NodeAbstract parentNode;
 
@@ -40,6 +42,12 @@ public abstract class NodeAbstract implements JTBObject, Comparable<NodeAbstract
 
    public abstract Boolean hasChildren();
 
+   // Children as an array, as expected by the content providers
+   public Object[] getChildrenArray() {
+      SortedSet<? extends NodeAbstract> children = getChildren();
+      return children == null ? NO_CHILDREN : children.toArray();
+   }
+
    // -------------------------
    // Helpers
    // -------------------------
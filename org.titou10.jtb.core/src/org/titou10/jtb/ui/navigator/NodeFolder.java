@@ -30,6 +30,7 @@ public class NodeFolder<T extends NodeAbstract> extends NodeAbstract {
 
    private String       folderName;
    private SortedSet<T> childrenNodes;
+   private Object[]     childrenArray;
 
    public NodeFolder(String folderName, NodeAbstract parentNode, SortedSet<T> childrenNodes) {
       super(null, parentNode);
@@ -74,6 +75,12 @@ public class NodeFolder<T extends NodeAbstract> extends NodeAbstract {
 
    public void addChild(T child) {
       childrenNodes.add(child);
+      childrenArray = null;
+   }
+
+   public void setChildren(SortedSet<T> childrenNodes) {
+      this.childrenNodes = childrenNodes;
+      this.childrenArray = null;
    }
 
    @Override
@@ -86,6 +93,15 @@ public class NodeFolder<T extends NodeAbstract> extends NodeAbstract {
       return childrenNodes;
    }
 
+   // Built once per change of the children, the lazy tree asks for the children one index at a time
+   @Override
+   public Object[] getChildrenArray() {
+      if (childrenArray == null) {
+         childrenArray = childrenNodes.toArray();
+      }
+      return childrenArray;
+   }
+
    @Override
    public Boolean hasChildren() {
       return (childrenNodes.size() > 0);
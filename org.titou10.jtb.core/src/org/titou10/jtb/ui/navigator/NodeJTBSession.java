@@ -16,14 +16,17 @@
  */
 package org.titou10.jtb.ui.navigator;
 
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.function.Function;
 
 import org.titou10.jtb.jms.model.JTBConnection;
-import org.titou10.jtb.jms.model.JTBQueue;
+import org.titou10.jtb.jms.model.JTBObject;
 import org.titou10.jtb.jms.model.JTBSession;
 import org.titou10.jtb.jms.model.JTBSessionClientType;
-import org.titou10.jtb.jms.model.JTBTopic;
 import org.titou10.jtb.util.Constants;
 
 //@formatter:off
@@ -34,22 +37,40 @@ import org.titou10.jtb.util.Constants;
  * - Queues 
  * - Topics
  * 
+ * The folders and the destination nodes are kept between calls and are only synchronized with the connection when its list of
+ * destinations changed (connect, rescan, filter, disconnect)
+ * 
  * @author Denis Forveille
  * 
  */
 //@formatter:on
 public class NodeJTBSession extends NodeAbstract {
 
-   private SortedSet<NodeFolder<?>> folders;
-   private JTBSessionClientType     jtbSessionClientType;
+   private final NodeFolder<NodeJTBQueue> folderQueues;
+   private final NodeFolder<NodeJTBTopic> folderTopics;
+   private final SortedSet<NodeFolder<?>> folders;
+   private final JTBSessionClientType     jtbSessionClientType;
+
+   // Version of the destinations of the connection the nodes have been built from
+   private long                           destinationsVersion = -1;
 
    // -----------
    // Constructor
    // -----------
 
    public NodeJTBSession(JTBSession jtbSession, JTBSessionClientType jtbSessionClientType) {
-      super(jtbSession, null);
+      this(jtbSession, jtbSessionClientType, null);
+   }
+
+   public NodeJTBSession(JTBSession jtbSession, JTBSessionClientType jtbSessionClientType, NodeFolder<NodeJTBSession> parentFolder) {
+      super(jtbSession, parentFolder);
       this.jtbSessionClientType = jtbSessionClientType;
+
+      this.folderQueues = new NodeFolder<>(Constants.NODE_FOLDER_QUEUES_NAME, this, new TreeSet<>());
+      this.folderTopics = new NodeFolder<>(Constants.NODE_FOLDER_TOPICS_NAME, this, new TreeSet<>());
+      this.folders = new TreeSet<>();
+      this.folders.add(folderQueues);
+      this.folders.add(folderTopics);
    }
 
    // -----------
@@ -58,34 +79,74 @@ public class NodeJTBSession extends NodeAbstract {
 
    @Override
    public SortedSet<NodeFolder<?>> getChildren() {
+      JTBConnection jtbConnection = getJTBConnection();
+
+      // No children if the session is not connected
+      if (!(jtbConnection.isConnected())) {
+         return Collections.emptySortedSet();
+      }
+
+      synchronizeChildren(jtbConnection);
       return folders;
    }
 
    @Override
    public Boolean hasChildren() {
-      JTBSession jtbSession = (JTBSession) getBusinessObject();
-
-      folders = new TreeSet<>();
+      JTBConnection jtbConnection = getJTBConnection();
 
       // No children if the session is not connected
-      JTBConnection jtbConnection = jtbSession.getJTBConnection(jtbSessionClientType);
       if (!(jtbConnection.isConnected())) {
          return false;
       }
 
-      SortedSet<NodeJTBQueue> nodeQueues = new TreeSet<>();
-      for (JTBQueue jtbQueue : jtbConnection.getJtbQueuesToDisplay()) {
-         nodeQueues.add(new NodeJTBQueue(jtbQueue, this));
+      synchronizeChildren(jtbConnection);
+      return true;
+   }
+
+   // The folder that holds a destination node of this session
+   public NodeFolder<?> getFolderOf(NodeAbstract destinationNode) {
+      return destinationNode instanceof NodeJTBTopic ? folderTopics : folderQueues;
+   }
+
+   // -------
+   // Helpers
+   // -------
+
+   private JTBConnection getJTBConnection() {
+      JTBSession jtbSession = (JTBSession) getBusinessObject();
+      return jtbSession.getJTBConnection(jtbSessionClientType);
+   }
+
+   private void synchronizeChildren(JTBConnection jtbConnection) {
+      long version = jtbConnection.getDestinationsVersion();
+      if (version == destinationsVersion) {
+         return;
       }
-      folders.add(new NodeFolder<NodeJTBQueue>(Constants.NODE_FOLDER_QUEUES_NAME, this, nodeQueues));
+      destinationsVersion = version;
+
+      folderQueues.setChildren(synchronizeNodes(folderQueues.getChildren(),
+                                                jtbConnection.getJtbQueuesToDisplay(),
+                                                jtbQueue -> new NodeJTBQueue(jtbQueue, this)));
+      folderTopics.setChildren(synchronizeNodes(folderTopics.getChildren(),
+                                                jtbConnection.getJtbTopicsToDisplay(),
+                                                jtbTopic -> new NodeJTBTopic(jtbTopic, this)));
+   }
 
-      SortedSet<NodeJTBTopic> nodeTopics = new TreeSet<>();
-      for (JTBTopic jtbTopic : jtbConnection.getJtbTopicsToDisplay()) {
-         nodeTopics.add(new NodeJTBTopic(jtbTopic, this));
+   // Keep the nodes of the destinations that are still there, create the others
+   private <T extends JTBObject, N extends NodeAbstract> SortedSet<N> synchronizeNodes(SortedSet<N> nodes,
+                                                                                      SortedSet<T> destinations,
+                                                                                      Function<T, N> nodeBuilder) {
+      Map<JTBObject, N> existingNodes = new IdentityHashMap<>(nodes.size());
+      for (N node : nodes) {
+         existingNodes.put(node.getBusinessObject(), node);
       }
-      folders.add(new NodeFolder<NodeJTBTopic>(Constants.NODE_FOLDER_TOPICS_NAME, this, nodeTopics));
 
-      return true;
+      SortedSet<N> res = new TreeSet<>();
+      for (T destination : destinations) {
+         N node = existingNodes.get(destination);
+         res.add(node == null ? nodeBuilder.apply(destination) : node);
+      }
+      return res;
    }
 
 }
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2015-2016 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.ui.navigator;
+
+import java.util.SortedSet;
+
+import org.eclipse.jface.viewers.ILazyTreeContentProvider;
+import org.eclipse.jface.viewers.TreeViewer;
+import org.eclipse.jface.viewers.Viewer;
+
+/**
+ * Lazy content provider for the Session Browser, used with a SWT.VIRTUAL tree<br>
+ * Only the items made visible are materialized, the children of a node are read from the arrays cached by the nodes
+ *
+ * @author Denis Forveille
+ *
+ */
+public class NodeJTBSessionLazyProvider implements ILazyTreeContentProvider {
+
+   private static final Object[] NO_ELEMENTS = new Object[0];
+
+   private TreeViewer            treeViewer;
+   private Object                input;
+   private Object[]              rootElements = NO_ELEMENTS;
+
+   @Override
+   public void inputChanged(Viewer viewer, Object oldInput, Object newInput) {
+      this.treeViewer = (TreeViewer) viewer;
+      this.input = newInput;
+      this.rootElements = newInput == null ? NO_ELEMENTS : ((SortedSet<?>) newInput).toArray();
+   }
+
+   @Override
+   public void updateElement(Object parent, int index) {
+      Object[] children = getChildren(parent);
+      if (index >= children.length) {
+         return;
+      }
+      Object element = children[index];
+      treeViewer.replace(parent, index, element);
+      updateChildCount(element, -1);
+   }
+
+   @Override
+   public void updateChildCount(Object element, int currentChildCount) {
+      int count = getChildren(element).length;
+      if (count != currentChildCount) {
+         treeViewer.setChildCount(element, count);
+      }
+   }
+
+   @Override
+   public Object getParent(Object element) {
+      if (!(element instanceof NodeAbstract)) {
+         return null;
+      }
+
+      NodeAbstract parentNode = ((NodeAbstract) element).getParentNode();
+      if (parentNode == null) {
+         return input;
+      }
+
+      // Destination nodes reference their session, but are displayed in the "Queues" or "Topics" folder
+      if ((parentNode instanceof NodeJTBSession) && ((element instanceof NodeJTBQueue) || (element instanceof NodeJTBTopic))) {
+         return ((NodeJTBSession) parentNode).getFolderOf((NodeAbstract) element);
+      }
+      return parentNode;
+   }
+
+   @Override
+   public void dispose() {
+      // NOP
+   }
+
+   // -------
+   // Helpers
+   // -------
+
+   private Object[] getChildren(Object element) {
+      if (element == input) {
+         return rootElements;
+      }
+      if (element instanceof NodeAbstract) {
+         NodeAbstract node = (NodeAbstract) element;
+         if (node.hasChildren()) {
+            return node.getChildrenArray();
+         }
+      }
+      return NO_ELEMENTS;
+   }
+}
@@ -48,7 +48,7 @@ public class NodeJTBSessionProvider implements ITreeContentProvider {
    @Override
    public Object[] getChildren(Object parentElement) {
       NodeAbstract parentNode = (NodeAbstract) parentElement;
-      return parentNode.getChildren().toArray();
+      return parentNode.getChildrenArray();
    }
 
    @Override
@@ -16,6 +16,9 @@
  */
 package org.titou10.jtb.ui.navigator;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import org.eclipse.jface.viewers.DelegatingStyledCellLabelProvider.IStyledLabelProvider;
 import org.eclipse.jface.viewers.IColorProvider;
 import org.eclipse.jface.viewers.LabelProvider;
@@ -42,11 +45,22 @@ import org.titou10.jtb.sessiontype.SessionTypeManager;
  */
 public class NodeTreeLabelProvider extends LabelProvider implements IColorProvider, IStyledLabelProvider {
 
-   private static final int                               SQUARE_SIZE_PX = 8;
+   private static final int                               SQUARE_SIZE_PX         = 8;
+
+   private static final int                               IMAGE_QUEUE_BROWSABLE  = 0;
+   private static final int                               IMAGE_QUEUE_LINK       = 1;
+   private static final int                               IMAGE_TOPIC            = 2;
+   private static final String[]                          IMAGE_PATHS            = { "icons/queue/page_white_stack.png",
+                                                                                     "icons/queue/page_white_link.png",
+                                                                                     "icons/topics/newspaper.png" };
 
    private org.titou10.jtb.sessiontype.SessionTypeManager sessionTypeManager;
    private JTBSessionClientType                           jtbSessionClientType;
 
+   // Images of the destinations, plain and decorated with the color of each session type
+   private final Image[]                                  plainImages            = new Image[IMAGE_PATHS.length];
+   private final Map<Color, Image[]>                      decoratedImages        = new HashMap<>();
+
    public NodeTreeLabelProvider(SessionTypeManager sessionTypeManager, JTBSessionClientType jtbSessionClientType) {
       this.sessionTypeManager = sessionTypeManager;
       this.jtbSessionClientType = jtbSessionClientType;
@@ -69,21 +83,7 @@ public class NodeTreeLabelProvider extends LabelProvider implements IColorProvid
          SessionDef sessionDef = jtbQueue.getJtbConnection().getSessionDef();
          Color sessionTypeColor = sessionTypeManager.getBackgroundColorForSessionTypeName(sessionDef.getSessionType());
 
-         if (jtbQueue.isBrowsable()) {
-            Image i = SWTResourceManager.getImage(this.getClass(), "icons/queue/page_white_stack.png");
-            if (sessionTypeColor == null) {
-               return i;
-            }
-            Image x = SWTResourceManager.createImageSolidColor(sessionTypeColor, SQUARE_SIZE_PX, SQUARE_SIZE_PX);
-            return SWTResourceManager.decorateImage(i, x, SWTResourceManager.TOP_RIGHT);
-         } else {
-            Image i = SWTResourceManager.getImage(this.getClass(), "icons/queue/page_white_link.png");
-            if (sessionTypeColor == null) {
-               return i;
-            }
-            Image x = SWTResourceManager.createImageSolidColor(sessionTypeColor, SQUARE_SIZE_PX, SQUARE_SIZE_PX);
-            return SWTResourceManager.decorateImage(i, x, SWTResourceManager.TOP_RIGHT);
-         }
+         return getDestinationImage(jtbQueue.isBrowsable() ? IMAGE_QUEUE_BROWSABLE : IMAGE_QUEUE_LINK, sessionTypeColor);
       }
 
       if (element instanceof NodeJTBTopic) {
@@ -93,12 +93,7 @@ public class NodeTreeLabelProvider extends LabelProvider implements IColorProvid
          SessionDef sessionDef = jtbQueue.getJtbConnection().getSessionDef();
          Color sessionTypeColor = sessionTypeManager.getBackgroundColorForSessionTypeName(sessionDef.getSessionType());
 
-         Image i = SWTResourceManager.getImage(this.getClass(), "icons/topics/newspaper.png");
-         if (sessionTypeColor == null) {
-            return i;
-         }
-         Image x = SWTResourceManager.createImageSolidColor(sessionTypeColor, SQUARE_SIZE_PX, SQUARE_SIZE_PX);
-         return SWTResourceManager.decorateImage(i, x, SWTResourceManager.TOP_RIGHT);
+         return getDestinationImage(IMAGE_TOPIC, sessionTypeColor);
       }
 
       if (element instanceof NodeJTBSession) {
@@ -109,6 +104,23 @@ public class NodeTreeLabelProvider extends LabelProvider implements IColorProvid
 
    }
 
+   // The images are built once per session type color, the tree asks for them each time an item is painted
+   private Image getDestinationImage(int kind, Color sessionTypeColor) {
+      if (plainImages[kind] == null) {
+         plainImages[kind] = SWTResourceManager.getImage(this.getClass(), IMAGE_PATHS[kind]);
+      }
+      if (sessionTypeColor == null) {
+         return plainImages[kind];
+      }
+
+      Image[] images = decoratedImages.computeIfAbsent(sessionTypeColor, c -> new Image[IMAGE_PATHS.length]);
+      if (images[kind] == null) {
+         Image x = SWTResourceManager.createImageSolidColor(sessionTypeColor, SQUARE_SIZE_PX, SQUARE_SIZE_PX);
+         images[kind] = SWTResourceManager.decorateImage(plainImages[kind], x, SWTResourceManager.TOP_RIGHT);
+      }
+      return images[kind];
+   }
+
    @Override
    public Color getForeground(Object element) {
       if (element instanceof NodeJTBSession) {
@@ -185,6 +197,12 @@ public class NodeTreeLabelProvider extends LabelProvider implements IColorProvid
             }
          }
 
+         // Connect or rescan in progress
+         if (SessionConnectJob.isRunning(jtbConnection)) {
+            sessionStyleString.append(jtbConnection.isConnected() ? " (scanning...)" : " (connecting...)",
+                                      StyledString.QUALIFIER_STYLER);
+         }
+
          return sessionStyleString;
       }
 
@@ -0,0 +1,214 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.ui.navigator;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.e4.core.services.events.IEventBroker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.titou10.jtb.jms.model.JTBConnection;
+import org.titou10.jtb.jms.model.JTBSession;
+import org.titou10.jtb.jms.model.JTBSessionClientType;
+import org.titou10.jtb.ui.JTBStatusReporter;
+import org.titou10.jtb.util.Constants;
+import org.titou10.jtb.util.Utils;
+
+/**
+ * Job to connect to a session or to rescan its destinations in the background<br>
+ * The call to the Q Manager is performed in a separate thread, so that the job can be cancelled or timed out even if the Q
+ * Manager does not react to interruptions. A connection established after the job has been cancelled or timed out is closed as
+ * soon as it is received.<br>
+ * The Session Browser is notified when the job starts and when the call to the Q Manager ends
+ *
+ * @author Denis Forveille
+ *
+ */
+public final class SessionConnectJob extends Job {
+
+   private static final Logger                               log       = LoggerFactory.getLogger(SessionConnectJob.class);
+
+   private static final long                                 POLL_MS   = 200L;
+
+   // Sessions with a connect or rescan in progress. The entry is removed when the job ends, even if the call did not return
+   private static final Map<JTBConnection, SessionConnectJob> RUNNING   = new ConcurrentHashMap<>();
+
+   private static final AtomicInteger                        THREAD_NB = new AtomicInteger(0);
+   private static final ExecutorService                      EXECUTOR  = Executors.newCachedThreadPool(SessionConnectJob::newThread);
+
+   private final IEventBroker                                eventBroker;
+   private final JTBStatusReporter                           jtbStatusReporter;
+   private final JTBSession                                  jtbSession;
+   private final JTBConnection                               jtbConnection;
+   private final boolean                                     rescan;
+   private final int                                         timeoutSecs;
+
+   // Set by the first of the "call ended" or "job gave up" events
+   private final AtomicBoolean                               settled   = new AtomicBoolean(false);
+
+   private SessionConnectJob(IEventBroker eventBroker,
+                             JTBStatusReporter jtbStatusReporter,
+                             JTBSession jtbSession,
+                             boolean rescan,
+                             int timeoutSecs) {
+      super(rescan ? "Rescan destinations of '" + jtbSession.getName() + "'" : "Connect to '" + jtbSession.getName() + "'");
+      this.eventBroker = eventBroker;
+      this.jtbStatusReporter = jtbStatusReporter;
+      this.jtbSession = jtbSession;
+      this.jtbConnection = jtbSession.getJTBConnection(JTBSessionClientType.GUI);
+      this.rescan = rescan;
+      this.timeoutSecs = timeoutSecs;
+   }
+
+   // -------------------------
+   // Business Interface
+   // -------------------------
+
+   // Schedule a connect or rescan for the session. Returns false if one is already in progress
+   public static boolean start(IEventBroker eventBroker,
+                               JTBStatusReporter jtbStatusReporter,
+                               JTBSession jtbSession,
+                               boolean rescan,
+                               int timeoutSecs) {
+      SessionConnectJob job = new SessionConnectJob(eventBroker, jtbStatusReporter, jtbSession, rescan, timeoutSecs);
+      if (RUNNING.putIfAbsent(job.jtbConnection, job) != null) {
+         log.debug("A connect or rescan is already in progress for '{}'", jtbSession.getName());
+         return false;
+      }
+      job.setSystem(false);
+      job.setUser(false);
+      job.schedule();
+
+      eventBroker.post(Constants.EVENT_REFRESH_SESSION_BROWSER, jtbSession);
+      return true;
+   }
+
+   public static boolean isRunning(JTBConnection jtbConnection) {
+      return RUNNING.containsKey(jtbConnection);
+   }
+
+   // Cancel the connect or rescan in progress for the session, if any
+   public static void cancel(JTBConnection jtbConnection) {
+      SessionConnectJob job = RUNNING.get(jtbConnection);
+      if (job != null) {
+         job.cancel();
+      }
+   }
+
+   // -------------------------
+   // Job
+   // -------------------------
+
+   @Override
+   protected IStatus run(IProgressMonitor monitor) {
+      log.debug("{}. Timeout: {}s", getName(), timeoutSecs);
+      monitor.beginTask(getName(), IProgressMonitor.UNKNOWN);
+
+      Future<Void> future = EXECUTOR.submit(() -> {
+         try {
+            if (rescan) {
+               jtbConnection.rescanDestinations();
+            } else {
+               jtbConnection.connect();
+               if (!settled.compareAndSet(false, true)) {
+                  log.info("Connection to '{}' established after the connect has been cancelled. Disconnecting", jtbSession.getName());
+                  jtbConnection.disconnect();
+               }
+            }
+            return null;
+         } finally {
+            RUNNING.remove(jtbConnection, this);
+            eventBroker.post(Constants.EVENT_REFRESH_SESSION_BROWSER, jtbSession);
+         }
+      });
+
+      try {
+         long deadline = timeoutSecs <= 0 ? Long.MAX_VALUE : System.currentTimeMillis() + (timeoutSecs * 1000L);
+         while (true) {
+            try {
+               future.get(POLL_MS, TimeUnit.MILLISECONDS);
+               monitor.done();
+               return Status.OK_STATUS;
+
+            } catch (TimeoutException e) {
+               boolean cancelled = monitor.isCanceled();
+               if ((!cancelled) && (System.currentTimeMillis() < deadline)) {
+                  continue;
+               }
+               if (!settled.compareAndSet(false, true)) {
+                  // The call ended at the same time, get its result
+                  continue;
+               }
+               future.cancel(true);
+               monitor.done();
+               if (cancelled) {
+                  log.info("{} cancelled", getName());
+                  return Status.CANCEL_STATUS;
+               }
+               jtbStatusReporter.showError(String.format("No answer from the server after %d seconds", timeoutSecs),
+                                           null,
+                                           jtbSession.getName());
+               return Status.OK_STATUS;
+
+            } catch (ExecutionException e) {
+               monitor.done();
+               if (rescan) {
+                  jtbStatusReporter.showError("An exception occurred when scanning destinations",
+                                              Utils.getCause(e.getCause()),
+                                              jtbSession.getName());
+               } else {
+                  jtbStatusReporter.showError("Connect unsuccessful", Utils.getCause(e.getCause()), jtbSession.getName());
+               }
+               return Status.OK_STATUS;
+
+            } catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+               monitor.done();
+               return Status.CANCEL_STATUS;
+            }
+         }
+      } finally {
+         // Do not keep the session flagged as busy when the call to the Q Manager hangs or has not even started
+         if (RUNNING.remove(jtbConnection, this)) {
+            eventBroker.post(Constants.EVENT_REFRESH_SESSION_BROWSER, jtbSession);
+         }
+      }
+   }
+
+   // -------
+   // Helpers
+   // -------
+
+   private static Thread newThread(Runnable r) {
+      Thread t = new Thread(r, "JMSToolBox-connect-" + THREAD_NB.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+   }
+}
@@ -16,8 +16,11 @@
  */
 package org.titou10.jtb.ui.part;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.AbstractMap;
 import java.util.Enumeration;
 import java.util.HashMap;
@@ -31,6 +34,7 @@ import javax.inject.Inject;
 import javax.jms.BytesMessage;
 import javax.jms.JMSException;
 import javax.jms.MapMessage;
+import javax.jms.MessageEOFException;
 import javax.jms.ObjectMessage;
 import javax.jms.TextMessage;
 
@@ -38,6 +42,7 @@ import org.eclipse.e4.core.di.annotations.Optional;
 import org.eclipse.e4.ui.di.UIEventTopic;
 import org.eclipse.e4.ui.services.EMenuService;
 import org.eclipse.e4.ui.workbench.modeling.ESelectionService;
+import org.eclipse.jface.dialogs.MessageDialog;
 import org.eclipse.jface.layout.TableColumnLayout;
 import org.eclipse.jface.viewers.ArrayContentProvider;
 import org.eclipse.jface.viewers.ColumnLabelProvider;
@@ -56,9 +61,11 @@ import org.eclipse.swt.events.SelectionListener;
 import org.eclipse.swt.layout.FillLayout;
 import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Button;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Event;
+import org.eclipse.swt.widgets.Label;
 import org.eclipse.swt.widgets.Listener;
 import org.eclipse.swt.widgets.TabFolder;
 import org.eclipse.swt.widgets.TabItem;
@@ -76,6 +83,7 @@ import org.titou10.jtb.ui.JTBStatusReporter;
 import org.titou10.jtb.ui.hex.BytesDataProvider;
 import org.titou10.jtb.ui.hex.HexViewer;
 import org.titou10.jtb.ui.hex.IDataProvider;
+import org.titou10.jtb.ui.hex.MappedFileDataProvider;
 import org.titou10.jtb.util.Constants;
 import org.titou10.jtb.util.FormatUtils;
 import org.titou10.jtb.util.Utils;
@@ -90,7 +98,10 @@ public class JTBMessageViewPart {
 
    private static final Logger log = LoggerFactory.getLogger(JTBMessageViewPart.class);
 
-   private static final String CR  = "\n";
+   private static final String CR                   = "\n";
+
+   // Above this size, the payload of BytesMessages is not loaded in the heap
+   private static final int    HEX_MAPPED_THRESHOLD = 1024 * 1024;
 
    private JTBStatusReporter   jtbStatusReporter;
 
@@ -124,6 +135,7 @@ public class JTBMessageViewPart {
    private JTBPreferenceStore  ps;
 
    private JTBMessage          currentJtbMessage;
+   private IDataProvider       hexDataProvider;
 
    private MessageTab          currentMessageTab;
 
@@ -343,7 +355,7 @@ public class JTBMessageViewPart {
    private void populateFields(JTBMessage jtbMessage) throws JMSException {
 
       // Populate fields
-      var m = jtbMessage.getJmsMessage();
+      var m = jtbMessage.getFullJmsMessage();
 
       // Properties
       Map<String, Object> properties = new TreeMap<>();
@@ -456,20 +468,38 @@ public class JTBMessageViewPart {
                tabPayloadHex = new TabItem(tabFolder, SWT.NONE);
 
                var composite51 = new Composite(tabFolder, SWT.NONE);
-               composite51.setLayout(new FillLayout(SWT.HORIZONTAL));
+               composite51.setLayout(new GridLayout(1, false));
                tabPayloadHex.setControl(composite51);
 
-               hvPayLoadHex = new HexViewer(composite51, SWT.READ_ONLY, null, 16);
+               createHexNavigationBar(composite51);
+
+               var composite52 = new Composite(composite51, SWT.NONE);
+               composite52.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true, 1, 1));
+               composite52.setLayout(new FillLayout(SWT.HORIZONTAL));
+
+               hvPayLoadHex = new HexViewer(composite52, SWT.READ_ONLY, null, 16);
                hvPayLoadHex.setBackground(SWTResourceManager.getColor(SWT.COLOR_WHITE));
             }
 
-            var payloadBytes = new byte[(int) bm.getBodyLength()];
+            // Large payloads are streamed into a memory-mapped temporary file instead of being loaded in the heap
+            var bodyLength = bm.getBodyLength();
             bm.reset();
-            bm.readBytes(payloadBytes);
-            IDataProvider idp = new BytesDataProvider(payloadBytes);
-            hvPayLoadHex.setDataProvider(idp);
+            IDataProvider idp;
+            if (bodyLength < HEX_MAPPED_THRESHOLD) {
+               var payloadBytes = new byte[(int) bodyLength];
+               bm.readBytes(payloadBytes);
+               idp = new BytesDataProvider(payloadBytes);
+            } else {
+               try {
+                  idp = new MappedFileDataProvider(new BytesMessageInputStream(bm));
+               } catch (IOException ioe) {
+                  jtbStatusReporter.showError("Problem while reading the payload of the message", ioe, "");
+                  idp = null;
+               }
+            }
+            setHexDataProvider(idp);
 
-            tabPayloadHex.setText(String.format(Constants.PAYLOAD_BYTES_TITLE, payloadBytes.length));
+            tabPayloadHex.setText(String.format(Constants.PAYLOAD_BYTES_TITLE, bodyLength));
 
             break;
 
@@ -698,6 +728,7 @@ public class JTBMessageViewPart {
             tabPayloadHex.dispose();
             tabPayloadHex = null;
          }
+         setHexDataProvider(null);
       }
       if (cleanMap) {
          if (tabPayloadMap != null) {
@@ -708,6 +739,131 @@ public class JTBMessageViewPart {
       currentMessageTab = savedMessageTab;
    }
 
+   // BytesMessage
+   private void setHexDataProvider(IDataProvider idp) {
+      if (hvPayLoadHex != null && !hvPayLoadHex.isDisposed()) {
+         hvPayLoadHex.setDataProvider(idp);
+      }
+      // Release the previous provider (ie delete its temporary file) once it is no longer displayed
+      if (hexDataProvider != null) {
+         hexDataProvider.dispose();
+      }
+      hexDataProvider = idp;
+   }
+
+   private void createHexNavigationBar(Composite parentComposite) {
+
+      var compositeBar = new Composite(parentComposite, SWT.NONE);
+      compositeBar.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false, 1, 1));
+      var gl = new GridLayout(7, false);
+      gl.marginHeight = 0;
+      gl.marginWidth = 0;
+      compositeBar.setLayout(gl);
+
+      var lblOffset = new Label(compositeBar, SWT.NONE);
+      lblOffset.setText("Offset (hex):");
+
+      var txtOffset = new Text(compositeBar, SWT.BORDER);
+      var gdOffset = new GridData(SWT.LEFT, SWT.CENTER, false, false, 1, 1);
+      gdOffset.widthHint = 80;
+      txtOffset.setLayoutData(gdOffset);
+
+      var btnGoTo = new Button(compositeBar, SWT.NONE);
+      btnGoTo.setText("Go");
+
+      var lblFind = new Label(compositeBar, SWT.NONE);
+      lblFind.setText("Find:");
+
+      var txtFind = new Text(compositeBar, SWT.BORDER);
+      txtFind.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false, 1, 1));
+
+      var btnHex = new Button(compositeBar, SWT.CHECK);
+      btnHex.setText("Hex");
+      btnHex.setToolTipText("The value to find is a sequence of hexadecimal bytes, ie 'CAFEBABE' or 'CA FE BA BE'");
+
+      var btnFind = new Button(compositeBar, SWT.NONE);
+      btnFind.setText("Find Next");
+
+      // Behavior
+
+      Listener goToListener = e -> {
+         var s = txtOffset.getText().trim();
+         if (s.toLowerCase().startsWith("0x")) {
+            s = s.substring(2);
+         }
+         try {
+            hvPayLoadHex.goToOffset(Integer.parseInt(s, 16));
+         } catch (NumberFormatException ex) {
+            MessageDialog.openError(parentComposite.getShell(), "Invalid Offset", "'" + txtOffset.getText() + "' is not a valid hexadecimal offset");
+         }
+      };
+      btnGoTo.addListener(SWT.Selection, goToListener);
+      txtOffset.addListener(SWT.DefaultSelection, goToListener);
+
+      Listener findListener = e -> {
+         var s = txtFind.getText();
+         if (s.isEmpty()) {
+            return;
+         }
+         byte[] pattern;
+         if (btnHex.getSelection()) {
+            var hex = s.replaceAll("\\s", "");
+            if ((hex.length() % 2 != 0) || (!hex.matches("[0-9A-Fa-f]+"))) {
+               MessageDialog.openError(parentComposite.getShell(), "Invalid Value", "'" + s + "' is not a valid sequence of hexadecimal bytes");
+               return;
+            }
+            pattern = new byte[hex.length() / 2];
+            for (int i = 0; i < pattern.length; i++) {
+               pattern[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+            }
+         } else {
+            pattern = s.getBytes(StandardCharsets.UTF_8);
+         }
+         if (hvPayLoadHex.findNext(pattern) < 0) {
+            MessageDialog.openInformation(parentComposite.getShell(), "Not Found", "'" + s + "' was not found in the payload");
+         }
+      };
+      btnFind.addListener(SWT.Selection, findListener);
+      txtFind.addListener(SWT.DefaultSelection, findListener);
+   }
+
+   // Reads the body of a BytesMessage as a stream
+   private static final class BytesMessageInputStream extends InputStream {
+      private final BytesMessage bm;
+
+      private BytesMessageInputStream(BytesMessage bm) {
+         this.bm = bm;
+      }
+
+      @Override
+      public int read() throws IOException {
+         try {
+            return bm.readUnsignedByte();
+         } catch (MessageEOFException e) {
+            return -1;
+         } catch (JMSException e) {
+            throw new IOException(e);
+         }
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+         try {
+            if (off == 0) {
+               return bm.readBytes(b, len);
+            }
+            var temp = new byte[len];
+            var n = bm.readBytes(temp, len);
+            if (n > 0) {
+               System.arraycopy(temp, 0, b, off, n);
+            }
+            return n;
+         } catch (JMSException e) {
+            throw new IOException(e);
+         }
+      }
+   }
+
    // MapMessage
    @SuppressWarnings("unchecked")
    private void createMapPayload(Composite parentComposite) {
@@ -17,6 +17,7 @@
 package org.titou10.jtb.ui.part;
 
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.SortedSet;
 import java.util.TreeSet;
@@ -55,6 +56,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.titou10.jtb.config.ConfigManager;
 import org.titou10.jtb.config.JTBPreferenceStore;
+import org.titou10.jtb.jms.model.JTBConnection;
 import org.titou10.jtb.jms.model.JTBDestination;
 import org.titou10.jtb.jms.model.JTBSession;
 import org.titou10.jtb.jms.model.JTBSessionClientType;
@@ -66,9 +68,10 @@ import org.titou10.jtb.ui.navigator.NodeAbstract;
 import org.titou10.jtb.ui.navigator.NodeFolder;
 import org.titou10.jtb.ui.navigator.NodeJTBQueue;
 import org.titou10.jtb.ui.navigator.NodeJTBSession;
-import org.titou10.jtb.ui.navigator.NodeJTBSessionProvider;
+import org.titou10.jtb.ui.navigator.NodeJTBSessionLazyProvider;
 import org.titou10.jtb.ui.navigator.NodeJTBTopic;
 import org.titou10.jtb.ui.navigator.NodeTreeLabelProvider;
+import org.titou10.jtb.ui.navigator.SessionConnectJob;
 import org.titou10.jtb.util.Constants;
 import org.titou10.jtb.util.Utils;
 
@@ -109,6 +112,10 @@ public class JTBSessionsBrowserViewPart {
 
    private TreeViewer          treeViewer;
 
+   // Nodes of the last build of the tree
+   private Map<JTBSession, NodeJTBSession>         nodesSession = new IdentityHashMap<>();
+   private Map<String, NodeFolder<NodeJTBSession>> nodesFolder  = new HashMap<>();
+
    @PostConstruct
    public void createControls(Composite parent) {
       log.debug("createControls");
@@ -118,8 +125,10 @@ public class JTBSessionsBrowserViewPart {
       SortedSet<NodeAbstract> listNodesSession = buildSessionList();
 
       // Build navigator
-      treeViewer = new TreeViewer(parent, SWT.BORDER);
-      treeViewer.setContentProvider(new NodeJTBSessionProvider());
+      // Virtual tree: only the visible nodes are materialized
+      treeViewer = new TreeViewer(parent, SWT.BORDER | SWT.VIRTUAL);
+      treeViewer.setUseHashlookup(true);
+      treeViewer.setContentProvider(new NodeJTBSessionLazyProvider());
       treeViewer.setLabelProvider(new DelegatingStyledCellLabelProvider(new NodeTreeLabelProvider(sessionTypeManager,
                                                                                                   JTBSessionClientType.GUI)));
       treeViewer.setInput(listNodesSession);
@@ -148,9 +157,10 @@ public class JTBSessionsBrowserViewPart {
             if (selected instanceof NodeJTBSession) {
                NodeJTBSession s = (NodeJTBSession) selected;
                JTBSession j = (JTBSession) s.getBusinessObject();
+               JTBConnection jtbConnection = j.getJTBConnection(JTBSessionClientType.GUI);
 
-               if (j.getJTBConnection(JTBSessionClientType.GUI).isConnected()) {
-                  // Call Session Disconnect Command
+               if ((jtbConnection.isConnected()) || (SessionConnectJob.isRunning(jtbConnection))) {
+                  // Call Session Disconnect Command. Also cancels a connect in progress
                   ParameterizedCommand myCommand = commandService.createCommand(Constants.COMMAND_SESSION_DISCONNECT, null);
                   handlerService.executeHandler(myCommand);
                } else {
@@ -259,6 +269,32 @@ public class JTBSessionsBrowserViewPart {
       treeViewer.refresh(nodeJTBSession);
    }
 
+   @Inject
+   @Optional
+   @SuppressWarnings("unchecked")
+   // A connect or a rescan started or ended in the background
+   public void refreshSessionBrowserConnectState(@UIEventTopic(Constants.EVENT_REFRESH_SESSION_BROWSER) JTBSession jtbSession) {
+      log.debug("refreshSessionBrowserConnectState for {}", jtbSession);
+
+      NodeAbstract node = findNode((SortedSet<? extends NodeAbstract>) treeViewer.getInput(), jtbSession);
+      if (node == null) {
+         return;
+      }
+
+      JTBConnection jtbConnection = jtbSession.getJTBConnection(JTBSessionClientType.GUI);
+      if (!jtbConnection.isConnected()) {
+         treeViewer.collapseToLevel(node, AbstractTreeViewer.ALL_LEVELS);
+         treeViewer.refresh(node);
+         return;
+      }
+
+      treeViewer.refresh(node);
+      if ((!SessionConnectJob.isRunning(jtbConnection)) && (!treeViewer.getExpandedState(node))) {
+         // Connection just established: show the destinations
+         treeViewer.expandToLevel(node, AbstractTreeViewer.ALL_LEVELS);
+      }
+   }
+
    @Inject
    @Optional
    @SuppressWarnings("unchecked")
@@ -282,7 +318,7 @@ public class JTBSessionsBrowserViewPart {
          }
       }
 
-      NodeAbstract na = findNodeDestination((SortedSet<? extends NodeAbstract>) treeViewer.getInput(), jtbDestination);
+      NodeAbstract na = findNode((SortedSet<? extends NodeAbstract>) treeViewer.getInput(), jtbDestination);
       // log.debug("Found: {}", na);
       if (na != null) {
          treeViewer.reveal(na);
@@ -293,59 +329,65 @@ public class JTBSessionsBrowserViewPart {
    // -------
    // Helpers
    // -------
+   // The nodes of the previous build are reused, so that the nodes of the destinations of the sessions are kept
    private SortedSet<NodeAbstract> buildSessionList() {
       log.debug("buildSessionList");
 
+      Map<JTBSession, NodeJTBSession> previousNodesSession = nodesSession;
+      Map<String, NodeFolder<NodeJTBSession>> previousNodesFolder = nodesFolder;
+      nodesSession = new IdentityHashMap<>();
+      nodesFolder = new HashMap<>();
+
       SortedSet<NodeAbstract> listNodesSession = new TreeSet<>();
 
       // Build the list of JTBSessions
       for (JTBSession session : cm.getJtbSessions()) {
          String folderName = session.getSessionDef().getFolder();
-         if (folderName == null) {
-            // No folder, add the session as-is
-            listNodesSession.add(new NodeJTBSession(session, JTBSessionClientType.GUI));
-         } else {
-            // Create or reuse folder
-            NodeFolder<NodeJTBSession> folder = findExistingFolder(listNodesSession, folderName);
+
+         // Create or reuse folder
+         NodeFolder<NodeJTBSession> folder = null;
+         if (folderName != null) {
+            folder = nodesFolder.get(folderName);
             if (folder == null) {
-               // Folder does not exist yet, create a new Folder and add the session as child
-               SortedSet<NodeJTBSession> xx = new TreeSet<>();
-               xx.add(new NodeJTBSession(session, JTBSessionClientType.GUI));
-               folder = new NodeFolder<NodeJTBSession>(folderName, null, xx);
+               folder = previousNodesFolder.get(folderName);
+               if (folder == null) {
+                  folder = new NodeFolder<NodeJTBSession>(folderName, null, new TreeSet<>());
+               } else {
+                  folder.setChildren(new TreeSet<>());
+               }
+               nodesFolder.put(folderName, folder);
                listNodesSession.add(folder);
-            } else {
-               // Folder exists, add the session as child
-               folder.addChild(new NodeJTBSession(session, JTBSessionClientType.GUI));
             }
          }
-      }
-      return listNodesSession;
-   }
 
-   @SuppressWarnings("unchecked")
-   private NodeFolder<NodeJTBSession> findExistingFolder(SortedSet<NodeAbstract> listNodesSession, String folderName) {
-      for (NodeAbstract nodeAbstract : listNodesSession) {
-         if (nodeAbstract instanceof NodeFolder) {
-            if (nodeAbstract.getName().equals(folderName)) {
-               return (NodeFolder<NodeJTBSession>) nodeAbstract;
-            }
+         // Reuse the node of the session if it did not move to another folder
+         NodeJTBSession nodeJTBSession = previousNodesSession.get(session);
+         if ((nodeJTBSession == null) || (nodeJTBSession.getParentNode() != folder)) {
+            nodeJTBSession = new NodeJTBSession(session, JTBSessionClientType.GUI, folder);
+         }
+         nodesSession.put(session, nodeJTBSession);
+
+         if (folder == null) {
+            listNodesSession.add(nodeJTBSession);
+         } else {
+            folder.addChild(nodeJTBSession);
          }
       }
-      return null;
+      return listNodesSession;
    }
 
    // Find a Node given a JTBDestination or JTBSession
-   private NodeAbstract findNodeDestination(SortedSet<? extends NodeAbstract> listNodesSession, JTBDestination jtbDestination) {
+   private NodeAbstract findNode(SortedSet<? extends NodeAbstract> listNodesSession, Object businessObject) {
       for (NodeAbstract nodeAbstract : listNodesSession) {
          if (nodeAbstract.getChildren() != null) {
             if ((nodeAbstract instanceof NodeFolder) || (nodeAbstract instanceof NodeJTBSession)) {
-               NodeAbstract na = findNodeDestination(nodeAbstract.getChildren(), jtbDestination);
+               NodeAbstract na = findNode(nodeAbstract.getChildren(), businessObject);
                if (na != null) {
                   return na;
                }
             }
          }
-         if (nodeAbstract.getBusinessObject() == jtbDestination) {
+         if (nodeAbstract.getBusinessObject() == businessObject) {
             return nodeAbstract;
          }
       }
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.ui.part.content;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single scheduler shared by all the auto refreshes of all the content parts<br>
+ * One daemon thread triggers the refreshes. At most one auto refresh runs at a time per connection, and at most
+ * MAX_CONCURRENT_REFRESHES run at a time in total
+ *
+ * @author Denis Forveille
+ *
+ */
+final class AutoRefreshScheduler {
+
+   private static final int                      MAX_CONCURRENT_REFRESHES = 4;
+
+   private static final ScheduledExecutorService EXECUTOR                 = Executors.newSingleThreadScheduledExecutor(r -> {
+                                                                             Thread t = new Thread(r, "JMSToolBox-auto-refresh");
+                                                                             t.setDaemon(true);
+                                                                             return t;
+                                                                          });
+
+   private static final Semaphore                PERMITS                  = new Semaphore(MAX_CONCURRENT_REFRESHES);
+
+   // Connections with an auto refresh in progress. Only used as keys
+   private static final Set<Object>              BUSY_CONNECTIONS         = ConcurrentHashMap.newKeySet();
+
+   // -------------------------
+   // Business Interface
+   // -------------------------
+
+   static ScheduledFuture<?> schedule(Runnable r, long delayMs) {
+      return EXECUTOR.schedule(r, delayMs, TimeUnit.MILLISECONDS);
+   }
+
+   // Returns false if a refresh is already running for the connection or if the global limit is reached
+   static boolean tryAcquire(Object connection) {
+      if (!BUSY_CONNECTIONS.add(connection)) {
+         return false;
+      }
+      if (!PERMITS.tryAcquire()) {
+         BUSY_CONNECTIONS.remove(connection);
+         return false;
+      }
+      return true;
+   }
+
+   static void release(Object connection) {
+      BUSY_CONNECTIONS.remove(connection);
+      PERMITS.release();
+   }
+
+   // ------------------
+   // Pure Utility Class
+   // ------------------
+   private AutoRefreshScheduler() {
+      // NOP
+   }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.ui.part.content;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.BooleanSupplier;
+
+import org.eclipse.e4.ui.di.UISynchronize;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Auto refresh of a tab, triggered by the AutoRefreshScheduler<br>
+ * The next refresh is scheduled only when the previous one has ended, after a delay that grows with the duration of the refresh.
+ * When the connection is busy with another refresh or too many refreshes are running, the refresh is retried later.<br>
+ * Refreshes of tabs that are not visible are skipped, and performed as soon as the tab is visible again ("resume")
+ *
+ * @author Denis Forveille
+ *
+ */
+final class AutoRefreshTask {
+
+   private static final Logger     log            = LoggerFactory.getLogger(AutoRefreshTask.class);
+
+   // The delay between two refreshes is at least this number of times the duration of the last refresh
+   private static final int        LATENCY_FACTOR = 5;
+   private static final long       MAX_DELAY_MS   = 5 * 60 * 1000L;
+   private static final long       RETRY_MS       = 500L;
+
+   private final UISynchronize     sync;
+   private final String            name;
+   // Connection used by the refresh. Only used as a key to run one auto refresh at a time per connection
+   private final Object            connection;
+   private final Refresh           refresh;
+   private final BooleanSupplier   visible;
+
+   private boolean                 active;
+   private boolean                 inFlight;
+   private boolean                 missed;
+   private long                    baseDelayMs;
+   private long                    delayMs;
+   private long                    startNanos;
+   private ScheduledFuture<?>      next;
+
+   AutoRefreshTask(UISynchronize sync, String name, Object connection, Refresh refresh, BooleanSupplier visible) {
+      this.sync = sync;
+      this.name = name;
+      this.connection = connection;
+      this.refresh = refresh;
+      this.visible = visible;
+   }
+
+   // ------------------
+   // Business Interface
+   // ------------------
+
+   synchronized void start(int delaySeconds) {
+      log.debug("Starting '{}' delaySeconds: {} ", name, delaySeconds);
+      active = true;
+      missed = false;
+      baseDelayMs = delaySeconds * 1000L;
+      delayMs = baseDelayMs;
+      if (!inFlight) {
+         scheduleNext(0);
+      }
+   }
+
+   synchronized void stop() {
+      log.debug("Stopping '{}'", name);
+      active = false;
+      missed = false;
+      cancelNext();
+   }
+
+   synchronized boolean isActive() {
+      return active;
+   }
+
+   // The tab is visible again: perform the refreshes skipped while it was hidden
+   synchronized void resume() {
+      if (active && missed && !inFlight) {
+         missed = false;
+         scheduleNext(0);
+      }
+   }
+
+   // Called when a refresh that continues in the background has ended
+   synchronized void refreshDone() {
+      if (!inFlight) {
+         return;
+      }
+      inFlight = false;
+      AutoRefreshScheduler.release(connection);
+
+      // Adapt the delay to the duration of the refresh
+      long durationMs = (System.nanoTime() - startNanos) / 1_000_000;
+      delayMs = Math.min(MAX_DELAY_MS, Math.max(baseDelayMs, durationMs * LATENCY_FACTOR));
+      if (delayMs > baseDelayMs) {
+         log.debug("'{}' took {} ms. Next refresh in {} ms", name, durationMs, delayMs);
+      }
+
+      if (active) {
+         scheduleNext(delayMs);
+      }
+   }
+
+   // -------
+   // Helpers
+   // -------
+
+   // Called by the thread of the scheduler
+   private synchronized void tick() {
+      next = null;
+      if (!active || inFlight) {
+         return;
+      }
+      if (!AutoRefreshScheduler.tryAcquire(connection)) {
+         log.trace("'{}' can not run now. Retry in {} ms", name, RETRY_MS);
+         scheduleNext(RETRY_MS);
+         return;
+      }
+      inFlight = true;
+      startNanos = System.nanoTime();
+
+      sync.asyncExec(this::runInUIThread);
+   }
+
+   private void runInUIThread() {
+      boolean pending = false;
+      try {
+         if (!isActive()) {
+            return;
+         }
+         if (!visible.getAsBoolean()) {
+            synchronized (this) {
+               missed = true;
+               inFlight = false;
+               AutoRefreshScheduler.release(connection);
+            }
+            return;
+         }
+         pending = refresh.run();
+      } catch (Throwable e) {
+         log.error("Exception occurred during '{}'", name, e);
+      } finally {
+         if (!pending) {
+            refreshDone();
+         }
+      }
+   }
+
+   private void scheduleNext(long delay) {
+      cancelNext();
+      next = AutoRefreshScheduler.schedule(this::tick, delay);
+   }
+
+   private void cancelNext() {
+      if (next != null) {
+         next.cancel(false);
+         next = null;
+      }
+   }
+
+   /**
+    * Refresh the tab. Called in the UI thread<br>
+    * Returns true if the refresh continues in the background. "refreshDone" must then be called when it ends
+    */
+   @FunctionalInterface
+   interface Refresh {
+      boolean run();
+   }
+}
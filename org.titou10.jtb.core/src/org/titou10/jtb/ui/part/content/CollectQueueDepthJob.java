@@ -18,7 +18,11 @@ package org.titou10.jtb.ui.part.content;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.SortedSet;
 
 import javax.jms.JMSException;
@@ -34,7 +38,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.titou10.jtb.jms.model.JTBConnection;
 import org.titou10.jtb.jms.model.JTBQueue;
-import org.titou10.jtb.jms.qm.QManager;
 import org.titou10.jtb.util.Constants;
 import org.titou10.jtb.util.Utils;
 
@@ -46,18 +49,20 @@ import org.titou10.jtb.util.Utils;
  */
 public class CollectQueueDepthJob extends Job {
 
-   private static final Logger log = LoggerFactory.getLogger(CollectQueueDepthJob.class);
+   private static final Logger                  log       = LoggerFactory.getLogger(CollectQueueDepthJob.class);
 
-   private final UISynchronize sync;
+   private final UISynchronize                  sync;
 
-   private final JTBConnection jtbConnection;
-   private final QManager      qm;
+   private final JTBConnection                  jtbConnection;
 
-   private final TableViewer   tableViewer;
-   private final CTabItem      tabItem;
-   private final String        title;
+   private final TableViewer                    tableViewer;
+   private final CTabItem                       tabItem;
+   private final String                         title;
 
-   private SortedSet<JTBQueue> jtbQueuesFiltered;
+   private SortedSet<JTBQueue>                  jtbQueuesFiltered;
+
+   // Depth history per queue name. Only accessed by the job, which never runs concurrently with itself
+   private final Map<String, QueueDepthHistory> histories = new HashMap<>();
 
    // ------------
    // Constructors
@@ -74,7 +79,6 @@ public class CollectQueueDepthJob extends Job {
       this.sync = sync;
 
       this.jtbConnection = jtbConnection;
-      this.qm = jtbConnection.getQm();
 
       this.tableViewer = tableViewer;
       this.tabItem = tabItem;
@@ -98,6 +102,10 @@ public class CollectQueueDepthJob extends Job {
 
       List<QueueWithDepth> list = new ArrayList<QueueWithDepth>(jtbConnection.getJtbQueues().size());
 
+      // One request for all the queues when the Q Manager supports it
+      Map<String, Integer> depths = jtbConnection.getQueueDepths(jtbQueuesFiltered);
+
+      Set<String> queueNames = new HashSet<>(jtbQueuesFiltered.size() * 2);
       Date firstMessageTimestamp;
       for (JTBQueue jtbQueue : jtbQueuesFiltered) {
 
@@ -108,11 +116,24 @@ public class CollectQueueDepthJob extends Job {
             log.error("JMSException occurred when calling jtbConnection.getFirstMessageTimestamp", e);
          }
 
-         list.add(new QueueWithDepth(jtbQueue,
-                                     qm.getQueueDepth(jtbConnection.getJmsConnection(), jtbQueue.getName()),
-                                     firstMessageTimestamp));
+         Integer depth = depths.get(jtbQueue.getName());
+
+         QueueDepthHistory history = histories.get(jtbQueue.getName());
+         if (depth != null) {
+            if (history == null) {
+               history = new QueueDepthHistory();
+               histories.put(jtbQueue.getName(), history);
+            }
+            history.add(System.currentTimeMillis(), depth);
+         }
+         queueNames.add(jtbQueue.getName());
+
+         list.add(new QueueWithDepth(jtbQueue, depth, firstMessageTimestamp, history));
       }
 
+      // Forget the history of the queues that are not displayed anymore
+      histories.keySet().retainAll(queueNames);
+
       // Update UI
       sync.asyncExec(new Runnable() {
          @Override
@@ -16,15 +16,22 @@
  */
 package org.titou10.jtb.ui.part.content;
 
+import java.io.File;
 import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Deque;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 import javax.annotation.PostConstruct;
@@ -36,7 +43,9 @@ import javax.xml.bind.JAXBException;
 
 import org.eclipse.core.commands.ParameterizedCommand;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.jobs.IJobChangeEvent;
 import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.jobs.JobChangeAdapter;
 import org.eclipse.e4.core.commands.ECommandService;
 import org.eclipse.e4.core.commands.EHandlerService;
 import org.eclipse.e4.core.contexts.Active;
@@ -51,6 +60,9 @@ import org.eclipse.e4.ui.model.application.ui.basic.MWindow;
 import org.eclipse.e4.ui.services.EMenuService;
 import org.eclipse.e4.ui.workbench.IPresentationEngine;
 import org.eclipse.e4.ui.workbench.modeling.ESelectionService;
+import org.eclipse.jface.dialogs.InputDialog;
+import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.jface.dialogs.ProgressMonitorDialog;
 import org.eclipse.jface.viewers.ArrayContentProvider;
 import org.eclipse.jface.viewers.ColumnLabelProvider;
 import org.eclipse.jface.viewers.ComboViewer;
@@ -59,6 +71,7 @@ import org.eclipse.jface.viewers.IDoubleClickListener;
 import org.eclipse.jface.viewers.ISelectionChangedListener;
 import org.eclipse.jface.viewers.IStructuredSelection;
 import org.eclipse.jface.viewers.LabelProvider;
+import org.eclipse.jface.viewers.OwnerDrawLabelProvider;
 import org.eclipse.jface.viewers.SelectionChangedEvent;
 import org.eclipse.jface.viewers.StructuredSelection;
 import org.eclipse.jface.viewers.TableViewer;
@@ -85,6 +98,7 @@ import org.eclipse.swt.events.SelectionListener;
 import org.eclipse.swt.graphics.Color;
 import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.graphics.Point;
+import org.eclipse.swt.graphics.Rectangle;
 import org.eclipse.swt.layout.FillLayout;
 import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.layout.GridLayout;
@@ -96,6 +110,7 @@ import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
 import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Event;
+import org.eclipse.swt.widgets.FileDialog;
 import org.eclipse.swt.widgets.Label;
 import org.eclipse.swt.widgets.Listener;
 import org.eclipse.swt.widgets.Menu;
@@ -116,14 +131,20 @@ import org.titou10.jtb.cs.gen.Column;
 import org.titou10.jtb.cs.gen.ColumnKind;
 import org.titou10.jtb.cs.gen.ColumnsSet;
 import org.titou10.jtb.cs.gen.UserProperty;
+import org.titou10.jtb.dialog.SpoolReplayDialog;
 import org.titou10.jtb.jms.model.JTBConnection;
 import org.titou10.jtb.jms.model.JTBDestination;
 import org.titou10.jtb.jms.model.JTBMessage;
+import org.titou10.jtb.jms.model.JTBMessageTemplate;
+import org.titou10.jtb.jms.model.JTBProperty;
 import org.titou10.jtb.jms.model.JTBQueue;
+import org.titou10.jtb.jms.model.JTBQueueDelta;
 import org.titou10.jtb.jms.model.JTBSession;
 import org.titou10.jtb.jms.model.JTBSessionClientType;
 import org.titou10.jtb.jms.model.JTBTopic;
+import org.titou10.jtb.jms.util.MessageSpool;
 import org.titou10.jtb.sessiontype.SessionTypeManager;
+import org.titou10.jtb.template.ArchiveStatistics;
 import org.titou10.jtb.template.TemplatesManager;
 import org.titou10.jtb.ui.JTBStatusReporter;
 import org.titou10.jtb.ui.dnd.TransferJTBMessage;
@@ -150,6 +171,11 @@ public class JTBSessionContentViewPart {
    private static final String  PAYLOAD_SEARCH_TOOLTIP   = "Filter messages with payload containing this text";
    private static final String  SELECTORS_SEARCH_TOOLTIP = "Filter messages with JMS selectors";
 
+   // Topic spool: first message shown in the table, or one of these special values
+   private static final long    SPOOL_WINDOW_LIVE        = -1;
+   private static final long    SPOOL_WINDOW_SEARCH      = -2;
+   private static final int     SPOOL_WINDOW_MAX         = 9999;
+
    @Inject
    private UISynchronize        sync;
 
@@ -239,6 +265,11 @@ public class JTBSessionContentViewPart {
             TabData td = (TabData) tabItem.getData();
             td.tableViewer.getTable().setFocus();
 
+            // Perform the auto refreshes skipped while the tab was hidden
+            if (td.autoRefreshTask != null) {
+               td.autoRefreshTask.resume();
+            }
+
             log.debug("CTabItem got focus: {}", td.type);
             // log.debug("CTabItem got focus: {}",td..);
 
@@ -623,17 +654,10 @@ public class JTBSessionContentViewPart {
             final CTabItem selectedTab = tabFolder.getSelection();
 
             if (selectedTab != null) {
-               AutoRefreshJob job = td.autoRefreshJob;
-               log.debug("job name={} state={}  auto refresh={}", job.getName(), job.getState(), td.autoRefreshActive);
-               if (job.getState() == Job.RUNNING) {
-                  job.cancel();
-                  try {
-                     if (!job.cancel()) {
-                        job.join();
-                     }
-                  } catch (InterruptedException ex) {
-                     log.warn("InterruptedException occurred", ex);
-                  }
+               AutoRefreshTask task = td.autoRefreshTask;
+               log.debug("auto refresh active={}", task.isActive());
+               if (task.isActive()) {
+                  task.stop();
                   td.autoRefreshActive = false;
                   btnAutoRefresh.setToolTipText("Set auto refresh");
                   btnAutoRefresh.setSelection(false);
@@ -648,9 +672,8 @@ public class JTBSessionContentViewPart {
                      btnAutoRefresh.setSelection(false);
                      return;
                   }
-                  job.setDelay(Long.valueOf(popup.getDelay()));
                   td.autoRefreshActive = true;
-                  job.schedule();
+                  task.start(popup.getDelay());
                   btnAutoRefresh.setSelection(true);
                   btnAutoRefresh.setToolTipText("Refreshing every " + popup.getDelay() + " seconds");
                }
@@ -798,12 +821,15 @@ public class JTBSessionContentViewPart {
             }
          }));
 
-         // Create periodic refresh Job
-         AutoRefreshJob job = new AutoRefreshJob(sync,
-                                                 eventBroker,
-                                                 "Auto refresh job. Messages for " + jtbQueueName,
-                                                 ps.getInt(Constants.PREF_AUTO_REFRESH_DELAY),
-                                                 jtbQueue);
+         // Create periodic refresh task. Only the differences are applied to the table
+         AutoRefreshTask task = new AutoRefreshTask(sync,
+                                                    "Auto refresh. Messages for " + jtbQueueName,
+                                                    jtbQueue.getJtbConnection(),
+                                                    () -> {
+                                                       eventBroker.send(Constants.EVENT_AUTO_REFRESH_QUEUE_MESSAGES, jtbQueue);
+                                                       return false;
+                                                    },
+                                                    () -> tabFolder.getSelection() == td.tabItem);
 
          // Intercept closing/hiding CTabItem : Remove the CTabItem for all the lists and cancel running job when closed
          tabItemQueue.addDisposeListener(new DisposeListener() {
@@ -811,8 +837,7 @@ public class JTBSessionContentViewPart {
             @Override
             public void widgetDisposed(DisposeEvent event) {
                log.debug("dispose CTabItem for Queue '{}'", jtbQueueName);
-               AutoRefreshJob job = td.autoRefreshJob;
-               job.cancel();
+               td.autoRefreshTask.stop();
 
                mapTabData.remove(computeCTabItemName(jtbQueue));
             }
@@ -835,7 +860,7 @@ public class JTBSessionContentViewPart {
 
          td.tabItem = tabItemQueue;
          td.tableViewer = tableViewer;
-         td.autoRefreshJob = job;
+         td.autoRefreshTask = task;
          td.autoRefreshActive = false; // Auto refresh = false on creation
          td.payloadSearchText = payloadSearchTextCombo;
          td.payloadSearchItemsHistory = new ArrayList<String>();
@@ -900,48 +925,23 @@ public class JTBSessionContentViewPart {
             int maxMessages = td.maxMessages == 0 ? Integer.MAX_VALUE : td.maxMessages;
 
             JTBConnection jtbConnection = jtbQueue.getJtbConnection();
-            Integer depth = jtbConnection.getQm().getQueueDepth(jtbConnection.getJmsConnection(), jtbQueue.getName());
+            Integer depth = jtbConnection.getQueueDepth(jtbQueue);
 
             nbMessage = 0;
 
             try {
-               List<JTBMessage> messages = new ArrayList<>(256);
-               messages = jtbQueue.getJtbConnection().browseQueue(jtbQueue, maxMessages, payloadSearchText, selectorsSearchText);
+               boolean headersOnly = ps.getBoolean(Constants.PREF_BROWSE_HEADERS_ONLY);
+               List<JTBMessage> messages = jtbQueue.getJtbConnection()
+                        .browseQueue(jtbQueue, maxMessages, payloadSearchText, selectorsSearchText, headersOnly);
 
                // Display # messages in tab title
-
-               Integer totalMessages = messages.size();
-               log.debug("Q Depth : {} Max : {} Nb msg to display : {}", depth, maxMessages, totalMessages);
-
-               StringBuilder sb = new StringBuilder(64);
-               sb.append(jtbQueue.getName());
-               sb.append(" (");
-               sb.append(totalMessages);
-               if (totalMessages >= maxMessages) {
-                  if (depth != null) {
-                     sb.append(" / ");
-                     sb.append(depth);
-                  } else {
-                     sb.append("+");
-                  }
-               }
-               sb.append(")");
-               CTabItem tabItem = td.tabItem;
-               tabItem.setText(sb.toString());
-
-               if (totalMessages >= maxMessages) {
-                  tabItem.setImage(SWTResourceManager.getImage(this.getClass(), "icons/error.png"));
-               } else {
-                  if (payloadSearchText.isEmpty() && selectorsSearchText.isEmpty()) {
-                     tabItem.setImage(null);
-                  } else {
-                     tabItem.setImage(SWTResourceManager.getImage(this.getClass(), "icons/filter.png"));
-                  }
-               }
+               updateQueueTabItem(td, messages.size(), maxMessages, depth, payloadSearchText, selectorsSearchText);
 
                tableViewer.setInput(messages);
+               td.browseCriteria = buildBrowseCriteria(td.maxMessages, payloadSearchText, selectorsSearchText, headersOnly);
 
             } catch (Throwable e) {
+               td.browseCriteria = null;
                jtbStatusReporter.showError("Problem while browsing queue", Utils.getCause(e), "");
                return;
             }
@@ -949,6 +949,118 @@ public class JTBSessionContentViewPart {
       });
    }
 
+   // Called by the auto refresh job: only read the messages not already shown and remove the ones that are gone
+   @Inject
+   @Optional
+   private void autoRefreshQueueMessageBrowser(final @UIEventTopic(Constants.EVENT_AUTO_REFRESH_QUEUE_MESSAGES) JTBQueue jtbQueue) {
+      if (!isThisEventForThisPart(jtbQueue)) {
+         return;
+      }
+
+      TabData td = mapTabData.get(computeCTabItemName(jtbQueue));
+      if ((td == null) || (td.tabItem.isDisposed())) {
+         return;
+      }
+
+      String payloadSearchText = td.payloadSearchText.getText().trim();
+      String selectorsSearchText = td.selectorsSearchTextCombo.getText().trim();
+      boolean headersOnly = ps.getBoolean(Constants.PREF_BROWSE_HEADERS_ONLY);
+
+      @SuppressWarnings("unchecked")
+      List<JTBMessage> messages = (List<JTBMessage>) td.tableViewer.getInput();
+
+      // The criteria changed since the last browse: browse the queue again
+      String criteria = buildBrowseCriteria(td.maxMessages, payloadSearchText, selectorsSearchText, headersOnly);
+      if ((messages == null) || (!criteria.equals(td.browseCriteria))) {
+         log.debug("autoRefreshQueueMessageBrowser: criteria changed for {}. Full refresh", jtbQueue);
+         eventBroker.send(Constants.EVENT_REFRESH_QUEUE_MESSAGES, jtbQueue);
+         return;
+      }
+
+      int maxMessages = td.maxMessages == 0 ? Integer.MAX_VALUE : td.maxMessages;
+
+      try {
+         Map<String, JTBMessage> messagesById = new HashMap<>(messages.size() * 2);
+         for (JTBMessage jtbMessage : messages) {
+            messagesById.put(jtbMessage.getJmsMessage().getJMSMessageID(), jtbMessage);
+         }
+
+         JTBConnection jtbConnection = jtbQueue.getJtbConnection();
+         Integer depth = jtbConnection.getQueueDepth(jtbQueue);
+         JTBQueueDelta delta = jtbConnection
+                  .browseQueueDelta(jtbQueue, maxMessages, payloadSearchText, selectorsSearchText, headersOnly, messagesById.keySet());
+         if (delta.isReloadRequired()) {
+            log.debug("autoRefreshQueueMessageBrowser: messages without id in {}. Full refresh", jtbQueue);
+            eventBroker.send(Constants.EVENT_REFRESH_QUEUE_MESSAGES, jtbQueue);
+            return;
+         }
+         log.debug("autoRefreshQueueMessageBrowser: {} added: {} removed: {}",
+                   jtbQueue,
+                   delta.getAddedMessages().size(),
+                   delta.getRemovedIds().size());
+
+         updateQueueTabItem(td, delta.getNbMessages(), maxMessages, depth, payloadSearchText, selectorsSearchText);
+
+         // Apply the differences to the list and to the table only, to keep the selection and the scroll position
+         if (!delta.getRemovedIds().isEmpty()) {
+            Set<JTBMessage> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (String id : delta.getRemovedIds()) {
+               removed.add(messagesById.get(id));
+            }
+            messages.removeIf(removed::contains);
+            td.tableViewer.remove(removed.toArray());
+         }
+         if (!delta.getAddedMessages().isEmpty()) {
+            messages.addAll(delta.getAddedMessages());
+            td.tableViewer.add(delta.getAddedMessages().toArray());
+         }
+
+      } catch (Throwable e) {
+         td.browseCriteria = null;
+         jtbStatusReporter.showError("Problem while browsing queue", Utils.getCause(e), "");
+         return;
+      }
+   }
+
+   private void updateQueueTabItem(TabData td,
+                                   int totalMessages,
+                                   int maxMessages,
+                                   Integer depth,
+                                   String payloadSearchText,
+                                   String selectorsSearchText) {
+      log.debug("Q Depth : {} Max : {} Nb msg to display : {}", depth, maxMessages, totalMessages);
+
+      StringBuilder sb = new StringBuilder(64);
+      sb.append(td.jtbDestination.getName());
+      sb.append(" (");
+      sb.append(totalMessages);
+      if (totalMessages >= maxMessages) {
+         if (depth != null) {
+            sb.append(" / ");
+            sb.append(depth);
+         } else {
+            sb.append("+");
+         }
+      }
+      sb.append(")");
+      CTabItem tabItem = td.tabItem;
+      tabItem.setText(sb.toString());
+
+      if (totalMessages >= maxMessages) {
+         tabItem.setImage(SWTResourceManager.getImage(this.getClass(), "icons/error.png"));
+      } else {
+         if (payloadSearchText.isEmpty() && selectorsSearchText.isEmpty()) {
+            tabItem.setImage(null);
+         } else {
+            tabItem.setImage(SWTResourceManager.getImage(this.getClass(), "icons/filter.png"));
+         }
+      }
+   }
+
+   private String buildBrowseCriteria(int maxMessages, String payloadSearchText, String selectorsSearchText, boolean headersOnly) {
+      return maxMessages + "\u0000" + payloadSearchText + "\u0000" + selectorsSearchText + "\u0000" + headersOnly;
+   }
+
    @SuppressWarnings("unchecked")
    private List<JTBMessage> buildListJTBMessagesSelected(IStructuredSelection selection) {
       return new ArrayList<JTBMessage>(selection.toList());
@@ -969,6 +1081,12 @@ public class JTBSessionContentViewPart {
 
       TabData td = mapTabData.get(computeCTabItemName(jtbTopic));
       td.topicMessages.clear();
+
+      // Start a new spool
+      if (td.topicSpool != null) {
+         closeSpool(td);
+         startSpool(td);
+      }
       td.tableViewer.refresh();
    }
 
@@ -983,9 +1101,14 @@ public class JTBSessionContentViewPart {
 
       TabData td = mapTabData.get(computeCTabItemName(jtbTopic));
 
+      // Messages shown from the spool are removed from the table only, the spool is append-only
+      Object shown = td.tableViewer.getInput();
       for (JTBMessage jtbMessage : messages) {
          log.debug("remove captured message {}", jtbMessage);
          td.topicMessages.remove(jtbMessage);
+         if (shown != td.topicMessages) {
+            ((Collection<?>) shown).remove(jtbMessage);
+         }
       }
 
       td.tableViewer.refresh();
@@ -1019,7 +1142,7 @@ public class JTBSessionContentViewPart {
          // -----------
          // Search Line
          // -----------
-         GridLayout glSearch = new GridLayout(5, false);
+         GridLayout glSearch = new GridLayout(10, false);
          glSearch.marginWidth = 0;
          glSearch.marginHeight = 0;
 
@@ -1051,6 +1174,31 @@ public class JTBSessionContentViewPart {
          btnStopStartSub.setLayoutData(new GridData(SWT.CENTER, SWT.CENTER, false, false, 1, 1));
          btnStopStartSub.setSelection(true);
 
+         // Spool: all the messages captured are written to disk, the table shows a window over them
+         final Button btnSpool = new Button(leftComposite, SWT.TOGGLE);
+         btnSpool.setImage(SWTResourceManager.getImage(this.getClass(), "icons/queue/page_white_stack.png"));
+         btnSpool.setToolTipText("Spool all the messages captured to disk");
+
+         final Button btnSpoolOlder = new Button(leftComposite, SWT.NONE);
+         btnSpoolOlder.setText("<");
+         btnSpoolOlder.setToolTipText("Show older messages from the spool");
+         btnSpoolOlder.setEnabled(false);
+
+         final Button btnSpoolNewer = new Button(leftComposite, SWT.NONE);
+         btnSpoolNewer.setText(">");
+         btnSpoolNewer.setToolTipText("Show newer messages from the spool");
+         btnSpoolNewer.setEnabled(false);
+
+         final Button btnSpoolActions = new Button(leftComposite, SWT.NONE);
+         btnSpoolActions.setImage(SWTResourceManager.getImage(this.getClass(), "icons/topics/newspaper_go.png"));
+         btnSpoolActions.setToolTipText("Search, export or replay the messages spooled");
+         btnSpoolActions.setEnabled(false);
+
+         final Label labelSpool = new Label(leftComposite, SWT.NONE);
+         GridData gdLabelSpool = new GridData(SWT.LEFT, SWT.CENTER, false, false, 1, 1);
+         gdLabelSpool.widthHint = 260;
+         labelSpool.setLayoutData(gdLabelSpool);
+
          // Separator
          Composite separatorComposite = new Composite(composite, SWT.NONE);
          separatorComposite.setLayout(new RowLayout());
@@ -1185,7 +1333,9 @@ public class JTBSessionContentViewPart {
          table.addKeyListener(KeyListener.keyReleasedAdapter(e -> {
             if (e.keyCode == 'a' && (e.stateMask & SWT.MODIFIER_MASK) == SWT.CTRL) {
                // Selection MUST be a List<>
-               IStructuredSelection selection = new StructuredSelection(new ArrayList<JTBMessage>(td.topicMessages));
+               @SuppressWarnings("unchecked")
+               Collection<JTBMessage> shown = (Collection<JTBMessage>) tableViewer.getInput();
+               IStructuredSelection selection = new StructuredSelection(new ArrayList<JTBMessage>(shown));
                tableViewer.setSelection(selection);
                return;
             }
@@ -1220,6 +1370,7 @@ public class JTBSessionContentViewPart {
                } catch (JMSException e) {
                   log.error("Exception when closing subscription", e);
                }
+               closeSpool(td);
                mapTabData.remove(computeCTabItemName(jtbTopic));
             }
          });
@@ -1240,6 +1391,7 @@ public class JTBSessionContentViewPart {
                                                                  selector,
                                                                  messages,
                                                                  td.maxMessages);
+                  setTopicListenerSpool(td2);
                   btnStopStartSub.setImage(SWTResourceManager.getImage(this.getClass(), "icons/topics/pause-16.png"));
                   btnStopStartSub.setToolTipText("Stop Subscription");
                   if (!selector.isEmpty()) {
@@ -1267,6 +1419,53 @@ public class JTBSessionContentViewPart {
             }
          }));
 
+         // Manage the spool
+         btnSpool.addSelectionListener(SelectionListener.widgetSelectedAdapter(e -> {
+            if (btnSpool.getSelection()) {
+               startSpool(td);
+            } else {
+               stopSpool(td);
+            }
+            boolean spoolActive = td.topicSpool != null;
+            btnSpool.setSelection(spoolActive);
+            btnSpoolOlder.setEnabled(spoolActive);
+            btnSpoolNewer.setEnabled(spoolActive);
+            btnSpoolActions.setEnabled(spoolActive);
+         }));
+
+         btnSpoolOlder.addSelectionListener(SelectionListener.widgetSelectedAdapter(e -> {
+            int size = getSpoolWindowSize(td);
+            long start = td.topicSpoolWindowStart < 0 ? td.topicSpool.getNbMessages() - (2L * size)
+                     : td.topicSpoolWindowStart - size;
+            showSpoolWindow(td, Math.max(0, start));
+         }));
+
+         btnSpoolNewer.addSelectionListener(SelectionListener.widgetSelectedAdapter(e -> {
+            int size = getSpoolWindowSize(td);
+            long start = td.topicSpoolWindowStart < 0 ? SPOOL_WINDOW_LIVE : td.topicSpoolWindowStart + size;
+            if (start + size >= td.topicSpool.getNbMessages()) {
+               start = SPOOL_WINDOW_LIVE;
+            }
+            showSpoolWindow(td, start);
+         }));
+
+         Menu menuSpool = new Menu(btnSpoolActions);
+         MenuItem menuItemSpoolSearch = new MenuItem(menuSpool, SWT.PUSH);
+         menuItemSpoolSearch.setText("Search...");
+         menuItemSpoolSearch.addSelectionListener(SelectionListener.widgetSelectedAdapter(e -> searchSpool(td)));
+         MenuItem menuItemSpoolExport = new MenuItem(menuSpool, SWT.PUSH);
+         menuItemSpoolExport.setText("Export to an archive...");
+         menuItemSpoolExport.addSelectionListener(SelectionListener.widgetSelectedAdapter(e -> exportSpool(td)));
+         MenuItem menuItemSpoolReplay = new MenuItem(menuSpool, SWT.PUSH);
+         menuItemSpoolReplay.setText("Send to a destination...");
+         menuItemSpoolReplay.addSelectionListener(SelectionListener.widgetSelectedAdapter(e -> replaySpool(td)));
+         btnSpoolActions.setMenu(menuSpool);
+         btnSpoolActions.addSelectionListener(SelectionListener.widgetSelectedAdapter(e -> {
+            Rectangle r = btnSpoolActions.getBounds();
+            menuSpool.setLocation(btnSpoolActions.getParent().toDisplay(r.x, r.y + r.height));
+            menuSpool.setVisible(true);
+         }));
+
          // --------
          // Set Data
          // --------
@@ -1290,6 +1489,8 @@ public class JTBSessionContentViewPart {
          td.topicMessages = messages;
          td.columnsSet = cs;
          td.selectorsSearchTextTopic = selectorsSearchText;
+         td.topicSpoolLabel = labelSpool;
+         td.topicSpoolWindowStart = SPOOL_WINDOW_LIVE;
 
          tabItemTopic.setData(td);
          mapTabData.put(currentCTabItemName, td);
@@ -1337,6 +1538,275 @@ public class JTBSessionContentViewPart {
       return jtbConnection.createTopicConsumer(jtbTopic, tl, selector);
    }
 
+   // --------------------
+   // Topic Spool Handling
+   // --------------------
+
+   private void startSpool(TabData td) {
+      try {
+         td.topicSpool = MessageSpool.create(td.jtbDestination.getName());
+      } catch (IOException e) {
+         String msg = "An Exception occured when creating the spool";
+         log.error(msg, e);
+         jtbStatusReporter.showError(msg, Utils.getCause(e), td.jtbDestination.getName());
+         return;
+      }
+      setTopicListenerSpool(td);
+      showSpoolWindow(td, SPOOL_WINDOW_LIVE);
+   }
+
+   private void stopSpool(TabData td) {
+      long nb = td.topicSpool.getNbMessages();
+      if ((nb > 0) && (!MessageDialog.openConfirm(tabFolder.getShell(),
+                                                  "Stop Spooling",
+                                                  String.format("The %,d messages spooled will be deleted. Continue?", nb)))) {
+         return;
+      }
+      closeSpool(td);
+      showSpoolWindow(td, SPOOL_WINDOW_LIVE);
+   }
+
+   private void closeSpool(TabData td) {
+      MessageSpool spool = td.topicSpool;
+      if (spool == null) {
+         return;
+      }
+      td.topicSpool = null;
+      setTopicListenerSpool(td);
+      spool.close();
+   }
+
+   // Give the current spool to the TopicListener of the subscription
+   private void setTopicListenerSpool(TabData td) {
+      if (td.topicMessageConsumer == null) {
+         return;
+      }
+      try {
+         TopicListener tl = (TopicListener) td.topicMessageConsumer.getMessageListener();
+         if (td.topicSpool == null) {
+            tl.setSpool(null, null);
+         } else {
+            tl.setSpool(td.topicSpool, () -> refreshSpoolLabel(td));
+         }
+      } catch (JMSException e) {
+         log.error("Exception when getting back the TopicListener", e);
+      }
+   }
+
+   private int getSpoolWindowSize(TabData td) {
+      return Math.min(td.maxMessages, SPOOL_WINDOW_MAX);
+   }
+
+   // Show the messages of the spool starting at "start", or the messages captured in memory
+   private void showSpoolWindow(TabData td, long start) {
+      if (start == SPOOL_WINDOW_LIVE) {
+         td.topicSpoolWindowStart = SPOOL_WINDOW_LIVE;
+         td.tableViewer.setInput(td.topicMessages);
+         refreshSpoolLabel(td);
+         return;
+      }
+
+      try {
+         List<JTBMessageTemplate> templates = td.topicSpool.read(start, getSpoolWindowSize(td));
+         td.topicSpoolWindowStart = start;
+         td.tableViewer.setInput(buildSpoolMessages(td, templates));
+      } catch (JMSException | IOException e) {
+         jtbStatusReporter.showError("An Exception occured when reading the spool", Utils.getCause(e), td.jtbDestination.getName());
+      }
+      refreshSpoolLabel(td);
+   }
+
+   // Newest first, as for the messages captured in memory
+   private List<JTBMessage> buildSpoolMessages(TabData td, List<JTBMessageTemplate> templates) throws JMSException {
+      List<JTBMessage> messages = new ArrayList<>(templates.size());
+      for (int i = templates.size() - 1; i >= 0; i--) {
+         messages.add(MessageSpool.toJTBMessage(td.jtbDestination, templates.get(i)));
+      }
+      return messages;
+   }
+
+   private void refreshSpoolLabel(TabData td) {
+      if ((td.topicSpoolLabel == null) || (td.topicSpoolLabel.isDisposed())) {
+         return;
+      }
+      MessageSpool spool = td.topicSpool;
+      if (spool == null) {
+         td.topicSpoolLabel.setText("");
+         return;
+      }
+
+      String window;
+      if (td.topicSpoolWindowStart == SPOOL_WINDOW_LIVE) {
+         window = "showing last messages";
+      } else if (td.topicSpoolWindowStart == SPOOL_WINDOW_SEARCH) {
+         window = "showing search results";
+      } else {
+         window = String.format("showing from #%,d", td.topicSpoolWindowStart + 1);
+      }
+      td.topicSpoolLabel.setText(String.format("Spool: %,d msgs, %,d KB, %s",
+                                               spool.getNbMessages(),
+                                               spool.getNbBytes() / 1024,
+                                               window));
+   }
+
+   private void searchSpool(TabData td) {
+      InputDialog inputDialog = new InputDialog(tabFolder.getShell(),
+                                                "Search the Spool",
+                                                "Text to search in the payload, the JMS headers and the properties of the messages spooled:",
+                                                "",
+                                                null);
+      if (inputDialog.open() != Window.OK) {
+         return;
+      }
+      String text = inputDialog.getValue();
+      if (Utils.isEmpty(text)) {
+         return;
+      }
+
+      MessageSpool spool = td.topicSpool;
+      int max = getSpoolWindowSize(td);
+      List<JTBMessageTemplate> hits = new ArrayList<>();
+      try {
+         new ProgressMonitorDialog(tabFolder.getShell()).run(true, true, monitor -> {
+            monitor.beginTask("Searching '" + text + "' in the spool...", (int) Math.min(spool.getNbMessages(), Integer.MAX_VALUE));
+            try {
+               spool.scan(0, (sequence, template) -> {
+                  monitor.worked(1);
+                  if (spoolMessageContains(template, text)) {
+                     hits.add(template);
+                  }
+                  return (hits.size() < max) && (!monitor.isCanceled());
+               });
+            } catch (IOException e) {
+               throw new InvocationTargetException(e);
+            }
+            monitor.done();
+         });
+         td.topicSpoolWindowStart = SPOOL_WINDOW_SEARCH;
+         td.tableViewer.setInput(buildSpoolMessages(td, hits));
+      } catch (InvocationTargetException | JMSException e) {
+         jtbStatusReporter.showError("Problem occurred while searching the spool", Utils.getCause(e), td.jtbDestination.getName());
+      } catch (InterruptedException e) {
+         // Not thrown by the runnable
+      }
+      refreshSpoolLabel(td);
+   }
+
+   private boolean spoolMessageContains(JTBMessageTemplate t, String text) {
+      if (contains(t.getPayloadText(), text) || contains(t.getJmsMessageID(), text) || contains(t.getJmsCorrelationID(), text)
+          || contains(t.getJmsType(), text)) {
+         return true;
+      }
+      if (t.getPayloadMap() != null) {
+         for (Map.Entry<String, Object> e : t.getPayloadMap().entrySet()) {
+            if (contains(e.getKey(), text) || contains(String.valueOf(e.getValue()), text)) {
+               return true;
+            }
+         }
+      }
+      if (t.getJtbProperties() != null) {
+         for (JTBProperty p : t.getJtbProperties()) {
+            if (contains(p.getName(), text) || contains(String.valueOf(p.getValue()), text)) {
+               return true;
+            }
+         }
+      }
+      return false;
+   }
+
+   private boolean contains(String s, String text) {
+      return (s != null) && (s.contains(text));
+   }
+
+   private void exportSpool(TabData td) {
+      Shell shell = tabFolder.getShell();
+
+      FileDialog fileDialog = new FileDialog(shell, SWT.SAVE);
+      fileDialog.setText("Specify a name for the archive file");
+      fileDialog.setFilterExtensions(new String[] { Constants.JTB_TEMPLATE_ARCHIVE_FILE_EXTENSION });
+      fileDialog.setFileName(td.jtbDestination.getName() + ".zip");
+      fileDialog.setOverwrite(true);
+      String archiveFileName = fileDialog.open();
+      if (archiveFileName == null) {
+         return;
+      }
+
+      MessageSpool spool = td.topicSpool;
+      File archiveFile = new File(archiveFileName);
+      AtomicReference<ArchiveStatistics> stats = new AtomicReference<>();
+      try {
+         new ProgressMonitorDialog(shell).run(true, true, monitor -> {
+            try {
+               stats.set(templatesManager.dumpSpoolToArchive(monitor, spool, archiveFile, true));
+            } catch (Exception e) {
+               throw new InvocationTargetException(e);
+            }
+         });
+      } catch (InvocationTargetException e) {
+         jtbStatusReporter.showError("Problem occurred while exporting the spool", Utils.getCause(e), td.jtbDestination.getName());
+         return;
+      } catch (InterruptedException e) {
+         // Not thrown by the runnable
+         return;
+      }
+
+      ArchiveStatistics s = stats.get();
+      if (s.isCancelled()) {
+         MessageDialog.openWarning(shell, "Cancelled", "Process cancelled. Messages exported so far:\n" + s);
+      } else {
+         MessageDialog.openInformation(shell, "Success", "Messages exported to '" + archiveFileName + "':\n" + s);
+      }
+   }
+
+   private void replaySpool(TabData td) {
+      Shell shell = tabFolder.getShell();
+
+      MessageSpool spool = td.topicSpool;
+      SpoolReplayDialog dialog = new SpoolReplayDialog(shell,
+                                                       td.jtbDestination.getJtbConnection(),
+                                                       td.jtbDestination.getName(),
+                                                       spool.getNbMessages(),
+                                                       ps.getInt(Constants.PREF_MOVE_COPY_BATCH_SIZE));
+      if (dialog.open() != Window.OK) {
+         return;
+      }
+
+      JTBDestination targetJTBDestination = dialog.getJtbDestination();
+      int batchSize = dialog.getBatchSize();
+      int maxRate = dialog.getMaxRate();
+
+      AtomicReference<ArchiveStatistics> stats = new AtomicReference<>();
+      try {
+         new ProgressMonitorDialog(shell).run(true, true, monitor -> {
+            try {
+               stats.set(templatesManager.replaySpoolToDestination(monitor, spool, targetJTBDestination, batchSize, maxRate));
+            } catch (Exception e) {
+               throw new InvocationTargetException(e);
+            }
+         });
+      } catch (InvocationTargetException e) {
+         jtbStatusReporter.showError("Problem occurred while sending the messages",
+                                     Utils.getCause(e),
+                                     targetJTBDestination.getName());
+         return;
+      } catch (InterruptedException e) {
+         // Not thrown by the runnable
+         return;
+      }
+
+      // Refresh List if the destination is browsable
+      if ((targetJTBDestination.isJTBQueue()) && (targetJTBDestination.getAsJTBQueue().isBrowsable())) {
+         eventBroker.send(Constants.EVENT_REFRESH_QUEUE_MESSAGES, targetJTBDestination);
+      }
+
+      ArchiveStatistics s = stats.get();
+      if (s.isCancelled()) {
+         MessageDialog.openWarning(shell, "Cancelled", "Process cancelled. Messages sent so far:\n" + s);
+      } else {
+         MessageDialog.openInformation(shell, "Success", "Messages sent to '" + targetJTBDestination.getName() + "':\n" + s);
+      }
+   }
+
    // -----------------------
    // Synthetic View Handling
    // -----------------------
@@ -1434,17 +1904,10 @@ public class JTBSessionContentViewPart {
             final CTabItem selectedTab = tabFolder.getSelection();
 
             if (selectedTab != null) {
-               AutoRefreshJob job = td.autoRefreshJob;
-               log.debug("job name={} state={}  auto refresh={}", job.getName(), job.getState(), td.autoRefreshActive);
-               if (job.getState() == Job.RUNNING) {
-                  job.cancel();
-                  try {
-                     if (!job.cancel()) {
-                        job.join();
-                     }
-                  } catch (InterruptedException ex) {
-                     log.warn("InterruptedException occurred", e);
-                  }
+               AutoRefreshTask task = td.autoRefreshTask;
+               log.debug("auto refresh active={}", task.isActive());
+               if (task.isActive()) {
+                  task.stop();
                   td.autoRefreshActive = false;
                   btnAutoRefresh.setToolTipText("Set auto refresh");
                   btnAutoRefresh.setSelection(false);
@@ -1459,9 +1922,8 @@ public class JTBSessionContentViewPart {
                      btnAutoRefresh.setSelection(false);
                      return;
                   }
-                  job.setDelay(Long.valueOf(popup.getDelay()));
                   td.autoRefreshActive = true;
-                  job.schedule();
+                  task.start(popup.getDelay());
                   btnAutoRefresh.setSelection(true);
                   btnAutoRefresh.setToolTipText("Refreshing every " + popup.getDelay() + " seconds");
                }
@@ -1530,6 +1992,50 @@ public class JTBSessionContentViewPart {
             }
          });
 
+         // Columns computed from the depth history
+
+         col = createTableViewerColumn(tableViewer, "In msg/s", 70, SWT.RIGHT);
+         tabCol = col.getColumn();
+         tabCol.setToolTipText("Estimated enqueue rate, from the increases of depth between two refreshes");
+         tabCol.addSelectionListener(buildQueueDepthSelectionAdapter(tableViewer, viewerComparator, tabCol, 3));
+         col.setLabelProvider(new ColumnLabelProvider() {
+            @Override
+            public String getText(Object element) {
+               QueueWithDepth p = (QueueWithDepth) element;
+               return formatRate(p.enqueueRate);
+            }
+         });
+
+         col = createTableViewerColumn(tableViewer, "Out msg/s", 70, SWT.RIGHT);
+         tabCol = col.getColumn();
+         tabCol.setToolTipText("Estimated dequeue rate, from the decreases of depth between two refreshes");
+         tabCol.addSelectionListener(buildQueueDepthSelectionAdapter(tableViewer, viewerComparator, tabCol, 4));
+         col.setLabelProvider(new ColumnLabelProvider() {
+            @Override
+            public String getText(Object element) {
+               QueueWithDepth p = (QueueWithDepth) element;
+               return formatRate(p.dequeueRate);
+            }
+         });
+
+         col = createTableViewerColumn(tableViewer, "Trend", 130, SWT.NONE);
+         tabCol = col.getColumn();
+         tabCol.setToolTipText("Depth over the last " + QueueDepthHistory.CAPACITY + " refreshes. Sorted by the net rate");
+         tabCol.addSelectionListener(buildQueueDepthSelectionAdapter(tableViewer, viewerComparator, tabCol, 5));
+         col.setLabelProvider(new SparklineLabelProvider());
+
+         col = createTableViewerColumn(tableViewer, "Time to Drain", 90, SWT.RIGHT);
+         tabCol = col.getColumn();
+         tabCol.setToolTipText("Estimated time before the queue is empty, at the current net rate");
+         tabCol.addSelectionListener(buildQueueDepthSelectionAdapter(tableViewer, viewerComparator, tabCol, 6));
+         col.setLabelProvider(new ColumnLabelProvider() {
+            @Override
+            public String getText(Object element) {
+               QueueWithDepth p = (QueueWithDepth) element;
+               return formatDuration(p.timeToDrainSecs);
+            }
+         });
+
          // Manage selections
          tableViewer.addSelectionChangedListener(new ISelectionChangedListener() {
             public void selectionChanged(SelectionChangedEvent event) {
@@ -1571,13 +2077,6 @@ public class JTBSessionContentViewPart {
          // Attach the Popup Menu
          menuService.registerContextMenu(table, Constants.SYNTHETIC_VIEW_POPUP_MENU);
 
-         // Create periodic refresh Job
-         AutoRefreshJob job = new AutoRefreshJob(sync,
-                                                 eventBroker,
-                                                 "Auto refresh job. Queue Depth for " + jtbSessionName,
-                                                 ps.getInt(Constants.PREF_AUTO_REFRESH_DELAY),
-                                                 jtbSession);
-
          // Create Queue Depth collection Job
          CollectQueueDepthJob cqdj = new CollectQueueDepthJob(sync,
                                                               "Collect Queue Depth job for " + jtbSessionName,
@@ -1586,14 +2085,29 @@ public class JTBSessionContentViewPart {
                                                               tabItemSynthetic,
                                                               tabItemSynthetic.getText());
 
+         // Create periodic refresh task. The refresh ends when the collection job ends
+         AutoRefreshTask task = new AutoRefreshTask(sync,
+                                                    "Auto refresh. Queue Depth for " + jtbSessionName,
+                                                    jtbSession.getJTBConnection(JTBSessionClientType.GUI),
+                                                    () -> {
+                                                       eventBroker.send(Constants.EVENT_REFRESH_SESSION_SYNTHETIC_VIEW, jtbSession);
+                                                       return cqdj.getState() != Job.NONE;
+                                                    },
+                                                    () -> tabFolder.getSelection() == td.tabItem);
+         cqdj.addJobChangeListener(new JobChangeAdapter() {
+            @Override
+            public void done(IJobChangeEvent event) {
+               task.refreshDone();
+            }
+         });
+
          // Intercept closing/hiding CTabItem : Remove the CTabItem for all the lists and cancel running job when closed
          tabItemSynthetic.addDisposeListener(new DisposeListener() {
 
             @Override
             public void widgetDisposed(DisposeEvent event) {
                log.debug("dispose CTabItem for Synthetic View for Session '{}'", jtbSessionName);
-               AutoRefreshJob job = td.autoRefreshJob;
-               job.cancel();
+               td.autoRefreshTask.stop();
 
                mapTabData.remove(computeCTabItemName(jtbSession));
             }
@@ -1616,7 +2130,7 @@ public class JTBSessionContentViewPart {
 
          td.tabItem = tabItemSynthetic;
          td.tableViewer = tableViewer;
-         td.autoRefreshJob = job;
+         td.autoRefreshTask = task;
          td.autoRefreshActive = false; // Auto refresh = false on creation
          td.collectQueueDepthJob = cqdj;
          td.filterText = filterText;
@@ -1655,11 +2169,7 @@ public class JTBSessionContentViewPart {
       } else {
          ps.putValue(prefKey, filter);
       }
-      try {
-         ps.save();
-      } catch (IOException e) {
-         log.error("IOException when saving preferences", e);
-      }
+      ps.saveLater();
 
       // Hide non browsable Queue if set in preference
       if (!(ps.getBoolean(Constants.PREF_SHOW_NON_BROWSABLE_Q))) {
@@ -1837,4 +2347,80 @@ public class JTBSessionContentViewPart {
    private Color getBackGroundColor() {
       return sessionTypeManager.getBackgroundColorForSessionTypeName(sessionDef.getSessionType());
    }
+
+   private static String formatRate(Double rate) {
+      return rate == null ? "-" : String.format("%.1f", rate);
+   }
+
+   private static String formatDuration(Long secs) {
+      if (secs == null) {
+         return "-";
+      }
+      if (secs < 60) {
+         return secs + "s";
+      }
+      if (secs < 3600) {
+         return String.format("%dm %02ds", secs / 60, secs % 60);
+      }
+      if (secs < 86400) {
+         return String.format("%dh %02dm", secs / 3600, (secs % 3600) / 60);
+      }
+      return String.format("%dd %02dh", secs / 86400, (secs % 86400) / 3600);
+   }
+
+   // Draw the depth history as a line, red when the queue is growing, green when it is draining
+   private static final class SparklineLabelProvider extends OwnerDrawLabelProvider {
+      private static final int MARGIN = 3;
+      private static final int WIDTH  = 120;
+
+      @Override
+      protected void measure(Event event, Object element) {
+         // Fixed width when the column is packed, standard row height
+         event.width = WIDTH;
+      }
+
+      @Override
+      protected void paint(Event event, Object element) {
+         QueueWithDepth p = (QueueWithDepth) element;
+         int[] depths = p.depthHistory;
+         if (depths.length < 2) {
+            return;
+         }
+
+         Table table = (Table) event.widget;
+         int width = table.getColumn(event.index).getWidth() - (2 * MARGIN);
+         int height = event.height - (2 * MARGIN);
+         if ((width <= 0) || (height <= 0)) {
+            return;
+         }
+
+         int min = Integer.MAX_VALUE;
+         int max = Integer.MIN_VALUE;
+         for (int d : depths) {
+            min = Math.min(min, d);
+            max = Math.max(max, d);
+         }
+         double range = Math.max(1, max - min);
+
+         // Points are spread over the whole capacity, so that the line grows from the left
+         int[] points = new int[depths.length * 2];
+         for (int i = 0; i < depths.length; i++) {
+            points[i * 2] = event.x + MARGIN + (int) ((long) i * width / (QueueDepthHistory.CAPACITY - 1));
+            points[(i * 2) + 1] = event.y + MARGIN + height - (int) ((depths[i] - min) * height / range);
+         }
+
+         int color = SWT.COLOR_DARK_GRAY;
+         if (depths[depths.length - 1] > depths[0]) {
+            color = SWT.COLOR_DARK_RED;
+         } else if (depths[depths.length - 1] < depths[0]) {
+            color = SWT.COLOR_DARK_GREEN;
+         }
+
+         Color oldColor = event.gc.getForeground();
+         event.gc.setForeground(event.display.getSystemColor(color));
+         event.gc.setAntialias(SWT.ON);
+         event.gc.drawPolyline(points);
+         event.gc.setForeground(oldColor);
+      }
+   }
 }
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.ui.part.content;
+
+/**
+ * Last depth samples of a queue, kept in fixed size primitive ring buffers.<br>
+ * Only the depth is known, so the enqueue/dequeue rates are estimated from the positive/negative variations between two samples
+ * and are lower bounds of the real rates
+ * 
+ * @author Denis Forveille
+ *
+ */
+final class QueueDepthHistory {
+
+   static final int     CAPACITY   = 60;
+
+   private final long[] timestamps = new long[CAPACITY];
+   private final int[]  depths     = new int[CAPACITY];
+   private int          head;                           // Next slot to write
+   private int          size;
+
+   void add(long timestamp, int depth) {
+      timestamps[head] = timestamp;
+      depths[head] = depth;
+      head = (head + 1) % CAPACITY;
+      if (size < CAPACITY) {
+         size++;
+      }
+   }
+
+   // Depths, oldest first
+   int[] getDepths() {
+      int[] res = new int[size];
+      int start = (head - size + CAPACITY) % CAPACITY;
+      for (int i = 0; i < size; i++) {
+         res[i] = depths[(start + i) % CAPACITY];
+      }
+      return res;
+   }
+
+   // Estimated messages/s added to the queue over the window
+   Double getEnqueueRate() {
+      return rate(true);
+   }
+
+   // Estimated messages/s removed from the queue over the window
+   Double getDequeueRate() {
+      return rate(false);
+   }
+
+   // Variation of the depth in messages/s over the window. Negative when the queue is draining
+   Double getNetRate() {
+      if (size < 2) {
+         return null;
+      }
+      double elapsedSecs = (timestamps[index(size - 1)] - timestamps[index(0)]) / 1000d;
+      if (elapsedSecs <= 0) {
+         return null;
+      }
+      return (depths[index(size - 1)] - depths[index(0)]) / elapsedSecs;
+   }
+
+   // Estimated number of seconds before the queue is empty, at the current net rate. null if the queue is not draining
+   Long getTimeToDrainSecs() {
+      if (size == 0) {
+         return null;
+      }
+      int lastDepth = depths[index(size - 1)];
+      if (lastDepth == 0) {
+         return 0L;
+      }
+      Double netRate = getNetRate();
+      if ((netRate == null) || (netRate >= 0)) {
+         return null;
+      }
+      return (long) Math.ceil(lastDepth / -netRate);
+   }
+
+   // -------
+   // Helpers
+   // -------
+
+   // Index in the buffers of the i-th sample, 0 being the oldest
+   private int index(int i) {
+      return (head - size + i + CAPACITY) % CAPACITY;
+   }
+
+   private Double rate(boolean positive) {
+      if (size < 2) {
+         return null;
+      }
+      long total = 0;
+      for (int i = 1; i < size; i++) {
+         int delta = depths[index(i)] - depths[index(i - 1)];
+         if ((positive && (delta > 0)) || (!positive && (delta < 0))) {
+            total += Math.abs(delta);
+         }
+      }
+      double elapsedSecs = (timestamps[index(size - 1)] - timestamps[index(0)]) / 1000d;
+      if (elapsedSecs <= 0) {
+         return null;
+      }
+      return total / elapsedSecs;
+   }
+}
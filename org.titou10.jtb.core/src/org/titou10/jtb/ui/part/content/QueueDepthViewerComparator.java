@@ -69,6 +69,18 @@ public class QueueDepthViewerComparator extends ViewerComparator {
             rc = qwd1.firstMessageTimestamp == null ? -1
                      : qwd2.firstMessageTimestamp == null ? 1 : qwd1.firstMessageTimestamp.compareTo(qwd2.firstMessageTimestamp);
             break;
+         case 3:
+            rc = compareNullable(qwd1.enqueueRate, qwd2.enqueueRate);
+            break;
+         case 4:
+            rc = compareNullable(qwd1.dequeueRate, qwd2.dequeueRate);
+            break;
+         case 5:
+            rc = compareNullable(qwd1.netRate, qwd2.netRate);
+            break;
+         case 6:
+            rc = compareNullable(qwd1.timeToDrainSecs, qwd2.timeToDrainSecs);
+            break;
          default:
             rc = 0;
       }
@@ -79,4 +91,11 @@ public class QueueDepthViewerComparator extends ViewerComparator {
       return rc;
    }
 
+   private <T extends Comparable<T>> int compareNullable(T v1, T v2) {
+      if (v1 == null) {
+         return v2 == null ? 0 : -1;
+      }
+      return v2 == null ? 1 : v1.compareTo(v2);
+   }
+
 }
@@ -32,10 +32,27 @@ final class QueueWithDepth {
    Integer  depth;
    Date     firstMessageTimestamp;
 
-   QueueWithDepth(JTBQueue jtbQueue, Integer depth, Date firstMessageTimestamp) {
+   // Computed from the depth history
+   Double   enqueueRate;
+   Double   dequeueRate;
+   Double   netRate;
+   Long     timeToDrainSecs;
+   int[]    depthHistory;
+
+   QueueWithDepth(JTBQueue jtbQueue, Integer depth, Date firstMessageTimestamp, QueueDepthHistory history) {
       this.jtbQueue = jtbQueue;
       this.depth = depth;
       this.firstMessageTimestamp = firstMessageTimestamp;
+
+      if (history == null) {
+         this.depthHistory = new int[0];
+      } else {
+         this.enqueueRate = history.getEnqueueRate();
+         this.dequeueRate = history.getDequeueRate();
+         this.netRate = history.getNetRate();
+         this.timeToDrainSecs = history.getTimeToDrainSecs();
+         this.depthHistory = history.getDepths();
+      }
    }
 
 }
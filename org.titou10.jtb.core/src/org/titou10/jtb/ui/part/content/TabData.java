@@ -25,11 +25,13 @@ import org.eclipse.jface.viewers.TableViewer;
 import org.eclipse.jface.viewers.TableViewerColumn;
 import org.eclipse.swt.custom.CTabItem;
 import org.eclipse.swt.widgets.Combo;
+import org.eclipse.swt.widgets.Label;
 import org.eclipse.swt.widgets.Text;
 import org.titou10.jtb.cs.gen.ColumnsSet;
 import org.titou10.jtb.jms.model.JTBDestination;
 import org.titou10.jtb.jms.model.JTBMessage;
 import org.titou10.jtb.jms.model.JTBSession;
+import org.titou10.jtb.jms.util.MessageSpool;
 
 /**
  * Hold all information to the destination shown in a tab in the JTBSEssionContentViewPart
@@ -59,15 +61,21 @@ final class TabData {
    List<String>            selectorsSearchItemsHistory;
 
    // Queues specifics
-   AutoRefreshJob          autoRefreshJob;
+   AutoRefreshTask         autoRefreshTask;
    boolean                 autoRefreshActive;
 
+   // Criteria of the last full browse. Auto refreshes with the same criteria only apply the differences
+   String                  browseCriteria;
+
    CollectQueueDepthJob    collectQueueDepthJob;
 
    // Topic specifics
    Deque<JTBMessage>       topicMessages;
    int                     maxMessages;
    MessageConsumer         topicMessageConsumer;
+   MessageSpool            topicSpool;
+   long                    topicSpoolWindowStart;
+   Label                   topicSpoolLabel;
 
    // Synthetic View Specific
    Text                    filterText;
@@ -101,8 +109,8 @@ final class TabData {
       builder.append(tabItem);
       builder.append(", tableViewer=");
       builder.append(tableViewer);
-      builder.append(", autoRefreshJob=");
-      builder.append(autoRefreshJob);
+      builder.append(", autoRefreshTask=");
+      builder.append(autoRefreshTask);
       builder.append(", autoRefreshActive=");
       builder.append(autoRefreshActive);
       builder.append(", topicMessages=");
@@ -16,6 +16,7 @@
  */
 package org.titou10.jtb.ui.part.content;
 
+import java.io.IOException;
 import java.util.Deque;
 
 import javax.jms.JMSException;
@@ -29,10 +30,14 @@ import org.eclipse.wb.swt.SWTResourceManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.titou10.jtb.jms.model.JTBMessage;
+import org.titou10.jtb.jms.model.JTBMessageTemplate;
 import org.titou10.jtb.jms.model.JTBTopic;
+import org.titou10.jtb.jms.util.MessageSpool;
 
 /**
- * MessageListener to capture messages published to a topic
+ * MessageListener to capture messages published to a topic<br>
+ * The last "maxSize" messages are kept in memory. When a spool is set, all the messages are also written to it, from the thread of
+ * the provider
  * 
  * @author Denis Forveille
  *
@@ -49,6 +54,9 @@ public final class TopicListener implements MessageListener {
    private final Deque<JTBMessage> messages;
    private int                     maxSize;
    private boolean                 selectorInUse;
+
+   private volatile MessageSpool   spool;
+   private volatile Runnable       spoolRefresher;
    // private Session jmsAsynchronousSession;
 
    public TopicListener(UISynchronize sync,
@@ -76,8 +84,23 @@ public final class TopicListener implements MessageListener {
       this.maxSize = maxSize;
    }
 
+   // Start (spool not null) or stop spooling. "spoolRefresher" is called in the UI thread after each message spooled
+   public void setSpool(MessageSpool spool, Runnable spoolRefresher) {
+      this.spoolRefresher = spoolRefresher;
+      this.spool = spool;
+   }
+
    @Override
    public void onMessage(final Message jmsMessage) {
+      final MessageSpool s = spool;
+      if (s != null) {
+         try {
+            s.append(new JTBMessageTemplate(new JTBMessage(jtbTopic, jmsMessage)));
+         } catch (JMSException | IOException e) {
+            log.error("Exception occurred when spooling a message", e);
+         }
+      }
+
       sync.asyncExec(new Runnable() {
          @Override
          public void run() {
@@ -111,6 +134,11 @@ public final class TopicListener implements MessageListener {
             if (!(tableViewer.getTable().isDisposed())) {
                tableViewer.refresh();
             }
+
+            Runnable r = spoolRefresher;
+            if ((s != null) && (r != null)) {
+               r.run();
+            }
          }
       });
    }
@@ -62,6 +62,7 @@ public final class Constants {
    public static final String   JTB_TEMPLATE_CONFIG_FILE_NAME              = "templates.xml";
    public static final String   JTB_TEMPLATE_CONFIG_FILE_EXTENSION         = "*.xml";
    public static final String   JTB_TEMPLATE_FILE_EXTENSION                = ".jtb";
+   public static final String   JTB_TEMPLATE_ARCHIVE_FILE_EXTENSION        = "*.zip";
 
    public static final String   JTB_SCRIPTS_FOLDER_NAME                    = "Scripts";
    public static final String   JTB_SCRIPT_CONFIG_FILE_NAME                = "scripts.xml";
@@ -88,10 +89,20 @@ public final class Constants {
    public static final boolean  PREF_TRUST_ALL_CERTIFICATES_DEFAULT        = false;
    public static final String   PREF_CLEAR_LOGS_EXECUTION                  = "clear.logs.execution";
    public static final boolean  PREF_CLEAR_LOGS_EXECUTION_DEFAULT          = false;
+   public static final String   PREF_SCRIPT_LOG_MAX_ENTRIES                = "script.log.max.entries";
+   public static final int      PREF_SCRIPT_LOG_MAX_ENTRIES_DEFAULT        = 5000;
+   public static final String   PREF_SCRIPT_LOG_OVERFLOW_FILE              = "script.log.overflow.file";
+   public static final boolean  PREF_SCRIPT_LOG_OVERFLOW_FILE_DEFAULT      = false;
+   public static final String   PREF_SCRIPT_ASYNC_SEND                     = "script.async.send";
+   public static final boolean  PREF_SCRIPT_ASYNC_SEND_DEFAULT             = false;
+   public static final String   PREF_ASYNC_SEND_MAX_IN_FLIGHT              = "async.send.max.in.flight";
+   public static final int      PREF_ASYNC_SEND_MAX_IN_FLIGHT_DEFAULT      = 1000;
    public static final String   PREF_MAX_MESSAGES_TOPIC                    = "max.messages.topic";
    public static final int      PREF_MAX_MESSAGES_TOPIC_DEFAULT            = 100;
    public static final String   PREF_CONN_CLIENT_ID_PREFIX                 = "connection.client.id.prefix";
    public static final String   PREF_CONN_CLIENT_ID_PREFIX_DEFAULT         = "JMSToolBox";
+   public static final String   PREF_CONN_TIMEOUT                          = "connection.timeout";
+   public static final int      PREF_CONN_TIMEOUT_DEFAULT                  = 30;
    public static final String   PREF_XML_INDENT                            = "xml.indent";
    public static final int      PREF_XML_INDENT_DEFAULT                    = 3;
    public static final String   PREF_SYNCHRONIZE_SESSIONS_MESSAGES         = "synchronize.sessions.messages";
@@ -102,6 +113,10 @@ public final class Constants {
    public static final boolean  PREF_AUTO_RESIZE_COLS_BROWSER_DEFAULT      = false;
    public static final String   PREF_EDIT_MESSAGE_DND                      = "message.browser.edit.message.dnd";
    public static final boolean  PREF_EDIT_MESSAGE_DND_DEFAULT              = false;
+   public static final String   PREF_BROWSE_HEADERS_ONLY                   = "message.browser.headers.only";
+   public static final boolean  PREF_BROWSE_HEADERS_ONLY_DEFAULT           = false;
+   public static final String   PREF_MOVE_COPY_BATCH_SIZE                  = "message.move.copy.batch.size";
+   public static final int      PREF_MOVE_COPY_BATCH_SIZE_DEFAULT          = 500;
    public static final String   PREF_COLUMNSSET_DEFAULT_NAME               = "columnsset.default.name";
 
    public static final String   PREF_COLUMNSSET_DEFAULT_DEST_PREFIX        = "columnsset.default.dest.prefix.";
@@ -155,6 +170,7 @@ public final class Constants {
    public static final String   EVENT_JTBMESSAGE_PART_REFRESH              = EVENT_BASE + "jtbmessage_refresh";
    public static final String   EVENT_REFRESH_SESSION_SYNTHETIC_VIEW       = EVENT_BASE + "refresh_session_synthetic_view";
    public static final String   EVENT_REFRESH_QUEUE_MESSAGES               = EVENT_BASE + "refresh_queue_messages";
+   public static final String   EVENT_AUTO_REFRESH_QUEUE_MESSAGES          = EVENT_BASE + "auto_refresh_queue_messages";
    public static final String   EVENT_REFRESH_TOPIC_SHOW_MESSAGES          = EVENT_BASE + "refresh_topic_show_messages";
    public static final String   EVENT_TOPIC_CLEAR_MESSAGES                 = EVENT_BASE + "topic_clear_messages";
    public static final String   EVENT_TOPIC_REMOVE_MESSAGES                = EVENT_BASE + "topic_remove_messages";
@@ -183,11 +199,15 @@ public final class Constants {
 
    public static final String   COMMAND_QM_CONFIGURE                       = BASE_COMMAND + "qm.configure";
    public static final String   COMMAND_QUEUE_BROWSE                       = BASE_COMMAND + "queue.browse";
+   public static final String   COMMAND_QUEUE_DUMP                         = BASE_COMMAND + "queue.dump";
+   public static final String   COMMAND_QUEUE_MOVE_COPY                    = BASE_COMMAND + "queue.movecopy";
 
    public static final String   COMMAND_SESSION_CONNECT                    = BASE_COMMAND + "session.connect";
+   public static final String   COMMAND_SESSION_CONNECT_ALL                = BASE_COMMAND + "session.connect.all";
    public static final String   COMMAND_SESSION_DISCONNECT                 = BASE_COMMAND + "session.disconnect";
    public static final String   COMMAND_SESSION_RESCAN                     = BASE_COMMAND + "session.rescan";
    public static final String   COMMAND_SESSION_REMOVE                     = BASE_COMMAND + "session.remove";
+   public static final String   COMMAND_SESSION_SEARCH                     = BASE_COMMAND + "session.search";
    public static final String   COMMAND_SESSION_SYNTHETIC_VIEW             = BASE_COMMAND + "session.synthetic.view";
 
    public static final String   COMMAND_TOPIC_SUBSCRIBE                    = BASE_COMMAND + "topic.subscribe";
@@ -204,6 +224,7 @@ public final class Constants {
 
    public static final String   COMMAND_MESSAGE_SEND                       = BASE_COMMAND + "message.send";
    public static final String   COMMAND_MESSAGE_SEND_TEMPLATE              = BASE_COMMAND + "message.sendtemplate";
+   public static final String   COMMAND_MESSAGE_SEND_ARCHIVE               = BASE_COMMAND + "message.sendarchive";
 
    public static final String   COMMAND_TEMPLATE_RDD                       = BASE_COMMAND + "template.rdd";
    public static final String   COMMAND_TEMPLATE_RDD_PARAM                 = BASE + "template.rdd.parameter.mode";
@@ -250,6 +271,14 @@ public final class Constants {
    public static final String   COMMAND_SESSION_FILTER_APPLY               = "apply";
    public static final String   COMMAND_SESSION_FILTER_UNAPPLY             = "unapply";
 
+   public static final String   COMMAND_SESSION_CONNECT_ALL_PARAM          = BASE + "session.connect.all.mode";
+   public static final String   COMMAND_SESSION_CONNECT_ALL_FOLDER         = "folder";
+   public static final String   COMMAND_SESSION_CONNECT_ALL_ALL            = "all";
+
+   public static final String   COMMAND_SESSION_SEARCH_PARAM               = BASE + "session.search.mode";
+   public static final String   COMMAND_SESSION_SEARCH_SESSION             = "session";
+   public static final String   COMMAND_SESSION_SEARCH_ALL                 = "all";
+
    public static final String   SESSION_POPUP_MENU                         = BASE + "popupmenu.sessions";
    public static final String   TEMPLATES_POPUP_MENU                       = BASE + "popupmenu.templates";
    public static final String   SCRIPTS_POPUP_MENU                         = BASE + "popupmenu.scripts";
@@ -0,0 +1,247 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Coalesce the requests to persist a file and perform the write in a background thread, "delayMs" after the first request<br>
+ * A request only marks the file as dirty. The content is serialized once per delay window by the "serializer", run by the
+ * "serializerExecutor" (ie the thread that owns the model, for example the UI thread), and the resulting bytes are written in the
+ * background thread that never reads the model. With no "serializerExecutor", the content is only serialized and written by
+ * "flush"<br>
+ * "flush" serializes and writes the pending changes immediately in the calling thread. Writes are never performed concurrently and
+ * an older content never replaces a newer one.<br>
+ * "writeAtomically" writes the content to a temporary file that replaces the target file once complete, so that a crash while
+ * saving never leaves a truncated file
+ *
+ * @author Denis Forveille
+ *
+ */
+public final class DebouncedWriter {
+
+   private static final Logger                   log      = LoggerFactory.getLogger(DebouncedWriter.class);
+
+   private static final String                   TMP_EXT  = ".tmp";
+
+   private static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(r -> {
+                                                             Thread t = new Thread(r, "JMSToolBox-writer");
+                                                             t.setDaemon(true);
+                                                             return t;
+                                                          });
+
+   private final String                          name;
+   private final long                            delayMs;
+   private final Serializer                      serializer;
+   private final Executor                        serializerExecutor;
+   private final Action                          action;
+   private final Consumer<Exception>             errorHandler;
+
+   private final Object                          writeLock = new Object();
+   private ScheduledFuture<?>                    pending;
+   private boolean                               dirty;
+   private long                                  nbSerialized;
+   private long                                  nbWritten;
+
+   public DebouncedWriter(String name,
+                          long delayMs,
+                          Serializer serializer,
+                          Executor serializerExecutor,
+                          Action action,
+                          Consumer<Exception> errorHandler) {
+      this.name = name;
+      this.delayMs = delayMs;
+      this.serializer = serializer;
+      this.serializerExecutor = serializerExecutor;
+      this.action = action;
+      this.errorHandler = errorHandler;
+   }
+
+   // -------------------------
+   // Business Interface
+   // -------------------------
+
+   // Request the write of the current content. Does nothing more if a write is already scheduled
+   public synchronized void markDirty() {
+      dirty = true;
+      if ((pending == null) && (serializerExecutor != null)) {
+         pending = EXECUTOR.schedule(this::serializeLater, delayMs, TimeUnit.MILLISECONDS);
+      }
+   }
+
+   // Serialize and write the pending changes, if any, in the calling thread
+   public void flush() {
+      synchronized (this) {
+         if (pending != null) {
+            pending.cancel(false);
+            pending = null;
+         }
+      }
+      Snapshot snapshot = serialize();
+      if (snapshot != null) {
+         write(snapshot);
+      }
+   }
+
+   public synchronized boolean isDirty() {
+      return dirty;
+   }
+
+   // Write "content" into "target" through a temporary file in the same directory
+   public static void writeAtomically(Path target, byte[] content) throws IOException {
+      Path tmp = target.resolveSibling(target.getFileName().toString() + TMP_EXT);
+      try (FileChannel fc = FileChannel.open(tmp,
+                                             StandardOpenOption.CREATE,
+                                             StandardOpenOption.WRITE,
+                                             StandardOpenOption.TRUNCATE_EXISTING)) {
+         ByteBuffer bb = ByteBuffer.wrap(content);
+         while (bb.hasRemaining()) {
+            fc.write(bb);
+         }
+         fc.force(true);
+      }
+      try {
+         Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e) {
+         log.debug("Atomic move not supported for '{}'. Using a simple move", target);
+         Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+      }
+   }
+
+   // -------
+   // Helpers
+   // -------
+
+   // End of the delay window: serialize in the thread of the "serializerExecutor", then write in the background
+   private void serializeLater() {
+      try {
+         serializerExecutor.execute(() -> {
+            Snapshot snapshot = serialize();
+            if (snapshot != null) {
+               EXECUTOR.execute(() -> write(snapshot));
+            }
+         });
+      } catch (RuntimeException e) {
+         // eg the display has been disposed. The changes stay pending for "flush"
+         log.warn("Serialization of '{}' could not be scheduled: {}", name, e.getMessage());
+         synchronized (this) {
+            pending = null;
+         }
+      }
+   }
+
+   private Snapshot serialize() {
+      long seq;
+      synchronized (this) {
+         pending = null;
+         if (!dirty) {
+            return null;
+         }
+         dirty = false;
+         seq = ++nbSerialized;
+      }
+
+      try {
+         return new Snapshot(seq, serializer.serialize());
+      } catch (Exception e) {
+         log.error("Exception occurred when serializing '{}'", name, e);
+         synchronized (this) {
+            dirty = true;
+         }
+         reportError(e);
+         return null;
+      }
+   }
+
+   private void write(Snapshot snapshot) {
+      Exception error = null;
+
+      synchronized (writeLock) {
+         if (snapshot.seq <= nbWritten) {
+            // A newer content has already been written by "flush"
+            return;
+         }
+
+         long start = System.currentTimeMillis();
+         try {
+            action.write(snapshot.content);
+            nbWritten = snapshot.seq;
+            log.debug("'{}' written in {} ms", name, System.currentTimeMillis() - start);
+         } catch (Exception e) {
+            log.error("Exception occurred when writing '{}'", name, e);
+            error = e;
+            // Serialize it again at the next request or flush
+            synchronized (this) {
+               dirty = true;
+            }
+         }
+      }
+
+      // Report the error outside of the lock: the handler may wait for the UI thread that may be waiting for the lock in "flush"
+      if (error != null) {
+         reportError(error);
+      }
+   }
+
+   private void reportError(Exception e) {
+      if (errorHandler != null) {
+         errorHandler.accept(e);
+      }
+   }
+
+   private static final class Snapshot {
+      private final long   seq;
+      private final byte[] content;
+
+      private Snapshot(long seq, byte[] content) {
+         this.seq = seq;
+         this.content = content;
+      }
+   }
+
+   /**
+    * Serializes the current content of the file
+    */
+   @FunctionalInterface
+   public interface Serializer {
+      byte[] serialize() throws Exception;
+   }
+
+   /**
+    * Performs the actual write of the content
+    */
+   @FunctionalInterface
+   public interface Action {
+      void write(byte[] content) throws Exception;
+   }
+}
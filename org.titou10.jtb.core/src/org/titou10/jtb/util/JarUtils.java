@@ -18,8 +18,13 @@ package org.titou10.jtb.util;
 
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.List;
 import java.util.jar.Attributes;
+import java.util.jar.JarFile;
 import java.util.jar.JarOutputStream;
 import java.util.jar.Manifest;
 
@@ -39,6 +44,36 @@ public final class JarUtils {
 
    private static final String NON_EXISTING_JAR = "\nJAR file '%s' not found for plugin '%s'.\nSessions for this Q Manager will probably not work.";
 
+   // Manifest attribute holding a digest of the jars names, sizes and timestamps used to build the resource bundle
+   private static final String JARS_FINGERPRINT = "JTB-Jars-Fingerprint";
+
+   public static String getBundleFileName(String workDirectry, String pluginId) {
+      return workDirectry + "/" + pluginId + ".resource.jar";
+   }
+
+   // Returns true if the resource bundle exists and has been built with the same jars, unchanged since
+   public static boolean isBundleUpToDate(String workDirectry, String pluginId, List<String> jarFileNames) {
+      if (Utils.isNullorEmpty(jarFileNames)) {
+         return false;
+      }
+
+      File resourceFile = new File(getBundleFileName(workDirectry, pluginId));
+      if (!resourceFile.exists()) {
+         return false;
+      }
+
+      try (JarFile jf = new JarFile(resourceFile)) {
+         Manifest manifest = jf.getManifest();
+         if (manifest == null) {
+            return false;
+         }
+         return fingerprint(jarFileNames).equals(manifest.getMainAttributes().getValue(JARS_FINGERPRINT));
+      } catch (IOException e) {
+         log.warn("pluginId '{}': Unable to read resource bundle '{}'. It will be recreated", pluginId, resourceFile, e);
+         return false;
+      }
+   }
+
    public static String createBundle(String workDirectry, String pluginId, List<String> jarFileNames) throws Exception {
 
       // Only create a resource bundle if jars are defined
@@ -72,7 +107,7 @@ public final class JarUtils {
       log.debug("pluginId '{}': Creating a bundle with jars: '{}'", pluginId, sb.toString());
 
       String resourcePluginId = pluginId + ".resource";
-      String resourceFileName = workDirectry + "/" + resourcePluginId + ".jar";
+      String resourceFileName = getBundleFileName(workDirectry, pluginId);
 
       // Bundle Manifest
       Manifest manifest = new Manifest();
@@ -87,6 +122,7 @@ public final class JarUtils {
       a.putValue("Require-Bundle", pluginId + ";resolution:=optional");
       a.putValue("Eclipse-RegisterBuddy", pluginId);
       a.putValue("Bundle-ClassPath", sb.toString());
+      a.putValue(JARS_FINGERPRINT, fingerprint(jarFileNames));
 
       // Write the bundle/jar file
 
@@ -97,6 +133,24 @@ public final class JarUtils {
       return resourceFileName;
    }
 
+   private static String fingerprint(List<String> jarFileNames) {
+      try {
+         MessageDigest md = MessageDigest.getInstance("SHA-256");
+         for (String jarFileName : jarFileNames) {
+            File f = new File(jarFileName.replaceAll("\\\\", "/"));
+            md.update((f.getPath() + "|" + f.length() + "|" + f.lastModified() + "\n").getBytes(StandardCharsets.UTF_8));
+         }
+         StringBuilder sb = new StringBuilder(64);
+         for (byte b : md.digest()) {
+            sb.append(String.format("%02x", b));
+         }
+         return sb.toString();
+      } catch (NoSuchAlgorithmException e) {
+         // SHA-256 is always available
+         throw new IllegalStateException(e);
+      }
+   }
+
    // ------------------
    // Pure Utility Class
    // ------------------
@@ -0,0 +1,232 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.util.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory registry of the timings of the operations performed by JMSToolBox (connect, browse, send, queue depth etc.), tagged by
+ * session, provider and destination<br>
+ * Exposed as Prometheus text by the REST plugin and summarized in the status bar
+ *
+ * @author Denis Forveille
+ *
+ */
+public final class MetricsRegistry {
+
+   // Operations
+   public static final String                       OP_CONNECT         = "connect";
+   public static final String                       OP_DISCOVERY       = "discovery";
+   public static final String                       OP_BROWSE          = "browse";
+   public static final String                       OP_SEND            = "send";
+   public static final String                       OP_REMOVE          = "remove";
+   public static final String                       OP_EMPTY           = "empty";
+   public static final String                       OP_MOVE_COPY       = "move_copy";
+   public static final String                       OP_DEPTH           = "depth";
+   public static final String                       OP_INFORMATION     = "information";
+   public static final String                       OP_SCRIPT          = "script";
+   public static final String                       OP_REST_PREFIX     = "rest_";
+
+   // The session tag is one of the sessions registered, OTHER otherwise (ie a session name sent to the REST API)
+   // Beyond this number of series, the destination tag is replaced by OTHER to bound the memory used. As the operations, sessions
+   // and providers come from fixed or configured lists, the number of series stays bounded
+   private static final int                         MAX_SERIES         = 5000;
+   private static final String                      OTHER              = "_other";
+   private static final String                      NONE               = "";
+
+   private static final String                      METRIC_DURATION    = "jtb_operation_duration_seconds";
+   private static final String                      METRIC_MAX         = "jtb_operation_duration_max_seconds";
+   private static final String                      METRIC_ERRORS      = "jtb_operation_errors_total";
+   private static final String                      METRIC_MESSAGES    = "jtb_operation_messages_total";
+
+   private static final Map<String, OperationStats> STATS              = new ConcurrentHashMap<>();
+   private static final Set<String>                 SESSIONS           = ConcurrentHashMap.newKeySet();
+
+   // ------------------------
+   // Business Interface
+   // ------------------------
+
+   // Declare a session name that can be used as session tag
+   public static void registerSession(String session) {
+      SESSIONS.add(session);
+   }
+
+   public static OperationTimer start(String operation, String session, String provider, String destination) {
+      return new OperationTimer(getStats(operation, session, provider, destination));
+   }
+
+   // For operations timed by the caller
+   public static void record(String operation, String session, String provider, String destination, long nanos, boolean success) {
+      getStats(operation, session, provider, destination).record(nanos, success, 0);
+   }
+
+   public static List<OperationStats> getAllStats() {
+      return new ArrayList<>(STATS.values());
+   }
+
+   public static void reset() {
+      STATS.clear();
+   }
+
+   // Returns a short summary for the status bar, something like "Ops: 1,234 Err: 2 Slowest: browse@Session1 85.1 ms"
+   public static String getSummary() {
+      long count = 0;
+      long errors = 0;
+      OperationStats slowest = null;
+      for (OperationStats os : STATS.values()) {
+         count += os.getCount();
+         errors += os.getErrors();
+         if ((slowest == null) || (os.getAverageMs() > slowest.getAverageMs())) {
+            slowest = os;
+         }
+      }
+      if (slowest == null) {
+         return "Ops: 0";
+      }
+      return String.format("Ops: %,d Err: %,d Slowest: %s@%s %.1f ms",
+                           count,
+                           errors,
+                           slowest.getOperation(),
+                           slowest.getSession(),
+                           slowest.getAverageMs());
+   }
+
+   // Returns the "n" series with the highest total time, one per line
+   public static String getTopSummary(int n) {
+      List<OperationStats> l = getAllStats();
+      l.sort(Comparator.comparingLong(OperationStats::getTotalNanos).reversed());
+
+      StringBuilder sb = new StringBuilder(1024);
+      sb.append("Operation / Session / Destination: count, errors, avg, max");
+      for (OperationStats os : l.subList(0, Math.min(n, l.size()))) {
+         sb.append("\n");
+         sb.append(String.format("%s / %s / %s: %,d, %,d, %.1f ms, %.1f ms",
+                                 os.getOperation(),
+                                 os.getSession(),
+                                 os.getDestination(),
+                                 os.getCount(),
+                                 os.getErrors(),
+                                 os.getAverageMs(),
+                                 os.getMaxNanos() / 1_000_000d));
+      }
+      return sb.toString();
+   }
+
+   // Prometheus text exposition format, version 0.0.4
+   public static String toPrometheusText() {
+      List<OperationStats> l = getAllStats();
+      l.sort(Comparator.comparing(OperationStats::getOperation).thenComparing(OperationStats::getSession)
+               .thenComparing(OperationStats::getDestination));
+
+      StringBuilder sb = new StringBuilder(256 + (l.size() * 1024));
+
+      sb.append("# HELP ").append(METRIC_DURATION).append(" Duration of the operations performed by JMSToolBox\n");
+      sb.append("# TYPE ").append(METRIC_DURATION).append(" histogram\n");
+      for (OperationStats os : l) {
+         String labels = buildLabels(os);
+         long[] counts = os.getBucketCounts();
+         long cumul = 0;
+         for (int i = 0; i < counts.length; i++) {
+            cumul += counts[i];
+            String le = i < OperationStats.BUCKET_BOUNDS.length ? seconds(OperationStats.BUCKET_BOUNDS[i]) : "+Inf";
+            sb.append(METRIC_DURATION).append("_bucket{").append(labels).append(",le=\"").append(le).append("\"} ").append(cumul)
+                     .append("\n");
+         }
+         sb.append(METRIC_DURATION).append("_sum{").append(labels).append("} ").append(seconds(os.getTotalNanos())).append("\n");
+         sb.append(METRIC_DURATION).append("_count{").append(labels).append("} ").append(cumul).append("\n");
+      }
+
+      sb.append("# HELP ").append(METRIC_MAX).append(" Maximum duration of the operations performed by JMSToolBox\n");
+      sb.append("# TYPE ").append(METRIC_MAX).append(" gauge\n");
+      for (OperationStats os : l) {
+         sb.append(METRIC_MAX).append("{").append(buildLabels(os)).append("} ").append(seconds(os.getMaxNanos()))
+                  .append("\n");
+      }
+
+      sb.append("# HELP ").append(METRIC_ERRORS).append(" Number of operations that failed\n");
+      sb.append("# TYPE ").append(METRIC_ERRORS).append(" counter\n");
+      for (OperationStats os : l) {
+         sb.append(METRIC_ERRORS).append("{").append(buildLabels(os)).append("} ").append(os.getErrors()).append("\n");
+      }
+
+      sb.append("# HELP ").append(METRIC_MESSAGES).append(" Number of messages processed by the operations\n");
+      sb.append("# TYPE ").append(METRIC_MESSAGES).append(" counter\n");
+      for (OperationStats os : l) {
+         sb.append(METRIC_MESSAGES).append("{").append(buildLabels(os)).append("} ").append(os.getMessages()).append("\n");
+      }
+
+      return sb.toString();
+   }
+
+   // -------
+   // Helpers
+   // -------
+
+   private static OperationStats getStats(String operation, String session, String provider, String destination) {
+      String s = session == null ? NONE : SESSIONS.contains(session) ? session : OTHER;
+      String p = provider == null ? NONE : provider;
+      String d = destination == null ? NONE : destination;
+
+      String key = buildKey(operation, s, p, d);
+      OperationStats os = STATS.get(key);
+      if (os != null) {
+         return os;
+      }
+
+      if (STATS.size() >= MAX_SERIES) {
+         d = OTHER;
+         key = buildKey(operation, s, p, d);
+      }
+      String dest = d;
+      return STATS.computeIfAbsent(key, k -> new OperationStats(operation, s, p, dest));
+   }
+
+   private static String buildKey(String operation, String session, String provider, String destination) {
+      StringBuilder sb = new StringBuilder(operation.length() + session.length() + provider.length() + destination.length() + 3);
+      sb.append(operation).append('\u0000').append(session).append('\u0000').append(provider).append('\u0000').append(destination);
+      return sb.toString();
+   }
+
+   private static String buildLabels(OperationStats os) {
+      StringBuilder sb = new StringBuilder(128);
+      sb.append("operation=\"").append(escape(os.getOperation())).append("\"");
+      sb.append(",session=\"").append(escape(os.getSession())).append("\"");
+      sb.append(",provider=\"").append(escape(os.getProvider())).append("\"");
+      sb.append(",destination=\"").append(escape(os.getDestination())).append("\"");
+      return sb.toString();
+   }
+
+   private static String escape(String value) {
+      return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+   }
+
+   private static String seconds(long nanos) {
+      return Double.toString(nanos / 1_000_000_000d);
+   }
+
+   // ------------------
+   // Pure Utility Class
+   // ------------------
+   private MetricsRegistry() {
+      // NOP
+   }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.util.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters, total/max duration and latency histogram of one operation for one set of tags.<br>
+ * All the updates are lock free
+ *
+ * @author Denis Forveille
+ *
+ */
+public final class OperationStats {
+
+   // Upper bounds of the histogram buckets, in nanoseconds. The last bucket is "+Inf"
+   static final long[]           BUCKET_BOUNDS = { 1_000_000L, 5_000_000L, 10_000_000L, 25_000_000L, 50_000_000L, 100_000_000L,
+                                                   250_000_000L, 500_000_000L, 1_000_000_000L, 2_500_000_000L, 5_000_000_000L,
+                                                   10_000_000_000L, 30_000_000_000L };
+
+   private final String          operation;
+   private final String          session;
+   private final String          provider;
+   private final String          destination;
+
+   private final LongAdder       count         = new LongAdder();
+   private final LongAdder       errors        = new LongAdder();
+   private final LongAdder       messages      = new LongAdder();
+   private final LongAdder       totalNanos    = new LongAdder();
+   private final LongAccumulator maxNanos      = new LongAccumulator(Math::max, 0L);
+   private final LongAdder[]     buckets       = new LongAdder[BUCKET_BOUNDS.length + 1];
+
+   OperationStats(String operation, String session, String provider, String destination) {
+      this.operation = operation;
+      this.session = session;
+      this.provider = provider;
+      this.destination = destination;
+      for (int i = 0; i < buckets.length; i++) {
+         buckets[i] = new LongAdder();
+      }
+   }
+
+   void record(long nanos, boolean success, long nbMessages) {
+      count.increment();
+      if (!success) {
+         errors.increment();
+      }
+      if (nbMessages > 0) {
+         messages.add(nbMessages);
+      }
+      totalNanos.add(nanos);
+      maxNanos.accumulate(nanos);
+
+      int i = 0;
+      while ((i < BUCKET_BOUNDS.length) && (nanos > BUCKET_BOUNDS[i])) {
+         i++;
+      }
+      buckets[i].increment();
+   }
+
+   // Not cumulative: one count per bucket
+   long[] getBucketCounts() {
+      long[] res = new long[buckets.length];
+      for (int i = 0; i < buckets.length; i++) {
+         res[i] = buckets[i].sum();
+      }
+      return res;
+   }
+
+   public double getAverageMs() {
+      long n = count.sum();
+      return n == 0 ? 0 : totalNanos.sum() / (n * 1_000_000d);
+   }
+
+   // ------------------------
+   // Standard Getters
+   // ------------------------
+
+   public String getOperation() {
+      return operation;
+   }
+
+   public String getSession() {
+      return session;
+   }
+
+   public String getProvider() {
+      return provider;
+   }
+
+   public String getDestination() {
+      return destination;
+   }
+
+   public long getCount() {
+      return count.sum();
+   }
+
+   public long getErrors() {
+      return errors.sum();
+   }
+
+   public long getMessages() {
+      return messages.sum();
+   }
+
+   public long getTotalNanos() {
+      return totalNanos.sum();
+   }
+
+   public long getMaxNanos() {
+      return maxNanos.get();
+   }
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.util.metrics;
+
+/**
+ * Time one execution of an operation. Usage:
+ *
+ * <pre>
+ * OperationTimer timer = MetricsRegistry.start(...);
+ * try {
+ *    ...
+ *    timer.success(nbMessages);
+ * } finally {
+ *    timer.stop();
+ * }
+ * </pre>
+ *
+ * The execution is recorded as an error if "success" has not been called before "stop"
+ *
+ * @author Denis Forveille
+ *
+ */
+public final class OperationTimer {
+
+   private final OperationStats stats;
+   private final long           start;
+
+   private boolean              success;
+   private long                 nbMessages;
+
+   OperationTimer(OperationStats stats) {
+      this.stats = stats;
+      this.start = System.nanoTime();
+   }
+
+   public void success() {
+      this.success = true;
+   }
+
+   public void success(long nbMessages) {
+      this.success = true;
+      this.nbMessages = nbMessages;
+   }
+
+   public void stop() {
+      stats.record(System.nanoTime() - start, success, nbMessages);
+   }
+}
@@ -37,17 +37,28 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import javax.script.Compilable;
 import javax.script.CompiledScript;
+import javax.script.ScriptContext;
 import javax.script.ScriptEngine;
 import javax.script.ScriptEngineManager;
 import javax.script.ScriptException;
 import javax.script.SimpleBindings;
+import javax.script.SimpleScriptContext;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
@@ -56,6 +67,7 @@ import javax.xml.bind.Unmarshaller;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.e4.core.di.annotations.Creatable;
+import org.eclipse.e4.ui.di.UISynchronize;
 import org.eclipse.swt.program.Program;
 import org.eclipse.swt.widgets.Shell;
 import org.eclipse.swt.widgets.Text;
@@ -101,6 +113,12 @@ public class VisualizersManager {
    private static final String                      JS_PARAM_PAYLOAD_TEXT        = "jtb_payloadText";
    private static final String                      JS_PARAM_PAYLOAD_BYTES       = "jtb_payloadBytes";
    private static final String                      JS_PARAM_PAYLOAD_MAP         = "jtb_payloadMap";
+   private static final String                      JS_WARMUP_SCRIPT             = "var jtb_warmup = [1, 2, 3].map(function(x) { return x * 2; }).join(',');";
+
+   // Scripts are executed by a small pool of threads, with a limited number of scripts waiting to be executed
+   private static final int                         SCRIPT_NB_THREADS            = Math
+            .max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+   private static final int                         SCRIPT_QUEUE_SIZE            = 32;
 
    private static final List<VisualizerMessageType> COL_TEXT                     = Collections
             .singletonList(VisualizerMessageType.TEXT);
@@ -118,6 +136,9 @@ public class VisualizersManager {
    @Inject
    private ConfigManager                            cm;
 
+   @Inject
+   private UISynchronize                            sync;
+
    private JAXBContext                              jcVisualizers;
    private IFile                                    visualizersIFile;
    private Visualizers                              visualizersDef;
@@ -130,6 +151,9 @@ public class VisualizersManager {
    private Map<JTBMessageType, String[]>            visualizersPerJTBMessageType;
 
    private Map<String, CompiledScript>              mapCompiledScripts;
+   private Map<String, ExternalCompiledScript>      mapExternalCompiledScripts;
+
+   private ExecutorService                          scriptExecutor;
 
    @PostConstruct
    private void initialize() throws Exception {
@@ -150,18 +174,47 @@ public class VisualizersManager {
       visualizersDef = parseVisualizersFile(this.visualizersIFile.getContents());
 
       // Initialize script engine
-      mapCompiledScripts = new HashMap<>();
+      mapCompiledScripts = new ConcurrentHashMap<>();
+      mapExternalCompiledScripts = new ConcurrentHashMap<>();
       // scriptEngine = new ScriptEngineManager().getEngineByName(JS_LANGUAGE);
       scriptEngine = new ScriptEngineManager().getEngineByName(JS_LANGUAGE_GRAAL);
       compilingEngine = (Compilable) scriptEngine;
       visualizerScriptsHook = new VisualizerScriptsHook(this);
 
+      AtomicInteger threadNumber = new AtomicInteger(0);
+      scriptExecutor = new ThreadPoolExecutor(SCRIPT_NB_THREADS,
+                                              SCRIPT_NB_THREADS,
+                                              0L,
+                                              TimeUnit.MILLISECONDS,
+                                              new ArrayBlockingQueue<>(SCRIPT_QUEUE_SIZE),
+                                              r -> {
+                                                 Thread t = new Thread(r, "JTB-Visualizer-" + threadNumber.incrementAndGet());
+                                                 t.setDaemon(true);
+                                                 return t;
+                                              });
+
+      // Warm up the script engine in the background, so that the first visualizer does not pay for it
+      scriptExecutor.execute(() -> {
+         long start = System.currentTimeMillis();
+         try {
+            compile(JS_WARMUP_SCRIPT).eval(new SimpleScriptContext());
+            log.debug("Script engine warmed up in {} ms", System.currentTimeMillis() - start);
+         } catch (Exception e) {
+            log.warn("Exception occurred while warming up the script engine. Ignoring: {}", e.getMessage());
+         }
+      });
+
       // Build list of visualizers
       reloadConfig();
 
       log.debug("VisualizersManager initialized");
    }
 
+   @PreDestroy
+   private void shutdown() {
+      scriptExecutor.shutdownNow();
+   }
+
    // ---------
    // Visualizers
    // ---------
@@ -238,6 +291,7 @@ public class VisualizersManager {
       }
 
       mapCompiledScripts.clear();
+      mapExternalCompiledScripts.clear();
    }
 
    // ---------------
@@ -341,16 +395,27 @@ public class VisualizersManager {
    // Launchers
    // --------
    public CompiledScript compileScript(String source) throws ScriptException {
-      Compilable compilingEngine = (Compilable) scriptEngine;
-      return compilingEngine.compile(source);
+      return compile(source);
+   }
+
+   // The engine is shared between the threads executing the scripts, only the executions are isolated
+   private CompiledScript compile(String source) throws ScriptException {
+      synchronized (compilingEngine) {
+         return compilingEngine.compile(source);
+      }
    }
 
-   public void launchVisualizer(Shell shell,
-                                String name,
-                                JTBMessageType jtbMessageType,
-                                String payloadText,
-                                byte[] payloadBytes,
-                                Map<String, Object> payloadMap) throws Exception {
+   /**
+    * Launch a visualizer<br>
+    * Scripts run in the background: the future returned completes when the script ends, exceptionally if the script failed or
+    * could not be started. For the other kinds of visualizers, the future is already completed when this method returns
+    */
+   public CompletableFuture<Void> launchVisualizer(Shell shell,
+                                                   String name,
+                                                   JTBMessageType jtbMessageType,
+                                                   String payloadText,
+                                                   byte[] payloadBytes,
+                                                   Map<String, Object> payloadMap) throws Exception {
       log.debug("launchVisualizer name: {} type={}", name, jtbMessageType);
 
       Visualizer visualizer = getVizualiserFromName(name);
@@ -374,8 +439,7 @@ public class VisualizersManager {
 
          case EXTERNAL_SCRIPT:
          case INLINE_SCRIPT:
-            executeScript(shell, visualizer, jtbMessageType, payloadText, payloadBytes, payloadMap);
-            break;
+            return executeScript(shell, visualizer, jtbMessageType, payloadText, payloadBytes, payloadMap);
 
          case EXTERNAL_COMMAND:
             executeExternalCommand(visualizer, jtbMessageType, payloadText, payloadBytes, payloadMap);
@@ -387,30 +451,17 @@ public class VisualizersManager {
          default:
             break;
       }
+      return CompletableFuture.completedFuture(null);
    }
 
-   private void executeScript(Shell shell,
-                              Visualizer visualizer,
-                              JTBMessageType jtbMessageType,
-                              String payloadText,
-                              byte[] payloadBytes,
-                              Map<String, Object> payloadMap) throws Exception {
+   private CompletableFuture<Void> executeScript(Shell shell,
+                                                 Visualizer visualizer,
+                                                 JTBMessageType jtbMessageType,
+                                                 String payloadText,
+                                                 byte[] payloadBytes,
+                                                 Map<String, Object> payloadMap) {
       log.debug("executeScript");
 
-      // Get and compile the Script
-      CompiledScript cs;
-      if (visualizer.getKind() == VisualizerKind.EXTERNAL_SCRIPT) {
-         FileReader dfr = new FileReader(visualizer.getFileName());
-         cs = compilingEngine.compile(dfr);
-      } else {
-         // Allow caching only for inline scripts as external scripts may change without JTB knowing it
-         cs = mapCompiledScripts.get(visualizer.getName());
-         if (cs == null) {
-            cs = compilingEngine.compile(visualizer.getSource());
-            mapCompiledScripts.put(visualizer.getName(), cs);
-         }
-      }
-
       // Set parameters
       SimpleBindings global = new SimpleBindings();
       global.put(JS_PARAM_VISUALIZER, visualizerScriptsHook);
@@ -437,16 +488,65 @@ public class VisualizersManager {
          // Redirect output from the Script to JTB logs
          sysout = new VisualizersLogWriter(visualizer.getName());
       }
-      scriptEngine.getContext().setWriter(sysout);
-      scriptEngine.getContext().setErrorWriter(sysout);
 
-      // Call the script
+      // Each execution has its own context, so that scripts can run concurrently
+      ScriptContext scriptContext = new SimpleScriptContext();
+      scriptContext.setBindings(global, ScriptContext.ENGINE_SCOPE);
+      scriptContext.setWriter(sysout);
+      scriptContext.setErrorWriter(sysout);
+
+      // Compile and call the script in the background
+      CompletableFuture<Void> result = new CompletableFuture<>();
       try {
-         cs.eval(global);
-      } catch (Exception e) {
-         e.printStackTrace(new PrintWriter(sysout, true));
-         throw e;
+         scriptExecutor.execute(() -> {
+            try {
+               getCompiledScript(visualizer).eval(scriptContext);
+               result.complete(null);
+            } catch (Exception e) {
+               e.printStackTrace(new PrintWriter(sysout, true));
+               result.completeExceptionally(e);
+            } finally {
+               try {
+                  sysout.flush();
+               } catch (IOException e) {
+                  // Ignore
+               }
+            }
+         });
+      } catch (RejectedExecutionException e) {
+         log.warn("Visualizer '{}' rejected: {} scripts are already running or waiting", visualizer.getName(), SCRIPT_QUEUE_SIZE);
+         result.completeExceptionally(new Exception("Too many visualizers are currently running. Please retry later", e));
       }
+      return result;
+   }
+
+   private CompiledScript getCompiledScript(Visualizer visualizer) throws ScriptException, IOException {
+
+      if (visualizer.getKind() == VisualizerKind.INLINE_SCRIPT) {
+         CompiledScript cs = mapCompiledScripts.get(visualizer.getName());
+         if (cs == null) {
+            cs = compile(visualizer.getSource());
+            mapCompiledScripts.put(visualizer.getName(), cs);
+         }
+         return cs;
+      }
+
+      // External scripts may change without JTB knowing it: recompile them when the file has been modified
+      File scriptFile = new File(visualizer.getFileName());
+      String key = scriptFile.getCanonicalPath();
+      long lastModified = scriptFile.lastModified();
+
+      ExternalCompiledScript ecs = mapExternalCompiledScripts.get(key);
+      if ((ecs == null) || (ecs.lastModified != lastModified)) {
+         log.debug("Compiling script file '{}'", key);
+         try (FileReader dfr = new FileReader(scriptFile)) {
+            synchronized (compilingEngine) {
+               ecs = new ExternalCompiledScript(compilingEngine.compile(dfr), lastModified);
+            }
+         }
+         mapExternalCompiledScripts.put(key, ecs);
+      }
+      return ecs.compiledScript;
    }
 
    public void launchExternalExtension(String extension, String payloadText) throws IOException {
@@ -503,20 +603,23 @@ public class VisualizersManager {
    private void executeExternalExtension(String extension, File contentFile) {
       log.debug("executeExternalExtension");
 
-      if (extension == null) {
-         log.debug("No extension specified. Let the OS decide");
-         Program.launch(contentFile.getAbsolutePath());
-         return;
-      }
+      // May be called from a script running in the background
+      sync.syncExec(() -> {
+         if (extension == null) {
+            log.debug("No extension specified. Let the OS decide");
+            Program.launch(contentFile.getAbsolutePath());
+            return;
+         }
 
-      Program p = Program.findProgram(extension);
-      log.debug("Program found for extension='{}' : '{}'", extension, p);
-      if (p == null) {
-         Program.launch(contentFile.getAbsolutePath());
-         return;
-      } else {
-         p.execute(contentFile.getAbsolutePath());
-      }
+         Program p = Program.findProgram(extension);
+         log.debug("Program found for extension='{}' : '{}'", extension, p);
+         if (p == null) {
+            Program.launch(contentFile.getAbsolutePath());
+            return;
+         } else {
+            p.execute(contentFile.getAbsolutePath());
+         }
+      });
    }
 
    private void executeExternalCommand(Visualizer visualizer,
@@ -703,6 +806,16 @@ public class VisualizersManager {
       return 0;
    }
 
+   private final static class ExternalCompiledScript {
+      private final CompiledScript compiledScript;
+      private final long           lastModified;
+
+      private ExternalCompiledScript(CompiledScript compiledScript, long lastModified) {
+         this.compiledScript = compiledScript;
+         this.lastModified = lastModified;
+      }
+   }
+
    public final static class VisualizerComparator implements Comparator<Visualizer> {
 
       @Override
@@ -19,6 +19,7 @@ package org.titou10.jtb.visualizer;
 import java.io.IOException;
 import java.io.StringWriter;
 
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Text;
 
 /**
@@ -31,21 +32,32 @@ import org.eclipse.swt.widgets.Text;
 public class VisualizersTextAreaWriter extends StringWriter {
 
    private Text         textLog;
+   private Display      display;
    private StringBuffer buf = new StringBuffer(512);
 
    public VisualizersTextAreaWriter(Text textLog) {
       this.textLog = textLog;
+      this.display = textLog.getDisplay();
       this.lock = buf;
 
    }
 
    private void writeLog() {
-      if (buf.length() <= 0) {
-         return;
+      String text;
+      synchronized (buf) {
+         if (buf.length() <= 0) {
+            return;
+         }
+         text = buf.toString();
+         buf.setLength(0);
       }
-      textLog.append(buf.toString());
-      buf.setLength(0);
 
+      // Scripts are executed in background threads
+      display.asyncExec(() -> {
+         if (!textLog.isDisposed()) {
+            textLog.append(text);
+         }
+      });
    }
 
    @Override
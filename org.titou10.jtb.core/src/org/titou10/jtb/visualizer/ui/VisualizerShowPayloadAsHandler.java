@@ -27,6 +27,7 @@ import org.titou10.jtb.jms.model.JTBMessage;
 import org.titou10.jtb.jms.model.JTBMessageTemplate;
 import org.titou10.jtb.ui.JTBStatusReporter;
 import org.titou10.jtb.util.Constants;
+import org.titou10.jtb.util.Utils;
 import org.titou10.jtb.visualizer.VisualizersManager;
 
 /**
@@ -59,7 +60,14 @@ public class VisualizerShowPayloadAsHandler {
                                              jtbMessage.getJtbMessageType(),
                                              jtbMessageTemplate.getPayloadText(),
                                              jtbMessageTemplate.getPayloadBytes(),
-                                             jtbMessageTemplate.getPayloadMap());
+                                             jtbMessageTemplate.getPayloadMap())
+                  .whenComplete((r, t) -> {
+                     if (t != null) {
+                        jtbStatusReporter.showError("A problem occurred when running the visualizer",
+                                                    Utils.getCause(t),
+                                                    visualizerName);
+                     }
+                  });
       } catch (Exception e) {
          jtbStatusReporter.showError("An error occurred when launching the visualizer", e, "");
          return;
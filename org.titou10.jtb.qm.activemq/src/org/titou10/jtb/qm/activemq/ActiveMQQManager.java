@@ -19,7 +19,6 @@ package org.titou10.jtb.qm.activemq;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -51,6 +50,7 @@ import org.apache.activemq.command.ActiveMQTopic;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.titou10.jtb.config.gen.SessionDef;
+import org.titou10.jtb.jms.qm.AdminChannelCache;
 import org.titou10.jtb.jms.qm.DestinationData;
 import org.titou10.jtb.jms.qm.JMSPropertyKind;
 import org.titou10.jtb.jms.qm.QManager;
@@ -108,7 +108,9 @@ public class ActiveMQQManager extends QManager {
 
    private static final String             HELP_TEXT;
 
-   private final Map<Integer, SessionInfo> sessionsInfo           = new HashMap<>();
+   private final AdminChannelCache<SessionInfo> sessionsInfo = new AdminChannelCache<>("ActiveMQ JMX",
+                                                                                       SessionInfo::close,
+                                                                                       SessionInfo::isValid);
 
    // ------------------------
    // Constructor
@@ -192,59 +194,10 @@ public class ActiveMQQManager extends QManager {
             System.setProperty(P_TRUST_STORE_PASSWORD, trustStorePassword);
          }
 
-         MBeanServerConnection mbsc = null;
-         JMXConnector jmxc = null;
-         Boolean versionAndMaster = null;
-
-         if (useJMX) {
-            // JMX Connection
-
-            Map<String, String[]> jmxEnv = Collections
-                     .singletonMap(JMXConnector.CREDENTIALS,
-                                   new String[] { sessionDef.getActiveUserid(), sessionDef.getActivePassword() });
-
-            List<JMXServiceURL> jmxUrls = new ArrayList<>();
-
-            jmxUrls.add(new JMXServiceURL(String.format(JMX_URL_TEMPLATE, sessionDef.getHost(), sessionDef.getPort(), jmxContext)));
-
-            if (sessionDef.getHost2() != null) {
-               jmxUrls.add(new JMXServiceURL(String
-                        .format(JMX_URL_TEMPLATE, sessionDef.getHost2(), sessionDef.getPort2(), jmxContext)));
-            }
-            if (sessionDef.getHost3() != null) {
-               jmxUrls.add(new JMXServiceURL(String
-                        .format(JMX_URL_TEMPLATE, sessionDef.getHost3(), sessionDef.getPort3(), jmxContext)));
-            }
-
-            // Try to connect to each server, if successuful, check that the server is not a slave..
-
-            for (JMXServiceURL jmxServiceURL : jmxUrls) {
-               try {
-                  log.debug("Trying JMX connection with URL '{}'", jmxServiceURL);
-                  jmxc = JMXConnectorFactory.connect(jmxServiceURL, jmxEnv);
-                  mbsc = jmxc.getMBeanServerConnection();
-
-                  // Check if this is a master or slave, anf if this is a "legacy" ActiveMQ server (ie <= 5.8.0) with "Old" MBean
-                  // namimg
-                  versionAndMaster = checkVersionAndMaster(mbsc);
-                  if (versionAndMaster == null) {
-                     log.warn("This server is a slave. Checking next one...");
-                     jmxc = null;
-                     mbsc = null;
-                     continue;
-                  }
-                  log.debug("This server is the master. Using it.");
-                  break;
-               } catch (Exception e) {
-                  log.warn("Connection failed: {}", e.getMessage());
-                  continue;
-               }
-            }
-            if (mbsc == null) {
-               throw new Exception("Failed to connect to a 'master' ActiveMQ broker with the information set in the session definition");
-            }
-
-         }
+         // JMX Connection, shared by the connections to the same broker
+         String key = AdminChannelCache.buildKey(sessionDef, mapProperties);
+         String jmxCtx = jmxContext;
+         sessionsInfo.acquire(key, () -> openSessionInfo(sessionDef, useJMX, jmxCtx));
 
          // -------------------
 
@@ -262,15 +215,20 @@ public class ActiveMQQManager extends QManager {
          }
 
          // Create JMS Connection
-         ActiveMQConnection jmsConnection = (ActiveMQConnection) cf2.createConnection();
-         jmsConnection.setClientID(clientID);
-         jmsConnection.start();
+         ActiveMQConnection jmsConnection;
+         try {
+            jmsConnection = (ActiveMQConnection) cf2.createConnection();
+            jmsConnection.setClientID(clientID);
+            jmsConnection.start();
+         } catch (Exception e) {
+            sessionsInfo.release(key);
+            throw e;
+         }
 
          log.info("connected to {}", sessionDef.getName());
 
          // Store per connection related data
-         SessionInfo sessionInfo = new SessionInfo(useJMX, jmxc, mbsc, versionAndMaster);
-         sessionsInfo.put(jmsConnection.hashCode(), sessionInfo);
+         sessionsInfo.bind(jmsConnection, key);
 
          return jmsConnection;
       } finally {
@@ -280,7 +238,7 @@ public class ActiveMQQManager extends QManager {
 
    @Override
    public DestinationData discoverDestinations(Connection jmsConnection, boolean showSystemObjects) throws Exception {
-      SessionInfo sessionInfo = sessionsInfo.get(jmsConnection.hashCode());
+      SessionInfo sessionInfo = sessionsInfo.get(jmsConnection);
       return sessionInfo.isUseJMX() ? withJMX(jmsConnection, showSystemObjects) : withoutJMX(jmsConnection, showSystemObjects);
    }
 
@@ -331,7 +289,7 @@ public class ActiveMQQManager extends QManager {
    public DestinationData withJMX(Connection jmsConnection, boolean showSystemObjects) throws Exception {
       log.debug("discoverDestinationsWithJMX : {} - {}", jmsConnection, showSystemObjects);
 
-      SessionInfo sessionInfo = sessionsInfo.get(jmsConnection.hashCode());
+      SessionInfo sessionInfo = sessionsInfo.get(jmsConnection);
       MBeanServerConnection mbsc = sessionInfo.getMbsc();
       boolean legacy = sessionInfo.isUseLegacys();
 
@@ -425,23 +383,14 @@ public class ActiveMQQManager extends QManager {
    public void close(Connection jmsConnection) throws JMSException {
       log.debug("close connection {}", jmsConnection);
 
-      Integer hash = jmsConnection.hashCode();
-      SessionInfo sessionInfo = sessionsInfo.get(hash);
-      JMXConnector jmxc = sessionInfo.getJmxc();
-
       try {
          jmsConnection.close();
       } catch (Exception e) {
          log.warn("Exception occured while closing connection. Ignore it. Msg={}", e.getMessage());
       }
-      if (jmxc != null) {
-         try {
-            jmxc.close();
-         } catch (IOException e) {
-            log.warn("Exception occured while closing JMXConnector. Ignore it. Msg={}", e.getMessage());
-         }
-      }
-      sessionsInfo.remove(hash);
+
+      // The JMXConnector is closed when no other connection use it
+      sessionsInfo.release(jmsConnection);
    }
 
    @Override
@@ -452,7 +401,7 @@ public class ActiveMQQManager extends QManager {
    @Override
    public Integer getQueueDepth(Connection jmsConnection, String queueName) {
 
-      SessionInfo sessionInfo = sessionsInfo.get(jmsConnection.hashCode());
+      SessionInfo sessionInfo = sessionsInfo.get(jmsConnection);
 
       if (!sessionInfo.isUseJMX()) {
          // No JMX. Count the nb of message by hand...
@@ -476,12 +425,44 @@ public class ActiveMQQManager extends QManager {
       return depth;
    }
 
+   @Override
+   public Integer moveOrCopyMessages(Connection jmsConnection,
+                                     String sourceQueueName,
+                                     String targetQueueName,
+                                     String selector,
+                                     boolean move) throws Exception {
+
+      SessionInfo sessionInfo = sessionsInfo.get(jmsConnection);
+
+      if (!sessionInfo.isUseJMX()) {
+         // No JMX. Let JMSToolBox move/copy the messages by itself
+         return null;
+      }
+
+      MBeanServerConnection mbsc = sessionInfo.getMbsc();
+      boolean legacy = sessionInfo.isUseLegacys();
+
+      ObjectName on = new ObjectName(String.format(legacy ? JMX_QUEUE_LEGACY : JMX_QUEUE, sourceQueueName));
+      Set<ObjectName> attributesSet = mbsc.queryNames(on, null);
+      if ((attributesSet == null) || (attributesSet.isEmpty())) {
+         return null;
+      }
+
+      String operation = move ? "moveMatchingMessagesTo" : "copyMatchingMessagesTo";
+      Object[] params = new Object[] { selector == null ? "" : selector, targetQueueName };
+      String[] signature = new String[] { String.class.getName(), String.class.getName() };
+
+      Number n = (Number) mbsc.invoke(attributesSet.iterator().next(), operation, params, signature);
+      log.debug("{} messages processed by '{}' from {} to {}", n, operation, sourceQueueName, targetQueueName);
+      return n == null ? null : n.intValue();
+   }
+
    @Override
    public Map<String, Object> getQueueInformation(Connection jmsConnection, String queueName) {
 
       SortedMap<String, Object> properties = new TreeMap<>();
 
-      SessionInfo sessionInfo = sessionsInfo.get(jmsConnection.hashCode());
+      SessionInfo sessionInfo = sessionsInfo.get(jmsConnection);
 
       if (!sessionInfo.isUseJMX()) {
          // No JMX. No destination Info...
@@ -552,7 +533,7 @@ public class ActiveMQQManager extends QManager {
 
       SortedMap<String, Object> properties = new TreeMap<>();
 
-      SessionInfo sessionInfo = sessionsInfo.get(jmsConnection.hashCode());
+      SessionInfo sessionInfo = sessionsInfo.get(jmsConnection);
 
       if (!sessionInfo.isUseJMX()) {
          // No JMX. No destination Info...
@@ -689,6 +670,64 @@ public class ActiveMQQManager extends QManager {
       HELP_TEXT = sb.toString();
    }
 
+   // Open the JMX connection to the master broker, if JMX is used
+   private SessionInfo openSessionInfo(SessionDef sessionDef, boolean useJMX, String jmxContext) throws Exception {
+
+      MBeanServerConnection mbsc = null;
+      JMXConnector jmxc = null;
+      Boolean versionAndMaster = null;
+
+      if (useJMX) {
+
+         Map<String, String[]> jmxEnv = Collections
+                  .singletonMap(JMXConnector.CREDENTIALS,
+                                new String[] { sessionDef.getActiveUserid(), sessionDef.getActivePassword() });
+
+         List<JMXServiceURL> jmxUrls = new ArrayList<>();
+
+         jmxUrls.add(new JMXServiceURL(String.format(JMX_URL_TEMPLATE, sessionDef.getHost(), sessionDef.getPort(), jmxContext)));
+
+         if (sessionDef.getHost2() != null) {
+            jmxUrls.add(new JMXServiceURL(String
+                     .format(JMX_URL_TEMPLATE, sessionDef.getHost2(), sessionDef.getPort2(), jmxContext)));
+         }
+         if (sessionDef.getHost3() != null) {
+            jmxUrls.add(new JMXServiceURL(String
+                     .format(JMX_URL_TEMPLATE, sessionDef.getHost3(), sessionDef.getPort3(), jmxContext)));
+         }
+
+         // Try to connect to each server, if successuful, check that the server is not a slave..
+
+         for (JMXServiceURL jmxServiceURL : jmxUrls) {
+            try {
+               log.debug("Trying JMX connection with URL '{}'", jmxServiceURL);
+               jmxc = JMXConnectorFactory.connect(jmxServiceURL, jmxEnv);
+               mbsc = jmxc.getMBeanServerConnection();
+
+               // Check if this is a master or slave, anf if this is a "legacy" ActiveMQ server (ie <= 5.8.0) with "Old" MBean
+               // namimg
+               versionAndMaster = checkVersionAndMaster(mbsc);
+               if (versionAndMaster == null) {
+                  log.warn("This server is a slave. Checking next one...");
+                  jmxc = null;
+                  mbsc = null;
+                  continue;
+               }
+               log.debug("This server is the master. Using it.");
+               break;
+            } catch (Exception e) {
+               log.warn("Connection failed: {}", e.getMessage());
+               continue;
+            }
+         }
+         if (mbsc == null) {
+            throw new Exception("Failed to connect to a 'master' ActiveMQ broker with the information set in the session definition");
+         }
+      }
+
+      return new SessionInfo(useJMX, jmxc, mbsc, versionAndMaster);
+   }
+
    // Return:
    // null : slave
    // true : ActiveMQ < 5.0.8
@@ -773,6 +812,25 @@ public class ActiveMQQManager extends QManager {
       public boolean isUseLegacys() {
          return useLegacys;
       }
+
+      public void close() throws IOException {
+         if (jmxc != null) {
+            jmxc.close();
+         }
+      }
+
+      // Check that the JMX connection is still usable before sharing it
+      public boolean isValid() {
+         if (mbsc == null) {
+            return true;
+         }
+         try {
+            mbsc.getMBeanCount();
+            return true;
+         } catch (IOException e) {
+            return false;
+         }
+      }
    }
 
    // ------------------------
@@ -25,6 +25,7 @@ import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.jms.Connection;
 import javax.jms.ConnectionFactory;
@@ -76,8 +77,8 @@ public class ActiveMQArtemisQManager extends QManager {
 
    private Queue                              managementQueue      = ActiveMQJMSClient.createQueue("activemq.management");
 
-   private final Map<Integer, Session>        sessionJMSs          = new HashMap<>();
-   private final Map<Integer, QueueRequestor> requestorJMSs        = new HashMap<>();
+   private final Map<Integer, Session>        sessionJMSs          = new ConcurrentHashMap<>();
+   private final Map<Integer, QueueRequestor> requestorJMSs        = new ConcurrentHashMap<>();
 
    public ActiveMQArtemisQManager() {
       log.debug("Apache Active MQ Artemis v1.x (legacy)");
@@ -269,6 +270,32 @@ public class ActiveMQArtemisQManager extends QManager {
       return n == null ? null : n.intValue();
    }
 
+   @Override
+   public Integer moveOrCopyMessages(Connection jmsConnection,
+                                     String sourceQueueName,
+                                     String targetQueueName,
+                                     String selector,
+                                     boolean move) throws Exception {
+
+      // There is no management operation to copy a set of messages
+      if (!move) {
+         return null;
+      }
+
+      Integer hash = jmsConnection.hashCode();
+      QueueRequestor requestorJMS = requestorJMSs.get(hash);
+      Session sessionJMS = sessionJMSs.get(hash);
+
+      Number n = sendAdminMessage(Number.class,
+                                  sessionJMS,
+                                  requestorJMS,
+                                  ResourceNames.JMS_QUEUE + sourceQueueName,
+                                  "moveMessages",
+                                  selector,
+                                  targetQueueName);
+      return n == null ? null : n.intValue();
+   }
+
    @Override
    public Map<String, Object> getQueueInformation(Connection jmsConnection, String queueName) {
 
@@ -377,14 +404,20 @@ public class ActiveMQArtemisQManager extends QManager {
    // Helpers
    // ------------------------
 
+   // Reads the attribute "name" of the resource or, when parameters are given, invokes the operation "name" with them
    @SuppressWarnings("unchecked")
    private <T> T sendAdminMessage(Class<T> clazz,
                                   Session sessionJMS,
                                   QueueRequestor requestorJMS,
                                   String resourceName,
-                                  String methodName) throws Exception {
+                                  String name,
+                                  Object... parameters) throws Exception {
       Message m = sessionJMS.createMessage();
-      JMSManagementHelper.putAttribute(m, resourceName, methodName);
+      if (parameters.length == 0) {
+         JMSManagementHelper.putAttribute(m, resourceName, name);
+      } else {
+         JMSManagementHelper.putOperationInvocation(m, resourceName, name, parameters);
+      }
       Message r = requestorJMS.request(m);
 
       if (JMSManagementHelper.hasOperationSucceeded(r)) {
@@ -28,6 +28,7 @@ import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.jms.Connection;
 import javax.jms.JMSException;
@@ -85,8 +86,8 @@ public class ActiveMQArtemis2QManager extends QManager {
 
    private List<QManagerProperty>             parameters                  = new ArrayList<QManagerProperty>();
 
-   private final Map<Integer, Session>        sessionJMSs                 = new HashMap<>();
-   private final Map<Integer, QueueRequestor> requestorJMSs               = new HashMap<>();
+   private final Map<Integer, Session>        sessionJMSs                 = new ConcurrentHashMap<>();
+   private final Map<Integer, QueueRequestor> requestorJMSs               = new ConcurrentHashMap<>();
 
    public ActiveMQArtemis2QManager() {
       log.debug("Apache Active MQ Artemis v2.x+");
@@ -389,6 +390,32 @@ public class ActiveMQArtemis2QManager extends QManager {
       return n == null ? null : n.intValue();
    }
 
+   @Override
+   public Integer moveOrCopyMessages(Connection jmsConnection,
+                                     String sourceQueueName,
+                                     String targetQueueName,
+                                     String selector,
+                                     boolean move) throws Exception {
+
+      // There is no management operation to copy a set of messages
+      if (!move) {
+         return null;
+      }
+
+      Integer hash = jmsConnection.hashCode();
+      QueueRequestor requestorJMS = requestorJMSs.get(hash);
+      Session sessionJMS = sessionJMSs.get(hash);
+
+      Number n = sendAdminMessage(Number.class,
+                                  sessionJMS,
+                                  requestorJMS,
+                                  ResourceNames.QUEUE + sourceQueueName,
+                                  "moveMessages",
+                                  selector,
+                                  targetQueueName);
+      return n == null ? null : n.intValue();
+   }
+
    @Override
    public Map<String, Object> getQueueInformation(Connection jmsConnection, String queueName) {
 
@@ -534,16 +561,28 @@ public class ActiveMQArtemis2QManager extends QManager {
    // Helpers
    // ------------------------
 
+   // Reads the attribute "name" of the resource or, when parameters are given, invokes the operation "name" with them
    @SuppressWarnings("unchecked")
    private <T> T sendAdminMessage(Class<T> clazz,
                                   Session sessionJMS,
                                   QueueRequestor requestorJMS,
                                   String resourceName,
-                                  String methodName) throws Exception {
+                                  String name,
+                                  Object... parameters) throws Exception {
       Message m = sessionJMS.createMessage();
-      JMSManagementHelper.putAttribute(m, resourceName, methodName);
+      if (parameters.length == 0) {
+         JMSManagementHelper.putAttribute(m, resourceName, name);
+      } else {
+         JMSManagementHelper.putOperationInvocation(m, resourceName, name, parameters);
+      }
       Message r = requestorJMS.request(m);
-      return (T) JMSManagementHelper.getResult(r);
+
+      if (JMSManagementHelper.hasOperationSucceeded(r)) {
+         return (T) JMSManagementHelper.getResult(r);
+      } else {
+         Object resp = JMSManagementHelper.getResult(r);
+         throw new Exception(resp.toString());
+      }
    }
 
    private <T> T samNull(Class<T> clazz, Session sessionJMS, QueueRequestor requestorJMS, String resourceName, String methodName) {
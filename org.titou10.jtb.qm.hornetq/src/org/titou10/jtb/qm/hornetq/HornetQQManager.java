@@ -296,6 +296,36 @@ public class HornetQQManager extends QManager {
       }
    }
 
+   @Override
+   public Integer moveOrCopyMessages(Connection jmsConnection,
+                                     String sourceQueueName,
+                                     String targetQueueName,
+                                     String selector,
+                                     boolean move) throws Exception {
+
+      // There is no management operation to copy a set of messages
+      if (!move) {
+         return null;
+      }
+
+      Integer hash = jmsConnection.hashCode();
+      QueueRequestor requestorJMS = requestorJMSs.get(hash);
+      Session sessionJMS = sessionJMSs.get(hash);
+
+      Message m = sessionJMS.createMessage();
+      JMSManagementHelper.putOperationInvocation(m,
+                                                 ResourceNames.JMS_QUEUE + sourceQueueName,
+                                                 "moveMessages",
+                                                 selector,
+                                                 targetQueueName);
+      Message r = requestorJMS.request(m);
+      if (!JMSManagementHelper.hasOperationSucceeded(r)) {
+         throw new Exception(String.valueOf(JMSManagementHelper.getResult(r)));
+      }
+      Number n = (Number) JMSManagementHelper.getResult(r);
+      return n == null ? null : n.intValue();
+   }
+
    @Override
    public Map<String, Object> getQueueInformation(Connection jmsConnection, String queueName) {
 
@@ -20,15 +20,20 @@ import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.jms.Connection;
 import javax.jms.JMSException;
@@ -95,6 +100,9 @@ public class MQQManager extends QManager {
 
    private static final String                 P_USE_IBM_CIPHER_MAPPING = "com.ibm.mq.cfg.useIBMCipherMappings";
 
+   private static final String                 P_ADMIN_CHANNELS         = "adminChannels";
+   private static final String                 ADMIN_CHANNELS_DEFAULT   = "2";
+
    private static final List<String>           SYSTEM_PREFIXES_1        = Arrays.asList("LOOPBACK");
    private static final List<String>           SYSTEM_PREFIXES_2        = Arrays.asList("LOOPBACK", "AMQ.", "SYSTEM.");
    private static final String                 SYSTEM_GHOST_PREFIX      = "!!GHOST!";
@@ -103,8 +111,8 @@ public class MQQManager extends QManager {
 
    private List<QManagerProperty>              parameters               = new ArrayList<>();
 
-   private final Map<Integer, MQQueueManager>  queueManagers            = new HashMap<>();
-   private final Map<Integer, PCFMessageAgent> mqAgents                 = new HashMap<>();
+   // Administrative channels per connection. Accessed concurrently by the UI, the jobs and the REST services
+   private final Map<Integer, PCFAgentPool>    agentPools               = new ConcurrentHashMap<>();
 
    // ------------------------
    // Constructor
@@ -144,6 +152,13 @@ public class MQQManager extends QManager {
 
       parameters.add(new QManagerProperty(P_USE_IBM_CIPHER_MAPPING, false, JMSPropertyKind.BOOLEAN));
 
+      parameters.add(new QManagerProperty(P_ADMIN_CHANNELS,
+                                          false,
+                                          JMSPropertyKind.INT,
+                                          false,
+                                          "Number of administrative (PCF) channels opened to the Q Manager",
+                                          ADMIN_CHANNELS_DEFAULT));
+
    }
 
    // ------------------------
@@ -185,6 +200,11 @@ public class MQQManager extends QManager {
 
          var useIBMCipherMapping = Boolean.valueOf(mapProperties.get(P_USE_IBM_CIPHER_MAPPING));
 
+         var nbAdminChannels = Integer.parseInt(mapProperties.getOrDefault(P_ADMIN_CHANNELS, ADMIN_CHANNELS_DEFAULT));
+         if (nbAdminChannels < 1) {
+            throw new Exception("The 'adminChannels' property must be an integer greater than 0.");
+         }
+
          var keyStore = mapProperties.get(P_KEY_STORE);
          var keyStorePassword = mapProperties.get(P_KEY_STORE_PASSWORD);
          var keyStoreType = mapProperties.get(P_KEY_STORE_TYPE);
@@ -329,8 +349,7 @@ public class MQQManager extends QManager {
 
          // Connect and open Administrative Command channel
          log.debug("Connecting to {}:{}, QM/Channel: {}/{}", sessionDef.getHost(), sessionDef.getPort(), qmName, channel);
-         var queueManager = new MQQueueManager(qmName, props);
-         var agent = new PCFMessageAgent(queueManager);
+         var agentPool = PCFAgentPool.open(qmName, props, nbAdminChannels);
 
          // Create and store JMS Connection
          var ff = JmsFactoryFactory.getInstance(JmsConstants.WMQ_PROVIDER);
@@ -392,8 +411,7 @@ public class MQQManager extends QManager {
          log.info("connected to {}", sessionDef.getName());
 
          // Store per connection related data
-         queueManagers.put(jmsConnection.hashCode(), queueManager);
-         mqAgents.put(jmsConnection.hashCode(), agent);
+         agentPools.put(jmsConnection.hashCode(), agentPool);
 
          return jmsConnection;
 
@@ -407,15 +425,16 @@ public class MQQManager extends QManager {
       log.debug("discoverDestinations : {} - {}", jmsConnection, showSystemObjects);
 
       Integer hash = jmsConnection.hashCode();
-      var agent = mqAgents.get(hash);
+      var agentPool = agentPools.get(hash);
 
       var excludedPrefixes = showSystemObjects ? SYSTEM_PREFIXES_1 : SYSTEM_PREFIXES_2;
 
       // Get list of Queues and Topics
-      var listQueueData = buildQueueList(agent, excludedPrefixes);
-      var listTopicData = buildTopicList(agent, excludedPrefixes);
-
-      return new DestinationData(listQueueData, listTopicData);
+      return agentPool.execute(channel -> {
+         var listQueueData = buildQueueList(channel.getAgent(), excludedPrefixes);
+         var listTopicData = buildTopicList(channel.getAgent(), excludedPrefixes);
+         return new DestinationData(listQueueData, listTopicData);
+      });
    }
 
    @Override
@@ -423,8 +442,6 @@ public class MQQManager extends QManager {
       log.debug("close connection {}", jmsConnection);
 
       Integer hash = jmsConnection.hashCode();
-      var queueManager = queueManagers.get(hash);
-      var agent = mqAgents.get(hash);
 
       try {
          jmsConnection.close();
@@ -432,50 +449,69 @@ public class MQQManager extends QManager {
          log.warn("Exception occured while closing connection. Ignore it. Msg={}", e.getMessage());
       }
 
-      try {
-         agent.disconnect();
-         queueManager.disconnect();
-         queueManager.close();
-      } catch (MQException | MQDataException e) {
-         throw new JMSException(e.getMessage());
+      var agentPool = agentPools.remove(hash);
+      if (agentPool != null) {
+         agentPool.close();
       }
-
-      mqAgents.remove(hash);
-      queueManagers.remove(hash);
    }
 
    @Override
    public Integer getQueueDepth(Connection jmsConnection, String queueName) {
 
       Integer hash = jmsConnection.hashCode();
-      var queueManager = queueManagers.get(hash);
+      var agentPool = agentPools.get(hash);
 
-      MQQueue destQueue = null;
-      Integer depth = null;
       try {
-         destQueue = queueManager.accessQueue(queueName, CMQC.MQOO_INQUIRE);
-         depth = destQueue.getCurrentDepth();
-         log.debug("Q Depth for {} : {}", queueName, depth);
-      } catch (MQException e) {
+         return agentPool.execute(channel -> readQueueDepth(channel.getQueueManager(), queueName));
+      } catch (MQException | MQDataException | IOException e) {
          log.error("Exception when reading queue depth. Ignoring", e);
-      } finally {
-         if (destQueue != null) {
-            try {
-               destQueue.close();
-            } catch (MQException e) {}
-         }
+         return null;
       }
+   }
 
-      return depth;
+   @Override
+   public Map<String, Integer> getQueueDepths(Connection jmsConnection, Collection<String> queueNames) {
+
+      Integer hash = jmsConnection.hashCode();
+      var agentPool = agentPools.get(hash);
+
+      try {
+         return agentPool.execute(channel -> {
+            // One PCF request for all the local queues
+            var depths = inquireLocalQueueDepths(channel.getAgent(), queueNames);
+
+            // Alias, remote or cluster queues have no depth of their own: open them to get the depth of the queue they resolve to
+            for (String queueName : queueNames) {
+               if (!depths.containsKey(queueName)) {
+                  var depth = readQueueDepth(channel.getQueueManager(), queueName);
+                  if (depth != null) {
+                     depths.put(queueName, depth);
+                  }
+               }
+            }
+            return depths;
+         });
+      } catch (MQException | MQDataException | IOException e) {
+         log.error("Exception when reading queue depths. Ignoring", e);
+         return Collections.emptyMap();
+      }
    }
 
    @Override
    public Map<String, Object> getQueueInformation(Connection jmsConnection, String queueName) {
 
       Integer hash = jmsConnection.hashCode();
-      var queueManager = queueManagers.get(hash);
+      var agentPool = agentPools.get(hash);
 
       SortedMap<String, Object> properties = new TreeMap<>();
+      PCFAgentPool.AdminChannel channel;
+      try {
+         channel = agentPool.borrow();
+      } catch (IOException e) {
+         log.error("Exception when reading Queue Information. Ignoring", e);
+         return properties;
+      }
+      var queueManager = channel.getQueueManager();
       MQQueue destQueue = null;
       try {
          try {
@@ -799,12 +835,17 @@ public class MQQManager extends QManager {
          } catch (MQException e) {
             log.error("Exception when reading Queue Information. Ignoring", e);
          }
+
+         // Runtime status, for local queues only
+         properties.putAll(inquireQueueStatus(channel.getAgent(), queueName));
+
       } finally {
          if (destQueue != null) {
             try {
                destQueue.close();
             } catch (MQException e) {}
          }
+         agentPool.release(channel);
       }
       log.debug("Queue Information : {}", properties);
       return properties;
@@ -815,14 +856,14 @@ public class MQQManager extends QManager {
    public Map<String, Object> getTopicInformation(Connection jmsConnection, String topicName) {
 
       Integer hash = jmsConnection.hashCode();
-      var queueManager = queueManagers.get(hash);
+      var agentPool = agentPools.get(hash);
 
       Map<String, Object> properties = new LinkedHashMap<>();
 
-      // DF: could be done by
-      PCFMessageAgent agent = null;
+      PCFAgentPool.AdminChannel channel = null;
       try {
-         agent = new PCFMessageAgent(queueManager);
+         channel = agentPool.borrow();
+         var agent = channel.getAgent();
 
          var request = new PCFMessage(CMQCFC.MQCMD_INQUIRE_TOPIC);
          request.addParameter(CMQC.MQCA_TOPIC_NAME, topicName);
@@ -1092,13 +1133,8 @@ public class MQQManager extends QManager {
       } catch (IOException | MQDataException e) {
          log.warn("Exception when getting PCF Agent. Ignoring" + e.getMessage());
       } finally {
-         // Disconnect/Close
-         if (agent != null) {
-            try {
-               agent.disconnect();
-            } catch (MQDataException e) {
-               log.error("MQException occurred when disconnecting agent", e);
-            }
+         if (channel != null) {
+            agentPool.release(channel);
          }
       }
 
@@ -1141,6 +1177,8 @@ public class MQQManager extends QManager {
       sb.append("sslFipsRequired             : SSl FIPS Required? (Check MQ Documentation)").append(CR);
       sb.append("com.ibm.mq.cfg.useIBMCipherMappings : see http://www-01.ibm.com/support/docview.wss?uid=swg1IV66840").append(CR);
       sb.append(CR);
+      sb.append("adminChannels               : Number of administrative (PCF) channels opened to the Q Manager (Default: 2)").append(CR);
+      sb.append(CR);
       sb.append("javax.net.ssl.keyStore         : Client side certificate key store").append(CR);
       sb.append("javax.net.ssl.keyStorePassword : Client key store password").append(CR);
       sb.append("javax.net.ssl.keyStoreType     : JKS (default), PKCS12, ...").append(CR);
@@ -1156,6 +1194,115 @@ public class MQQManager extends QManager {
    // Helpers
    // -------
 
+   private Integer readQueueDepth(MQQueueManager queueManager, String queueName) {
+      MQQueue destQueue = null;
+      Integer depth = null;
+      try {
+         destQueue = queueManager.accessQueue(queueName, CMQC.MQOO_INQUIRE);
+         depth = destQueue.getCurrentDepth();
+         log.debug("Q Depth for {} : {}", queueName, depth);
+      } catch (MQException e) {
+         log.error("Exception when reading queue depth. Ignoring", e);
+      } finally {
+         if (destQueue != null) {
+            try {
+               destQueue.close();
+            } catch (MQException e) {}
+         }
+      }
+      return depth;
+   }
+
+   // Current depth of the local queues among "queueNames", with one MQCMD_INQUIRE_Q on the longest common prefix of the names
+   private Map<String, Integer> inquireLocalQueueDepths(PCFMessageAgent agent, Collection<String> queueNames) throws IOException {
+      Map<String, Integer> depths = new HashMap<>(queueNames.size() * 2);
+      if (queueNames.isEmpty()) {
+         return depths;
+      }
+
+      String prefix = null;
+      for (String queueName : queueNames) {
+         if (prefix == null) {
+            prefix = queueName;
+         } else {
+            int i = 0;
+            int max = Math.min(prefix.length(), queueName.length());
+            while ((i < max) && (prefix.charAt(i) == queueName.charAt(i))) {
+               i++;
+            }
+            prefix = prefix.substring(0, i);
+         }
+      }
+      var qName = queueNames.size() == 1 ? prefix : prefix + "*";
+      Set<String> wantedNames = new HashSet<>(queueNames);
+
+      var request = new PCFMessage(CMQCFC.MQCMD_INQUIRE_Q);
+      request.addParameter(CMQC.MQCA_Q_NAME, qName);
+      request.addParameter(CMQC.MQIA_Q_TYPE, CMQC.MQQT_LOCAL);
+      request.addParameter(CMQCFC.MQIACF_Q_ATTRS, new int[] { CMQC.MQCA_Q_NAME, CMQC.MQIA_CURRENT_Q_DEPTH });
+
+      try {
+         for (PCFMessage m : agent.send(request)) {
+            var name = m.getStringParameterValue(CMQC.MQCA_Q_NAME).trim();
+            if (wantedNames.contains(name)) {
+               depths.put(name, m.getIntParameterValue(CMQC.MQIA_CURRENT_Q_DEPTH));
+            }
+         }
+      } catch (MQDataException e) {
+         // No local queue matches the name, ie it is an alias, remote etc. queue
+         log.debug("MQCMD_INQUIRE_Q on '{}' failed: {}", qName, e.getMessage());
+      }
+      return depths;
+   }
+
+   // Queue status (MQCMD_INQUIRE_Q_STATUS), in the shape of the other queue information
+   private Map<String, Object> inquireQueueStatus(PCFMessageAgent agent, String queueName) {
+      Map<String, Object> properties = new HashMap<>();
+
+      var request = new PCFMessage(CMQCFC.MQCMD_INQUIRE_Q_STATUS);
+      request.addParameter(CMQC.MQCA_Q_NAME, queueName);
+
+      PCFMessage m;
+      try {
+         m = agent.send(request)[0];
+      } catch (IOException | MQDataException e) {
+         log.debug("MQCMD_INQUIRE_Q_STATUS on '{}' failed: {}", queueName, e.getMessage());
+         return properties;
+      }
+
+      try {
+         properties.put("LastGetDateTime",
+                        (m.getStringParameterValue(CMQCFC.MQCACF_LAST_GET_DATE).trim() + " "
+                         + m.getStringParameterValue(CMQCFC.MQCACF_LAST_GET_TIME).trim()).trim());
+      } catch (PCFException e) {
+         log.warn("Exception when reading LastGetDateTime. Ignoring" + e.getMessage());
+      }
+      try {
+         properties.put("LastPutDateTime",
+                        (m.getStringParameterValue(CMQCFC.MQCACF_LAST_PUT_DATE).trim() + " "
+                         + m.getStringParameterValue(CMQCFC.MQCACF_LAST_PUT_TIME).trim()).trim());
+      } catch (PCFException e) {
+         log.warn("Exception when reading LastPutDateTime. Ignoring" + e.getMessage());
+      }
+      try {
+         properties.put("OldestMessageAge", m.getIntParameterValue(CMQCFC.MQIACF_OLDEST_MSG_AGE));
+      } catch (PCFException e) {
+         log.warn("Exception when reading OldestMessageAge. Ignoring" + e.getMessage());
+      }
+      try {
+         properties.put("UncommittedMessages", m.getIntParameterValue(CMQCFC.MQIACF_UNCOMMITTED_MSGS));
+      } catch (PCFException e) {
+         log.warn("Exception when reading UncommittedMessages. Ignoring" + e.getMessage());
+      }
+      try {
+         properties.put("QueueTimeIndicator", Arrays.toString(m.getIntListParameterValue(CMQCFC.MQIACF_Q_TIME_INDICATOR)));
+      } catch (PCFException e) {
+         log.warn("Exception when reading QueueTimeIndicator. Ignoring" + e.getMessage());
+      }
+
+      return properties;
+   }
+
    private SortedSet<QueueData> buildQueueList(PCFMessageAgent agent, List<String> excludedPrefixes) throws MQDataException,
                                                                                                      IOException {
       SortedSet<QueueData> listQueueData = new TreeSet<>();
@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.qm.ibmmq;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.ibm.mq.MQException;
+import com.ibm.mq.MQQueueManager;
+import com.ibm.mq.headers.MQDataException;
+import com.ibm.mq.headers.pcf.PCFMessageAgent;
+
+/**
+ * Pool of long-lived administrative channels to one Q Manager. Each channel has its own MQQueueManager handle and PCF agent so
+ * that concurrent admin requests (depth, information, discovery) do not wait for each other<br>
+ * The channels are opened when the JMS connection is established, while the SSL system properties are set
+ *
+ * @author Denis Forveille
+ *
+ */
+final class PCFAgentPool {
+
+   private static final Logger               log             = LoggerFactory.getLogger(PCFAgentPool.class);
+
+   private static final long                 BORROW_MAX_WAIT = 60 * 1000L;                                 // 60 seconds
+
+   private final List<AdminChannel>          channels;
+   private final BlockingQueue<AdminChannel> idleChannels;
+
+   private PCFAgentPool(List<AdminChannel> channels) {
+      this.channels = channels;
+      this.idleChannels = new ArrayBlockingQueue<>(channels.size(), false, channels);
+   }
+
+   // Open "size" channels to the Q Manager. The channels already opened are closed if one fails
+   static PCFAgentPool open(String qmName, Hashtable<String, Object> props, int size) throws MQException, MQDataException {
+      List<AdminChannel> channels = new ArrayList<>(size);
+      try {
+         for (int i = 0; i < size; i++) {
+            var queueManager = new MQQueueManager(qmName, props);
+            try {
+               channels.add(new AdminChannel(queueManager));
+            } catch (MQDataException e) {
+               try {
+                  queueManager.disconnect();
+               } catch (MQException e2) {}
+               throw e;
+            }
+         }
+      } catch (MQException | MQDataException e) {
+         for (AdminChannel channel : channels) {
+            channel.close();
+         }
+         throw e;
+      }
+      log.debug("{} PCF agent(s) opened to '{}'", size, qmName);
+      return new PCFAgentPool(channels);
+   }
+
+   // -------------------------
+   // Business Interface
+   // -------------------------
+
+   // Run the call with a channel of the pool, waiting for one to be free
+   <T> T execute(AdminCall<T> call) throws MQException, MQDataException, IOException {
+      AdminChannel channel = borrow();
+      try {
+         return call.call(channel);
+      } finally {
+         release(channel);
+      }
+   }
+
+   // For callers that can not use "execute". The channel must be given back with "release"
+   AdminChannel borrow() throws IOException {
+      AdminChannel channel;
+      try {
+         channel = idleChannels.poll(BORROW_MAX_WAIT, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new IOException("Interrupted while waiting for a PCF agent", e);
+      }
+      if (channel == null) {
+         throw new IOException("No PCF agent available after " + BORROW_MAX_WAIT + " ms");
+      }
+      return channel;
+   }
+
+   void release(AdminChannel channel) {
+      idleChannels.add(channel);
+   }
+
+   int size() {
+      return channels.size();
+   }
+
+   void close() {
+      for (AdminChannel channel : channels) {
+         channel.close();
+      }
+      channels.clear();
+      idleChannels.clear();
+   }
+
+   // -------
+   // Helpers
+   // -------
+
+   @FunctionalInterface
+   interface AdminCall<T> {
+      T call(AdminChannel channel) throws MQException, MQDataException, IOException;
+   }
+
+   /**
+    * A Q Manager handle with its PCF agent
+    */
+   static final class AdminChannel {
+      private final MQQueueManager  queueManager;
+      private final PCFMessageAgent agent;
+
+      AdminChannel(MQQueueManager queueManager) throws MQDataException {
+         this.queueManager = queueManager;
+         this.agent = new PCFMessageAgent(queueManager);
+      }
+
+      MQQueueManager getQueueManager() {
+         return queueManager;
+      }
+
+      PCFMessageAgent getAgent() {
+         return agent;
+      }
+
+      private void close() {
+         try {
+            agent.disconnect();
+         } catch (MQDataException e) {
+            log.warn("Exception occured while disconnecting PCF agent. Ignore it. Msg={}", e.getMessage());
+         }
+         try {
+            queueManager.disconnect();
+            queueManager.close();
+         } catch (MQException e) {
+            log.warn("Exception occured while closing Q Manager handle. Ignore it. Msg={}", e.getMessage());
+         }
+      }
+   }
+}
@@ -38,6 +38,7 @@ import javax.management.remote.JMXServiceURL;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.titou10.jtb.config.gen.SessionDef;
+import org.titou10.jtb.jms.qm.AdminChannelCache;
 import org.titou10.jtb.jms.qm.DestinationData;
 import org.titou10.jtb.jms.qm.JMSPropertyKind;
 import org.titou10.jtb.jms.qm.QManager;
@@ -82,8 +83,9 @@ public class LibertyQManager extends QManager {
 
    private List<QManagerProperty>                    parameters               = new ArrayList<QManagerProperty>();
 
-   private final Map<Integer, JMXConnector>          jmxcs                    = new HashMap<>();
-   private final Map<Integer, MBeanServerConnection> mbscs                    = new HashMap<>();
+   private final AdminChannelCache<JMXChannel>       jmxChannels              = new AdminChannelCache<>("Liberty JMX",
+                                                                                                  JMXChannel::close,
+                                                                                                  JMXChannel::isValid);
 
    public LibertyQManager() {
       //
@@ -147,23 +149,9 @@ public class LibertyQManager extends QManager {
             System.setProperty(P_TRUST_STORE_TYPE, trustStoreType);
          }
 
-         // Set REST/JMX Connection properties
-         HashMap<String, Object> environment = new HashMap<String, Object>();
-         environment.put(JMXConnectorFactory.PROTOCOL_PROVIDER_PACKAGES, "com.ibm.ws.jmx.connector.client");
-         environment.put(JMXConnector.CREDENTIALS, new String[] { sessionDef.getActiveUserid(), sessionDef.getActivePassword() });
-         environment.put("com.ibm.ws.jmx.connector.client.disableURLHostnameVerification", Boolean.TRUE);
-         environment.put("com.ibm.ws.jmx.connector.client.rest.maxServerWaitTime", 0);
-         environment.put("com.ibm.ws.jmx.connector.client.rest.notificationDeliveryInterval", 65000);
-
-         // Connect
-
-         String serviceURL = String.format(JMX_URL_TEMPLATE, sessionDef.getHost(), sessionDef.getPort());
-         log.debug("connecting to {}", serviceURL);
-
-         JMXServiceURL url = new JMXServiceURL(serviceURL);
-         JMXConnector jmxc = JMXConnectorFactory.newJMXConnector(url, environment);
-         jmxc.connect();
-         MBeanServerConnection mbsc = jmxc.getMBeanServerConnection();
+         // REST/JMX Connection, shared by the connections to the same server
+         String key = AdminChannelCache.buildKey(sessionDef, mapProperties);
+         jmxChannels.acquire(key, () -> openJMXChannel(sessionDef));
 
          // Produce the JMS Connection
 
@@ -176,16 +164,20 @@ public class LibertyQManager extends QManager {
          jcf.setUserName(sessionDef.getActiveUserid());
          jcf.setPassword(sessionDef.getActivePassword());
 
-         Connection jmsConnection = jcf.createConnection();
-         jmsConnection.setClientID(clientID);
-         jmsConnection.start();
+         Connection jmsConnection;
+         try {
+            jmsConnection = jcf.createConnection();
+            jmsConnection.setClientID(clientID);
+            jmsConnection.start();
+         } catch (Exception e) {
+            jmxChannels.release(key);
+            throw e;
+         }
 
          log.info("connected to {}", sessionDef.getName());
 
          // Store per connection related data
-         Integer hash = jmsConnection.hashCode();
-         jmxcs.put(hash, jmxc);
-         mbscs.put(hash, mbsc);
+         jmxChannels.bind(jmsConnection, key);
 
          return jmsConnection;
 
@@ -198,8 +190,7 @@ public class LibertyQManager extends QManager {
    public DestinationData discoverDestinations(Connection jmsConnection, boolean showSystemObjects) throws Exception {
       log.debug("discoverDestinations : {} - {}", jmsConnection, showSystemObjects);
 
-      Integer hash = jmsConnection.hashCode();
-      MBeanServerConnection mbsc = mbscs.get(hash);
+      MBeanServerConnection mbsc = jmxChannels.get(jmsConnection).mbsc;
 
       // Discover Queues and Topics
 
@@ -237,32 +228,21 @@ public class LibertyQManager extends QManager {
    public void close(Connection jmsConnection) throws JMSException {
       log.debug("close connection {}", jmsConnection);
 
-      Integer hash = jmsConnection.hashCode();
-      JMXConnector jmxc = jmxcs.get(hash);
-
       try {
          jmsConnection.close();
       } catch (Exception e) {
          log.warn("Exception occured while closing connection. Ignore it. Msg={}", e.getMessage());
       }
 
-      if (jmxc != null) {
-         try {
-            jmxc.close();
-         } catch (IOException e) {
-            log.warn("Exception occured while closing JMXConnector. Ignore it. Msg={}", e.getMessage());
-         }
-         jmxcs.remove(hash);
-         mbscs.remove(hash);
-      }
+      // The JMXConnector is closed when no other connection use it
+      jmxChannels.release(jmsConnection);
 
    }
 
    @Override
    public Integer getQueueDepth(Connection jmsConnection, String queueName) {
 
-      Integer hash = jmsConnection.hashCode();
-      MBeanServerConnection mbsc = mbscs.get(hash);
+      MBeanServerConnection mbsc = jmxChannels.get(jmsConnection).mbsc;
 
       Integer depth = null;
       try {
@@ -281,8 +261,7 @@ public class LibertyQManager extends QManager {
    @Override
    public Map<String, Object> getQueueInformation(Connection jmsConnection, String queueName) {
 
-      Integer hash = jmsConnection.hashCode();
-      MBeanServerConnection mbsc = mbscs.get(hash);
+      MBeanServerConnection mbsc = jmxChannels.get(jmsConnection).mbsc;
 
       SortedMap<String, Object> properties = new TreeMap<>();
 
@@ -314,8 +293,7 @@ public class LibertyQManager extends QManager {
    @Override
    public Map<String, Object> getTopicInformation(Connection jmsConnection, String topicName) {
 
-      Integer hash = jmsConnection.hashCode();
-      MBeanServerConnection mbsc = mbscs.get(hash);
+      MBeanServerConnection mbsc = jmxChannels.get(jmsConnection).mbsc;
 
       SortedMap<String, Object> properties = new TreeMap<>();
 
@@ -336,6 +314,28 @@ public class LibertyQManager extends QManager {
       return properties;
    }
 
+   private JMXChannel openJMXChannel(SessionDef sessionDef) throws IOException {
+
+      // Set REST/JMX Connection properties
+      HashMap<String, Object> environment = new HashMap<String, Object>();
+      environment.put(JMXConnectorFactory.PROTOCOL_PROVIDER_PACKAGES, "com.ibm.ws.jmx.connector.client");
+      environment.put(JMXConnector.CREDENTIALS, new String[] { sessionDef.getActiveUserid(), sessionDef.getActivePassword() });
+      environment.put("com.ibm.ws.jmx.connector.client.disableURLHostnameVerification", Boolean.TRUE);
+      environment.put("com.ibm.ws.jmx.connector.client.rest.maxServerWaitTime", 0);
+      environment.put("com.ibm.ws.jmx.connector.client.rest.notificationDeliveryInterval", 65000);
+
+      // Connect
+
+      String serviceURL = String.format(JMX_URL_TEMPLATE, sessionDef.getHost(), sessionDef.getPort());
+      log.debug("connecting to {}", serviceURL);
+
+      JMXServiceURL url = new JMXServiceURL(serviceURL);
+      JMXConnector jmxc = JMXConnectorFactory.newJMXConnector(url, environment);
+      jmxc.connect();
+
+      return new JMXChannel(jmxc);
+   }
+
    private void addInfo(MBeanServerConnection mbsc,
                         Map<String, Object> properties,
                         Set<ObjectName> attributesSet,
@@ -389,6 +389,31 @@ public class LibertyQManager extends QManager {
       HELP_TEXT = sb.toString();
    }
 
+   // JMX connection shared by the connections to the same server
+   private static final class JMXChannel {
+      private final JMXConnector          jmxc;
+      private final MBeanServerConnection mbsc;
+
+      private JMXChannel(JMXConnector jmxc) throws IOException {
+         this.jmxc = jmxc;
+         this.mbsc = jmxc.getMBeanServerConnection();
+      }
+
+      private void close() throws IOException {
+         jmxc.close();
+      }
+
+      // Check that the JMX connection is still usable before sharing it
+      private boolean isValid() {
+         try {
+            mbsc.getMBeanCount();
+            return true;
+         } catch (IOException e) {
+            return false;
+         }
+      }
+   }
+
    // ------------------------
    // Standard Getters/Setters
    // ------------------------
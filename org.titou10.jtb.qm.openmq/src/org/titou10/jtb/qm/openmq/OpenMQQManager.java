@@ -18,7 +18,6 @@ package org.titou10.jtb.qm.openmq;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -36,6 +35,7 @@ import javax.management.remote.JMXConnector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.titou10.jtb.config.gen.SessionDef;
+import org.titou10.jtb.jms.qm.AdminChannelCache;
 import org.titou10.jtb.jms.qm.DestinationData;
 import org.titou10.jtb.jms.qm.JMSPropertyKind;
 import org.titou10.jtb.jms.qm.QManager;
@@ -83,8 +83,9 @@ public class OpenMQQManager extends QManager {
 
    private List<QManagerProperty>                    parameters             = new ArrayList<QManagerProperty>();
 
-   private final Map<Integer, JMXConnector>          jmxcs                  = new HashMap<>();
-   private final Map<Integer, MBeanServerConnection> mbscs                  = new HashMap<>();
+   private final AdminChannelCache<JMXChannel>       jmxChannels            = new AdminChannelCache<>("OpenMQ JMX",
+                                                                                                JMXChannel::close,
+                                                                                                JMXChannel::isValid);
 
    public OpenMQQManager() {
       log.debug("Instantiate OpenMQ");
@@ -129,18 +130,10 @@ public class OpenMQQManager extends QManager {
             }
          }
 
-         // Connect with specific factory
-
-         AdminConnectionFactory acf = new AdminConnectionFactory();
-         acf.setProperty(AdminConnectionConfiguration.imqAddress, serviceURL);
-
-         JMXConnector jmxc;
-         if (sessionDef.getActiveUserid() == null || sessionDef.getActiveUserid().trim().isEmpty()) {
-            jmxc = acf.createConnection();
-         } else {
-            jmxc = acf.createConnection(sessionDef.getActiveUserid(), sessionDef.getActivePassword());
-         }
-         MBeanServerConnection mbsc = jmxc.getMBeanServerConnection();
+         // Connect with specific factory, shared by the connections to the same broker
+         String key = AdminChannelCache.buildKey(sessionDef, mapProperties);
+         String jmxServiceURL = serviceURL;
+         jmxChannels.acquire(key, () -> openJMXChannel(sessionDef, jmxServiceURL));
 
          // // Connect using standard JMX
          // HashMap<String, Object> environment = new HashMap<String, Object>();
@@ -160,20 +153,23 @@ public class OpenMQQManager extends QManager {
          cf.setProperty(ConnectionConfiguration.imqAddressList, serviceURL);
 
          Connection jmsConnection;
-         if (sessionDef.getActiveUserid() == null || sessionDef.getActiveUserid().trim().isEmpty()) {
-            jmsConnection = cf.createConnection();
-         } else {
-            jmsConnection = cf.createConnection(sessionDef.getActiveUserid(), sessionDef.getActivePassword());
+         try {
+            if (sessionDef.getActiveUserid() == null || sessionDef.getActiveUserid().trim().isEmpty()) {
+               jmsConnection = cf.createConnection();
+            } else {
+               jmsConnection = cf.createConnection(sessionDef.getActiveUserid(), sessionDef.getActivePassword());
+            }
+            jmsConnection.setClientID(clientID);
+            jmsConnection.start();
+         } catch (Exception e) {
+            jmxChannels.release(key);
+            throw e;
          }
-         jmsConnection.setClientID(clientID);
-         jmsConnection.start();
 
          log.info("connected to {}", sessionDef.getName());
 
          // Store per connection related data
-         Integer hash = jmsConnection.hashCode();
-         jmxcs.put(hash, jmxc);
-         mbscs.put(hash, mbsc);
+         jmxChannels.bind(jmsConnection, key);
 
          return jmsConnection;
       } finally {
@@ -187,8 +183,7 @@ public class OpenMQQManager extends QManager {
 
       // Discover Queues and Topics
 
-      Integer hash = jmsConnection.hashCode();
-      MBeanServerConnection mbsc = mbscs.get(hash);
+      MBeanServerConnection mbsc = jmxChannels.get(jmsConnection).mbsc;
 
       SortedSet<QueueData> listQueueData = new TreeSet<>();
       SortedSet<TopicData> listTopicData = new TreeSet<>();
@@ -216,31 +211,20 @@ public class OpenMQQManager extends QManager {
    public void close(Connection jmsConnection) throws JMSException {
       log.debug("close connection {}", jmsConnection);
 
-      Integer hash = jmsConnection.hashCode();
-      JMXConnector jmxc = jmxcs.get(hash);
-
       try {
          jmsConnection.close();
       } catch (Exception e) {
          log.warn("Exception occured while closing connection. Ignore it. Msg={}", e.getMessage());
       }
 
-      if (jmxc != null) {
-         try {
-            jmxc.close();
-         } catch (IOException e) {
-            log.warn("Exception occured while closing JMXConnector. Ignore it. Msg={}", e.getMessage());
-         }
-         jmxcs.remove(hash);
-         mbscs.remove(hash);
-      }
+      // The JMXConnector is closed when no other connection use it
+      jmxChannels.release(jmsConnection);
    }
 
    @Override
    public Integer getQueueDepth(Connection jmsConnection, String queueName) {
 
-      Integer hash = jmsConnection.hashCode();
-      MBeanServerConnection mbsc = mbscs.get(hash);
+      MBeanServerConnection mbsc = jmxChannels.get(jmsConnection).mbsc;
 
       Integer depth = null;
       try {
@@ -259,8 +243,7 @@ public class OpenMQQManager extends QManager {
    @Override
    public Map<String, Object> getQueueInformation(Connection jmsConnection, String queueName) {
 
-      Integer hash = jmsConnection.hashCode();
-      MBeanServerConnection mbsc = mbscs.get(hash);
+      MBeanServerConnection mbsc = jmxChannels.get(jmsConnection).mbsc;
 
       SortedMap<String, Object> properties = new TreeMap<>();
 
@@ -326,8 +309,7 @@ public class OpenMQQManager extends QManager {
    @Override
    public Map<String, Object> getTopicInformation(Connection jmsConnection, String topicName) {
 
-      Integer hash = jmsConnection.hashCode();
-      MBeanServerConnection mbsc = mbscs.get(hash);
+      MBeanServerConnection mbsc = jmxChannels.get(jmsConnection).mbsc;
 
       SortedMap<String, Object> properties = new TreeMap<>();
 
@@ -382,6 +364,21 @@ public class OpenMQQManager extends QManager {
       return properties;
    }
 
+   private JMXChannel openJMXChannel(SessionDef sessionDef, String serviceURL) throws Exception {
+
+      AdminConnectionFactory acf = new AdminConnectionFactory();
+      acf.setProperty(AdminConnectionConfiguration.imqAddress, serviceURL);
+
+      JMXConnector jmxc;
+      if (sessionDef.getActiveUserid() == null || sessionDef.getActiveUserid().trim().isEmpty()) {
+         jmxc = acf.createConnection();
+      } else {
+         jmxc = acf.createConnection(sessionDef.getActiveUserid(), sessionDef.getActivePassword());
+      }
+
+      return new JMXChannel(jmxc);
+   }
+
    private void addInfo(MBeanServerConnection mbsc,
                         Map<String, Object> properties,
                         Set<ObjectName> attributesSet,
@@ -423,6 +420,31 @@ public class OpenMQQManager extends QManager {
       HELP_TEXT = sb.toString();
    }
 
+   // JMX connection shared by the connections to the same server
+   private static final class JMXChannel {
+      private final JMXConnector          jmxc;
+      private final MBeanServerConnection mbsc;
+
+      private JMXChannel(JMXConnector jmxc) throws IOException {
+         this.jmxc = jmxc;
+         this.mbsc = jmxc.getMBeanServerConnection();
+      }
+
+      private void close() throws IOException {
+         jmxc.close();
+      }
+
+      // Check that the JMX connection is still usable before sharing it
+      private boolean isValid() {
+         try {
+            mbsc.getMBeanCount();
+            return true;
+         } catch (IOException e) {
+            return false;
+         }
+      }
+   }
+
    // ------------------------
    // Standard Getters/Setters
    // ------------------------
@@ -0,0 +1,225 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.qm.rabbitmq;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.titou10.jtb.qm.rabbitmq.RabbitMQManagementClient.QueueStats;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * 
+ * Tests of RabbitMQManagementClient against a stub management API: paging, selection of the columns, plain array responses,
+ * nested statistics, errors
+ * 
+ * @author Denis Forveille
+ *
+ */
+public class RabbitMQManagementClientTest {
+
+   private static final String COLUMNS        = "name,durable,auto_delete,exclusive,consumers,messages,messages_ready,"
+                                                + "messages_unacknowledged,message_stats.publish_details.rate,"
+                                                + "message_stats.deliver_get_details.rate";
+   private static final String QUEUES_PATH    = "/api/queues/%2F";
+   private static final int    PAGE_SIZE      = 2;
+
+   private HttpServer          server;
+   private String              mgmtUrl;
+
+   // Page number -> response body
+   private Map<String, String> responses      = new HashMap<>();
+   private int                 responseCode   = 200;
+
+   private List<String>        requestPaths   = new CopyOnWriteArrayList<>();
+   private List<String>        requestQueries = new CopyOnWriteArrayList<>();
+   private List<String>        authHeaders    = new CopyOnWriteArrayList<>();
+
+   @Before
+   public void startServer() throws IOException {
+      server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+      server.createContext("/", this::handle);
+      server.start();
+      mgmtUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+   }
+
+   @After
+   public void stopServer() {
+      server.stop(0);
+   }
+
+   // ------------
+   // Tests
+   // ------------
+
+   @Test
+   public void readsAllThePages() throws Exception {
+      responses.put("1",
+                    "{\"filtered_count\":3,\"item_count\":2,\"page\":1,\"page_count\":2,\"page_size\":2,\"total_count\":3," +
+                       "\"items\":[" + queue("Q1", 5) + "," + queue("Q2", 0) + "]}");
+      responses.put("2",
+                    "{\"filtered_count\":3,\"item_count\":1,\"page\":2,\"page_count\":2,\"page_size\":2,\"total_count\":3," +
+                       "\"items\":[" + queue("Q3", 7) + "]}");
+
+      Map<String, QueueStats> stats = newClient().refreshQueueStats();
+
+      assertEquals(3, stats.size());
+      assertEquals(5, stats.get("Q1").getMessages());
+      assertEquals(0, stats.get("Q2").getMessages());
+      assertEquals(7, stats.get("Q3").getMessages());
+      assertEquals(Arrays.asList("1", "2"), pagesRequested());
+   }
+
+   @Test
+   public void requestsOnlyTheColumnsUsed() throws Exception {
+      responses.put("1", "{\"page\":1,\"page_count\":1,\"items\":[" + queue("Q1", 1) + "]}");
+
+      newClient().refreshQueueStats();
+
+      assertEquals(Arrays.asList(QUEUES_PATH), requestPaths);
+      assertEquals("page=1&page_size=" + PAGE_SIZE + "&columns=" + COLUMNS, requestQueries.get(0));
+      String expectedAuth = "Basic " + Base64.getEncoder().encodeToString("guest:pwd".getBytes(StandardCharsets.UTF_8));
+      assertEquals(expectedAuth, authHeaders.get(0));
+   }
+
+   @Test
+   public void readsPlainArrays() throws Exception {
+      // Servers without pagination return all the queues at once
+      responses.put("1", "[" + queue("Q1", 3) + "," + queue("Q2", 4) + "]");
+
+      Map<String, QueueStats> stats = newClient().refreshQueueStats();
+
+      assertEquals(2, stats.size());
+      assertEquals(3, stats.get("Q1").getMessages());
+      assertEquals(4, stats.get("Q2").getMessages());
+      assertEquals(Arrays.asList("1"), pagesRequested());
+   }
+
+   @Test
+   public void readsNestedStatistics() throws Exception {
+      // "message_stats" comes before the top level columns, that must not be read as nested ones
+      responses.put("1",
+                    "{\"page\":1,\"page_count\":1,\"items\":[{\"name\":\"Q1\"," +
+                       "\"message_stats\":{\"publish\":10,\"publish_details\":{\"rate\":1.5}," +
+                       "\"deliver_get\":8,\"deliver_get_details\":{\"rate\":2}}," +
+                       "\"durable\":true,\"auto_delete\":false,\"exclusive\":true,\"consumers\":2," +
+                       "\"messages\":12,\"messages_ready\":9,\"messages_unacknowledged\":3}]}");
+
+      QueueStats qs = newClient().refreshQueueStats().get("Q1");
+
+      assertEquals(1.5, qs.getPublishRate(), 0.0);
+      assertEquals(2.0, qs.getDeliverGetRate(), 0.0);
+      assertTrue(qs.isDurable());
+      assertFalse(qs.isAutoDelete());
+      assertTrue(qs.isExclusive());
+      assertEquals(2, qs.getConsumers());
+      assertEquals(12, qs.getMessages());
+      assertEquals(9, qs.getMessagesReady());
+      assertEquals(3, qs.getMessagesUnacknowledged());
+   }
+
+   @Test
+   public void reportsErrors() throws Exception {
+      responseCode = 401;
+      responses.put("1", "{\"error\":\"not_authorised\",\"reason\":\"Login failed\"}");
+
+      try {
+         newClient().refreshQueueStats();
+         fail("An exception was expected");
+      } catch (Exception e) {
+         String msg = e.getMessage();
+         assertTrue(msg, msg.contains("HTTP Status Code: 401"));
+         assertTrue(msg, msg.contains("Login failed"));
+      }
+   }
+
+   @Test
+   public void servesTheLastResultWhileItIsFresh() throws Exception {
+      responses.put("1", "{\"page\":1,\"page_count\":1,\"items\":[" + queue("Q1", 1) + "]}");
+
+      RabbitMQManagementClient client = newClient();
+      client.getQueueStats();
+      client.getQueueStats();
+
+      assertEquals(1, requestPaths.size());
+   }
+
+   // -------
+   // Helpers
+   // -------
+
+   private RabbitMQManagementClient newClient() {
+      return new RabbitMQManagementClient(HttpClient.newHttpClient(), mgmtUrl, "/", "guest", "pwd", PAGE_SIZE, 60_000L);
+   }
+
+   private static String queue(String name, long messages) {
+      return "{\"name\":\"" + name + "\",\"durable\":true,\"messages\":" + messages + "}";
+   }
+
+   private List<String> pagesRequested() {
+      List<String> pages = new ArrayList<>();
+      for (String query : requestQueries) {
+         pages.add(query.substring("page=".length(), query.indexOf('&')));
+      }
+      return pages;
+   }
+
+   private void handle(HttpExchange exchange) throws IOException {
+      String path = exchange.getRequestURI().getRawPath();
+      String query = exchange.getRequestURI().getQuery();
+      requestPaths.add(path);
+      requestQueries.add(query);
+      authHeaders.add(String.valueOf(exchange.getRequestHeaders().getFirst("Authorization")));
+
+      String body = null;
+      if ((QUEUES_PATH.equals(path)) && (query.startsWith("page="))) {
+         body = responses.get(query.substring("page=".length(), query.indexOf('&')));
+      }
+      int code = responseCode;
+      if (body == null) {
+         body = "{\"error\":\"Object Not Found\",\"reason\":\"Not Found\"}";
+         code = 404;
+      }
+
+      byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().add("Content-Type", "application/json");
+      exchange.sendResponseHeaders(code, bytes.length);
+      try (OutputStream os = exchange.getResponseBody()) {
+         os.write(bytes);
+      }
+   }
+}
@@ -0,0 +1,328 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.qm.rabbitmq;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.json.Json;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParser.Event;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ *
+ * Client for the RabbitMQ management HTTP API.<br>
+ * The statistics of all the queues of a virtual host are read with one paged "/api/queues" request, restricted to the needed
+ * columns, and streamed from the response. The last result is kept for a short time, so that the depth of all the queues can be
+ * served from a single HTTP request.<br>
+ * This class does not depend on JMS and can be used against any server that mimics the management API.
+ *
+ * @author Denis Forveille
+ *
+ */
+public final class RabbitMQManagementClient {
+
+   private static final Logger             log            = LoggerFactory.getLogger(RabbitMQManagementClient.class);
+
+   private static final Duration           HTTP_TIMEOUT   = Duration.ofSeconds(30L);
+
+   private static final String             HTTP_H_ACCEPT  = "Accept";
+   private static final String             HTTP_H_JSON    = "application/json";
+   private static final String             HTTP_H_AUTHO   = "Authorization";
+   private static final String             HTTP_H_BASIC   = "Basic ";
+
+   // Only these columns are returned by the server
+   private static final String             QUEUES_COLUMNS = "name,durable,auto_delete,exclusive,consumers,messages,messages_ready,"
+                                                            + "messages_unacknowledged,message_stats.publish_details.rate,"
+                                                            + "message_stats.deliver_get_details.rate";
+   private static final String             QUEUES_URI     = "%s/api/queues/%s?page=%d&page_size=%d&columns=%s";
+
+   private final HttpClient                httpClient;
+   private final String                    mgmtUrl;
+   private final String                    vhost;
+   private final String                    authHeader;
+   private final int                       pageSize;
+   private final long                      maxAgeMs;
+
+   private volatile Map<String, QueueStats> lastQueueStats = Collections.emptyMap();
+   private volatile long                   lastQueueStatsTs;
+
+   // -------------------------
+   // Constructor
+   // -------------------------
+
+   public RabbitMQManagementClient(HttpClient httpClient,
+                                   String mgmtUrl,
+                                   String vhost,
+                                   String username,
+                                   String password,
+                                   int pageSize,
+                                   long maxAgeMs) {
+      this.httpClient = httpClient;
+      this.mgmtUrl = mgmtUrl.endsWith("/") ? mgmtUrl.substring(0, mgmtUrl.length() - 1) : mgmtUrl;
+      this.vhost = URLEncoder.encode(vhost, StandardCharsets.UTF_8);
+      this.authHeader = HTTP_H_BASIC + Base64.getEncoder().encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+      this.pageSize = pageSize;
+      this.maxAgeMs = maxAgeMs;
+   }
+
+   // -------------------------
+   // Business Interface
+   // -------------------------
+
+   // Statistics of all the queues of the vhost, read from the server if the last result is too old
+   public Map<String, QueueStats> getQueueStats() throws Exception {
+      if ((System.currentTimeMillis() - lastQueueStatsTs) > maxAgeMs) {
+         return refreshQueueStats();
+      }
+      return lastQueueStats;
+   }
+
+   public synchronized Map<String, QueueStats> refreshQueueStats() throws Exception {
+      long start = System.currentTimeMillis();
+
+      Map<String, QueueStats> stats = new HashMap<>();
+      int page = 1;
+      int pageCount;
+      do {
+         HttpRequest request = HttpRequest.newBuilder()
+                  .uri(URI.create(String.format(QUEUES_URI, mgmtUrl, vhost, page, pageSize, QUEUES_COLUMNS))).GET()
+                  .timeout(HTTP_TIMEOUT).header(HTTP_H_ACCEPT, HTTP_H_JSON).header(HTTP_H_AUTHO, authHeader).build();
+         log.debug("Management API request: {}", request);
+
+         HttpResponse<InputStream> response = httpClient.send(request, BodyHandlers.ofInputStream());
+         try (InputStream is = response.body()) {
+            log.debug("statusCode={}", response.statusCode());
+            if (response.statusCode() != HttpURLConnection.HTTP_OK) {
+               String body = new String(is.readAllBytes(), StandardCharsets.UTF_8);
+               throw new Exception(String.format("Error received from RabbitMQ management API when retrieving the list of queues.\nHTTP Status Code: %d\n%s",
+                                                 response.statusCode(),
+                                                 body));
+            }
+            pageCount = parseQueuesPage(is, stats);
+         }
+         page++;
+      } while (page <= pageCount);
+
+      lastQueueStats = stats;
+      lastQueueStatsTs = System.currentTimeMillis();
+      log.debug("{} queues read in {} page(s) in {} ms", stats.size(), page - 1, lastQueueStatsTs - start);
+      return stats;
+   }
+
+   // -------
+   // Helpers
+   // -------
+
+   // Parses one page of the response: {"items":[{...},...],"page":1,"page_count":3,...}. Returns the number of pages
+   // Servers that do not support pagination return a plain array of queues
+   static int parseQueuesPage(InputStream is, Map<String, QueueStats> stats) {
+      int pageCount = 1;
+      try (JsonParser parser = Json.createParser(is)) {
+         int depth = 0;
+         String key = null;
+         boolean plainArray = false;
+         while (parser.hasNext()) {
+            Event event = parser.next();
+            switch (event) {
+               case START_ARRAY:
+                  if (depth == 0) {
+                     plainArray = true;
+                  }
+                  break;
+               case START_OBJECT:
+                  if (((depth == 1) && ("items".equals(key))) || ((depth == 0) && (plainArray))) {
+                     QueueStats qs = parseQueue(parser);
+                     if (qs.name != null) {
+                        stats.put(qs.name, qs);
+                     }
+                     break;
+                  }
+                  depth++;
+                  break;
+               case END_OBJECT:
+                  depth--;
+                  break;
+               case KEY_NAME:
+                  if (depth == 1) {
+                     key = parser.getString();
+                  }
+                  break;
+               case VALUE_NUMBER:
+                  if ((depth == 1) && ("page_count".equals(key))) {
+                     pageCount = parser.getInt();
+                  }
+                  break;
+               default:
+                  break;
+            }
+         }
+      }
+      return pageCount;
+   }
+
+   // Parses a queue object, the parser being positioned just after its START_OBJECT
+   private static QueueStats parseQueue(JsonParser parser) {
+      QueueStats qs = new QueueStats();
+      String path = "";
+      String key = null;
+      int depth = 1;
+      while (depth > 0) {
+         Event event = parser.next();
+         switch (event) {
+            case START_OBJECT:
+               path = path + key + ".";
+               depth++;
+               break;
+            case END_OBJECT:
+               depth--;
+               if (depth > 0) {
+                  path = path.substring(0, path.lastIndexOf('.', path.length() - 2) + 1);
+               }
+               break;
+            case KEY_NAME:
+               key = parser.getString();
+               break;
+            case VALUE_STRING:
+               if ((path.isEmpty()) && ("name".equals(key))) {
+                  qs.name = parser.getString();
+               }
+               break;
+            case VALUE_NUMBER:
+               qs.set(path + key, parser.isIntegralNumber() ? parser.getLong() : parser.getBigDecimal().doubleValue());
+               break;
+            case VALUE_TRUE:
+            case VALUE_FALSE:
+               qs.set(path + key, event == Event.VALUE_TRUE);
+               break;
+            default:
+               break;
+         }
+      }
+      return qs;
+   }
+
+   // --------------------
+   // Queue Statistics
+   // --------------------
+
+   public static final class QueueStats {
+      private String  name;
+      private boolean durable;
+      private boolean autoDelete;
+      private boolean exclusive;
+      private long    consumers;
+      private long    messages;
+      private long    messagesReady;
+      private long    messagesUnacknowledged;
+      private double  publishRate;
+      private double  deliverGetRate;
+
+      private void set(String column, Object value) {
+         switch (column) {
+            case "durable":
+               durable = (Boolean) value;
+               break;
+            case "auto_delete":
+               autoDelete = (Boolean) value;
+               break;
+            case "exclusive":
+               exclusive = (Boolean) value;
+               break;
+            case "consumers":
+               consumers = ((Number) value).longValue();
+               break;
+            case "messages":
+               messages = ((Number) value).longValue();
+               break;
+            case "messages_ready":
+               messagesReady = ((Number) value).longValue();
+               break;
+            case "messages_unacknowledged":
+               messagesUnacknowledged = ((Number) value).longValue();
+               break;
+            case "message_stats.publish_details.rate":
+               publishRate = ((Number) value).doubleValue();
+               break;
+            case "message_stats.deliver_get_details.rate":
+               deliverGetRate = ((Number) value).doubleValue();
+               break;
+            default:
+               break;
+         }
+      }
+
+      // ------------------------
+      // Standard Getters
+      // ------------------------
+
+      public String getName() {
+         return name;
+      }
+
+      public boolean isDurable() {
+         return durable;
+      }
+
+      public boolean isAutoDelete() {
+         return autoDelete;
+      }
+
+      public boolean isExclusive() {
+         return exclusive;
+      }
+
+      public long getConsumers() {
+         return consumers;
+      }
+
+      public long getMessages() {
+         return messages;
+      }
+
+      public long getMessagesReady() {
+         return messagesReady;
+      }
+
+      public long getMessagesUnacknowledged() {
+         return messagesUnacknowledged;
+      }
+
+      public double getPublishRate() {
+         return publishRate;
+      }
+
+      public double getDeliverGetRate() {
+         return deliverGetRate;
+      }
+   }
+}
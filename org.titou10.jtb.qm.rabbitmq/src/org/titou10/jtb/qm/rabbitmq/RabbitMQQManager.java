@@ -16,6 +16,7 @@
  */
 package org.titou10.jtb.qm.rabbitmq;
 
+import java.net.http.HttpClient;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -23,6 +24,7 @@ import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.jms.Connection;
 import javax.jms.JMSException;
@@ -34,97 +36,206 @@ import org.titou10.jtb.jms.qm.DestinationData;
 import org.titou10.jtb.jms.qm.JMSPropertyKind;
 import org.titou10.jtb.jms.qm.QManager;
 import org.titou10.jtb.jms.qm.QManagerProperty;
+import org.titou10.jtb.jms.qm.QueueData;
+import org.titou10.jtb.jms.qm.TopicData;
+import org.titou10.jtb.qm.rabbitmq.RabbitMQManagementClient.QueueStats;
 
-import com.rabbitmq.client.ConnectionFactory;
+import com.rabbitmq.jms.admin.RMQConnectionFactory;
 
 /**
  * 
  * Implements Pivotal RabbitMQ Q Provider
  * 
- * http://rabbitmq.docs.pivotal.io/doc/34/topics/install-jms-client.html
+ * Messaging is done with the RabbitMQ JMS client. Destinations and statistics come from the management HTTP API
  * 
- * http://developer.kaazing.com/documentation/jms/4.0/integration-jms/p_jms_integrate_rabbitmq.html
+ * https://www.rabbitmq.com/jms-client.html
  * 
- * https://my.vmware.com/web/vmware/details?downloadGroup=VFRMQ_JMS_105&productId=349
+ * https://www.rabbitmq.com/management.html#http-api
  * 
  * @author Denis Forveille
  *
  */
 public class RabbitMQQManager extends QManager {
 
-   private static final Logger    log             = LoggerFactory.getLogger(RabbitMQQManager.class);
+   private static final Logger                          log                  = LoggerFactory.getLogger(RabbitMQQManager.class);
 
-   private static final String    CR              = "\n";
+   private static final String                          CR                   = "\n";
+   private static final String                          HELP_TEXT;
 
-   private List<QManagerProperty> parameters      = new ArrayList<QManagerProperty>();
-   private SortedSet<String>      queueNames      = new TreeSet<>();
-   private SortedSet<String>      topicNames      = new TreeSet<>();
+   private static final String                          SYSTEM_QUEUE_PREFIX  = "amq.";
 
-   private static final String    P_QUEUE_MANAGER = "queueManager";
+   // Statistics read from the management API are reused for that time. The depths of all the queues are refreshed in a row
+   private static final long                            STATS_MAX_AGE_MS     = 2000L;
+
+   // HTTP REST stuff
+   private static final HttpClient                      HTTP_CLIENT          = HttpClient.newBuilder()
+            .followRedirects(HttpClient.Redirect.NORMAL).build();
+
+   // Properties
+   private List<QManagerProperty>                       parameters           = new ArrayList<QManagerProperty>();
+
+   private static final String                          VIRTUAL_HOST         = "virtual_host";
+   private static final String                          MGMT_URL             = "mgmt_url";
+   private static final String                          MGMT_USERNAME        = "mgmt_username";
+   private static final String                          MGMT_PASSWORD        = "mgmt_password";
+   private static final String                          MGMT_PAGE_SIZE       = "mgmt_page_size";
+
+   private static final String                          VIRTUAL_HOST_DEFAULT = "/";
+   private static final String                          PAGE_SIZE_DEFAULT    = "500";
+
+   // Operations
+   private final Map<Integer, RabbitMQManagementClient> mgmtClients          = new ConcurrentHashMap<>();
 
    public RabbitMQQManager() {
-      log.debug("Instantiate MQQManager");
+      log.debug("Instantiate RabbitMQQManager");
 
-      parameters.add(new QManagerProperty(P_QUEUE_MANAGER, true, JMSPropertyKind.STRING));
+      parameters.add(new QManagerProperty(VIRTUAL_HOST,
+                                          true,
+                                          JMSPropertyKind.STRING,
+                                          false,
+                                          "Virtual host",
+                                          VIRTUAL_HOST_DEFAULT));
+      parameters.add(new QManagerProperty(MGMT_URL,
+                                          true,
+                                          JMSPropertyKind.STRING,
+                                          false,
+                                          "Management url (eg 'http://localhost:15672','https://localhost:15671')"));
+      parameters.add(new QManagerProperty(MGMT_USERNAME,
+                                          false,
+                                          JMSPropertyKind.STRING,
+                                          false,
+                                          "Management user name. Defaults to the session user"));
+      parameters.add(new QManagerProperty(MGMT_PASSWORD,
+                                          false,
+                                          JMSPropertyKind.STRING,
+                                          true,
+                                          "Management user password. Defaults to the session password"));
+      parameters.add(new QManagerProperty(MGMT_PAGE_SIZE,
+                                          false,
+                                          JMSPropertyKind.INT,
+                                          false,
+                                          "Number of queues read per request to the management API",
+                                          PAGE_SIZE_DEFAULT));
    }
 
    @Override
    public Connection connect(SessionDef sessionDef, boolean showSystemObjects, String clientID) throws Exception {
       log.info("connecting to {} - {}", sessionDef.getName(), clientID);
 
-      // TODO To be implemented
+      // Extract properties
+      Map<String, String> mapProperties = extractProperties(sessionDef);
+
+      String vhost = mapProperties.getOrDefault(VIRTUAL_HOST, VIRTUAL_HOST_DEFAULT);
+      String mgmtUrl = mapProperties.get(MGMT_URL);
+      String mgmtUsername = mapProperties.getOrDefault(MGMT_USERNAME, sessionDef.getActiveUserid());
+      String mgmtPassword = mapProperties.getOrDefault(MGMT_PASSWORD, sessionDef.getActivePassword());
+      int pageSize = Integer.parseInt(mapProperties.getOrDefault(MGMT_PAGE_SIZE, PAGE_SIZE_DEFAULT));
+
+      if (mgmtUrl == null) {
+         throw new Exception("The 'mgmt_url' property is mandatory.");
+      }
+      if (pageSize < 1) {
+         throw new Exception("The 'mgmt_page_size' property must be an integer greater than 0.");
+      }
+
+      // JMS Connections
 
-      ConnectionFactory factory = new ConnectionFactory();
-      factory.setHost(sessionDef.getHost());
-      factory.setPort(sessionDef.getPort());
-      if (sessionDef.getUserid() != null) {
-         factory.setUsername(sessionDef.getUserid());
+      RMQConnectionFactory cf = new RMQConnectionFactory();
+      cf.setHost(sessionDef.getHost());
+      cf.setPort(sessionDef.getPort());
+      cf.setVirtualHost(vhost);
+      if (sessionDef.getActiveUserid() != null) {
+         cf.setUsername(sessionDef.getActiveUserid());
       }
-      if (sessionDef.getPassword() != null) {
-         factory.setPassword(sessionDef.getPassword());
+      if (sessionDef.getActivePassword() != null) {
+         cf.setPassword(sessionDef.getActivePassword());
       }
 
-      @SuppressWarnings("unused")
-      com.rabbitmq.client.Connection connection = factory.newConnection();
+      Connection jmsConnection = cf.createConnection();
+      jmsConnection.setClientID(clientID);
+      jmsConnection.start();
+
+      // Store per connection related data
+      Integer hash = jmsConnection.hashCode();
+      mgmtClients.put(hash,
+                      new RabbitMQManagementClient(HTTP_CLIENT,
+                                                   mgmtUrl,
+                                                   vhost,
+                                                   mgmtUsername,
+                                                   mgmtPassword,
+                                                   pageSize,
+                                                   STATS_MAX_AGE_MS));
 
       log.info("connected to {}", sessionDef.getName());
 
-      return null;
+      return jmsConnection;
    }
 
    @Override
    public DestinationData discoverDestinations(Connection jmsConnection, boolean showSystemObjects) throws Exception {
       log.debug("discoverDestinations : {} - {}", jmsConnection, showSystemObjects);
 
-      // Discover Queues and Topics
+      Integer hash = jmsConnection.hashCode();
+      RabbitMQManagementClient mgmtClient = mgmtClients.get(hash);
+
+      // Build Queues list from one paged request on the management API
+      SortedSet<QueueData> listQueueData = new TreeSet<>();
+      for (String queueName : mgmtClient.refreshQueueStats().keySet()) {
+         if ((!showSystemObjects) && (queueName.startsWith(SYSTEM_QUEUE_PREFIX))) {
+            continue;
+         }
+         log.debug("q={}", queueName);
+         listQueueData.add(new QueueData(queueName));
+      }
 
-      // TODO To be implemented
+      // Topics are routing keys on the JMS topic exchange and can not be discovered
+      SortedSet<TopicData> listTopicData = new TreeSet<>();
 
-      return null;
+      return new DestinationData(listQueueData, listTopicData);
    }
 
    @Override
    public void close(Connection jmsConnection) throws JMSException {
       log.debug("close connection {}", jmsConnection);
 
+      Integer hash = jmsConnection.hashCode();
+      mgmtClients.remove(hash);
+
       try {
          jmsConnection.close();
       } catch (Exception e) {
          log.warn("Exception occured while closing connection. Ignore it. Msg={}", e.getMessage());
       }
-
-      queueNames.clear();
-      topicNames.clear();
    }
 
    @Override
    public Integer getQueueDepth(Connection jmsConnection, String queueName) {
-      return null;
+      QueueStats qs = getQueueStats(jmsConnection, queueName);
+      if (qs == null) {
+         return null;
+      }
+      return (int) Math.min(qs.getMessages(), Integer.MAX_VALUE);
    }
 
    @Override
    public Map<String, Object> getQueueInformation(Connection jmsConnection, String queueName) {
       SortedMap<String, Object> properties = new TreeMap<>();
+
+      QueueStats qs = getQueueStats(jmsConnection, queueName);
+      if (qs == null) {
+         return properties;
+      }
+
+      properties.put("Durable", qs.isDurable());
+      properties.put("Auto Delete", qs.isAutoDelete());
+      properties.put("Exclusive", qs.isExclusive());
+      properties.put("Consumers", qs.getConsumers());
+      properties.put("Messages", qs.getMessages());
+      properties.put("Messages Ready", qs.getMessagesReady());
+      properties.put("Messages Unacknowledged", qs.getMessagesUnacknowledged());
+      properties.put("Publish Rate (msg/s)", qs.getPublishRate());
+      properties.put("Deliver/Get Rate (msg/s)", qs.getDeliverGetRate());
+
       return properties;
    }
 
@@ -134,22 +245,56 @@ public class RabbitMQQManager extends QManager {
       return properties;
    }
 
+   // -------
+   // Helpers
+   // -------
+
+   private QueueStats getQueueStats(Connection jmsConnection, String queueName) {
+      Integer hash = jmsConnection.hashCode();
+      RabbitMQManagementClient mgmtClient = mgmtClients.get(hash);
+      if (mgmtClient == null) {
+         return null;
+      }
+      try {
+         return mgmtClient.getQueueStats().get(queueName);
+      } catch (Exception e) {
+         log.error("Exception occurred while reading statistics for queue '{}'", queueName, e);
+         return null;
+      }
+   }
+
    @Override
    public String getHelpText() {
+      return HELP_TEXT;
+   }
+
+   static {
       StringBuilder sb = new StringBuilder(2048);
       sb.append("Extra JARS:").append(CR);
       sb.append("-----------").append(CR);
+      sb.append("- rabbitmq-jms-x.y.z.jar").append(CR);
+      sb.append(CR);
+      sb.append("Information:").append(CR);
+      sb.append("------------").append(CR);
+      sb.append("Messages are read and written with the RabbitMQ JMS client").append(CR);
+      sb.append("The list of queues and their statistics are read from the management plugin HTTP API").append(CR);
+      sb.append("Topics can not be discovered and must be entered manually").append(CR);
       sb.append(CR);
       sb.append("Connection:").append(CR);
       sb.append("-----------").append(CR);
       sb.append("Host          : RabbitMQ server host name").append(CR);
-      sb.append("Port          : RabbitMQ port").append(CR);
+      sb.append("Port          : RabbitMQ AMQP port (eg 5672)").append(CR);
       sb.append("User/Password : User allowed to connect to RabbitMQ").append(CR);
       sb.append(CR);
-      sb.append("Properties values:").append(CR);
-      sb.append("---------------").append(CR);
-      sb.append("queueManager                : Queue Manager Name").append(CR);
-      return sb.toString();
+      sb.append("Properties:").append(CR);
+      sb.append("-----------").append(CR);
+      sb.append("- virtual_host   : Virtual host (eg '/')").append(CR);
+      sb.append("- mgmt_url       : URL (scheme+host+port) of the management plugin (eg 'http://localhost:15672')").append(CR);
+      sb.append("- mgmt_username  : Management user name. Defaults to the session user").append(CR);
+      sb.append("- mgmt_password  : Management user password. Defaults to the session password").append(CR);
+      sb.append("- mgmt_page_size : Number of queues read per request to the management API (default 500)").append(CR);
+
+      HELP_TEXT = sb.toString();
    }
 
    // ------------------------
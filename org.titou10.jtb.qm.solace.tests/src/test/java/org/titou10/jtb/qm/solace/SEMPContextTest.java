@@ -0,0 +1,222 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.qm.solace;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.titou10.jtb.qm.solace.semp.SempJndiTopicData;
+import org.titou10.jtb.qm.solace.semp.SempQueueData;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * 
+ * Tests of SEMPContext against a stub SEMP server: paging, compressed responses, selection of the fields, errors
+ * 
+ * @author Denis Forveille
+ *
+ */
+public class SEMPContextTest {
+
+   private static final String VPN             = "vpn1";
+   private static final String BASE_PATH       = "/SEMP/v2/config/msgVpns/" + VPN;
+   private static final String QUEUES_PATH     = BASE_PATH + "/queues?select=queueName&count=1000";
+   private static final String TOPICS_PATH     = BASE_PATH + "/jndiTopics?select=physicalName,topicName&count=1000";
+   private static final String QUEUE_SELECT    = "?select=accessType,consumerAckPropagationEnabled,deadMsgQueue,egressEnabled,"
+                                                 + "ingressEnabled,maxBindCount,maxDeliveredUnackedMsgsPerFlow,maxMsgSize,"
+                                                 + "maxMsgSpoolUsage,maxRedeliveryCount,maxTtl,permission,queueName,"
+                                                 + "rejectLowPriorityMsgEnabled,rejectLowPriorityMsgLimit,"
+                                                 + "rejectMsgToSenderOnDiscardBehavior,respectMsgPriorityEnabled,respectTtlEnabled";
+
+   private HttpServer          server;
+   private String              mgmtUrl;
+
+   // Request URI (path + query) -> response body
+   private Map<String, String> responses       = new HashMap<>();
+   private int                 responseCode    = 200;
+   private boolean             gzip;
+
+   private List<String>        requestUris     = new CopyOnWriteArrayList<>();
+   private List<String>        acceptEncodings = new CopyOnWriteArrayList<>();
+   private List<String>        authorizations  = new CopyOnWriteArrayList<>();
+
+   @Before
+   public void startServer() throws IOException {
+      server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+      server.createContext("/", this::handle);
+      server.start();
+      mgmtUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+   }
+
+   @After
+   public void stopServer() {
+      server.stop(0);
+   }
+
+   // ------------
+   // Tests
+   // ------------
+
+   @Test
+   public void listQueueNamesFollowsThePages() throws Exception {
+      String nextPageUri = mgmtUrl + QUEUES_PATH + "&cursor=page2";
+      responses.put(QUEUES_PATH,
+                    "{\"data\":[{\"queueName\":\"Q1\"},{\"queueName\":\"Q2\"}]," +
+                             "\"links\":[{\"uri\":\"x\"},{\"uri\":\"y\"}]," +
+                             "\"meta\":{\"responseCode\":200," +
+                             "\"paging\":{\"cursorQuery\":\"page2\",\"nextPageUri\":\"" + nextPageUri + "\"}}}");
+      responses.put(QUEUES_PATH + "&cursor=page2",
+                    "{\"data\":[{\"queueName\":\"Q3\"}],\"links\":[{\"uri\":\"z\"}],\"meta\":{\"responseCode\":200}}");
+
+      List<String> names = newContext().listQueueNames().get(10, TimeUnit.SECONDS);
+
+      assertEquals(Arrays.asList("Q1", "Q2", "Q3"), names);
+      assertEquals(Arrays.asList(QUEUES_PATH, QUEUES_PATH + "&cursor=page2"), requestUris);
+   }
+
+   @Test
+   public void readsCompressedResponses() throws Exception {
+      gzip = true;
+      responses.put(TOPICS_PATH,
+                    "{\"data\":[{\"physicalName\":\"T.ONE\",\"topicName\":\"one\"}," +
+                             "{\"physicalName\":\"T.TWO\",\"topicName\":\"two\"}]," +
+                             "\"meta\":{\"responseCode\":200}}");
+
+      SEMPContext sempContext = newContext();
+      List<SempJndiTopicData> topics = sempContext.listJndiTopics().get(10, TimeUnit.SECONDS);
+
+      assertEquals(2, topics.size());
+      assertEquals("gzip", acceptEncodings.get(0));
+      SempJndiTopicData t = sempContext.getJndiTopicData("T.TWO");
+      assertNotNull(t);
+      assertEquals("two", t.topicName);
+   }
+
+   @Test
+   public void requestsOnlyTheFieldsUsed() throws Exception {
+      String queuePath = BASE_PATH + "/queues/Q1" + QUEUE_SELECT;
+      responses.put(queuePath,
+                    "{\"data\":{\"queueName\":\"Q1\",\"accessType\":\"exclusive\"," +
+                             "\"maxMsgSize\":10000000,\"egressEnabled\":true}," +
+                             "\"meta\":{\"responseCode\":200}}");
+      responses.put(QUEUES_PATH, "{\"data\":[],\"meta\":{\"responseCode\":200}}");
+      responses.put(TOPICS_PATH, "{\"data\":[],\"meta\":{\"responseCode\":200}}");
+
+      SEMPContext sempContext = newContext();
+      SempQueueData q = sempContext.getQueueData("Q1");
+      sempContext.listQueueNames().get(10, TimeUnit.SECONDS);
+      sempContext.listJndiTopics().get(10, TimeUnit.SECONDS);
+
+      // The stub server only answers to the exact URIs: the requests were made with the expected "select" parameters
+      assertEquals(Arrays.asList(queuePath, QUEUES_PATH, TOPICS_PATH), requestUris);
+      assertEquals("Q1", q.queueName);
+      assertEquals("exclusive", q.accessType);
+      assertEquals(Integer.valueOf(10000000), q.maxMsgSize);
+      assertEquals(Boolean.TRUE, q.egressEnabled);
+   }
+
+   @Test
+   public void encodesTheQueueNameAndTheCredentials() throws Exception {
+      String queuePath = BASE_PATH + "/queues/orders%2Feu%20west" + QUEUE_SELECT;
+      responses.put(queuePath, "{\"data\":{\"queueName\":\"orders/eu west\"},\"meta\":{\"responseCode\":200}}");
+
+      SEMPContext sempContext = new SEMPContext(VPN, mgmtUrl, "admin", "p\u00e4ss");
+      SempQueueData q = sempContext.getQueueData("orders/eu west");
+
+      assertEquals(Arrays.asList(queuePath), requestUris);
+      assertEquals("orders/eu west", q.queueName);
+      String expected = "Basic " + Base64.getEncoder().encodeToString("admin:p\u00e4ss".getBytes(StandardCharsets.UTF_8));
+      assertEquals(expected, authorizations.get(0));
+   }
+
+   @Test
+   public void reportsSempErrors() throws Exception {
+      responseCode = 400;
+      responses.put(QUEUES_PATH,
+                    "{\"meta\":{\"responseCode\":400," +
+                             "\"error\":{\"code\":11,\"description\":\"Bad VPN\",\"status\":\"NOT_FOUND\"}}}");
+
+      try {
+         newContext().listQueueNames().get(10, TimeUnit.SECONDS);
+         fail("An exception was expected");
+      } catch (Exception e) {
+         String msg = e.getCause().getMessage();
+         assertTrue(msg, msg.contains("HTTP Status Code: 400"));
+         assertTrue(msg, msg.contains("SEMP Error Code: 11"));
+         assertTrue(msg, msg.contains("SEMP Error Descriptions: Bad VPN"));
+      }
+   }
+
+   // -------
+   // Helpers
+   // -------
+
+   private SEMPContext newContext() {
+      return new SEMPContext(VPN, mgmtUrl, "admin", "admin");
+   }
+
+   private void handle(HttpExchange exchange) throws IOException {
+      String uri = exchange.getRequestURI().toString();
+      requestUris.add(uri);
+      acceptEncodings.add(String.valueOf(exchange.getRequestHeaders().getFirst("Accept-Encoding")));
+      authorizations.add(String.valueOf(exchange.getRequestHeaders().getFirst("Authorization")));
+
+      String body = responses.get(uri);
+      int code = responseCode;
+      if (body == null) {
+         body = "{\"meta\":{\"responseCode\":404,\"error\":{\"code\":6,\"description\":\"Unexpected URI " + uri + "\"}}}";
+         code = 404;
+      }
+
+      byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+      if (gzip) {
+         ByteArrayOutputStream baos = new ByteArrayOutputStream();
+         try (GZIPOutputStream gos = new GZIPOutputStream(baos)) {
+            gos.write(bytes);
+         }
+         bytes = baos.toByteArray();
+         exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+      }
+
+      exchange.getResponseHeaders().add("Content-Type", "application/json");
+      exchange.sendResponseHeaders(code, bytes.length);
+      try (OutputStream os = exchange.getResponseBody()) {
+         os.write(bytes);
+      }
+   }
+}
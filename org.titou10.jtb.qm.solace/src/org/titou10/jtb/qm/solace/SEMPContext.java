@@ -16,50 +16,101 @@
  */
 package org.titou10.jtb.qm.solace;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
 import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
 
+import javax.json.JsonException;
+import javax.json.JsonObject;
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
+
+import org.slf4j.LoggerFactory;
 import org.titou10.jtb.qm.solace.semp.SempJndiTopicData;
+import org.titou10.jtb.qm.solace.semp.SempQueueData;
+import org.titou10.jtb.qm.solace.semp.SempReader;
+import org.titou10.jtb.qm.solace.semp.SempResponseMeta;
+import org.titou10.jtb.qm.solace.semp.SempResponseMetaError;
 
 /**
  * 
- * Store SEMP connection info
+ * Store SEMP connection info and perform the SEMP requests<br>
+ * Requests ask only for the fields used by JMSToolBox ("select"), accept compressed responses, follow the pages returned by the
+ * server ("nextPageUri") and parse the responses as they are received
  * 
  * @author Denis Forveille
  *
  */
 public final class SEMPContext {
 
-   private static final Duration          HTTP_TIMEOUT          = Duration.ofSeconds(30L);
+   private static final org.slf4j.Logger           log                   = LoggerFactory.getLogger(SEMPContext.class);
+
+   private static final String                     CR                    = "\n";
+
+   private static final Duration                   HTTP_TIMEOUT          = Duration.ofSeconds(30L);
+
+   private static final String                     HTTP_H_ACCEPT         = "Accept";
+   private static final String                     HTTP_H_ACCEPT_ENC     = "Accept-Encoding";
+   private static final String                     HTTP_H_CONTENT_ENC    = "Content-Encoding";
+   private static final String                     HTTP_H_JSON           = "application/json";
+   private static final String                     HTTP_H_GZIP           = "gzip";
+   private static final String                     HTTP_H_AUTHORIZATION  = "Authorization";
+   private static final String                     HTTP_H_AUTHO_BASIC    = "Basic ";
 
-   private static final String            HTTP_H_CT             = "Content-Type";
-   private static final String            HTTP_H_JSON           = "application/json";
-   private static final String            HTTP_H_AUTHORIZATION  = "Authorization";
-   private static final String            HTTP_H_AUTHO_BASIC    = "Basic ";
+   private static final String                     SEMP_CONFIG_URI       = "/SEMP/v2/config/msgVpns/%s";
+   private static final String                     SEMP_COUNT_PARAM      = "count=1000";
 
-   private static final String            SEMP_CONFIG_URI       = "/SEMP/v2/config/msgVpns/%s";
-   private static final String            SEMP_COUNT_PARAM      = "count=1000";
+   private static final String                     SEMP_QUEUES_LIST      = "%s" + SEMP_CONFIG_URI + "/queues?select=queueName&"
+                                                                           + SEMP_COUNT_PARAM;
+   private static final String                     SEMP_JNDI_TOPICS_LIST = "%s" + SEMP_CONFIG_URI
+                                                                           + "/jndiTopics?select=physicalName,topicName&"
+                                                                           + SEMP_COUNT_PARAM;
 
-   private static final String            SEMP_QUEUES_LIST      = "%s" + SEMP_CONFIG_URI + "/queues?select=queueName&"
-                                                                  + SEMP_COUNT_PARAM;
-   private static final String            SEMP_JNDI_TOPICS_LIST = "%s" + SEMP_CONFIG_URI + "/jndiTopics?" + SEMP_COUNT_PARAM;
+   private static final String                     SEMP_QUEUE_INFO       = "%s" + SEMP_CONFIG_URI + "/queues/%s?select="
+                                                                           + "accessType,consumerAckPropagationEnabled,deadMsgQueue,"
+                                                                           + "egressEnabled,ingressEnabled,maxBindCount,"
+                                                                           + "maxDeliveredUnackedMsgsPerFlow,maxMsgSize,"
+                                                                           + "maxMsgSpoolUsage,maxRedeliveryCount,maxTtl,permission,"
+                                                                           + "queueName,rejectLowPriorityMsgEnabled,"
+                                                                           + "rejectLowPriorityMsgLimit,"
+                                                                           + "rejectMsgToSenderOnDiscardBehavior,"
+                                                                           + "respectMsgPriorityEnabled,respectTtlEnabled";
 
-   private static final String            SEMP_QUEUE_INFO       = "%s" + SEMP_CONFIG_URI + "/queues/%s";
+   // HTTP/2 is negotiated with the servers that support it, HTTP/1.1 is used otherwise
+   private static final HttpClient                 HTTP_CLIENT           = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2).followRedirects(HttpClient.Redirect.NORMAL).connectTimeout(HTTP_TIMEOUT).build();
 
-   private String                         vpn;
-   private String                         mgmtUrl;
+   private static final Jsonb                      JSONB                 = JsonbBuilder.create();
 
-   private HttpRequest                    sempListQueuesRequest;
-   private HttpRequest                    sempListJndiTopicsRequest;
+   private String                                  vpn;
+   private String                                  mgmtUrl;
 
-   private String                         authHeader;
+   private HttpRequest                             sempListQueuesRequest;
+   private HttpRequest                             sempListJndiTopicsRequest;
 
-   private Map<String, SempJndiTopicData> mapJndiTopicData      = new HashMap<>();                                           // topicName,
-                                                                                                                             // SempJndiTopicData
+   private String                                  authHeader;
+
+   // topicName, SempJndiTopicData. Replaced as a whole on each discovery
+   private volatile Map<String, SempJndiTopicData> mapJndiTopicData      = Collections.emptyMap();
 
    // -------------------------
    // Constructor
@@ -68,26 +119,53 @@ public final class SEMPContext {
       this.vpn = vpn;
       this.mgmtUrl = mgmtUrl;
 
-      this.authHeader = HTTP_H_AUTHO_BASIC + Base64.getEncoder().encodeToString((mgmtUsername + ":" + mgmtPassword).getBytes());
-
-      this.sempListQueuesRequest = HttpRequest.newBuilder().uri(URI.create(String.format(SEMP_QUEUES_LIST, mgmtUrl, vpn))).GET()
-               .timeout(HTTP_TIMEOUT).header(HTTP_H_CT, HTTP_H_JSON).header(HTTP_H_AUTHORIZATION, authHeader).build();
-
-      this.sempListJndiTopicsRequest = HttpRequest.newBuilder().uri(URI.create(String.format(SEMP_JNDI_TOPICS_LIST, mgmtUrl, vpn)))
-               .GET().timeout(HTTP_TIMEOUT).header(HTTP_H_CT, HTTP_H_JSON).header(HTTP_H_AUTHORIZATION, authHeader).build();
+      byte[] credentials = (mgmtUsername + ":" + mgmtPassword).getBytes(StandardCharsets.UTF_8);
+      this.authHeader = HTTP_H_AUTHO_BASIC + Base64.getEncoder().encodeToString(credentials);
 
+      this.sempListQueuesRequest = buildRequest(URI.create(String.format(SEMP_QUEUES_LIST, mgmtUrl, vpn)), HTTP_TIMEOUT);
+      this.sempListJndiTopicsRequest = buildRequest(URI.create(String.format(SEMP_JNDI_TOPICS_LIST, mgmtUrl, vpn)), HTTP_TIMEOUT);
    }
 
    // ------------------------
-   // Helpers
+   // Business Interface
    // ------------------------
-   public HttpRequest buildQueueInfoRequest(String queueName) {
-      return HttpRequest.newBuilder().uri(URI.create(String.format(SEMP_QUEUE_INFO, mgmtUrl, vpn, queueName))).GET()
-               .timeout(Duration.ofMinutes(1)).header(HTTP_H_CT, HTTP_H_JSON).header(HTTP_H_AUTHORIZATION, authHeader).build();
+
+   // Read all the pages of the queues list. The names are returned in the order received from the server
+   public CompletableFuture<List<String>> listQueueNames() {
+      return readAllPages(sempListQueuesRequest,
+                          "Error received from Solace server when retrieving Queue List",
+                          o -> o.getString("queueName", null),
+                          new ArrayList<>());
+   }
+
+   // Read all the pages of the JNDI topics list and keep them for "getJndiTopicData"
+   public CompletableFuture<List<SempJndiTopicData>> listJndiTopics() {
+      return readAllPages(sempListJndiTopicsRequest,
+                          "Error received from Solace server when retrieving JNDITopic List",
+                          SEMPContext::buildJndiTopicData,
+                          new ArrayList<SempJndiTopicData>()).thenApply(topics -> {
+                             Map<String, SempJndiTopicData> m = new HashMap<>(topics.size() * 2);
+                             for (SempJndiTopicData t : topics) {
+                                m.put(t.physicalName, t);
+                             }
+                             mapJndiTopicData = m;
+                             return topics;
+                          });
    }
 
-   public void putJndiTopicData(SempJndiTopicData sempJndiTopicData) {
-      mapJndiTopicData.put(sempJndiTopicData.physicalName, sempJndiTopicData);
+   public SempQueueData getQueueData(String queueName) throws Exception {
+      // Queue names may contain '/' or spaces. URLEncoder is for forms: a space must be "%20" in a path
+      String encodedQueueName = URLEncoder.encode(queueName, StandardCharsets.UTF_8).replace("+", "%20");
+      HttpRequest request = buildRequest(URI.create(String.format(SEMP_QUEUE_INFO, mgmtUrl, vpn, encodedQueueName)),
+                                         Duration.ofMinutes(1));
+      log.debug("SEMP request: {}", request);
+
+      HttpResponse<InputStream> response = HTTP_CLIENT.send(request, BodyHandlers.ofInputStream());
+      List<SempQueueData> res = new ArrayList<>(1);
+      readResponse(response,
+                   "Error received from Solace server when retrieving Queue information for '" + queueName + "'",
+                   o -> res.add(JSONB.fromJson(o.toString(), SempQueueData.class)));
+      return res.isEmpty() ? null : res.get(0);
    }
 
    public SempJndiTopicData getJndiTopicData(String topicName) {
@@ -95,15 +173,91 @@ public final class SEMPContext {
    }
 
    // ------------------------
-   // Standard Getters/Setters
+   // Helpers
    // ------------------------
 
-   public HttpRequest getSempListQueuesRequest() {
-      return sempListQueuesRequest;
+   private HttpRequest buildRequest(URI uri, Duration timeout) {
+      return HttpRequest.newBuilder().uri(uri).GET().timeout(timeout).header(HTTP_H_ACCEPT, HTTP_H_JSON)
+               .header(HTTP_H_ACCEPT_ENC, HTTP_H_GZIP).header(HTTP_H_AUTHORIZATION, authHeader).build();
    }
 
-   public HttpRequest getSempListJndiTopicsRequest() {
-      return sempListJndiTopicsRequest;
+   // Send the request asynchronously and chain the requests for the next pages, if any
+   private <T> CompletableFuture<List<T>> readAllPages(HttpRequest request,
+                                                       String errorMessage,
+                                                       Function<JsonObject, T> mapper,
+                                                       List<T> res) {
+      log.debug("SEMP request: {}", request);
+      return HTTP_CLIENT.sendAsync(request, BodyHandlers.ofInputStream()).thenCompose(response -> {
+         SempResponseMeta meta;
+         try {
+            meta = readResponse(response, errorMessage, o -> res.add(mapper.apply(o)));
+         } catch (Exception e) {
+            throw new CompletionException(e);
+         }
+
+         if ((meta != null) && (meta.paging != null) && (meta.paging.nextPageUri != null)) {
+            log.debug("{} elements read, reading next page", res.size());
+            return readAllPages(buildRequest(URI.create(meta.paging.nextPageUri), HTTP_TIMEOUT), errorMessage, mapper, res);
+         }
+         return CompletableFuture.completedFuture(res);
+      });
+   }
+
+   private SempResponseMeta readResponse(HttpResponse<InputStream> response,
+                                         String errorMessage,
+                                         Consumer<JsonObject> dataConsumer) throws Exception {
+      int statusCode = response.statusCode();
+      log.debug("statusCode={}", statusCode);
+
+      try (InputStream is = decode(response)) {
+         if (statusCode != HttpURLConnection.HTTP_OK) {
+            SempResponseMeta meta = null;
+            try {
+               meta = SempReader.read(is, o -> {});
+            } catch (JsonException e) {
+               log.debug("Error response is not a SEMP response: {}", e.getMessage());
+            }
+            String msg = formatSempError(errorMessage, statusCode, meta);
+            log.error(msg);
+            throw new Exception(msg);
+         }
+         return SempReader.read(is, dataConsumer);
+      }
+   }
+
+   private InputStream decode(HttpResponse<InputStream> response) throws IOException {
+      String encoding = response.headers().firstValue(HTTP_H_CONTENT_ENC).orElse("");
+      if (encoding.equalsIgnoreCase(HTTP_H_GZIP)) {
+         return new GZIPInputStream(response.body());
+      }
+      return response.body();
+   }
+
+   private static SempJndiTopicData buildJndiTopicData(JsonObject o) {
+      SempJndiTopicData t = new SempJndiTopicData();
+      t.physicalName = o.getString("physicalName", null);
+      t.topicName = o.getString("topicName", null);
+      return t;
+   }
+
+   private static String formatSempError(String message, int httpStatusCode, SempResponseMeta meta) {
+
+      SempResponseMetaError sempResponseMetaError = null;
+      if (meta != null) {
+         sempResponseMetaError = meta.error;
+      }
+
+      StringBuilder sb = new StringBuilder(256);
+      sb.append(message).append(CR);
+      sb.append("Details of the error encountered:").append(CR);
+      sb.append("HTTP Status Code: " + httpStatusCode).append(CR);
+      if (sempResponseMetaError != null) {
+         sb.append("SEMP Error Code: " + sempResponseMetaError.code).append(CR);
+         sb.append("SEMP Error Status: " + sempResponseMetaError.status).append(CR);
+         sb.append("SEMP Error Descriptions: " + sempResponseMetaError.description).append(CR);
+      }
+
+      return sb.toString();
    }
 
 }
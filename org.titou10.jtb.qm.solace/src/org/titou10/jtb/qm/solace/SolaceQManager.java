@@ -16,11 +16,6 @@
  */
 package org.titou10.jtb.qm.solace;
 
-import java.net.HttpURLConnection;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import java.net.http.HttpResponse.BodyHandlers;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -29,11 +24,11 @@ import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import javax.jms.Connection;
 import javax.jms.JMSException;
-import javax.json.bind.Jsonb;
-import javax.json.bind.JsonbBuilder;
 
 import org.slf4j.LoggerFactory;
 import org.titou10.jtb.config.gen.SessionDef;
@@ -45,9 +40,6 @@ import org.titou10.jtb.jms.qm.QueueData;
 import org.titou10.jtb.jms.qm.TopicData;
 import org.titou10.jtb.qm.solace.semp.SempJndiTopicData;
 import org.titou10.jtb.qm.solace.semp.SempQueueData;
-import org.titou10.jtb.qm.solace.semp.SempResponse;
-import org.titou10.jtb.qm.solace.semp.SempResponseMetaError;
-import org.titou10.jtb.qm.solace.utils.PType;
 
 import com.solacesystems.jms.SolConnectionFactory;
 import com.solacesystems.jms.SolJmsUtility;
@@ -67,19 +59,6 @@ public class SolaceQManager extends QManager {
    private static final String             CR                            = "\n";
    private static final String             HELP_TEXT;
 
-   // HTTP REST stuff
-   private static final HttpClient         HTTP_CLIENT                   = HttpClient.newBuilder()
-            .followRedirects(HttpClient.Redirect.NORMAL).build();
-
-   // JSON-B stuff
-   private static final Jsonb              JSONB                         = JsonbBuilder.create();
-   private static final PType              JSONB_Q_DATA_RESP             = new PType(SempResponse.class, SempQueueData.class);
-   private static final PType              JSONB_Q_DATA_LIST             = new PType(List.class, SempQueueData.class);
-   private static final PType              JSONB_Q_DATA_LIST_RESP        = new PType(SempResponse.class, JSONB_Q_DATA_LIST);
-
-   private static final PType              JSONB_JNDI_T_DATA_LIST        = new PType(List.class, SempJndiTopicData.class);
-   private static final PType              JSONB_JNDI_T_DATA_LIST_RESP   = new PType(SempResponse.class, JSONB_JNDI_T_DATA_LIST);
-
    // Properties
    private List<QManagerProperty>          parameters                    = new ArrayList<QManagerProperty>();
 
@@ -320,48 +299,31 @@ public class SolaceQManager extends QManager {
       Integer hash = jmsConnection.hashCode();
       SEMPContext sempContext = sempContexts.get(hash);
 
-      // Build Queues list
-      SortedSet<QueueData> listQueueData = new TreeSet<>();
-
-      HttpRequest request = sempContext.getSempListQueuesRequest();
-      log.debug("SEMP request: {}", request);
-      HttpResponse<String> response = HTTP_CLIENT.send(request, BodyHandlers.ofString());
-      String body = response.body();
-      log.debug("statusCode={}", response.statusCode());
-      log.trace("body={}", response.body());
-      if (response.statusCode() != HttpURLConnection.HTTP_OK) {
-         String msg = formatSempError("Error received from Solace server when retrieving Queue List", response.statusCode(), body);
-         log.error(msg);
-         throw new Exception(msg);
+      // Both lists are read at the same time
+      CompletableFuture<List<String>> queues = sempContext.listQueueNames();
+      CompletableFuture<List<SempJndiTopicData>> topics = sempContext.listJndiTopics();
+      try {
+         CompletableFuture.allOf(queues, topics).join();
+      } catch (CompletionException e) {
+         queues.cancel(true);
+         topics.cancel(true);
+         if (e.getCause() instanceof Exception) {
+            throw (Exception) e.getCause();
+         }
+         throw e;
       }
 
-      SempResponse<List<SempQueueData>> queues = JSONB.fromJson(body, JSONB_Q_DATA_LIST_RESP);
-      for (SempQueueData q : queues.data) {
-         log.debug("q={}", q.queueName);
-         listQueueData.add(new QueueData(q.queueName));
+      // Build Queues list
+      SortedSet<QueueData> listQueueData = new TreeSet<>();
+      for (String queueName : queues.join()) {
+         log.debug("q={}", queueName);
+         listQueueData.add(new QueueData(queueName));
       }
 
       // Build Topics lists
       SortedSet<TopicData> listTopicData = new TreeSet<>();
-
-      request = sempContext.getSempListJndiTopicsRequest();
-      log.debug("SEMP request: {}", request);
-      response = HTTP_CLIENT.send(request, BodyHandlers.ofString());
-      body = response.body();
-      log.debug("statusCode={}", response.statusCode());
-      log.trace("body={}", response.body());
-      if (response.statusCode() != HttpURLConnection.HTTP_OK) {
-         String msg = formatSempError("Error received from Solace server when retrieving JNDITopic List",
-                                      response.statusCode(),
-                                      body);
-         log.error(msg);
-         throw new Exception(msg);
-      }
-
-      SempResponse<List<SempJndiTopicData>> topics = JSONB.fromJson(body, JSONB_JNDI_T_DATA_LIST_RESP);
-      for (SempJndiTopicData sempJndiTopicData : topics.data) {
+      for (SempJndiTopicData sempJndiTopicData : topics.join()) {
          log.debug("t={}", sempJndiTopicData.physicalName);
-         sempContext.putJndiTopicData(sempJndiTopicData);
          listTopicData.add(new TopicData(sempJndiTopicData.physicalName));
       }
 
@@ -377,23 +339,11 @@ public class SolaceQManager extends QManager {
       SortedMap<String, Object> properties = new TreeMap<>();
 
       try {
-         HttpRequest request = sempContext.buildQueueInfoRequest(queueName);
-         log.debug("SEMP request: {}", request);
-         HttpResponse<String> response = HTTP_CLIENT.send(request, BodyHandlers.ofString());
-         String body = response.body();
-         log.debug("statusCode={}", response.statusCode());
-         log.trace("body={}", response.body());
-         if (response.statusCode() != HttpURLConnection.HTTP_OK) {
-            String msg = formatSempError("Error received from Solace server when retrieving Queue information for '{}'",
-                                         response.statusCode(),
-                                         body);
-            log.error(msg, queueName);
+         SempQueueData qData = sempContext.getQueueData(queueName);
+         if (qData == null) {
             return properties;
          }
 
-         SempResponse<SempQueueData> qResp = JSONB.fromJson(body, JSONB_Q_DATA_RESP);
-         SempQueueData qData = qResp.data;
-
          properties.put("accessType", qData.accessType);
          properties.put("consumerAckPropagationEnabled", qData.consumerAckPropagationEnabled);
          properties.put("deadMsgQueue", qData.deadMsgQueue);
@@ -436,28 +386,6 @@ public class SolaceQManager extends QManager {
    // Helpers
    // -------
 
-   private String formatSempError(String message, int httpStatusCode, String body) {
-
-      SempResponse<SempQueueData> resp = JSONB.fromJson(body, JSONB_Q_DATA_RESP); // Whatever struct
-
-      SempResponseMetaError sempResponseMetaError = null;
-      if (resp.meta != null) {
-         sempResponseMetaError = resp.meta.error;
-      }
-
-      StringBuilder sb = new StringBuilder(256);
-      sb.append(message).append(CR);
-      sb.append("Details of the error encountered:").append(CR);
-      sb.append("HTTP Status Code: " + httpStatusCode).append(CR);
-      if (sempResponseMetaError != null) {
-         sb.append("SEMP Error Code: " + sempResponseMetaError.code).append(CR);
-         sb.append("SEMP Error Status: " + sempResponseMetaError.status).append(CR);
-         sb.append("SEMP Error Descriptions: " + sempResponseMetaError.description).append(CR);
-      }
-
-      return sb.toString();
-   }
-
    @Override
    public String getHelpText() {
       return HELP_TEXT;
@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2019 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.qm.solace.semp;
+
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+import javax.json.Json;
+import javax.json.JsonNumber;
+import javax.json.JsonObject;
+import javax.json.JsonValue;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParser.Event;
+
+/**
+ * 
+ * Streaming reader of SEMP responses<br>
+ * The elements of "data" are handed one at a time to a consumer, so that the whole document is never held in memory, and the
+ * "meta" structure is returned
+ * 
+ * @author Denis Forveille
+ *
+ */
+public final class SempReader {
+
+   private static final String KEY_DATA = "data";
+   private static final String KEY_META = "meta";
+
+   // -------------------------
+   // Business Interface
+   // -------------------------
+
+   public static SempResponseMeta read(InputStream is, Consumer<JsonObject> dataConsumer) {
+
+      SempResponseMeta meta = null;
+
+      try (JsonParser parser = Json.createParser(is)) {
+         if ((!parser.hasNext()) || (parser.next() != Event.START_OBJECT)) {
+            return null;
+         }
+
+         // Only the top level keys are seen here, their values are consumed entirely
+         while (parser.hasNext()) {
+            Event event = parser.next();
+            if (event != Event.KEY_NAME) {
+               continue;
+            }
+
+            String key = parser.getString();
+            event = parser.next();
+            switch (key) {
+               case KEY_DATA:
+                  if (event == Event.START_ARRAY) {
+                     while ((event = parser.next()) != Event.END_ARRAY) {
+                        if (event == Event.START_OBJECT) {
+                           dataConsumer.accept(parser.getObject());
+                        }
+                     }
+                  } else {
+                     if (event == Event.START_OBJECT) {
+                        dataConsumer.accept(parser.getObject());
+                     }
+                  }
+                  break;
+
+               case KEY_META:
+                  if (event == Event.START_OBJECT) {
+                     meta = buildMeta(parser.getObject());
+                  }
+                  break;
+
+               default:
+                  // "links" etc.
+                  skip(parser, event);
+                  break;
+            }
+         }
+      }
+
+      return meta;
+   }
+
+   // -------
+   // Helpers
+   // -------
+
+   private static void skip(JsonParser parser, Event event) {
+      if (event == Event.START_OBJECT) {
+         parser.skipObject();
+      } else {
+         if (event == Event.START_ARRAY) {
+            parser.skipArray();
+         }
+      }
+   }
+
+   private static SempResponseMeta buildMeta(JsonObject o) {
+      SempResponseMeta meta = new SempResponseMeta();
+      meta.responseCode = getInteger(o, "responseCode");
+
+      JsonObject e = getObject(o, "error");
+      if (e != null) {
+         meta.error = new SempResponseMetaError();
+         meta.error.code = getInteger(e, "code");
+         meta.error.description = e.getString("description", null);
+         meta.error.status = e.getString("status", null);
+      }
+
+      JsonObject p = getObject(o, "paging");
+      if (p != null) {
+         meta.paging = new SempResponseMetaPaging();
+         meta.paging.cursorQuery = p.getString("cursorQuery", null);
+         meta.paging.nextPageUri = p.getString("nextPageUri", null);
+      }
+
+      return meta;
+   }
+
+   private static JsonObject getObject(JsonObject o, String key) {
+      JsonValue v = o.get(key);
+      return (v != null) && (v.getValueType() == JsonValue.ValueType.OBJECT) ? v.asJsonObject() : null;
+   }
+
+   private static Integer getInteger(JsonObject o, String key) {
+      JsonValue v = o.get(key);
+      return (v != null) && (v.getValueType() == JsonValue.ValueType.NUMBER) ? ((JsonNumber) v).intValue() : null;
+   }
+
+   // ------------------
+   // Pure Utility Class
+   // ------------------
+   private SempReader() {
+      // NOP
+   }
+}
@@ -25,10 +25,10 @@ package org.titou10.jtb.qm.solace.semp;
  */
 public class SempResponseMeta {
 
-   public SempResponseMetaError error;
+   public SempResponseMetaError  error;
    // public Object request;
-   // public Object paging;
-   public Integer           responseCode;
+   public SempResponseMetaPaging paging;
+   public Integer                responseCode;
 
    // -------------------------
    // Constructor
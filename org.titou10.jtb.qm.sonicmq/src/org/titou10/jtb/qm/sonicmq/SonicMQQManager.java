@@ -17,7 +17,6 @@
 package org.titou10.jtb.qm.sonicmq;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
@@ -25,6 +24,7 @@ import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.jms.Connection;
 import javax.jms.JMSException;
@@ -36,6 +36,7 @@ import javax.management.ReflectionException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.titou10.jtb.config.gen.SessionDef;
+import org.titou10.jtb.jms.qm.AdminChannelCache;
 import org.titou10.jtb.jms.qm.DestinationData;
 import org.titou10.jtb.jms.qm.JMSPropertyKind;
 import org.titou10.jtb.jms.qm.QManager;
@@ -78,8 +79,9 @@ public class SonicMQQManager extends QManager {
 
    private final List<QManagerProperty>           parameters              = new ArrayList<QManagerProperty>();
 
-   private final Map<Integer, JMSConnectorClient> jmxConnectors           = new HashMap<>();
-   private final Map<Integer, ObjectName>         brokerObjectNames       = new HashMap<>();
+   private final AdminChannelCache<JMSConnectorClient> jmxConnectors      = new AdminChannelCache<>("SonicMQ JMX",
+                                                                                            JMSConnectorClient::disconnect);
+   private final Map<Integer, ObjectName>         brokerObjectNames       = new ConcurrentHashMap<>();
 
    public SonicMQQManager() {
       log.debug("Instantiate SonicMQQManager");
@@ -107,7 +109,6 @@ public class SonicMQQManager extends QManager {
    }
 
    @Override
-   @SuppressWarnings({ "rawtypes", "unchecked" })
    public Connection connect(SessionDef sessionDef, boolean showSystemObjects, String clientID) throws Exception {
       log.info("connecting to {} - {}", sessionDef.getName(), clientID);
 
@@ -150,18 +151,9 @@ public class SonicMQQManager extends QManager {
 
       log.debug("JMX connectionURL: {}", connectionURL);
 
-      Hashtable env = new Hashtable();
-      env.put("ConnectionURLs", connectionURL.toString());
-      if (sessionDef.getActiveUserid() != null) {
-         env.put("DefaultUser", sessionDef.getActiveUserid());
-      }
-      if (sessionDef.getActivePassword() != null) {
-         env.put("DefaultPassword", sessionDef.getActivePassword());
-      }
-
-      JMSConnectorAddress address = new JMSConnectorAddress(env);
-      JMSConnectorClient jmxConnector = new JMSConnectorClient();
-      jmxConnector.connect(address, 30 * 1000); // Wait 30s max for connection
+      // Shared by the connections to the same broker
+      String key = AdminChannelCache.buildKey(sessionDef, mapProperties);
+      jmxConnectors.acquire(key, () -> openJMXConnector(sessionDef, connectionURL.toString()));
 
       // Lookup for Queues
       // "Domain1.DomainManager:ID=MgmtBroker"
@@ -183,16 +175,21 @@ public class SonicMQQManager extends QManager {
       factory.setSequential(true);
       factory.setLoadBalancing(true);
 
-      Connection jmsConnection = factory.createConnection();
-      jmsConnection.setClientID(clientID);
-      jmsConnection.start();
+      Connection jmsConnection;
+      try {
+         jmsConnection = factory.createConnection();
+         jmsConnection.setClientID(clientID);
+         jmsConnection.start();
+      } catch (Exception e) {
+         jmxConnectors.release(key);
+         throw e;
+      }
 
       log.info("connected to {}", sessionDef.getName());
 
       // Store per connection related data
-      Integer hash = jmsConnection.hashCode();
-      jmxConnectors.put(hash, jmxConnector);
-      brokerObjectNames.put(hash, brokerObjectName);
+      jmxConnectors.bind(jmsConnection, key);
+      brokerObjectNames.put(jmsConnection.hashCode(), brokerObjectName);
 
       return jmsConnection;
    }
@@ -203,7 +200,7 @@ public class SonicMQQManager extends QManager {
       log.debug("discoverDestinations : {} - {}", jmsConnection, showSystemObjects);
 
       Integer hash = jmsConnection.hashCode();
-      JMSConnectorClient jmxConnector = jmxConnectors.get(hash);
+      JMSConnectorClient jmxConnector = jmxConnectors.get(jmsConnection);
       ObjectName brokerObjectName = brokerObjectNames.get(hash);
 
       SortedSet<org.titou10.jtb.jms.qm.QueueData> listQueueData = new TreeSet<>();
@@ -263,25 +260,15 @@ public class SonicMQQManager extends QManager {
    public void close(Connection jmsConnection) throws JMSException {
       log.debug("close connection {}", jmsConnection);
 
-      Integer hash = jmsConnection.hashCode();
-      JMSConnectorClient jmxConnector = jmxConnectors.get(hash);
-
       try {
          jmsConnection.close();
       } catch (Exception e) {
          log.warn("Exception occured while closing connection. Ignore it. Msg={}", e.getMessage());
       }
 
-      if (jmxConnector != null) {
-         try {
-            jmxConnector.disconnect();
-         } catch (Exception e) {
-            log.warn("Exception occured while disconnect JMX connector. Ignore it. Msg={}", e.getMessage());
-         }
-         jmxConnectors.remove(hash);
-      }
-
-      brokerObjectNames.remove(hash);
+      // The JMX connector is disconnected when no other connection use it
+      jmxConnectors.release(jmsConnection);
+      brokerObjectNames.remove(jmsConnection.hashCode());
    }
 
    @Override
@@ -335,7 +322,7 @@ public class SonicMQQManager extends QManager {
    public Map<String, Object> getTopicInformation(Connection jmsConnection, String topicName) {
 
       Integer hash = jmsConnection.hashCode();
-      JMSConnectorClient jmxConnector = jmxConnectors.get(hash);
+      JMSConnectorClient jmxConnector = jmxConnectors.get(jmsConnection);
       ObjectName brokerObjectName = brokerObjectNames.get(hash);
 
       SortedMap<String, Object> properties = new TreeMap<>();
@@ -407,7 +394,7 @@ public class SonicMQQManager extends QManager {
                                                                               ReflectionException {
 
       Integer hash = jmsConnection.hashCode();
-      JMSConnectorClient jmxConnector = jmxConnectors.get(hash);
+      JMSConnectorClient jmxConnector = jmxConnectors.get(jmsConnection);
       ObjectName brokerObjectName = brokerObjectNames.get(hash);
 
       Object[] params = { queueName };
@@ -416,6 +403,25 @@ public class SonicMQQManager extends QManager {
       return qd.get(0);
    }
 
+   @SuppressWarnings({ "rawtypes", "unchecked" })
+   private JMSConnectorClient openJMXConnector(SessionDef sessionDef, String connectionURL) throws Exception {
+
+      Hashtable env = new Hashtable();
+      env.put("ConnectionURLs", connectionURL);
+      if (sessionDef.getActiveUserid() != null) {
+         env.put("DefaultUser", sessionDef.getActiveUserid());
+      }
+      if (sessionDef.getActivePassword() != null) {
+         env.put("DefaultPassword", sessionDef.getActivePassword());
+      }
+
+      JMSConnectorAddress address = new JMSConnectorAddress(env);
+      JMSConnectorClient jmxConnector = new JMSConnectorClient();
+      jmxConnector.connect(address, 30 * 1000); // Wait 30s max for connection
+
+      return jmxConnector;
+   }
+
    // ------------------------
    // Standard Getters/Setters
    // ------------------------
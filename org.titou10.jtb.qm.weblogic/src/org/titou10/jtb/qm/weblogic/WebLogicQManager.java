@@ -27,6 +27,7 @@ import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.jms.Connection;
 import javax.jms.ConnectionFactory;
@@ -45,6 +46,7 @@ import javax.naming.directory.InitialDirContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.titou10.jtb.config.gen.SessionDef;
+import org.titou10.jtb.jms.qm.AdminChannelCache;
 import org.titou10.jtb.jms.qm.DestinationData;
 import org.titou10.jtb.jms.qm.JMSPropertyKind;
 import org.titou10.jtb.jms.qm.QManager;
@@ -110,15 +112,16 @@ public class WebLogicQManager extends QManager {
 
    private List<QManagerProperty>                       parameters                       = new ArrayList<QManagerProperty>();
 
-   private final Map<Integer, JMXConnector>             jmxcs                            = new HashMap<>();
-   private final Map<Integer, MBeanServerConnection>    mbscs                            = new HashMap<>();
-   private final Map<Integer, ObjectName>               serversRuntimeON                 = new HashMap<>();
+   private final AdminChannelCache<JMXChannel>          jmxChannels                      = new AdminChannelCache<>("WebLogic JMX",
+                                                                                                          JMXChannel::close,
+                                                                                                          JMXChannel::isValid);
+   private final Map<Integer, ObjectName>               serversRuntimeON                 = new ConcurrentHashMap<>();
 
    // Keep JMX ObjectName corresponding to the destinationName because the ON must be fully qualified to work
    // ie including Location=...
    // ObjectName :
    // com.bea:ServerRuntime=AdminServer,Name=SystemModule-0!Queue-2,Type=JMSDestinationRuntime,JMSServerRuntime=JMSServer-0
-   private final Map<Integer, Map<Integer, ObjectName>> destinationONPerConnection       = new HashMap<>();
+   private final Map<Integer, Map<Integer, ObjectName>> destinationONPerConnection       = new ConcurrentHashMap<>();
 
    // ------------------------
    // Constructor
@@ -209,27 +212,9 @@ public class WebLogicQManager extends QManager {
          // System.setProperty("javax.net.debug", "ssl");
 
          // JMX Connection
-         // https://docs.oracle.com/cd/E24329_01/web.1211/e24415/accesswls.htm#JMXCU144
-         // https://docs.oracle.com/cd/E13222_01/wls/docs103/jms/fund.html
-
-         HashMap<String, Object> jmxEnv = new HashMap<String, Object>();
-         jmxEnv.put(JMXConnectorFactory.PROTOCOL_PROVIDER_PACKAGES, "weblogic.management.remote");
-         jmxEnv.put("jmx.remote.x.request.waiting.timeout", Long.parseLong("30000")); // 30 secs
-         // jmxEnv.put(JMXConnector.CREDENTIALS, new String[] { sessionDef.getUserid(), sessionDef.getPassword() });
-         jmxEnv.put(Context.SECURITY_PRINCIPAL, sessionDef.getActiveUserid());
-         jmxEnv.put(Context.SECURITY_CREDENTIALS, sessionDef.getActivePassword());
-
-         // service:jmx:t3://localhost:7001/jndi/weblogic.management.mbeanservers.domainruntime
-         // String jmxURL = String.format(JMX_URL, jmxProtocol, sessionDef.getHost(), sessionDef.getPort(), jmxMBeanServer);
-         // JMXServiceURL serviceURL = new JMXServiceURL(jmxURL);
-         JMXServiceURL serviceURL = new JMXServiceURL(jmxProtocol,
-                                                      sessionDef.getHost(),
-                                                      sessionDef.getPort(),
-                                                      "/jndi/" + jmxMBeanServer);
-         log.debug("connecting to {}", serviceURL);
-
-         JMXConnector jmxc = JMXConnectorFactory.connect(serviceURL, jmxEnv);
-         MBeanServerConnection mbsc = jmxc.getMBeanServerConnection();
+         // Shared by the connections to the same server
+         String key = AdminChannelCache.buildKey(sessionDef, mapProperties);
+         jmxChannels.acquire(key, () -> openJMXChannel(sessionDef, jmxProtocol, jmxMBeanServer));
 
          // Produce the JMS Connection
 
@@ -244,18 +229,23 @@ public class WebLogicQManager extends QManager {
          InitialContext ctx = new InitialDirContext(jndiEnv);
          ConnectionFactory connFactory = (ConnectionFactory) ctx.lookup(WLS_DEFAULT_CONNECTION_FACTORY);
 
-         Connection jmsConnection = connFactory.createConnection(sessionDef.getActiveUserid(), sessionDef.getActivePassword());
-         jmsConnection.setClientID(clientID);
-         jmsConnection.start();
+         Connection jmsConnection;
+         try {
+            jmsConnection = connFactory.createConnection(sessionDef.getActiveUserid(), sessionDef.getActivePassword());
+            jmsConnection.setClientID(clientID);
+            jmsConnection.start();
+         } catch (Exception e) {
+            jmxChannels.release(key);
+            throw e;
+         }
 
          log.info("connected to {}", sessionDef.getName());
 
          // Store per connection related data
          Integer hash = jmsConnection.hashCode();
-         jmxcs.put(hash, jmxc);
-         mbscs.put(hash, mbsc);
+         jmxChannels.bind(jmsConnection, key);
          serversRuntimeON.put(hash, new ObjectName(String.format(ON_JMSRUNTIME, serverRuntimeName)));
-         destinationONPerConnection.put(hash, new HashMap<>());
+         destinationONPerConnection.put(hash, new ConcurrentHashMap<>());
 
          return jmsConnection;
       } finally {
@@ -267,7 +257,7 @@ public class WebLogicQManager extends QManager {
    public DestinationData discoverDestinations(Connection jmsConnection, boolean showSystemObjects) throws Exception {
 
       Integer hash = jmsConnection.hashCode();
-      MBeanServerConnection mbsc = mbscs.get(hash);
+      MBeanServerConnection mbsc = jmxChannels.get(jmsConnection).mbsc;
       Map<Integer, ObjectName> destinationObjectNames = destinationONPerConnection.get(hash);
       ObjectName serverRuntimeON = serversRuntimeON.get(hash);
 
@@ -310,7 +300,6 @@ public class WebLogicQManager extends QManager {
       log.debug("close connection {}", jmsConnection);
 
       Integer hash = jmsConnection.hashCode();
-      JMXConnector jmxc = jmxcs.get(hash);
 
       try {
          jmsConnection.close();
@@ -318,23 +307,16 @@ public class WebLogicQManager extends QManager {
          log.warn("Exception occured while closing connection. Ignore it. Msg={}", e.getMessage());
       }
 
-      if (jmxc != null) {
-         try {
-            jmxc.close();
-         } catch (IOException e) {
-            log.warn("Exception occured while closing JMXConnector. Ignore it. Msg={}", e.getMessage());
-         }
-         jmxcs.remove(hash);
-         mbscs.remove(hash);
-         destinationONPerConnection.remove(hash);
-         serversRuntimeON.remove(hash);
-      }
+      // The JMXConnector is closed when no other connection use it
+      jmxChannels.release(jmsConnection);
+      destinationONPerConnection.remove(hash);
+      serversRuntimeON.remove(hash);
    }
 
    @Override
    public Integer getQueueDepth(Connection jmsConnection, String queueName) {
       Integer hash = jmsConnection.hashCode();
-      MBeanServerConnection mbsc = mbscs.get(hash);
+      MBeanServerConnection mbsc = jmxChannels.get(jmsConnection).mbsc;
       Map<Integer, ObjectName> destinationObjectNames = destinationONPerConnection.get(hash);
 
       Integer depth = null;
@@ -406,7 +388,7 @@ public class WebLogicQManager extends QManager {
 
    private Map<String, Object> getDestinationInformation(Connection jmsConnection, String destinationName) {
       Integer hash = jmsConnection.hashCode();
-      MBeanServerConnection mbsc = mbscs.get(hash);
+      MBeanServerConnection mbsc = jmxChannels.get(jmsConnection).mbsc;
       Map<Integer, ObjectName> destinationObjectNames = destinationONPerConnection.get(hash);
 
       SortedMap<String, Object> properties = new TreeMap<>();
@@ -425,6 +407,32 @@ public class WebLogicQManager extends QManager {
       return properties;
    }
 
+   // JMX Connection
+   // https://docs.oracle.com/cd/E24329_01/web.1211/e24415/accesswls.htm#JMXCU144
+   // https://docs.oracle.com/cd/E13222_01/wls/docs103/jms/fund.html
+   private JMXChannel openJMXChannel(SessionDef sessionDef, String jmxProtocol, String jmxMBeanServer) throws IOException {
+
+      HashMap<String, Object> jmxEnv = new HashMap<String, Object>();
+      jmxEnv.put(JMXConnectorFactory.PROTOCOL_PROVIDER_PACKAGES, "weblogic.management.remote");
+      jmxEnv.put("jmx.remote.x.request.waiting.timeout", Long.parseLong("30000")); // 30 secs
+      // jmxEnv.put(JMXConnector.CREDENTIALS, new String[] { sessionDef.getUserid(), sessionDef.getPassword() });
+      jmxEnv.put(Context.SECURITY_PRINCIPAL, sessionDef.getActiveUserid());
+      jmxEnv.put(Context.SECURITY_CREDENTIALS, sessionDef.getActivePassword());
+
+      // service:jmx:t3://localhost:7001/jndi/weblogic.management.mbeanservers.domainruntime
+      // String jmxURL = String.format(JMX_URL, jmxProtocol, sessionDef.getHost(), sessionDef.getPort(), jmxMBeanServer);
+      // JMXServiceURL serviceURL = new JMXServiceURL(jmxURL);
+      JMXServiceURL serviceURL = new JMXServiceURL(jmxProtocol,
+                                                   sessionDef.getHost(),
+                                                   sessionDef.getPort(),
+                                                   "/jndi/" + jmxMBeanServer);
+      log.debug("connecting to {}", serviceURL);
+
+      JMXConnector jmxc = JMXConnectorFactory.connect(serviceURL, jmxEnv);
+
+      return new JMXChannel(jmxc);
+   }
+
    private String buildJMSDestinationName(String jmsServerName, String destinationName) {
       if (destinationName == null) {
          return null;
@@ -432,6 +440,31 @@ public class WebLogicQManager extends QManager {
       return jmsServerName + "/" + destinationName;
    }
 
+   // JMX connection shared by the connections to the same server
+   private static final class JMXChannel {
+      private final JMXConnector          jmxc;
+      private final MBeanServerConnection mbsc;
+
+      private JMXChannel(JMXConnector jmxc) throws IOException {
+         this.jmxc = jmxc;
+         this.mbsc = jmxc.getMBeanServerConnection();
+      }
+
+      private void close() throws IOException {
+         jmxc.close();
+      }
+
+      // Check that the JMX connection is still usable before sharing it
+      private boolean isValid() {
+         try {
+            mbsc.getMBeanCount();
+            return true;
+         } catch (IOException e) {
+            return false;
+         }
+      }
+   }
+
    // ------------------------
    // Standard Getters/Setters
    // ------------------------
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.rest;
+
+import java.util.List;
+import java.util.Set;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.PathSegment;
+import javax.ws.rs.ext.Provider;
+
+import org.titou10.jtb.connector.ExternalConnectorManager;
+import org.titou10.jtb.rest.util.Constants;
+
+/**
+ * Time the REST calls and record them in the JMSToolBox metrics, tagged by session and destination
+ * 
+ * @author Denis Forveille
+ *
+ */
+@Provider
+public class MetricsFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+   private static final String      PROP_START   = Constants.BASE + "metrics.start";
+   private static final String      METRICS_PATH = "metrics";
+   private static final String      OTHER        = "other";
+
+   // The operation name is a metrics tag: only use known values, whatever the URL or the method sent by the client
+   private static final Set<String> METHODS      = Set.of("get", "post", "put", "delete", "head", "options");
+   private static final Set<String> RESOURCES    = Set.of("session", "message", "script");
+
+   private ExternalConnectorManager eConfigManager;
+
+   public MetricsFilter(ExternalConnectorManager eConfigManager) {
+      this.eConfigManager = eConfigManager;
+   }
+
+   @Override
+   public void filter(ContainerRequestContext requestContext) {
+      requestContext.setProperty(PROP_START, System.nanoTime());
+   }
+
+   @Override
+   public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+      Long start = (Long) requestContext.getProperty(PROP_START);
+      if (start == null) {
+         return;
+      }
+
+      // Operation = <http method>_<resource>, ie "get_message" for "GET /rest/message/..."
+      List<PathSegment> segments = requestContext.getUriInfo().getPathSegments();
+      String resource = segments.size() > 1 ? segments.get(1).getPath() : "";
+      if (resource.equals(METRICS_PATH)) {
+         return;
+      }
+
+      MultivaluedMap<String, String> params = requestContext.getUriInfo().getPathParameters();
+      String destinationName = params.getFirst(Constants.P_DESTINATION_NAME);
+      if (destinationName == null) {
+         destinationName = params.getFirst(Constants.P_QUEUE_NAME);
+      }
+
+      String method = requestContext.getMethod().toLowerCase();
+      if (!METHODS.contains(method)) {
+         method = OTHER;
+      }
+      if (!RESOURCES.contains(resource)) {
+         resource = OTHER;
+      }
+
+      eConfigManager.recordRESTCall(method + "_" + resource,
+                                    params.getFirst(Constants.P_SESSION_NAME),
+                                    destinationName,
+                                    System.nanoTime() - start,
+                                    responseContext.getStatus() < 500);
+   }
+}
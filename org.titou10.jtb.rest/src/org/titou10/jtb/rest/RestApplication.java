@@ -24,6 +24,7 @@ import javax.ws.rs.core.Application;
 
 import org.titou10.jtb.connector.ExternalConnectorManager;
 import org.titou10.jtb.rest.service.MessageServices;
+import org.titou10.jtb.rest.service.MetricsServices;
 import org.titou10.jtb.rest.service.ScriptServices;
 import org.titou10.jtb.rest.service.SessionServices;
 
@@ -45,10 +46,12 @@ public class RestApplication extends Application {
 
    @Override
    public Set<Object> getSingletons() {
-      Set<Object> r = new HashSet<>(3);
+      Set<Object> r = new HashSet<>(5);
       r.add(new MessageServices(eConfigManager));
       r.add(new ScriptServices(eConfigManager));
       r.add(new SessionServices(eConfigManager));
+      r.add(new MetricsServices(eConfigManager));
+      r.add(new MetricsFilter(eConfigManager));
       return r;
    }
 
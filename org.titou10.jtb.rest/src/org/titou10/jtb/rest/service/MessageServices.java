@@ -41,6 +41,7 @@ import org.titou10.jtb.connector.ex.UnknownDestinationException;
 import org.titou10.jtb.connector.ex.UnknownQueueException;
 import org.titou10.jtb.connector.ex.UnknownSessionException;
 import org.titou10.jtb.connector.ex.UnknownTemplateException;
+import org.titou10.jtb.connector.transport.BulkPostOutput;
 import org.titou10.jtb.connector.transport.MessageInput;
 import org.titou10.jtb.connector.transport.MessageOutput;
 import org.titou10.jtb.rest.util.Constants;
@@ -121,6 +122,36 @@ public class MessageServices {
 
    }
 
+   // -----------------------------------------------------------------------
+   // Post/Publish a list of messages to Session:Destination asynchronously
+   // POST /rest/message/<sessionName>/<destinationName>/_bulk?maxInFlight=n
+   // defaults: maxInFlight=value from the preferences
+   // -----------------------------------------------------------------------
+
+   @POST
+   @Path("/{" + Constants.P_SESSION_NAME + "}/{" + Constants.P_DESTINATION_NAME + "}/_bulk")
+   @Consumes(MediaType.APPLICATION_JSON)
+   @Produces(MediaType.APPLICATION_JSON)
+   public Response postMessages(@PathParam(Constants.P_SESSION_NAME) String sessionName,
+                                @PathParam(Constants.P_DESTINATION_NAME) String destinationName,
+                                @DefaultValue("0") @QueryParam(Constants.P_MAX_IN_FLIGHT) int maxInFlight,
+                                List<MessageInput> messages) {
+      log.debug("postMessages. sessionName={} destinationName={} maxInFlight={}", sessionName, destinationName, maxInFlight);
+
+      try {
+
+         BulkPostOutput output = eConfigManager.postMessages(sessionName, destinationName, messages, maxInFlight);
+         log.debug("postMessages {}", output);
+         return Response.status(Response.Status.CREATED).entity(output).build();
+
+      } catch (ExecutionException e) {
+         return Response.serverError().build();
+      } catch (UnknownSessionException | UnknownDestinationException | EmptyMessageException e) {
+         return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+      }
+
+   }
+
    // -----------------------------------------------------------------------
    // Post/Publish a message to Session:Destination from a Template
    // POST /rest/message/<sessionName>/<destinationName>/<templateName>
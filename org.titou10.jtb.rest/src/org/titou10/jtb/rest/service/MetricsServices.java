@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2015 Denis Forveille titou10.titou10@gmail.com
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.titou10.jtb.rest.service;
+
+import javax.inject.Singleton;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Response;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.titou10.jtb.connector.ExternalConnectorManager;
+
+/**
+ * 
+ * Exposes the metrics of the operations performed by JMSToolBox, in Prometheus text format
+ * 
+ * @author Denis Forveille
+ *
+ */
+@Path("/rest/metrics")
+@Singleton
+public class MetricsServices {
+
+   private static final Logger      log             = LoggerFactory.getLogger(MetricsServices.class);
+
+   private static final String      PROMETHEUS_TEXT = "text/plain; version=0.0.4; charset=utf-8";
+
+   private ExternalConnectorManager eConfigManager;
+
+   public MetricsServices(ExternalConnectorManager eConfigManager) {
+      this.eConfigManager = eConfigManager;
+   }
+
+   // -----------------------------------
+   // Retrieve the metrics
+   // /rest/metrics
+   // -----------------------------------
+
+   @GET
+   @Produces(PROMETHEUS_TEXT)
+   public Response getMetrics() {
+      log.debug("getMetrics");
+
+      return Response.ok(eConfigManager.getMetricsAsPrometheusText()).build();
+   }
+}
@@ -49,6 +49,7 @@ public final class Constants {
    public static final String  P_SCRIPT_NAME                 = "scriptName";
    public static final String  P_MODE                        = "mode";
    public static final String  P_LIMIT                       = "limit";
+   public static final String  P_MAX_IN_FLIGHT               = "maxInFlight";
 
    private Constants() {
       // NOP